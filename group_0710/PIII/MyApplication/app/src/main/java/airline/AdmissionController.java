@@ -0,0 +1,90 @@
+package airline;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static util.Assertions.*;
+
+/**
+ * Limits how many expensive searches can run at the same time, so a few slow
+ * queries cannot take every thread and starve the rest. Searches that cannot
+ * start wait their turn in order, for as long as their budget allows.
+ *
+ * @author Chris
+ */
+class AdmissionController {
+
+	/**
+	 * The permits for running searches.
+	 */
+	private Semaphore permits;
+
+	/**
+	 * The most searches that can run at the same time.
+	 */
+	private int maxConcurrent;
+
+	/**
+	 * Creates a controller.
+	 *
+	 * @param maxConcurrent
+	 *            The most searches that can run at the same time.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is not positive.
+	 */
+	AdmissionController(int maxConcurrent) {
+		checkArgument(maxConcurrent > 0);
+		this.maxConcurrent = maxConcurrent;
+		permits = new Semaphore(maxConcurrent, true);
+	}
+
+	/**
+	 * Waits for a search to be allowed to start.
+	 *
+	 * @param timeoutMillis
+	 *            The most milliseconds to wait, where 0 means the search only
+	 *            starts if there is room for it right now.
+	 *
+	 * @return True if the search can start, in which case release() must be
+	 *         called when it ends, or false if it timed out or the thread was
+	 *         interrupted.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the timeout is negative.
+	 */
+	boolean admit(long timeoutMillis) {
+		checkArgument(timeoutMillis >= 0);
+		try {
+			return permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Marks a search that was admitted as finished.
+	 */
+	void release() {
+		permits.release();
+	}
+
+	/**
+	 * Gets the most searches that can run at the same time.
+	 *
+	 * @return The most concurrent searches.
+	 */
+	int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	/**
+	 * Gets how many more searches could start right now.
+	 *
+	 * @return The free permits.
+	 */
+	int getAvailable() {
+		return permits.availablePermits();
+	}
+}
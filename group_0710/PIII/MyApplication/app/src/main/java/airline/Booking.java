@@ -0,0 +1,289 @@
+package airline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.LocalDateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import airline.flight.FlightInformation;
+import airline.flight.Itinerary;
+import parser.CsvParser;
+import parser.CsvTokenizer;
+
+import static util.Assertions.*;
+
+/**
+ * A client's booking of an itinerary. The flights are kept by flight
+ * number, departure and origin rather than as flight objects, so bookings
+ * can be saved and read back before any flights are loaded.
+ *
+ * A booking is saved as one line:
+ *
+ * <pre>
+ * id,email,flights,number,departure,origin,number,departure,origin,...
+ * </pre>
+ *
+ * Fields with commas or quotes in them are quoted the same way as in the
+ * csv files, so an origin such as "Washington, DC" reads back as one field.
+ *
+ * @author Chris
+ */
+public class Booking {
+
+	/**
+	 * The format of the departure times.
+	 */
+	private static final DateTimeFormatter FORMATTER = DateTimeFormat
+			.forPattern("yyyy-MM-dd HH:mm");
+
+	/**
+	 * The id of the booking.
+	 */
+	private long id;
+
+	/**
+	 * The email of the client who booked.
+	 */
+	private String email;
+
+	/**
+	 * The flight numbers, in the order they are flown.
+	 */
+	private List<String> flightNumbers;
+
+	/**
+	 * The departure of each flight.
+	 */
+	private List<LocalDateTime> departures;
+
+	/**
+	 * The origin of each flight.
+	 */
+	private List<String> origins;
+
+	/**
+	 * Creates a booking of an itinerary.
+	 *
+	 * @param id
+	 *            The id of the booking.
+	 *
+	 * @param email
+	 *            The email of the client who booked.
+	 *
+	 * @param itinerary
+	 *            The itinerary booked.
+	 *
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	public Booking(long id, String email, Itinerary itinerary) {
+		checkNotNull(email);
+		checkNotNull(itinerary);
+		this.id = id;
+		this.email = email;
+		flightNumbers = new ArrayList<>();
+		departures = new ArrayList<>();
+		origins = new ArrayList<>();
+		for (FlightInformation flight : itinerary.getListOfFlights()) {
+			flightNumbers.add(flight.getFlightNumber());
+			departures.add(flight.getDepartureDateTime());
+			origins.add(flight.getOrigin());
+		}
+	}
+
+	/**
+	 * Creates a booking from its parts.
+	 *
+	 * @param id
+	 *            The id of the booking.
+	 *
+	 * @param email
+	 *            The email of the client who booked.
+	 *
+	 * @param flightNumbers
+	 *            The flight numbers.
+	 *
+	 * @param departures
+	 *            The departure of each flight.
+	 *
+	 * @param origins
+	 *            The origin of each flight.
+	 */
+	private Booking(long id, String email, List<String> flightNumbers,
+			List<LocalDateTime> departures, List<String> origins) {
+		this.id = id;
+		this.email = email;
+		this.flightNumbers = flightNumbers;
+		this.departures = departures;
+		this.origins = origins;
+	}
+
+	/**
+	 * Reads a booking back from the line it was saved as.
+	 *
+	 * @param row
+	 *            The saved line.
+	 *
+	 * @return The booking.
+	 *
+	 * @throws NullPointerException
+	 *             If the row is null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the row is not a saved booking.
+	 */
+	public static Booking parse(String row) {
+		checkNotNull(row);
+		try {
+			String[] tokens = CsvTokenizer.split(row);
+			checkArgument(tokens.length >= 3);
+			long id = Long.parseLong(tokens[0]);
+			int flights = Integer.parseInt(tokens[2]);
+			checkArgument(flights >= 0 && tokens.length == 3 + flights * 3);
+			List<String> numbers = new ArrayList<>(flights);
+			List<LocalDateTime> departures = new ArrayList<>(flights);
+			List<String> origins = new ArrayList<>(flights);
+			for (int i = 3; i < tokens.length; i += 3) {
+				numbers.add(tokens[i]);
+				departures.add(LocalDateTime.parse(tokens[i + 1], FORMATTER));
+				origins.add(tokens[i + 2]);
+			}
+			return new Booking(id, tokens[1], numbers, departures, origins);
+		} catch (IllegalArgumentException e) {
+			// Also catches the NumberFormatException of the numbers and an
+			// unclosed quote.
+			throw new IllegalArgumentException("Not a booking: " + row, e);
+		}
+	}
+
+	/**
+	 * Gets the id of the booking.
+	 *
+	 * @return The id.
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the email of the client who booked.
+	 *
+	 * @return The email.
+	 */
+	public String getEmail() {
+		return email;
+	}
+
+	/**
+	 * Gets how many flights were booked.
+	 *
+	 * @return The number of flights.
+	 */
+	public int getNumberOfFlights() {
+		return flightNumbers.size();
+	}
+
+	/**
+	 * Checks if one of the booked flights is the given flight.
+	 *
+	 * @param index
+	 *            The position of the booked flight, starting at 0.
+	 *
+	 * @param flight
+	 *            The flight to check.
+	 *
+	 * @return True if they have the same number, departure and origin.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If there is no booked flight at the index.
+	 */
+	public boolean isFlight(int index, FlightInformation flight) {
+		return flightNumbers.get(index).equals(flight.getFlightNumber())
+				&& departures.get(index).equals(flight.getDepartureDateTime())
+				&& origins.get(index).equals(flight.getOrigin());
+	}
+
+	/**
+	 * Gets the key of a booked flight, which is the same as the key of the
+	 * flight itself.
+	 *
+	 * @param index
+	 *            The position of the booked flight, starting at 0.
+	 *
+	 * @return The flight number, departure and origin.
+	 */
+	String getFlightKey(int index) {
+		return flightNumbers.get(index) + ","
+				+ departures.get(index).toString(FORMATTER) + ","
+				+ origins.get(index);
+	}
+
+	/**
+	 * Gets the key that a booking of the flight has for it.
+	 *
+	 * @param flight
+	 *            The flight.
+	 *
+	 * @return The flight number, departure and origin.
+	 */
+	static String keyOf(FlightInformation flight) {
+		return flight.getFlightNumber() + ","
+				+ flight.getDepartureDateTime().toString(FORMATTER) + ","
+				+ flight.getOrigin();
+	}
+
+	/**
+	 * Gets the number of a booked flight.
+	 *
+	 * @param index
+	 *            The position of the booked flight, starting at 0.
+	 *
+	 * @return The flight number.
+	 */
+	public String getFlightNumber(int index) {
+		return flightNumbers.get(index);
+	}
+
+	/**
+	 * Gets the departure of a booked flight.
+	 *
+	 * @param index
+	 *            The position of the booked flight, starting at 0.
+	 *
+	 * @return The departure date and time.
+	 */
+	public LocalDateTime getDepartureDateTime(int index) {
+		return departures.get(index);
+	}
+
+	/**
+	 * Gets the origin of a booked flight.
+	 *
+	 * @param index
+	 *            The position of the booked flight, starting at 0.
+	 *
+	 * @return The origin.
+	 */
+	public String getOrigin(int index) {
+		return origins.get(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		StringBuilder row = new StringBuilder();
+		row.append(id).append(',').append(CsvParser.quote(email))
+				.append(',').append(flightNumbers.size());
+		for (int i = 0; i < flightNumbers.size(); i++) {
+			row.append(',').append(CsvParser.quote(flightNumbers.get(i)))
+					.append(',')
+					.append(departures.get(i).toString(FORMATTER))
+					.append(',').append(CsvParser.quote(origins.get(i)));
+		}
+		return row.toString();
+	}
+}
@@ -0,0 +1,127 @@
+package airline;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import airline.flight.FlightInformation;
+
+import static util.Assertions.*;
+
+/**
+ * Reserves seats on every flight of an itinerary, or on none of them. There
+ * is no lock: each flight's seats are taken with a compare and set, and if
+ * one flight is full the seats already taken on the earlier flights are
+ * given back. Bookings on flights that do not overlap never wait on each
+ * other, and bookings on the same flight only retry their compare and set.
+ *
+ * While a booking is being rolled back another one can briefly see its seats
+ * as taken and fail on a flight with one seat left. It never leaves seats
+ * reserved that no booking holds, and never reserves more seats than a flight
+ * has.
+ *
+ * @author Chris
+ */
+class BookingEngine {
+
+	/**
+	 * How many reservations succeeded.
+	 */
+	private AtomicLong reserved;
+
+	/**
+	 * How many reservations failed because a flight was full.
+	 */
+	private AtomicLong rejected;
+
+	/**
+	 * Creates an engine.
+	 */
+	BookingEngine() {
+		reserved = new AtomicLong();
+		rejected = new AtomicLong();
+	}
+
+	/**
+	 * Reserves seats on every flight, or on none of them.
+	 *
+	 * @param flights
+	 *            The flights to reserve on.
+	 *
+	 * @param seats
+	 *            How many seats to reserve on each flight.
+	 *
+	 * @return True if every flight had the seats and they are now reserved,
+	 *         or false if one did not and nothing was reserved.
+	 *
+	 * @throws NullPointerException
+	 *             If the flights are null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the seats are not positive.
+	 */
+	boolean reserve(List<FlightInformation> flights, int seats) {
+		checkNotNull(flights);
+		checkArgument(seats > 0);
+		int taken = 0;
+		for (FlightInformation flight : flights) {
+			if (!flight.reserveSeats(seats)) {
+				break;
+			}
+			taken++;
+		}
+		if (taken == flights.size()) {
+			reserved.incrementAndGet();
+			return true;
+		}
+
+		for (FlightInformation flight : flights) {
+			if (taken-- == 0) {
+				break;
+			}
+			flight.releaseSeats(seats);
+		}
+		rejected.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Gives back seats reserved on every flight.
+	 *
+	 * @param flights
+	 *            The flights that were reserved on.
+	 *
+	 * @param seats
+	 *            How many seats were reserved on each flight.
+	 *
+	 * @throws NullPointerException
+	 *             If the flights are null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the seats are not positive.
+	 */
+	void release(List<FlightInformation> flights, int seats) {
+		checkNotNull(flights);
+		checkArgument(seats > 0);
+		for (FlightInformation flight : flights) {
+			flight.releaseSeats(seats);
+		}
+	}
+
+	/**
+	 * Gets how many reservations succeeded.
+	 *
+	 * @return The number of reservations.
+	 */
+	long getReserved() {
+		return reserved.get();
+	}
+
+	/**
+	 * Gets how many reservations failed because a flight was full.
+	 *
+	 * @return The number of failed reservations.
+	 */
+	long getRejected() {
+		return rejected.get();
+	}
+}
@@ -4,23 +4,43 @@ import org.joda.time.LocalDate;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
 
 import airline.flight.FlightGraph;
 import airline.flight.FlightInformation;
 import airline.flight.FlightNode;
 import airline.flight.Itinerary;
+import airline.flight.ReachableDestination;
+import airline.flight.SearchOptions;
+import airline.flight.SearchQuery;
+import airline.flight.SearchResult;
+import airline.flight.TripItinerary;
+import airline.flight.TripOptions;
 import user.Client;
+import user.ClientStore;
 import util.Constants;
+import util.Money;
+import parser.CsvFormatException;
+import parser.CsvParser;
+import parser.CsvTokenizer;
 import parser.FlightInfoParser;
+import parser.RowHandler;
 
 import static util.Assertions.*;
 
@@ -31,92 +51,1441 @@ import static util.Assertions.*;
  */
 public class Database {
 
+	/**
+	 * Where flights with more seats booked than they have are reported.
+	 */
+	private static final Logger LOGGER = Logger.getLogger(Database.class
+			.getName());
+
 	/**
 	 * The flight graph with all the information.
 	 */
-	private FlightGraph flightGraph;
+	private FlightGraph flightGraph;
+
+	/**
+	 * All the clients, by email and indexed by last name and card expiry.
+	 */
+	private ClientStore clients;
+
+	/**
+	 * Limits how many searches run at the same time.
+	 */
+	private volatile AdmissionController admission;
+
+	/**
+	 * The most milliseconds a search without a time budget waits to start.
+	 */
+	private volatile long admissionTimeoutMillis;
+
+	/**
+	 * How long a search without a time budget waits to start by default.
+	 */
+	private static final long DEFAULT_ADMISSION_MILLIS = 30000;
+
+	/**
+	 * The file name of the client snapshot in the journal directory.
+	 */
+	private static final String CLIENT_SNAPSHOT = "clients.csv";
+
+	/**
+	 * The file name of the booking snapshot in the journal directory.
+	 */
+	private static final String BOOKING_SNAPSHOT = "bookings.csv";
+
+	/**
+	 * The file name of the journal in the journal directory.
+	 */
+	private static final String JOURNAL = "journal.log";
+
+	/**
+	 * The journal record type of a client being added or changed.
+	 */
+	private static final char CLIENT_RECORD = 'C';
+
+	/**
+	 * The journal record type of a booking.
+	 */
+	private static final char BOOKING_RECORD = 'B';
+
+	/**
+	 * How many rows are read between telling a load listener the progress
+	 * and checking if the load was cancelled.
+	 */
+	private static final int PROGRESS_ROWS = 1024;
+
+	/**
+	 * All the bookings by id, in the order they were made.
+	 */
+	private Map<Long, Booking> bookings;
+
+	/**
+	 * The id of the next booking.
+	 */
+	private long nextBookingId;
+
+	/**
+	 * How many seats the bookings hold on each flight, by flight key. This
+	 * lets seats be taken on flights loaded after their bookings.
+	 */
+	private Map<String, Integer> bookedSeats;
+
+	/**
+	 * Reserves the seats of new bookings.
+	 */
+	private BookingEngine bookingEngine;
+
+	/**
+	 * The journal changes are logged to, or null if there is none.
+	 */
+	private WriteAheadLog journal;
+
+	/**
+	 * The directory of the journal and its snapshots.
+	 */
+	private File journalDirectory;
+
+	/**
+	 * How many records the journal can hold before it is compacted.
+	 */
+	private int compactionThreshold;
+
+	/**
+	 * Guards the journal, the bookings and changes to the clients.
+	 */
+	private final Object journalLock = new Object();
+
+	/**
+	 * Held while the journal is compacted, so only one compaction runs at a
+	 * time. It is always taken before the journal lock, never while holding
+	 * it.
+	 */
+	private final ReentrantLock compactionLock = new ReentrantLock();
+
+	/**
+	 * Creates an empty database.
+	 */
+	public Database() {
+		flightGraph = new FlightGraph();
+		clients = new ClientStore();
+		admission = new AdmissionController(Runtime.getRuntime()
+				.availableProcessors());
+		admissionTimeoutMillis = DEFAULT_ADMISSION_MILLIS;
+		bookings = new LinkedHashMap<>();
+		nextBookingId = 1;
+		bookedSeats = new HashMap<>();
+		bookingEngine = new BookingEngine();
+		compactionThreshold = 10000;
+	}
+
+	/**
+	 * Takes a flight information csv path, parses it, and adds its content to
+	 * flightGraph. Each row is added as soon as it is read, so the rows of the
+	 * file are never all held in memory. A path ending in .gz is decompressed
+	 * as it is read.
+	 * 
+	 * @param path
+	 *            The file path of flight information csv file.
+	 * 
+	 * @throws IOException
+	 *             If the path has any IO errors when reading or the file isn't
+	 *             found.
+	 */
+	public void loadFlightData(String path) throws IOException {
+		CsvTokenizer tokenizer = CsvParser.open(path);
+		try {
+			while (tokenizer.next()) {
+				addLoadedFlight(FlightInfoParser.parseFlight(tokenizer));
+			}
+		} finally {
+			tokenizer.close();
+		}
+	}
+
+	/**
+	 * Adds a flight that was just loaded to the graph, taking the seats of
+	 * any bookings already made on it. A flight that was already loaded
+	 * keeps the seats it had, so loading a file twice books nothing twice.
+	 * 
+	 * @param flightEntry
+	 *            The flight.
+	 */
+	private void addLoadedFlight(FlightInformation flightEntry) {
+		if (flightGraph.addFlight(flightEntry) && flightEntry.hasSeatLimit()) {
+			synchronized (journalLock) {
+				if (!bookedSeats.isEmpty()) {
+					Integer booked = bookedSeats.get(Booking
+							.keyOf(flightEntry));
+					if (booked != null) {
+						takeBookedSeats(flightEntry, booked);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets all clients from the given csv file, which is decompressed as it
+	 * is read if the path ends in .gz.
+	 * 
+	 * @param path
+	 *            The path of the csv file.
+	 * 
+	 * @throws IOException
+	 *             If any error occurs while reading in the client data.
+	 * 
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 */
+	public void loadClientData(String path) throws IOException {
+		checkNotNull(path);
+		CsvParser.parse(path, new RowHandler() {
+			@Override
+			public void handleRow(String[] tokens) {
+				if (tokens.length > 0) {
+					clients.put(parseClient(tokens));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Takes a flight information csv path and adds every row that is a valid
+	 * flight to flightGraph. A row that is not valid does not stop the load:
+	 * it is written to the reject file with its line number and the reason,
+	 * and loading carries on with the next row. Each reject line has the line
+	 * number, the reason and then the columns of the row.
+	 * 
+	 * @param path
+	 *            The file path of flight information csv file.
+	 * 
+	 * @param rejectPath
+	 *            The file to write rejected rows to, which is replaced.
+	 * 
+	 * @return How many rows were loaded and rejected, and how long it took.
+	 * 
+	 * @throws IOException
+	 *             If either file has any IO errors.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	public LoadReport loadFlightData(String path, String rejectPath)
+			throws IOException {
+		return load(path, rejectPath, null, new FlightLoader());
+	}
+
+	/**
+	 * Loads a flight information csv file like loadFlightData(path,
+	 * rejectPath), telling a listener how far it has got. The load can be
+	 * cancelled by interrupting the thread doing it, which stops it at the
+	 * next progress update with the rows before that already added.
+	 * 
+	 * @param path
+	 *            The file path of flight information csv file.
+	 * 
+	 * @param rejectPath
+	 *            The file to write rejected rows to, which is replaced.
+	 * 
+	 * @param listener
+	 *            Told the progress on the loading thread.
+	 * 
+	 * @return How many rows were loaded and rejected, and how long it took.
+	 * 
+	 * @throws InterruptedIOException
+	 *             If the thread was interrupted during the load.
+	 * 
+	 * @throws IOException
+	 *             If either file has any IO errors.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	public LoadReport loadFlightData(String path, String rejectPath,
+			LoadListener listener) throws IOException {
+		checkNotNull(listener);
+		return load(path, rejectPath, listener, new FlightLoader());
+	}
+
+	/**
+	 * Makes and inserts the flight of each row of a flight file.
+	 */
+	private class FlightLoader implements RowLoader<FlightInformation> {
+		@Override
+		public FlightInformation parse(CsvTokenizer row) {
+			int columns = row.getFieldCount();
+			checkArgument(columns == 7 || columns == 8,
+					"expected 7 or 8 columns but found ", columns);
+			return FlightInfoParser.parseFlight(row);
+		}
+
+		@Override
+		public void insert(FlightInformation flight) {
+			addLoadedFlight(flight);
+		}
+	}
+
+	/**
+	 * Gets every client that is valid from the given csv file, writing the
+	 * rows that are not to a reject file in the same way as
+	 * loadFlightData(path, rejectPath).
+	 * 
+	 * @param path
+	 *            The path of the csv file.
+	 * 
+	 * @param rejectPath
+	 *            The file to write rejected rows to, which is replaced.
+	 * 
+	 * @return How many rows were loaded and rejected, and how long it took.
+	 * 
+	 * @throws IOException
+	 *             If either file has any IO errors.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	public LoadReport loadClientData(String path, String rejectPath)
+			throws IOException {
+		return load(path, rejectPath, null, new ClientLoader());
+	}
+
+	/**
+	 * Loads a client csv file like loadClientData(path, rejectPath), telling
+	 * a listener how far it has got. The load can be cancelled by
+	 * interrupting the thread doing it.
+	 * 
+	 * @param path
+	 *            The path of the csv file.
+	 * 
+	 * @param rejectPath
+	 *            The file to write rejected rows to, which is replaced.
+	 * 
+	 * @param listener
+	 *            Told the progress on the loading thread.
+	 * 
+	 * @return How many rows were loaded and rejected, and how long it took.
+	 * 
+	 * @throws InterruptedIOException
+	 *             If the thread was interrupted during the load.
+	 * 
+	 * @throws IOException
+	 *             If either file has any IO errors.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	public LoadReport loadClientData(String path, String rejectPath,
+			LoadListener listener) throws IOException {
+		checkNotNull(listener);
+		return load(path, rejectPath, listener, new ClientLoader());
+	}
+
+	/**
+	 * Makes and inserts the client of each row of a client file.
+	 */
+	private class ClientLoader implements RowLoader<Client> {
+		@Override
+		public Client parse(CsvTokenizer row) {
+			int columns = row.getFieldCount();
+			checkArgument(columns == 6, "expected 6 columns but found ",
+					columns);
+			return parseClient(row.toArray());
+		}
+
+		@Override
+		public void insert(Client client) {
+			clients.put(client);
+		}
+	}
+
+	/**
+	 * Turns the rows of a file into objects and inserts them, for loading a
+	 * file while setting aside the rows that are not valid.
+	 * 
+	 * @param <T>
+	 *            The type of object a row is.
+	 */
+	private interface RowLoader<T> {
+
+		/**
+		 * Makes the object of a row.
+		 * 
+		 * @param row
+		 *            The tokenizer at the row.
+		 * 
+		 * @return The object.
+		 * 
+		 * @throws IllegalArgumentException
+		 *             If a column is not in the right format.
+		 * 
+		 * @throws IndexOutOfBoundsException
+		 *             If the row has too few columns.
+		 */
+		T parse(CsvTokenizer row);
+
+		/**
+		 * Inserts the object of a row.
+		 * 
+		 * @param item
+		 *            The object.
+		 */
+		void insert(T item);
+	}
+
+	/**
+	 * Loads every valid row of a file, writing the rest to a reject file and
+	 * timing each phase.
+	 * 
+	 * @param path
+	 *            The file to load.
+	 * 
+	 * @param rejectPath
+	 *            The file to write rejected rows to.
+	 * 
+	 * @param listener
+	 *            Told the progress every PROGRESS_ROWS rows and at the end,
+	 *            or null to neither report progress nor allow cancelling.
+	 * 
+	 * @param loader
+	 *            Makes and inserts the object of each row.
+	 * 
+	 * @return The report of the load.
+	 * 
+	 * @throws InterruptedIOException
+	 *             If the thread was interrupted during the load.
+	 * 
+	 * @throws IOException
+	 *             If either file has any IO errors.
+	 */
+	private <T> LoadReport load(String path, String rejectPath,
+			LoadListener listener, RowLoader<T> loader) throws IOException {
+		checkNotNull(path);
+		checkNotNull(rejectPath);
+		LoadReport report = new LoadReport();
+		long begin = System.nanoTime();
+
+		CsvTokenizer tokenizer = CsvParser.open(path);
+		try {
+			Writer rejects = CsvParser.create(rejectPath);
+			try {
+				while (true) {
+					long start = System.nanoTime();
+					T item = null;
+					String reason = null;
+					try {
+						if (!tokenizer.next()) {
+							break;
+						}
+						item = loader.parse(tokenizer);
+					} catch (CsvFormatException e) {
+						reason = e.getMessage();
+					} catch (IllegalArgumentException
+							| IndexOutOfBoundsException e) {
+						reason = describe(e);
+					}
+					long parsed = System.nanoTime();
+
+					if (reason == null) {
+						loader.insert(item);
+						report.recordLoaded(parsed - start, System.nanoTime()
+								- parsed);
+					} else {
+						writeReject(rejects, tokenizer, reason);
+						report.recordRejected(parsed - start, System.nanoTime()
+								- parsed);
+					}
+
+					if (listener != null
+							&& report.getRowsRead() % PROGRESS_ROWS == 0) {
+						checkNotCancelled(report);
+						listener.onProgress(report.getRowsLoaded(),
+								report.getRowsRejected());
+					}
+				}
+			} finally {
+				rejects.close();
+			}
+		} finally {
+			tokenizer.close();
+		}
+
+		report.recordElapsed(System.nanoTime() - begin);
+		if (listener != null) {
+			listener.onProgress(report.getRowsLoaded(),
+					report.getRowsRejected());
+		}
+		return report;
+	}
+
+	/**
+	 * Stops a load if the thread doing it was interrupted, leaving the
+	 * thread interrupted.
+	 * 
+	 * @param report
+	 *            The report of the load so far.
+	 * 
+	 * @throws InterruptedIOException
+	 *             If the thread was interrupted.
+	 */
+	private static void checkNotCancelled(LoadReport report)
+			throws InterruptedIOException {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new InterruptedIOException("Load cancelled after "
+					+ report.getRowsRead() + " rows");
+		}
+	}
+
+	/**
+	 * Describes why a row was not valid.
+	 * 
+	 * @param e
+	 *            The exception the row caused.
+	 * 
+	 * @return The message of the exception, or its name if it has none.
+	 */
+	private static String describe(RuntimeException e) {
+		String message = e.getMessage();
+		if (message == null || message.length() == 0) {
+			return "invalid value (" + e.getClass().getSimpleName() + ")";
+		}
+		return message;
+	}
+
+	/**
+	 * Writes a rejected row as its line number, the reason, and then its
+	 * columns.
+	 * 
+	 * @param rejects
+	 *            The reject file.
+	 * 
+	 * @param row
+	 *            The tokenizer at the row.
+	 * 
+	 * @param reason
+	 *            Why the row was rejected.
+	 * 
+	 * @throws IOException
+	 *             If the row could not be written.
+	 */
+	private static void writeReject(Writer rejects, CsvTokenizer row,
+			String reason) throws IOException {
+		rejects.write(Long.toString(row.getLineNumber()));
+		rejects.write(Constants.DELIMITER);
+		rejects.write(CsvParser.quote(reason));
+		for (int i = 0; i < row.getFieldCount(); i++) {
+			rejects.write(Constants.DELIMITER);
+			rejects.write(CsvParser.quote(row.getString(i)));
+		}
+		rejects.write('\n');
+	}
+
+	/**
+	 * Makes a client out of the columns of a client csv row.
+	 * 
+	 * @param tokens
+	 *            The columns of the row.
+	 * 
+	 * @return The client.
+	 */
+	private static Client parseClient(String[] tokens) {
+		return new Client(tokens[0], tokens[1], tokens[2], tokens[3],
+				tokens[4], tokens[5]);
+	}
+
+	/**
+	 * Starts saving every change to the clients and bookings to a journal in
+	 * a directory, so each change only has to write itself instead of every
+	 * client. The clients and bookings saved in the directory are loaded
+	 * first, and then any change in the journal that was not compacted into
+	 * them yet. A change cut off by a crash is dropped.
+	 * 
+	 * @param directory
+	 *            The directory to keep the journal and snapshots in, which is
+	 *            created if it does not exist.
+	 * 
+	 * @throws IOException
+	 *             If the directory cannot be read or written.
+	 * 
+	 * @throws NullPointerException
+	 *             If the directory is null.
+	 * 
+	 * @throws IllegalStateException
+	 *             If a journal is already open.
+	 */
+	public void openJournal(String directory) throws IOException {
+		checkNotNull(directory);
+		synchronized (journalLock) {
+			checkState(journal == null);
+			File folder = new File(directory);
+			if (!folder.isDirectory() && !folder.mkdirs()) {
+				throw new IOException("Cannot create " + directory);
+			}
+
+			File clientSnapshot = new File(folder, CLIENT_SNAPSHOT);
+			if (clientSnapshot.exists()) {
+				loadClientData(clientSnapshot.getPath());
+			}
+			File bookingSnapshot = new File(folder, BOOKING_SNAPSHOT);
+			if (bookingSnapshot.exists()) {
+				BufferedReader reader = new BufferedReader(new FileReader(
+						bookingSnapshot));
+				try {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						putBooking(Booking.parse(line), true);
+					}
+				} finally {
+					reader.close();
+				}
+			}
+
+			WriteAheadLog log = new WriteAheadLog(new File(folder, JOURNAL));
+			try {
+				log.replay(new WriteAheadLog.RecordHandler() {
+					@Override
+					public void handle(char type, String payload)
+							throws IOException {
+						if (type == CLIENT_RECORD) {
+							clients.put(parseClient(CsvTokenizer
+									.split(payload)));
+						} else if (type == BOOKING_RECORD) {
+							putBooking(Booking.parse(payload), true);
+						} else {
+							throw new IOException("Unknown journal record "
+									+ type);
+						}
+					}
+				});
+			} catch (IOException | RuntimeException e) {
+				log.close();
+				throw e;
+			}
+			journal = log;
+			journalDirectory = folder;
+		}
+	}
+
+	/**
+	 * Sets how many changes the journal can hold before they are compacted
+	 * into the snapshots and the journal is emptied.
+	 * 
+	 * @param records
+	 *            The most records in the journal.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the value is not positive.
+	 */
+	public void setJournalCompactionThreshold(int records) {
+		checkArgument(records > 0);
+		synchronized (journalLock) {
+			compactionThreshold = records;
+		}
+	}
+
+	/**
+	 * Writes every client and booking to the snapshots in the journal
+	 * directory and empties the journal. Each snapshot is written to a new
+	 * file that replaces the old one once it is on disk, so a crash part way
+	 * leaves either the old or the new one. Replaying a change that is
+	 * already in a snapshot does nothing, so a crash before the journal is
+	 * emptied loses nothing either.
+	 * 
+	 * The clients and bookings are only copied under the journal lock, and
+	 * the snapshots are written without it, so changes can go on being made
+	 * meanwhile. Those changes are left in the journal.
+	 * 
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 * 
+	 * @throws IllegalStateException
+	 *             If there is no journal open.
+	 */
+	public void compactJournal() throws IOException {
+		compactionLock.lock();
+		try {
+			compact();
+		} finally {
+			compactionLock.unlock();
+		}
+	}
+
+	/**
+	 * Compacts the journal. The compaction lock has to be held.
+	 * 
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 * 
+	 * @throws IllegalStateException
+	 *             If there is no journal open.
+	 */
+	private void compact() throws IOException {
+		WriteAheadLog log;
+		File folder;
+		List<Client> clientRows;
+		List<Booking> bookingRows;
+		long marked;
+		synchronized (journalLock) {
+			checkState(journal != null);
+			log = journal;
+			folder = journalDirectory;
+			// Every change is appended under this lock, so the copies hold
+			// exactly the changes appended before the mark.
+			clientRows = new ArrayList<>(clients.getClients());
+			bookingRows = new ArrayList<>(bookings.values());
+			marked = log.mark();
+		}
+		// A change in the copies whose record then fails to commit is undone,
+		// so the snapshots are only written once every one of them is saved.
+		log.commit(marked);
+		writeSnapshot(new File(folder, CLIENT_SNAPSHOT), clientRows);
+		writeSnapshot(new File(folder, BOOKING_SNAPSHOT), bookingRows);
+		log.resetToMark();
+	}
+
+	/**
+	 * Stops saving changes to the journal, once everything in it is on disk.
+	 * 
+	 * @throws IOException
+	 *             If the journal could not be written or closed.
+	 */
+	public void closeJournal() throws IOException {
+		// A compaction that is running finishes first.
+		compactionLock.lock();
+		try {
+			synchronized (journalLock) {
+				if (journal != null) {
+					try {
+						journal.close();
+					} finally {
+						journal = null;
+						journalDirectory = null;
+					}
+				}
+			}
+		} finally {
+			compactionLock.unlock();
+		}
+	}
+
+	/**
+	 * Adds a client, or replaces the client with the same email. If there is
+	 * a journal, this returns once the change is on disk, and if it cannot
+	 * be saved the client is not changed.
+	 * 
+	 * @param client
+	 *            The client to add.
+	 * 
+	 * @throws IOException
+	 *             If the change could not be saved to the journal.
+	 * 
+	 * @throws NullPointerException
+	 *             If the client is null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If there is a journal and a field of the client has a line
+	 *             break, which the journal cannot hold.
+	 */
+	public void addClient(Client client) throws IOException {
+		checkNotNull(client);
+		WriteAheadLog log;
+		long sequence;
+		Client replaced;
+		synchronized (journalLock) {
+			log = journal;
+			if (log == null) {
+				clients.put(client);
+				return;
+			}
+			// The change is appended before it is made, so a change the
+			// journal refuses is never made.
+			sequence = log.append(CLIENT_RECORD, client.toString());
+			replaced = clients.put(client);
+		}
+		// Committed outside the lock so changes from other threads can share
+		// the same fsync.
+		try {
+			log.commit(sequence);
+		} catch (IOException e) {
+			undoClient(client, replaced);
+			throw e;
+		}
+		compactIfFull();
+	}
+
+	/**
+	 * Puts back the client that was replaced by a change that could not be
+	 * saved, unless the client was changed again since.
+	 * 
+	 * @param client
+	 *            The client that was put.
+	 * 
+	 * @param replaced
+	 *            The client it replaced, or null if there was none.
+	 */
+	private void undoClient(Client client, Client replaced) {
+		synchronized (journalLock) {
+			if (clients.get(client.getEmail()) != client) {
+				return;
+			}
+			if (replaced == null) {
+				clients.remove(client.getEmail());
+			} else {
+				clients.put(replaced);
+			}
+		}
+	}
+
+	/**
+	 * Books an itinerary for a client, taking a seat on every flight of it.
+	 * Seats are reserved without a lock, so many bookings can be made at the
+	 * same time; either every flight gets a seat or none does. If there is a
+	 * journal, this returns once the booking is on disk, and if it cannot be
+	 * saved the booking is not made and its seats are given back.
+	 * 
+	 * @param email
+	 *            The email of the client.
+	 * 
+	 * @param itinerary
+	 *            The itinerary to book.
+	 * 
+	 * @return The booking, or null if a flight has no seats left.
+	 * 
+	 * @throws IOException
+	 *             If the booking could not be saved to the journal.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If there is no client with the email.
+	 */
+	public Booking addBooking(String email, Itinerary itinerary)
+			throws IOException {
+		checkNotNull(email);
+		checkNotNull(itinerary);
+		checkArgument(clients.contains(email));
+		if (!bookingEngine.reserve(itinerary.getListOfFlights(), 1)) {
+			return null;
+		}
+
+		Booking booking;
+		WriteAheadLog log;
+		long sequence;
+		synchronized (journalLock) {
+			booking = new Booking(nextBookingId, email, itinerary);
+			log = journal;
+			if (log == null) {
+				putBooking(booking, false);
+				return booking;
+			}
+			// The booking is appended before it is made, so a booking the
+			// journal refuses is never made.
+			try {
+				sequence = log.append(BOOKING_RECORD, booking.toString());
+			} catch (RuntimeException e) {
+				bookingEngine.release(itinerary.getListOfFlights(), 1);
+				throw e;
+			}
+			putBooking(booking, false);
+		}
+		try {
+			log.commit(sequence);
+		} catch (IOException e) {
+			removeBooking(booking);
+			bookingEngine.release(itinerary.getListOfFlights(), 1);
+			throw e;
+		}
+		compactIfFull();
+		return booking;
+	}
+
+	/**
+	 * Gets the bookings of a client.
+	 * 
+	 * @param email
+	 *            The email of the client.
+	 * 
+	 * @return The bookings in the order they were made.
+	 * 
+	 * @throws NullPointerException
+	 *             If the email is null.
+	 */
+	public List<Booking> getBookings(String email) {
+		checkNotNull(email);
+		List<Booking> found = new ArrayList<>();
+		synchronized (journalLock) {
+			for (Booking booking : bookings.values()) {
+				if (booking.getEmail().equals(email)) {
+					found.add(booking);
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Adds a booking, keeping the next id past it. A booking with an id that
+	 * is already there was replayed twice and is skipped. The journal lock
+	 * has to be held.
+	 * 
+	 * @param booking
+	 *            The booking.
+	 * 
+	 * @param takeSeats
+	 *            If the seats have to be taken on the flights already loaded,
+	 *            since the booking is being recovered.
+	 */
+	private void putBooking(Booking booking, boolean takeSeats) {
+		if (bookings.containsKey(booking.getId())) {
+			return;
+		}
+		bookings.put(booking.getId(), booking);
+		nextBookingId = Math.max(nextBookingId, booking.getId() + 1);
+
+		for (int i = 0; i < booking.getNumberOfFlights(); i++) {
+			String key = booking.getFlightKey(i);
+			Integer booked = bookedSeats.get(key);
+			bookedSeats.put(key, booked == null ? 1 : booked + 1);
+			if (takeSeats) {
+				FlightInformation flight = flightGraph.findFlight(
+						booking.getOrigin(i), booking.getDepartureDateTime(i),
+						booking.getFlightNumber(i));
+				if (flight != null) {
+					takeBookedSeats(flight, 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Takes the seats that bookings already hold on a flight. The bookings
+	 * stand even if the flight was loaded again with fewer seats than were
+	 * booked, so it takes every seat it has left and the seats it is short
+	 * are logged.
+	 * 
+	 * @param flight
+	 *            The flight.
+	 * 
+	 * @param booked
+	 *            How many seats are booked on it.
+	 */
+	private static void takeBookedSeats(FlightInformation flight, int booked) {
+		int taken = flight.reserveSeatsLeft(booked);
+		if (taken < booked) {
+			LOGGER.warning("Flight " + Booking.keyOf(flight)
+					+ " is oversold by " + (booked - taken) + " seats");
+		}
+	}
+
+	/**
+	 * Takes back a booking whose record could not be saved.
+	 * 
+	 * @param booking
+	 *            The booking.
+	 */
+	private void removeBooking(Booking booking) {
+		synchronized (journalLock) {
+			if (bookings.remove(booking.getId()) == null) {
+				return;
+			}
+			for (int i = 0; i < booking.getNumberOfFlights(); i++) {
+				String key = booking.getFlightKey(i);
+				Integer booked = bookedSeats.get(key);
+				if (booked == null || booked <= 1) {
+					bookedSeats.remove(key);
+				} else {
+					bookedSeats.put(key, booked - 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compacts the journal if it holds too many records, unless another
+	 * thread is already compacting it. This must not be called with the
+	 * journal lock held.
+	 * 
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	private void compactIfFull() throws IOException {
+		if (!compactionLock.tryLock()) {
+			return;
+		}
+		try {
+			boolean full;
+			synchronized (journalLock) {
+				full = journal != null
+						&& journal.getRecordCount() >= compactionThreshold;
+			}
+			if (full) {
+				compact();
+			}
+		} finally {
+			compactionLock.unlock();
+		}
+	}
+
+	/**
+	 * Writes one row per item to a new file that replaces the target once it
+	 * is on disk.
+	 * 
+	 * @param target
+	 *            The file to replace.
+	 * 
+	 * @param rows
+	 *            The items, written with toString().
+	 * 
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	private static void writeSnapshot(File target, Collection<?> rows)
+			throws IOException {
+		File temporary = new File(target.getPath() + ".tmp");
+		FileOutputStream out = new FileOutputStream(temporary);
+		try {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out,
+					"UTF-8"));
+			for (Object row : rows) {
+				writer.write(row.toString());
+				writer.write('\n');
+			}
+			writer.flush();
+			out.getFD().sync();
+		} finally {
+			out.close();
+		}
+		if (!temporary.renameTo(target)) {
+			// Some platforms will not rename over a file that exists.
+			if (!target.delete() || !temporary.renameTo(target)) {
+				throw new IOException("Cannot replace " + target);
+			}
+		}
+	}
+
+	/**
+	 * Adds the client's info into a given csv file.
+	 * 
+	 * @param path
+	 *            The path to the csv file.
+	 * 
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 */
+	public void addClientData(String path) {
+		checkNotNull(path);
+		Collection<Client> allClients = clients.getClients();
+		for (Client singleClient : allClients) {
+			singleClient.addToCsv(path);
+		}
+	}
+
+	/**
+	 * Searches for itineraries based on the origin/destination/date.
+	 * 
+	 * @param origin
+	 *            The origin to search from.
+	 * 
+	 * @param destination
+	 *            The destination to arrive at.
+	 * 
+	 * @param departureDate
+	 *            The desired date to leave on.
+	 * 
+	 * @return A list of all itineraries that match the provided arguments.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
+	 */
+	public List<Itinerary> searchItineraries(String origin, String destination,
+			String departureDate) {
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(departureDate);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.searchForItineraries(departureDate, origin,
+					destination);
+		} finally {
+			controller.release();
+		}
+	}
+
+	/**
+	 * Searches for itineraries based on the origin/destination/date, only
+	 * keeping those that satisfy the search options.
+	 * 
+	 * @param origin
+	 *            The origin to search from.
+	 * 
+	 * @param destination
+	 *            The destination to arrive at.
+	 * 
+	 * @param departureDate
+	 *            The desired date to leave on.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @return A list of all itineraries that match the provided arguments.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, or if the
+	 *             options have a time or expansion budget (use
+	 *             searchItinerariesWithinBudget for those).
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
+	 */
+	public List<Itinerary> searchItineraries(String origin, String destination,
+			String departureDate, SearchOptions options) {
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(departureDate);
+		checkNotNull(options);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.searchForItineraries(departureDate, origin,
+					destination, options);
+		} finally {
+			controller.release();
+		}
+	}
+
+	/**
+	 * Runs many itinerary searches together. Searches from the same origin on
+	 * the same date share one traversal of the flights, which is much faster
+	 * than running each search on its own.
+	 * 
+	 * @param queries
+	 *            The searches to run.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @return The itineraries found for each query, in the same order as the
+	 *         queries.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the options have a time or expansion budget.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
+	 */
+	public List<List<Itinerary>> searchItineraries(List<SearchQuery> queries,
+			SearchOptions options) {
+		checkNotNull(queries);
+		checkNotNull(options);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.searchForItineraries(queries, options);
+		} finally {
+			controller.release();
+		}
+	}
+
+	/**
+	 * Sets the most searches that can run at the same time. Any search
+	 * already running is not affected. By default it is the number of
+	 * processors.
+	 * 
+	 * @param maxConcurrent
+	 *            The most searches at the same time.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the value is not positive.
+	 */
+	public void setMaxConcurrentSearches(int maxConcurrent) {
+		admission = new AdmissionController(maxConcurrent);
+	}
 
 	/**
-	 * A map which contains all Clients Use email as key, and Client object as
-	 * value.
+	 * Sets how long a search without a time budget waits for room to run
+	 * before it is turned away with a SearchRejectedException.
+	 * 
+	 * @param timeoutMillis
+	 *            The most milliseconds to wait, where 0 means a search only
+	 *            runs if there is room for it straight away.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the value is negative.
 	 */
-	private Map<String, Client> loadedClients;
+	public void setAdmissionTimeoutMillis(long timeoutMillis) {
+		checkArgument(timeoutMillis >= 0);
+		admissionTimeoutMillis = timeoutMillis;
+	}
 
 	/**
-	 * Creates an empty database.
+	 * Waits for room to run a search, for at most the admission timeout.
+	 * 
+	 * @return The controller that let the search in, whose release() must be
+	 *         called once the search ends.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room in time, or the thread was
+	 *             interrupted while waiting.
 	 */
-	public Database() {
-		flightGraph = new FlightGraph();
-		loadedClients = new HashMap<>();
+	private AdmissionController admit() {
+		AdmissionController controller = admission;
+		long timeoutMillis = admissionTimeoutMillis;
+		if (!controller.admit(timeoutMillis)) {
+			throw new SearchRejectedException("No room to run a search within "
+					+ timeoutMillis + " ms");
+		}
+		return controller;
 	}
 
 	/**
-	 * Takes a flight information csv path, parses it, and adds its content to
-	 * flightGraph.
+	 * Searches for itineraries within the time and expansion budgets of the
+	 * options, once there is room for another search to run. A search waits
+	 * at most its time budget to start, or the admission timeout if it has
+	 * no time budget, and then has its whole budget to run. If it cannot
+	 * start in time it is not run at all.
 	 * 
-	 * @param path
-	 *            The file path of flight information csv file.
+	 * @param origin
+	 *            The origin to search from.
 	 * 
-	 * @throws IOException
-	 *             If the path has any IO errors when reading or the file isn't
-	 *             found.
+	 * @param destination
+	 *            The destination to arrive at.
+	 * 
+	 * @param departureDate
+	 *            The desired date to leave on.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy, along with
+	 *            the budgets for the search.
+	 * 
+	 * @return The itineraries found, and whether the search was cut short or
+	 *         turned away.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format.
 	 */
-	public void loadFlightData(String path) throws IOException {
-		FlightInfoParser flightInfoParser = new FlightInfoParser(path);
-		List<FlightInformation> flightInfo = flightInfoParser.getFlightInfo();
+	public SearchResult searchItinerariesWithinBudget(String origin,
+			String destination, String departureDate, SearchOptions options) {
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(departureDate);
+		checkNotNull(options);
 
-		for (FlightInformation flightEntry : flightInfo) {
-			flightGraph.addFlight(flightEntry);
+		AdmissionController controller = admission;
+		long waitMillis = options.getTimeBudgetMillis() > 0 ? options
+				.getTimeBudgetMillis() : admissionTimeoutMillis;
+		if (!controller.admit(waitMillis)) {
+			return new SearchResult(new ArrayList<Itinerary>(), true, false);
+		}
+		try {
+			return flightGraph.searchForItinerariesWithinBudget(departureDate,
+					origin, destination, options);
+		} finally {
+			controller.release();
 		}
 	}
 
 	/**
-	 * Gets all clients from the given csv file
+	 * Searches for itineraries leaving within some number of days either side
+	 * of the departure date, for clients who can be flexible about when they
+	 * travel.
 	 * 
-	 * @param path
-	 *            The path of the csv file.
+	 * @param origin
+	 *            The origin to search from.
 	 * 
-	 * @throws IOException
-	 *             If any error occurs while reading in the client data.
+	 * @param destination
+	 *            The destination to arrive at.
+	 * 
+	 * @param departureDate
+	 *            The desired date to leave on.
+	 * 
+	 * @param flexibleDays
+	 *            How many days before and after the date to also search.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @return A map of every day in the range, in order, to the itineraries
+	 *         leaving on it.
 	 * 
 	 * @throws NullPointerException
-	 *             If the argument is null.
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, or if the
+	 *             flexible days are negative, or if the options have a time or
+	 *             expansion budget.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
 	 */
-	public void loadClientData(String path) throws IOException {
-		checkNotNull(path);
-		BufferedReader fileReader = null;
-		String line = "";
-		fileReader = new BufferedReader(new FileReader(path));
-		while ((line = fileReader.readLine()) != null) {
-			String[] tokens = line.split(Constants.DELIMITER);
-			if (tokens.length > 0) {
-				Client newClient = new Client(tokens[0], tokens[1], tokens[2],
-						tokens[3], tokens[4], tokens[5]);
-				loadedClients.put(tokens[2], newClient);
-			}
+	public Map<LocalDate, List<Itinerary>> searchItinerariesAround(
+			String origin, String destination, String departureDate,
+			int flexibleDays, SearchOptions options) {
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(departureDate);
+		checkNotNull(options);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.searchForItinerariesAround(departureDate,
+					flexibleDays, origin, destination, options);
+		} finally {
+			controller.release();
 		}
-		fileReader.close();
 	}
 
 	/**
-	 * Adds the client's info into a given csv file.
+	 * Finds the cheapest itinerary for each day within some number of days
+	 * either side of the departure date.
 	 * 
-	 * @param path
-	 *            The path to the csv file.
+	 * @param origin
+	 *            The origin to search from.
+	 * 
+	 * @param destination
+	 *            The destination to arrive at.
+	 * 
+	 * @param departureDate
+	 *            The desired date to leave on.
+	 * 
+	 * @param flexibleDays
+	 *            How many days before and after the date to also search.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @return A map of the days, in order, to their cheapest itinerary. Days
+	 *         without any itinerary are left out.
 	 * 
 	 * @throws NullPointerException
-	 *             If the argument is null.
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, or if the
+	 *             flexible days are negative, or if the options have a time or
+	 *             expansion budget.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
 	 */
-	public void addClientData(String path) {
-		checkNotNull(path);
-		Collection<Client> allClients = loadedClients.values();
-		for (Client singleClient : allClients) {
-			singleClient.addToCsv(path);
+	public Map<LocalDate, Itinerary> searchCheapestPerDay(String origin,
+			String destination, String departureDate, int flexibleDays,
+			SearchOptions options) {
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(departureDate);
+		checkNotNull(options);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.findCheapestPerDay(departureDate, flexibleDays,
+					origin, destination, options);
+		} finally {
+			controller.release();
 		}
 	}
 
 	/**
-	 * Searches for itineraries based on the origin/destination/date.
+	 * Searches for round trips to the destination and back, best first by
+	 * the trip options.
+	 * 
+	 * @param origin
+	 *            The origin to leave from and come back to.
+	 * 
+	 * @param destination
+	 *            The destination to visit.
+	 * 
+	 * @param departureDate
+	 *            The desired date to leave on.
+	 * 
+	 * @param returnDate
+	 *            The desired date to come back on.
+	 * 
+	 * @param options
+	 *            The constraints the itinerary each way has to satisfy.
+	 * 
+	 * @param tripOptions
+	 *            How the trips are ranked and bounded.
+	 * 
+	 * @return The round trips, best first.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If either date is not in YYYY-MM-DD format, or if the
+	 *             options have a time or expansion budget.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
+	 */
+	public List<TripItinerary> searchRoundTrips(String origin,
+			String destination, String departureDate, String returnDate,
+			SearchOptions options, TripOptions tripOptions) {
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(departureDate);
+		checkNotNull(returnDate);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.searchForRoundTrips(departureDate, returnDate,
+					origin, destination, options, tripOptions);
+		} finally {
+			controller.release();
+		}
+	}
+
+	/**
+	 * Searches for multi-city trips made of several one-way segments, best
+	 * first by the trip options.
+	 * 
+	 * @param segments
+	 *            The searches for each segment, in the order they are flown.
+	 * 
+	 * @param options
+	 *            The constraints the itinerary of every segment has to
+	 *            satisfy.
+	 * 
+	 * @param tripOptions
+	 *            How the trips are ranked and bounded.
+	 * 
+	 * @return The trips, best first.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If there are no segments, or if the options have a time or
+	 *             expansion budget.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
+	 */
+	public List<TripItinerary> searchTrips(List<SearchQuery> segments,
+			SearchOptions options, TripOptions tripOptions) {
+		checkNotNull(segments);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.searchForTrips(segments, options, tripOptions);
+		} finally {
+			controller.release();
+		}
+	}
+
+	/**
+	 * Searches for the itineraries that are not beaten by another one on
+	 * total cost, total travel time and number of flights at once. These are
+	 * the only itineraries worth showing when no single one is best.
 	 * 
 	 * @param origin
 	 *            The origin to search from.
@@ -127,21 +1496,144 @@ public class Database {
 	 * @param departureDate
 	 *            The desired date to leave on.
 	 * 
-	 * @return A list of all itineraries that match the provided arguments.
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @return The non-dominated itineraries, cheapest first.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, or if the
+	 *             options have a time or expansion budget.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
+	 */
+	public List<Itinerary> searchParetoItineraries(String origin,
+			String destination, String departureDate, SearchOptions options) {
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(departureDate);
+		checkNotNull(options);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.searchForParetoItineraries(departureDate, origin,
+					destination, options);
+		} finally {
+			controller.release();
+		}
+	}
+
+	/**
+	 * Finds the itinerary that gets to the destination earliest when leaving
+	 * on the departure date.
+	 * 
+	 * @param origin
+	 *            The origin to search from.
+	 * 
+	 * @param destination
+	 *            The destination to arrive at.
+	 * 
+	 * @param departureDate
+	 *            The desired date to leave on.
+	 * 
+	 * @return The earliest arriving itinerary, or null if there is none.
 	 * 
 	 * @throws NullPointerException
 	 *             If any arguments are null.
 	 * 
 	 * @throws IllegalArgumentException
 	 *             If the departure date is not in YYYY-MM-DD format.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
 	 */
-	public List<Itinerary> searchItineraries(String origin, String destination,
+	public Itinerary searchEarliestArrival(String origin, String destination,
 			String departureDate) {
 		checkNotNull(origin);
 		checkNotNull(destination);
 		checkNotNull(departureDate);
-		return flightGraph.searchForItineraries(departureDate, origin,
-				destination);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.findEarliestArrival(departureDate, origin,
+					destination);
+		} finally {
+			controller.release();
+		}
+	}
+
+	/**
+	 * Finds the earliest arriving itinerary for every time the origin can be
+	 * left on the departure date, skipping departures that a later one beats.
+	 * 
+	 * @param origin
+	 *            The origin to search from.
+	 * 
+	 * @param destination
+	 *            The destination to arrive at.
+	 * 
+	 * @param departureDate
+	 *            The desired date to leave on.
+	 * 
+	 * @return The itineraries ordered by departure time.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
+	 */
+	public List<Itinerary> searchArrivalProfile(String origin,
+			String destination, String departureDate) {
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(departureDate);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.findArrivalProfile(departureDate, origin,
+					destination);
+		} finally {
+			controller.release();
+		}
+	}
+
+	/**
+	 * Finds every destination that can be flown to from the origin on the
+	 * departure date, with the cheapest price, earliest arrival and fewest
+	 * flights to each.
+	 * 
+	 * @param origin
+	 *            The origin to search from.
+	 * 
+	 * @param departureDate
+	 *            The desired date to leave on.
+	 * 
+	 * @return A map of destination name to its summary.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
+	 */
+	public Map<String, ReachableDestination> searchReachableDestinations(
+			String origin, String departureDate) {
+		checkNotNull(origin);
+		checkNotNull(departureDate);
+		AdmissionController controller = admit();
+		try {
+			return flightGraph.findReachableDestinations(departureDate, origin);
+		} finally {
+			controller.release();
+		}
 	}
 
 	/**
@@ -160,6 +1652,9 @@ public class Database {
 	 * 
 	 * @throws NullPointerException
 	 *             If any arguments are null.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
 	 */
 	public List<Itinerary> searchItinerariesByCost(String origin,
 			String destination, String departureDate) {
@@ -170,9 +1665,8 @@ public class Database {
 				departureDate);
 		Collections.sort(myList, new Comparator<Itinerary>() {
 			public int compare(Itinerary one, Itinerary other) {
-				Double T1 = one.getTotalCost();
-				Double T2 = other.getTotalCost();
-				return T1.compareTo(T2);
+				return Money.compare(one.getTotalCostCents(),
+						other.getTotalCostCents());
 			}
 		});
 		return myList; // Return a sorted list.
@@ -198,6 +1692,9 @@ public class Database {
 	 * 
 	 * @throws IllegalArgumentException
 	 *             If the departure date is not in YYYY-MM-DD format.
+	 * 
+	 * @throws SearchRejectedException
+	 *             If there was no room to run the search in time.
 	 */
 	public List<Itinerary> searchItinerariesByTime(String origin,
 			String destination, String departureDate) {
@@ -261,13 +1758,31 @@ public class Database {
 	 */
 	public String getClient(String email) {
 		checkNotNull(email);
-		if (!loadedClients.containsKey(email))
+		Client client = clients.get(email);
+		if (client == null)
 			return null;
-		return loadedClients.get(email).toString();
+		return client.toString();
+	}
+
+	/**
+	 * Looks up the client with an email.
+	 * 
+	 * @param email
+	 *            The email of the client.
+	 * 
+	 * @return The client, or null if there is none with the email.
+	 * 
+	 * @throws NullPointerException
+	 *             If the email is null.
+	 */
+	public Client lookUpClient(String email) {
+		checkNotNull(email);
+		return clients.get(email);
 	}
 
 	/**
-	 * Writes all the flight information to a file.
+	 * Writes all the flight information to a file, which is gzip compressed
+	 * if the path ends in .gz.
 	 * 
 	 * @param path
 	 *            The file to write to.
@@ -282,11 +1797,16 @@ public class Database {
 		checkNotNull(path);
 
 		try {
-			BufferedWriter br = new BufferedWriter(new FileWriter(path));
+			Writer br = CsvParser.create(path);
 			for (FlightNode fn : flightGraph.getFlightNodes()) {
 				for (List<FlightInformation> lf : fn.getFlightData().values()) {
 					for (FlightInformation fi : lf) {
-						br.write(fi.toString() + "\n");
+						br.write(fi.toString());
+						if (fi.hasSeatLimit()) {
+							br.write(Constants.DELIMITER
+									+ fi.getNumberOfSeats());
+						}
+						br.write("\n");
 					}
 				}
 			}
@@ -297,7 +1817,8 @@ public class Database {
 	}
 
 	/**
-	 * Writes all the client information to a file.
+	 * Writes all the client information to a file, which is gzip compressed
+	 * if the path ends in .gz.
 	 * 
 	 * @param path
 	 *            The file to write to.
@@ -312,8 +1833,8 @@ public class Database {
 		checkNotNull(path);
 
 		try {
-            BufferedWriter br = new BufferedWriter(new FileWriter(path));
-			for (Client client : loadedClients.values()) {
+            Writer br = CsvParser.create(path);
+			for (Client client : clients.getClients()) {
 				br.write(client.toString() + "\n");
 			}
             br.close();
@@ -325,10 +1846,44 @@ public class Database {
 	/**
 	 * Returns a collection of all the loaded clients.
 	 * 
-	 * @return All the loaded clients.
+	 * @return A read-only view of all the loaded clients, which is not
+	 *         copied.
 	 */
 	public Collection<Client> getAllClients() {
-		return loadedClients.values();
+		return clients.getClients();
+	}
+
+	/**
+	 * Finds the clients whose last name starts with a prefix, ignoring case.
+	 * 
+	 * @param prefix
+	 *            The start of the last name.
+	 * 
+	 * @return The clients by last name and then email.
+	 * 
+	 * @throws NullPointerException
+	 *             If the prefix is null.
+	 */
+	public List<Client> findClientsByLastName(String prefix) {
+		return clients.findByLastNamePrefix(prefix);
+	}
+
+	/**
+	 * Finds the clients whose card expires in a month.
+	 * 
+	 * @param year
+	 *            The year.
+	 * 
+	 * @param month
+	 *            The month, from 1 to 12.
+	 * 
+	 * @return The clients by email.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the month is not from 1 to 12.
+	 */
+	public List<Client> findClientsByCardExpiry(int year, int month) {
+		return clients.findByExpiryMonth(year, month);
 	}
 
 	/**
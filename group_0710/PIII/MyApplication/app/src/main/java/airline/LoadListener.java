@@ -0,0 +1,22 @@
+package airline;
+
+/**
+ * Told how far a load has got, so a screen can show progress on a big file.
+ * It is called on the thread doing the load, every so many rows and once at
+ * the end.
+ *
+ * @author Chris
+ */
+public interface LoadListener {
+
+	/**
+	 * Called after some more rows of the file were read.
+	 *
+	 * @param rowsLoaded
+	 *            How many rows were loaded so far.
+	 *
+	 * @param rowsRejected
+	 *            How many rows were rejected so far.
+	 */
+	void onProgress(long rowsLoaded, long rowsRejected);
+}
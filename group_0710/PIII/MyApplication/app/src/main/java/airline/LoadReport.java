@@ -0,0 +1,170 @@
+package airline;
+
+import java.util.Locale;
+
+/**
+ * What happened while loading a file: how many rows were loaded or
+ * rejected, and how long each phase took. The phases are parsing rows into
+ * objects, inserting the objects, and writing rejected rows out.
+ *
+ * @author Chris
+ */
+public class LoadReport {
+
+	/**
+	 * How many rows were loaded.
+	 */
+	private long rowsLoaded;
+
+	/**
+	 * How many rows were rejected.
+	 */
+	private long rowsRejected;
+
+	/**
+	 * The nanoseconds spent reading and parsing rows.
+	 */
+	private long parseNanos;
+
+	/**
+	 * The nanoseconds spent inserting parsed rows.
+	 */
+	private long insertNanos;
+
+	/**
+	 * The nanoseconds spent writing rejected rows.
+	 */
+	private long rejectNanos;
+
+	/**
+	 * The nanoseconds the whole load took.
+	 */
+	private long elapsedNanos;
+
+	/**
+	 * Records a row that was loaded.
+	 *
+	 * @param parse
+	 *            The nanoseconds spent parsing it.
+	 *
+	 * @param insert
+	 *            The nanoseconds spent inserting it.
+	 */
+	void recordLoaded(long parse, long insert) {
+		rowsLoaded++;
+		parseNanos += parse;
+		insertNanos += insert;
+	}
+
+	/**
+	 * Records a row that was rejected.
+	 *
+	 * @param parse
+	 *            The nanoseconds spent parsing it.
+	 *
+	 * @param reject
+	 *            The nanoseconds spent writing it out.
+	 */
+	void recordRejected(long parse, long reject) {
+		rowsRejected++;
+		parseNanos += parse;
+		rejectNanos += reject;
+	}
+
+	/**
+	 * Records how long the whole load took.
+	 *
+	 * @param nanos
+	 *            The nanoseconds from opening the file to closing it.
+	 */
+	void recordElapsed(long nanos) {
+		elapsedNanos = nanos;
+	}
+
+	/**
+	 * Gets how many rows were read.
+	 *
+	 * @return The loaded and rejected rows.
+	 */
+	public long getRowsRead() {
+		return rowsLoaded + rowsRejected;
+	}
+
+	/**
+	 * Gets how many rows were loaded.
+	 *
+	 * @return The loaded rows.
+	 */
+	public long getRowsLoaded() {
+		return rowsLoaded;
+	}
+
+	/**
+	 * Gets how many rows were rejected.
+	 *
+	 * @return The rejected rows.
+	 */
+	public long getRowsRejected() {
+		return rowsRejected;
+	}
+
+	/**
+	 * Gets the milliseconds spent reading and parsing rows.
+	 *
+	 * @return The parse time.
+	 */
+	public double getParseMillis() {
+		return parseNanos / 1e6;
+	}
+
+	/**
+	 * Gets the milliseconds spent inserting parsed rows.
+	 *
+	 * @return The insert time.
+	 */
+	public double getInsertMillis() {
+		return insertNanos / 1e6;
+	}
+
+	/**
+	 * Gets the milliseconds spent writing rejected rows.
+	 *
+	 * @return The reject time.
+	 */
+	public double getRejectMillis() {
+		return rejectNanos / 1e6;
+	}
+
+	/**
+	 * Gets the milliseconds the whole load took.
+	 *
+	 * @return The elapsed time.
+	 */
+	public double getElapsedMillis() {
+		return elapsedNanos / 1e6;
+	}
+
+	/**
+	 * Gets how many rows were read per second over the whole load.
+	 *
+	 * @return The rows per second, or 0 if no time was recorded.
+	 */
+	public double getRowsPerSecond() {
+		if (elapsedNanos <= 0) {
+			return 0;
+		}
+		return getRowsRead() * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return String.format(Locale.US, "%d rows (%d loaded, %d rejected) in "
+				+ "%.1f ms, %.0f rows/s; parse %.1f ms, insert %.1f ms, "
+				+ "reject %.1f ms", getRowsRead(), rowsLoaded, rowsRejected,
+				getElapsedMillis(), getRowsPerSecond(), getParseMillis(),
+				getInsertMillis(), getRejectMillis());
+	}
+}
@@ -0,0 +1,25 @@
+package airline;
+
+/**
+ * Thrown when a search could not start because too many searches were
+ * already running and no room came up in time. Trying again later can work.
+ *
+ * @author Chris
+ */
+public class SearchRejectedException extends IllegalStateException {
+
+	/**
+	 * The version of this class for serialization.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates the exception.
+	 *
+	 * @param message
+	 *            Why the search was turned away.
+	 */
+	public SearchRejectedException(String message) {
+		super(message);
+	}
+}
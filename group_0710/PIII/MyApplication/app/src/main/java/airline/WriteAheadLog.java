@@ -0,0 +1,507 @@
+package airline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static util.Assertions.*;
+
+/**
+ * An append-only log of changes, so one change can be saved by writing just
+ * that change instead of rewriting every file it touches. Each record is one
+ * line holding a checksum, a type and a payload:
+ *
+ * <pre>
+ * 3f1a09bc,C,Doe,Jane,jane@email.com,...
+ * </pre>
+ *
+ * Records are appended to memory and become durable once committed. Threads
+ * that commit at the same time share one write and one fsync: the first one
+ * in writes everything appended so far, and the rest wait for it instead of
+ * each forcing the disk on their own.
+ *
+ * A crash can leave a half written record at the end of the log. Replaying
+ * stops at the first record that is cut off or fails its checksum, and the
+ * log is cut back to the last good record.
+ *
+ * To compact the log without stopping appends, mark it, save what the
+ * records up to the mark changed somewhere else, and then reset it to the
+ * mark, which only drops the records from before it.
+ *
+ * Once a write fails, every record that was not on disk yet fails to
+ * commit, and the callers undo those changes. Resetting to the mark drops
+ * those records instead of saving them, so they do not come back.
+ *
+ * @author Chris
+ */
+class WriteAheadLog {
+
+	/**
+	 * Handles the records read back while replaying the log.
+	 */
+	interface RecordHandler {
+
+		/**
+		 * Handles one record.
+		 *
+		 * @param type
+		 *            The type of the record.
+		 *
+		 * @param payload
+		 *            The payload of the record.
+		 *
+		 * @throws IOException
+		 *             If the record cannot be applied.
+		 */
+		void handle(char type, String payload) throws IOException;
+	}
+
+	/**
+	 * The encoding of the log.
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * The path of the log.
+	 */
+	private final File path;
+
+	/**
+	 * The file being appended to.
+	 */
+	private RandomAccessFile file;
+
+	/**
+	 * The channel of the file.
+	 */
+	private FileChannel channel;
+
+	/**
+	 * The records appended but not written yet.
+	 */
+	private ByteArrayOutputStream pending;
+
+	/**
+	 * Guards the pending records and the counters.
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * The sequence number of the last record appended.
+	 */
+	private long appended;
+
+	/**
+	 * The sequence number of the last record that is on disk.
+	 */
+	private long durable;
+
+	/**
+	 * If a thread is writing to the file right now.
+	 */
+	private boolean flushing;
+
+	/**
+	 * The error from the last failed write, which every record that was not
+	 * on disk yet reports, or null if nothing failed since the last reset.
+	 */
+	private IOException failure;
+
+	/**
+	 * The error that the records dropped by the last reset report.
+	 */
+	private IOException dropped;
+
+	/**
+	 * The sequence number of the last record on disk before the records
+	 * dropped by the last reset.
+	 */
+	private long droppedAfter;
+
+	/**
+	 * The sequence number of the last record dropped by the last reset.
+	 */
+	private long droppedUpTo;
+
+	/**
+	 * How many records are in the log.
+	 */
+	private int records;
+
+	/**
+	 * The lines of the records appended since the mark, in order, or null if
+	 * there is no mark.
+	 */
+	private List<byte[]> sinceMark;
+
+	/**
+	 * The sequence number of the last record appended before the mark.
+	 */
+	private long markSequence;
+
+	/**
+	 * How many times the file was forced to disk.
+	 */
+	private long syncs;
+
+	/**
+	 * Opens a log, creating it if it does not exist. It has to be replayed
+	 * before anything is appended.
+	 *
+	 * @param path
+	 *            The file of the log.
+	 *
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 *
+	 * @throws NullPointerException
+	 *             If the path is null.
+	 */
+	WriteAheadLog(File path) throws IOException {
+		checkNotNull(path);
+		this.path = path;
+		file = new RandomAccessFile(path, "rw");
+		channel = file.getChannel();
+		pending = new ByteArrayOutputStream();
+	}
+
+	/**
+	 * Reads every good record in the log, in the order they were appended,
+	 * and cuts off anything after the last good one.
+	 *
+	 * @param handler
+	 *            Handles each record.
+	 *
+	 * @throws IOException
+	 *             If the file cannot be read or the handler fails.
+	 *
+	 * @throws NullPointerException
+	 *             If the handler is null.
+	 */
+	void replay(RecordHandler handler) throws IOException {
+		checkNotNull(handler);
+		checkArgument(channel.size() <= Integer.MAX_VALUE);
+		byte[] data = new byte[(int) channel.size()];
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		channel.position(0);
+		int read = 0;
+		while (buffer.hasRemaining() && read >= 0) {
+			read = channel.read(buffer);
+		}
+
+		int start = 0;
+		int count = 0;
+		while (start < data.length) {
+			int end = start;
+			while (end < data.length && data[end] != '\n') {
+				end++;
+			}
+			if (end == data.length) {
+				break;
+			}
+			String line = new String(data, start, end - start, UTF_8);
+			int comma = line.indexOf(',');
+			if (comma != 8 || line.length() < 11 || line.charAt(10) != ',') {
+				break;
+			}
+			String body = line.substring(comma + 1);
+			long checksum;
+			try {
+				checksum = Long.parseLong(line.substring(0, comma), 16);
+			} catch (NumberFormatException e) {
+				break;
+			}
+			if (checksum != checksumOf(body)) {
+				break;
+			}
+			handler.handle(body.charAt(0), body.substring(2));
+			count++;
+			start = end + 1;
+		}
+
+		if (start < data.length) {
+			channel.truncate(start);
+			channel.force(false);
+		}
+		channel.position(start);
+		records = count;
+	}
+
+	/**
+	 * Adds a record to the end of the log. It is not durable until it is
+	 * committed.
+	 *
+	 * @param type
+	 *            The type of the record.
+	 *
+	 * @param payload
+	 *            The payload of the record, which cannot hold a line break.
+	 *
+	 * @return The sequence number to commit the record with.
+	 *
+	 * @throws NullPointerException
+	 *             If the payload is null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the payload has a line break or the type is a comma.
+	 */
+	long append(char type, String payload) {
+		checkNotNull(payload);
+		checkArgument(payload.indexOf('\n') < 0 && payload.indexOf('\r') < 0);
+		checkArgument(type != ',' && type != '\n');
+		String body = type + "," + payload;
+		String line = String.format("%08x", checksumOf(body)) + "," + body
+				+ "\n";
+		byte[] bytes = line.getBytes(UTF_8);
+		synchronized (lock) {
+			pending.write(bytes, 0, bytes.length);
+			records++;
+			if (sinceMark != null) {
+				sinceMark.add(bytes);
+			}
+			return ++appended;
+		}
+	}
+
+	/**
+	 * Waits until a record and every one before it are on disk. If no other
+	 * thread is writing, this one writes everything appended so far in one go.
+	 *
+	 * @param sequence
+	 *            The sequence number of the record.
+	 *
+	 * @throws IOException
+	 *             If the record could not be written.
+	 */
+	void commit(long sequence) throws IOException {
+		byte[] data;
+		long upTo;
+		synchronized (lock) {
+			while (durable < sequence && flushing) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while committing");
+				}
+			}
+			if (sequence > droppedAfter && sequence <= droppedUpTo) {
+				throw dropped;
+			}
+			if (durable >= sequence) {
+				return;
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			flushing = true;
+			data = pending.toByteArray();
+			pending.reset();
+			upTo = appended;
+		}
+
+		IOException error = null;
+		long start = 0;
+		try {
+			start = channel.position();
+			ByteBuffer buffer = ByteBuffer.wrap(data);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		} catch (IOException e) {
+			error = e;
+			try {
+				// The records are reported as failed, so try not to leave
+				// any of them in the file to be replayed.
+				channel.truncate(start);
+			} catch (IOException truncateError) {
+				// The file is already failing, and the first error is the
+				// one reported.
+			}
+		}
+
+		synchronized (lock) {
+			flushing = false;
+			if (error == null) {
+				durable = upTo;
+				syncs++;
+			} else {
+				failure = error;
+			}
+			lock.notifyAll();
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Appends a record and waits for it to be on disk.
+	 *
+	 * @param type
+	 *            The type of the record.
+	 *
+	 * @param payload
+	 *            The payload of the record, which cannot hold a line break.
+	 *
+	 * @throws IOException
+	 *             If the record could not be written.
+	 */
+	void write(char type, String payload) throws IOException {
+		commit(append(type, payload));
+	}
+
+	/**
+	 * Marks the end of the records appended so far. The records appended
+	 * after the mark are kept aside, so resetToMark() can drop just the ones
+	 * before it. Marking again moves the mark.
+	 *
+	 * @return The sequence number of the last record before the mark, which
+	 *         can be committed to make sure every record before the mark is
+	 *         on disk.
+	 */
+	long mark() {
+		synchronized (lock) {
+			sinceMark = new ArrayList<>();
+			markSequence = appended;
+			return markSequence;
+		}
+	}
+
+	/**
+	 * Drops the records from before the mark, once what they changed has
+	 * been saved somewhere else, and keeps the ones after it. The kept
+	 * records are written to a new file that replaces the log once it is on
+	 * disk, so a crash part way leaves either the old log or the new one.
+	 * Every kept record is committed afterwards.
+	 *
+	 * If a write failed since the last reset, the records after the mark
+	 * that were not on disk had already failed to commit and been undone, so
+	 * they are dropped rather than kept, and committing them still fails.
+	 *
+	 * @throws IOException
+	 *             If the new file cannot be written or replace the log.
+	 *
+	 * @throws IllegalStateException
+	 *             If the log is not marked.
+	 */
+	void resetToMark() throws IOException {
+		synchronized (lock) {
+			checkState(sinceMark != null);
+			while (flushing) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while resetting");
+				}
+			}
+
+			int keep = sinceMark.size();
+			if (failure != null) {
+				keep = (int) Math.max(0, Math.min(keep, durable
+						- markSequence));
+			}
+			File temporary = new File(path.getPath() + ".tmp");
+			FileOutputStream out = new FileOutputStream(temporary);
+			try {
+				for (int i = 0; i < keep; i++) {
+					out.write(sinceMark.get(i));
+				}
+				out.getFD().sync();
+			} finally {
+				out.close();
+			}
+			file.close();
+			boolean replaced = temporary.renameTo(path);
+			if (!replaced) {
+				// Some platforms will not rename over a file that exists.
+				replaced = path.delete() && temporary.renameTo(path);
+			}
+			// Whichever file is there now is what gets appended to.
+			file = new RandomAccessFile(path, "rw");
+			channel = file.getChannel();
+			channel.position(channel.size());
+			if (!replaced) {
+				throw new IOException("Cannot replace " + path);
+			}
+
+			if (failure != null) {
+				dropped = failure;
+				droppedAfter = durable;
+				droppedUpTo = appended;
+			}
+			pending.reset();
+			durable = appended;
+			records = keep;
+			failure = null;
+			sinceMark = null;
+			syncs++;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Gets how many records are in the log, committed or not.
+	 *
+	 * @return The number of records.
+	 */
+	int getRecordCount() {
+		synchronized (lock) {
+			return records;
+		}
+	}
+
+	/**
+	 * Gets how many times the log was forced to disk.
+	 *
+	 * @return The number of syncs.
+	 */
+	long getSyncCount() {
+		synchronized (lock) {
+			return syncs;
+		}
+	}
+
+	/**
+	 * Commits everything appended and closes the file.
+	 *
+	 * @throws IOException
+	 *             If the records could not be written or the file closed.
+	 */
+	void close() throws IOException {
+		long last;
+		synchronized (lock) {
+			last = appended;
+		}
+		try {
+			commit(last);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Works out the checksum of the type and payload of a record.
+	 *
+	 * @param body
+	 *            The type, a comma and the payload.
+	 *
+	 * @return The CRC32 of the body.
+	 */
+	private static long checksumOf(String body) {
+		CRC32 crc = new CRC32();
+		byte[] bytes = body.getBytes(UTF_8);
+		crc.update(bytes, 0, bytes.length);
+		return crc.getValue();
+	}
+}
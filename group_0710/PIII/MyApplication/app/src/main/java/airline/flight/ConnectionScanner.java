@@ -0,0 +1,590 @@
+package airline.flight;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import util.Constants;
+
+import static util.Assertions.*;
+
+/**
+ * Answers earliest arrival queries with a connection scan: every flight in
+ * the graph is put in one flat array sorted by departure time, and a query is
+ * a single pass over that array without building any paths along the way.
+ * The path is only put together at the end by following which flight each
+ * flight was reached from.
+ *
+ * Journeys found here follow the connection gap rules, but like any scan over
+ * flights they do not check that a place is never visited twice.
+ *
+ * @author Chris
+ */
+class ConnectionScanner {
+
+	/**
+	 * Every flight, sorted by departure time.
+	 */
+	private FlightInformation[] connections;
+
+	/**
+	 * The departure time of every connection in minutes.
+	 */
+	private long[] departures;
+
+	/**
+	 * The arrival time of every connection in minutes.
+	 */
+	private long[] arrivals;
+
+	/**
+	 * The longest connection allowed between flights.
+	 */
+	private int maxGapMinutes;
+
+	/**
+	 * Creates a scanner over all the flights in the nodes.
+	 *
+	 * @param nodes
+	 *            All the nodes in the graph.
+	 *
+	 * @param maxGapMinutes
+	 *            The longest connection allowed between flights.
+	 *
+	 * @throws NullPointerException
+	 *             If the nodes are null.
+	 */
+	ConnectionScanner(Iterable<FlightNode> nodes, int maxGapMinutes) {
+		checkNotNull(nodes);
+		this.maxGapMinutes = maxGapMinutes;
+
+		List<FlightInformation> allFlights = new ArrayList<>();
+		for (FlightNode node : nodes) {
+			for (List<FlightInformation> flights : node.getFlightData()
+					.values()) {
+				allFlights.addAll(flights);
+			}
+		}
+		Collections.sort(allFlights, new Comparator<FlightInformation>() {
+			public int compare(FlightInformation one, FlightInformation other) {
+				// Epoch minutes are far from overflowing when subtracted.
+				return one.getDepartureMinute() - other.getDepartureMinute();
+			}
+		});
+
+		connections = allFlights.toArray(new FlightInformation[allFlights
+				.size()]);
+		departures = new long[connections.length];
+		arrivals = new long[connections.length];
+		for (int i = 0; i < connections.length; i++) {
+			departures[i] = connections[i].getDepartureMinute();
+			arrivals[i] = connections[i].getArrivalMinute();
+		}
+	}
+
+	/**
+	 * Finds the journey that arrives at the destination as early as possible
+	 * when leaving the origin on the date.
+	 *
+	 * @param origin
+	 *            The origin name.
+	 *
+	 * @param destination
+	 *            The destination name.
+	 *
+	 * @param date
+	 *            The day the first flight has to leave on.
+	 *
+	 * @return The earliest arriving itinerary, or null if there is none.
+	 */
+	Itinerary earliestArrival(String origin, String destination,
+			LocalDate date) {
+		long dayStart = (long) Constants.toEpochDay(date)
+				* Constants.MINUTES_PER_DAY;
+		long dayEnd = dayStart + Constants.MINUTES_PER_DAY;
+
+		// For every place, the arrival times of reached flights and which
+		// flight arrived at that time.
+		Map<String, TreeMap<Long, Integer>> reachedArrivals = new HashMap<>();
+		int[] parents = new int[connections.length];
+		long bestArrival = Long.MAX_VALUE;
+		int bestConnection = -1;
+
+		// The latest time any reached flight can still be connected from.
+		long frontier = Long.MIN_VALUE;
+
+		int first = firstDepartingAtOrAfter(dayStart);
+		for (int i = first; i < connections.length; i++) {
+			// Anything leaving after the best arrival can only arrive later.
+			if (departures[i] >= bestArrival) {
+				break;
+			}
+			if (departures[i] >= dayEnd && departures[i] > frontier) {
+				break;
+			}
+
+			FlightInformation fi = connections[i];
+			int parent = -1;
+			if (fi.getOrigin().equals(origin)) {
+				if (departures[i] >= dayEnd) {
+					continue;
+				}
+			} else {
+				parent = findFeeder(reachedArrivals.get(fi.getOrigin()),
+						departures[i]);
+				if (parent < 0) {
+					continue;
+				}
+			}
+			if (fi.getDestination().equals(origin)) {
+				continue;
+			}
+
+			parents[i] = parent;
+			if (fi.getDestination().equals(destination)) {
+				if (arrivals[i] < bestArrival) {
+					bestArrival = arrivals[i];
+					bestConnection = i;
+				}
+				continue;
+			}
+
+			TreeMap<Long, Integer> placeArrivals = reachedArrivals.get(fi
+					.getDestination());
+			if (placeArrivals == null) {
+				placeArrivals = new TreeMap<>();
+				reachedArrivals.put(fi.getDestination(), placeArrivals);
+			}
+			if (!placeArrivals.containsKey(arrivals[i])) {
+				placeArrivals.put(arrivals[i], i);
+			}
+			frontier = Math.max(frontier, arrivals[i] + maxGapMinutes);
+		}
+
+		if (bestConnection < 0) {
+			return null;
+		}
+		return buildItinerary(bestConnection, parents);
+	}
+
+	/**
+	 * Finds, for every time the origin can be left on the date, the journey
+	 * that arrives at the destination earliest. Any departure that is beaten
+	 * by a later departure arriving no later is left out.
+	 *
+	 * @param origin
+	 *            The origin name.
+	 *
+	 * @param destination
+	 *            The destination name.
+	 *
+	 * @param date
+	 *            The day the first flight has to leave on.
+	 *
+	 * @return The itineraries of the profile, by departure time.
+	 */
+	List<Itinerary> arrivalProfile(String origin, String destination,
+			LocalDate date) {
+		long dayStart = (long) Constants.toEpochDay(date)
+				* Constants.MINUTES_PER_DAY;
+		long dayEnd = dayStart + Constants.MINUTES_PER_DAY;
+		int first = firstDepartingAtOrAfter(dayStart);
+		int horizon = reachableHorizon(origin, first, dayEnd);
+
+		// The earliest arrival at the destination when taking each flight,
+		// and the flight to take after it to get there, for the flights from
+		// first up to the horizon.
+		long[] earliest = new long[horizon - first];
+		int[] next = new int[horizon - first];
+		Arrays.fill(earliest, Long.MAX_VALUE);
+
+		// For every place, the departure times of flights that lead to the
+		// destination and the best such flight at that time.
+		Map<String, TreeMap<Long, Integer>> usefulDepartures = new HashMap<>();
+
+		for (int i = horizon - 1; i >= first; i--) {
+			FlightInformation fi = connections[i];
+			if (fi.getDestination().equals(origin)) {
+				continue;
+			}
+
+			int slot = i - first;
+			next[slot] = -1;
+			if (fi.getDestination().equals(destination)) {
+				earliest[slot] = arrivals[i];
+			} else {
+				TreeMap<Long, Integer> placeDepartures = usefulDepartures
+						.get(fi.getDestination());
+				if (placeDepartures != null) {
+					for (int j : placeDepartures.subMap(arrivals[i], true,
+							arrivals[i] + maxGapMinutes, true).values()) {
+						if (earliest[j - first] < earliest[slot]) {
+							earliest[slot] = earliest[j - first];
+							next[slot] = j;
+						}
+					}
+				}
+			}
+
+			if (earliest[slot] == Long.MAX_VALUE) {
+				continue;
+			}
+			TreeMap<Long, Integer> placeDepartures = usefulDepartures.get(fi
+					.getOrigin());
+			if (placeDepartures == null) {
+				placeDepartures = new TreeMap<>();
+				usefulDepartures.put(fi.getOrigin(), placeDepartures);
+			}
+			Integer existing = placeDepartures.get(departures[i]);
+			if (existing == null
+					|| earliest[slot] < earliest[existing - first]) {
+				placeDepartures.put(departures[i], i);
+			}
+		}
+
+		// Go from the latest departure to the earliest, only keeping those
+		// that arrive before every later departure does.
+		LinkedList<Itinerary> profile = new LinkedList<>();
+		long bestLaterArrival = Long.MAX_VALUE;
+		for (int i = firstDepartingAtOrAfter(dayEnd) - 1; i >= first; i--) {
+			if (connections[i].getOrigin().equals(origin)
+					&& earliest[i - first] < bestLaterArrival) {
+				bestLaterArrival = earliest[i - first];
+				profile.addFirst(buildForwardItinerary(i, next, first));
+			}
+		}
+		return profile;
+	}
+
+	/**
+	 * Finds where a scan for journeys leaving the origin on a day can stop:
+	 * the first connection after the day that no flight reachable from the
+	 * origin connects to. Which arrivals reach a place is only kept as the
+	 * earliest and latest of them, so this can take a few flights too many
+	 * as reachable, but never stops before a flight that is.
+	 *
+	 * @param origin
+	 *            The origin name.
+	 *
+	 * @param first
+	 *            The first connection departing on the day.
+	 *
+	 * @param dayEnd
+	 *            The first minute after the day.
+	 *
+	 * @return The index of the connection to stop before.
+	 */
+	private int reachableHorizon(String origin, int first, long dayEnd) {
+		// For every place, the earliest and latest reached arrival.
+		Map<String, long[]> reached = new HashMap<>();
+		long frontier = Long.MIN_VALUE;
+		int i = first;
+		for (; i < connections.length; i++) {
+			if (departures[i] >= dayEnd && departures[i] > frontier) {
+				break;
+			}
+
+			FlightInformation fi = connections[i];
+			if (fi.getOrigin().equals(origin)) {
+				if (departures[i] >= dayEnd) {
+					continue;
+				}
+			} else {
+				long[] span = reached.get(fi.getOrigin());
+				if (span == null || span[0] > departures[i]
+						|| span[1] < departures[i] - maxGapMinutes) {
+					continue;
+				}
+			}
+
+			long[] span = reached.get(fi.getDestination());
+			if (span == null) {
+				reached.put(fi.getDestination(), new long[] { arrivals[i],
+						arrivals[i] });
+			} else {
+				span[0] = Math.min(span[0], arrivals[i]);
+				span[1] = Math.max(span[1], arrivals[i]);
+			}
+			frontier = Math.max(frontier, arrivals[i] + maxGapMinutes);
+		}
+		return i;
+	}
+
+	/**
+	 * Finds every place that can be flown to from the origin leaving on the
+	 * date, along with the cheapest price, earliest arrival and fewest
+	 * flights to get there. This is one pass over the flights for all the
+	 * destinations at once.
+	 *
+	 * @param origin
+	 *            The origin name.
+	 *
+	 * @param date
+	 *            The day the first flight has to leave on.
+	 *
+	 * @return A map of destination name to its summary.
+	 */
+	Map<String, ReachableDestination> reachableDestinations(String origin,
+			LocalDate date) {
+		long dayStart = (long) Constants.toEpochDay(date)
+				* Constants.MINUTES_PER_DAY;
+		long dayEnd = dayStart + Constants.MINUTES_PER_DAY;
+
+		// For every place, the best cost and legs of arriving at each time.
+		Map<String, TreeMap<Long, Label>> reached = new HashMap<>();
+
+		// For every place, the best found so far and the earliest arriving
+		// flight into it.
+		Map<String, Label> best = new HashMap<>();
+		Map<String, Integer> earliest = new HashMap<>();
+
+		long frontier = Long.MIN_VALUE;
+		int first = firstDepartingAtOrAfter(dayStart);
+		for (int i = first; i < connections.length; i++) {
+			if (departures[i] >= dayEnd && departures[i] > frontier) {
+				break;
+			}
+
+			FlightInformation fi = connections[i];
+			if (fi.getDestination().equals(origin)) {
+				continue;
+			}
+
+			Label from;
+			if (fi.getOrigin().equals(origin)) {
+				if (departures[i] >= dayEnd) {
+					continue;
+				}
+				from = new Label(0, 0);
+			} else {
+				from = bestFeeder(reached.get(fi.getOrigin()), departures[i]);
+				if (from == null) {
+					continue;
+				}
+			}
+			Label to = new Label(from.cost + fi.getCostCents(), from.legs + 1);
+
+			TreeMap<Long, Label> placeArrivals = reached.get(fi
+					.getDestination());
+			if (placeArrivals == null) {
+				placeArrivals = new TreeMap<>();
+				reached.put(fi.getDestination(), placeArrivals);
+			}
+			mergeLabel(placeArrivals, arrivals[i], to);
+			frontier = Math.max(frontier, arrivals[i] + maxGapMinutes);
+
+			Label placeBest = best.get(fi.getDestination());
+			if (placeBest == null) {
+				best.put(fi.getDestination(), new Label(to.cost, to.legs));
+				earliest.put(fi.getDestination(), i);
+			} else {
+				placeBest.merge(to);
+				int earliestSoFar = earliest.get(fi.getDestination());
+				if (arrivals[i] < arrivals[earliestSoFar]) {
+					earliest.put(fi.getDestination(), i);
+				}
+			}
+		}
+
+		Map<String, ReachableDestination> destinations = new HashMap<>();
+		for (Map.Entry<String, Label> entry : best.entrySet()) {
+			String name = entry.getKey();
+			LocalDateTime arrival = connections[earliest.get(name)]
+					.getArrivalDateTime();
+			destinations.put(name, new ReachableDestination(name,
+					entry.getValue().cost, arrival, entry.getValue().legs));
+		}
+		return destinations;
+	}
+
+	/**
+	 * Finds the best cost and legs of the reached arrivals into a place that
+	 * the departure can connect to.
+	 *
+	 * @param placeArrivals
+	 *            The reached arrivals at the place (can be null).
+	 *
+	 * @param departure
+	 *            The departure time out of the place.
+	 *
+	 * @return The best of each, or null if none can be connected to.
+	 */
+	private Label bestFeeder(TreeMap<Long, Label> placeArrivals,
+			long departure) {
+		if (placeArrivals == null) {
+			return null;
+		}
+		Label feeder = null;
+		for (Label label : placeArrivals.subMap(departure - maxGapMinutes,
+				true, departure, true).values()) {
+			if (feeder == null) {
+				feeder = new Label(label.cost, label.legs);
+			} else {
+				feeder.merge(label);
+			}
+		}
+		return feeder;
+	}
+
+	/**
+	 * Merges a label into the arrivals of a place at a time.
+	 *
+	 * @param placeArrivals
+	 *            The reached arrivals at the place.
+	 *
+	 * @param arrival
+	 *            The arrival time.
+	 *
+	 * @param label
+	 *            The label to merge in.
+	 */
+	private static void mergeLabel(TreeMap<Long, Label> placeArrivals,
+			long arrival, Label label) {
+		Label existing = placeArrivals.get(arrival);
+		if (existing == null) {
+			placeArrivals.put(arrival, label);
+		} else {
+			existing.merge(label);
+		}
+	}
+
+	/**
+	 * Finds a reached flight into a place that the departure can connect to.
+	 *
+	 * @param placeArrivals
+	 *            The reached arrivals at the place (can be null).
+	 *
+	 * @param departure
+	 *            The departure time out of the place.
+	 *
+	 * @return The index of the flight, or -1 if there is none.
+	 */
+	private int findFeeder(TreeMap<Long, Integer> placeArrivals,
+			long departure) {
+		if (placeArrivals == null) {
+			return -1;
+		}
+		Map.Entry<Long, Integer> latest = placeArrivals.floorEntry(departure);
+		if (latest == null || departure - latest.getKey() > maxGapMinutes) {
+			return -1;
+		}
+		return latest.getValue();
+	}
+
+	/**
+	 * Finds the first connection that departs at or after the time.
+	 *
+	 * @param time
+	 *            The time in minutes.
+	 *
+	 * @return The index of the connection, or the number of connections if
+	 *         every one departs before the time.
+	 */
+	private int firstDepartingAtOrAfter(long time) {
+		int low = 0;
+		int high = departures.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (departures[middle] < time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Builds the itinerary ending in a connection by following its parents.
+	 *
+	 * @param last
+	 *            The last connection.
+	 *
+	 * @param parents
+	 *            The flight each connection was reached from.
+	 *
+	 * @return The itinerary.
+	 */
+	private Itinerary buildItinerary(int last, int[] parents) {
+		LinkedList<FlightInformation> flights = new LinkedList<>();
+		for (int i = last; i >= 0; i = parents[i]) {
+			flights.addFirst(connections[i]);
+		}
+		return new Itinerary(flights);
+	}
+
+	/**
+	 * Builds the itinerary starting with a connection by following the next
+	 * flights to take.
+	 *
+	 * @param firstLeg
+	 *            The first connection.
+	 *
+	 * @param next
+	 *            The flight to take after each connection.
+	 *
+	 * @param offset
+	 *            The connection the next flights start at.
+	 *
+	 * @return The itinerary.
+	 */
+	private Itinerary buildForwardItinerary(int firstLeg, int[] next,
+			int offset) {
+		LinkedList<FlightInformation> flights = new LinkedList<>();
+		for (int i = firstLeg; i >= 0; i = next[i - offset]) {
+			flights.add(connections[i]);
+		}
+		return new Itinerary(flights);
+	}
+
+	/**
+	 * The best cost and legs of getting somewhere. These are kept apart, so
+	 * they may come from different paths.
+	 */
+	private static class Label {
+
+		/**
+		 * The cheapest cost (cents).
+		 */
+		private long cost;
+
+		/**
+		 * The fewest flights.
+		 */
+		private int legs;
+
+		/**
+		 * Creates a label.
+		 *
+		 * @param cost
+		 *            The cost (cents).
+		 *
+		 * @param legs
+		 *            The number of flights.
+		 */
+		Label(long cost, int legs) {
+			this.cost = cost;
+			this.legs = legs;
+		}
+
+		/**
+		 * Keeps the better of this and the other label for each value.
+		 *
+		 * @param other
+		 *            The other label.
+		 */
+		void merge(Label other) {
+			cost = Math.min(cost, other.cost);
+			legs = Math.min(legs, other.legs);
+		}
+	}
+}
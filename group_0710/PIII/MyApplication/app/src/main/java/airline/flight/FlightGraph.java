@@ -2,20 +2,29 @@ package airline.flight;
 
 import org.joda.time.LocalDate;
 import org.joda.time.LocalDateTime;
+
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import util.Constants;
+import util.IntHashedLinkedList;
+import util.OpenHashedLinkedList;
 
 import static util.Assertions.*;
 
 /**
  * Contains all the nodes connected in a graph, which can be traversed,
- * searched, and other tasks related to the flight graph manipulation. This is
- * not a thread safe object, and should not have multithreading procedures
- * performed on it.
+ * searched, and other tasks related to the flight graph manipulation. Once
+ * every flight is added, any number of threads may search it at once, but
+ * adding flights must never happen at the same time as anything else.
  * 
  * @author Chris, David
  */
@@ -26,25 +35,83 @@ public class FlightGraph {
 	 */
 	private HashMap<String, FlightNode> nameToNode;
 
+	/**
+	 * A lazily computed cache of reachability indexes, one per destination
+	 * that has been searched for. This is cleared whenever the graph changes.
+	 */
+	private HashMap<String, ReachabilityIndex> reachabilityIndexes;
+
+	/**
+	 * A lazily built scanner over every flight sorted by departure, used for
+	 * earliest arrival queries. This is cleared whenever the graph changes.
+	 */
+	private ConnectionScanner connectionScanner;
+
+	/**
+	 * A lazily built copy of the flights laid out for searching, used to find
+	 * the connections out of a place. This is cleared whenever the graph
+	 * changes.
+	 */
+	private volatile FrozenFlightGraph frozenGraph;
+
+	/**
+	 * The key of every flight in the graph in the order they were added, so
+	 * a flight that is added twice can be found in O(1).
+	 */
+	private OpenHashedLinkedList<FlightKey> flightsByKey;
+
 	/**
 	 * Creates an empty graph.
 	 */
 	public FlightGraph() {
 		nameToNode = new HashMap<>();
+		reachabilityIndexes = new HashMap<>();
+		flightsByKey = new OpenHashedLinkedList<>();
 	}
 
 	/**
-	 * Adds flight data to the graph.
+	 * Adds flight data to the graph. A flight is the same as one already in
+	 * the graph if it has the same number and leaves the same place at the
+	 * same time. Adding the same flight again does nothing, and adding it with
+	 * anything else changed (such as its price) replaces the old one. The new
+	 * flight takes over the seats already reserved on the old one, up to how
+	 * many seats it has. Replacing a flight that still goes to the same place
+	 * takes O(1), however many flights leave from there.
 	 * 
 	 * @param flightInfo
 	 *            The flight information to add.
 	 * 
+	 * @return True if the flight was not in the graph yet, or false if it
+	 *         was already there or replaced one that was.
+	 * 
 	 * @throws NullPointerException
 	 *             If the argument is null.
 	 */
-	public void addFlight(FlightInformation flightInfo) {
+	public boolean addFlight(FlightInformation flightInfo) {
 		checkNotNull(flightInfo);
 
+		FlightKey key = new FlightKey(flightInfo);
+		FlightKey existingKey = flightsByKey.get(key);
+		FlightInformation existing = null;
+		if (existingKey != null) {
+			existing = existingKey.flight;
+			if (isUnchanged(existing, flightInfo)) {
+				return false;
+			}
+			// Work out the seats to carry over before the graph is touched,
+			// so nothing has changed if it fails. A flight with no seats left
+			// takes none.
+			int reserved = existing.getNumberOfSeats()
+					- existing.getSeatsLeft();
+			int carried = flightInfo.hasSeatLimit() ? Math.min(reserved,
+					flightInfo.getSeatsLeft()) : 0;
+			if (carried > 0) {
+				flightInfo.reserveSeats(carried);
+			}
+			flightsByKey.remove(existingKey);
+		}
+		flightsByKey.addTail(key);
+
 		// If the flight origin/destination do not exist, create empty nodes
 		// for them so we can add connections later.
 		String origin = flightInfo.getOrigin();
@@ -57,9 +124,116 @@ public class FlightGraph {
 			nameToNode.put(destination, new FlightNode(destination));
 		}
 
-		// Add the connection to the destination.
+		// Add the connection to the destination. A flight that still goes
+		// to the same place takes the old one's position, which its key
+		// remembers, so it is not searched for.
 		FlightNode originNode = nameToNode.get(flightInfo.getOrigin());
-		originNode.addConnection(flightInfo);
+		if (existing == null) {
+			key.index = originNode.connect(flightInfo);
+		} else if (existing.getDestination().equals(destination)) {
+			originNode.replaceConnection(existingKey.index, flightInfo);
+			key.index = existingKey.index;
+		} else {
+			FlightInformation moved = originNode.disconnect(
+					existing.getDestination(), existingKey.index);
+			if (moved != null) {
+				FlightKey movedKey = flightsByKey.get(new FlightKey(moved));
+				movedKey.index = existingKey.index;
+			}
+			key.index = originNode.connect(flightInfo);
+		}
+
+		// Any index computed before this flight existed is now stale.
+		reachabilityIndexes.clear();
+		connectionScanner = null;
+		frozenGraph = null;
+		return existing == null;
+	}
+
+	/**
+	 * Gets how many flights are in the graph.
+	 * 
+	 * @return The number of flights, counting each one once.
+	 */
+	public int getNumberOfFlights() {
+		return flightsByKey.size();
+	}
+
+	/**
+	 * Checks if a flight added again is exactly the same as the one in the
+	 * graph.
+	 * 
+	 * @param existing
+	 *            The flight in the graph.
+	 * 
+	 * @param added
+	 *            The flight with the same key being added.
+	 * 
+	 * @return True if nothing about the flight changed.
+	 */
+	private static boolean isUnchanged(FlightInformation existing,
+			FlightInformation added) {
+		return existing.getCostCents() == added.getCostCents()
+				&& existing.getNumberOfSeats() == added.getNumberOfSeats()
+				&& existing.getDestination().equals(added.getDestination())
+				&& existing.getArrivalDateTime().equals(
+						added.getArrivalDateTime())
+				&& existing.getAirline().equals(added.getAirline());
+	}
+
+	/**
+	 * What makes a flight unique in the graph: its number, where it leaves
+	 * from and when. This compares the fields of the flight directly, so no
+	 * string has to be built to look a flight up.
+	 */
+	private static final class FlightKey {
+
+		/**
+		 * The flight this is the key of.
+		 */
+		private final FlightInformation flight;
+
+		/**
+		 * The hash of the key fields.
+		 */
+		private final int hash;
+
+		/**
+		 * Where the flight is in the list of flights to its destination of
+		 * the node it leaves from.
+		 */
+		private int index;
+
+		/**
+		 * Creates the key of a flight.
+		 * 
+		 * @param flight
+		 *            The flight.
+		 */
+		FlightKey(FlightInformation flight) {
+			this.flight = flight;
+			int h = flight.getFlightNumber().hashCode();
+			h = 31 * h + flight.getDepartureDateTime().hashCode();
+			hash = 31 * h + flight.getOrigin().hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof FlightKey)) {
+				return false;
+			}
+			FlightInformation other = ((FlightKey) o).flight;
+			return hash == ((FlightKey) o).hash
+					&& flight.getFlightNumber().equals(other.getFlightNumber())
+					&& flight.getDepartureDateTime().equals(
+							other.getDepartureDateTime())
+					&& flight.getOrigin().equals(other.getOrigin());
+		}
 	}
 
 	/**
@@ -85,17 +259,555 @@ public class FlightGraph {
 	 */
 	public List<Itinerary> searchForItineraries(String departureDate,
 			String origin, String destination) {
+		return searchForItineraries(departureDate, origin, destination,
+				new SearchOptions());
+	}
+
+	/**
+	 * Searches for itineraries based on the data provided and gets all the
+	 * valid ones that also satisfy the search options.
+	 * 
+	 * @param departureDate
+	 *            The desired departure day.
+	 * 
+	 * @param origin
+	 *            The origin location.
+	 * 
+	 * @param destination
+	 *            The desired destination.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @return A list of the found itinerary (this can be empty).
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, or if the
+	 *             options have a time or expansion budget (use
+	 *             searchForItinerariesWithinBudget for those).
+	 */
+	public List<Itinerary> searchForItineraries(String departureDate,
+			String origin, String destination, SearchOptions options) {
 		checkNotNull(departureDate);
 		checkNotNull(origin);
 		checkNotNull(destination);
+		checkNotNull(options);
 		checkArgument(departureDate.matches("\\d{4}-\\d{2}-\\d{2}"));
+		checkArgument(!options.hasBudget());
 
 		LocalDate startDate = Constants.parseDate(departureDate);
 		List<List<FlightInformation>> flights = searchItinerariesBy(origin,
-				destination, startDate);
+				destination, startDate, options, new SearchBudget(options));
 		return Itinerary.convertListToItineraryList(flights);
 	}
 
+	/**
+	 * Searches for itineraries like searchForItineraries, but stops once the
+	 * time budget or expansion budget in the options runs out and returns
+	 * the itineraries found up to then.
+	 * 
+	 * @param departureDate
+	 *            The desired departure day.
+	 * 
+	 * @param origin
+	 *            The origin location.
+	 * 
+	 * @param destination
+	 *            The desired destination.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy, along with
+	 *            the budgets for the search.
+	 * 
+	 * @return The itineraries found, and whether the search was cut short.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, or if the
+	 *             origin and destination are the same.
+	 */
+	public SearchResult searchForItinerariesWithinBudget(String departureDate,
+			String origin, String destination, SearchOptions options) {
+		checkNotNull(departureDate);
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(options);
+		checkArgument(departureDate.matches("\\d{4}-\\d{2}-\\d{2}"));
+
+		LocalDate startDate = Constants.parseDate(departureDate);
+		SearchBudget budget = new SearchBudget(options);
+		List<List<FlightInformation>> flights = searchItinerariesBy(origin,
+				destination, startDate, options, budget);
+		return new SearchResult(Itinerary.convertListToItineraryList(flights),
+				budget.isExhausted(), true);
+	}
+
+	/**
+	 * Searches for only the itineraries that are not dominated by another one
+	 * on total cost, total elapsed time and number of flights. An itinerary
+	 * is dominated if another is no worse on all three and better on one.
+	 * 
+	 * @param departureDate
+	 *            The desired departure day.
+	 * 
+	 * @param origin
+	 *            The origin location.
+	 * 
+	 * @param destination
+	 *            The desired destination.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @return A list of the non-dominated itineraries, cheapest first (this
+	 *         can be empty).
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, if the
+	 *             origin and destination are the same, or if the options have
+	 *             a time or expansion budget.
+	 */
+	public List<Itinerary> searchForParetoItineraries(String departureDate,
+			String origin, String destination, SearchOptions options) {
+		checkNotNull(departureDate);
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(options);
+		checkArgument(departureDate.matches("\\d{4}-\\d{2}-\\d{2}"));
+		checkArgument(!origin.equals(destination));
+		checkArgument(!options.hasBudget());
+
+		if (!nameToNode.containsKey(origin)
+				|| !nameToNode.containsKey(destination)) {
+			return new LinkedList<>();
+		}
+
+		LocalDate startDate = Constants.parseDate(departureDate);
+		ReachabilityIndex reachability = getReachabilityIndex(destination,
+				options.getMaxConnectionMinutes());
+		return new ParetoSearch(nameToNode, options, reachability).search(
+				origin, destination, startDate);
+	}
+
+	/**
+	 * Finds the itinerary that arrives at the destination as early as
+	 * possible, leaving the origin on the departure date. This does one pass
+	 * over all the flights instead of finding every itinerary.
+	 * 
+	 * @param departureDate
+	 *            The desired departure day.
+	 * 
+	 * @param origin
+	 *            The origin location.
+	 * 
+	 * @param destination
+	 *            The desired destination.
+	 * 
+	 * @return The earliest arriving itinerary, or null if there is none.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, or if the
+	 *             origin and destination are the same.
+	 */
+	public Itinerary findEarliestArrival(String departureDate, String origin,
+			String destination) {
+		checkNotNull(departureDate);
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkArgument(departureDate.matches("\\d{4}-\\d{2}-\\d{2}"));
+		checkArgument(!origin.equals(destination));
+
+		LocalDate startDate = Constants.parseDate(departureDate);
+		return getConnectionScanner().earliestArrival(origin, destination,
+				startDate);
+	}
+
+	/**
+	 * Finds the best arrival at the destination for every time the origin
+	 * can be left on the departure date. A departure is left out if a later
+	 * one arrives no later.
+	 * 
+	 * @param departureDate
+	 *            The desired departure day.
+	 * 
+	 * @param origin
+	 *            The origin location.
+	 * 
+	 * @param destination
+	 *            The desired destination.
+	 * 
+	 * @return The earliest arriving itinerary for each useful departure time,
+	 *         ordered by departure (this can be empty).
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, or if the
+	 *             origin and destination are the same.
+	 */
+	public List<Itinerary> findArrivalProfile(String departureDate,
+			String origin, String destination) {
+		checkNotNull(departureDate);
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkArgument(departureDate.matches("\\d{4}-\\d{2}-\\d{2}"));
+		checkArgument(!origin.equals(destination));
+
+		LocalDate startDate = Constants.parseDate(departureDate);
+		return getConnectionScanner().arrivalProfile(origin, destination,
+				startDate);
+	}
+
+	/**
+	 * Finds every destination that can be flown to from the origin leaving on
+	 * the departure date, with the cheapest price, earliest arrival and
+	 * fewest flights for each. This does one pass over all the flights for
+	 * every destination at once.
+	 * 
+	 * @param departureDate
+	 *            The desired departure day.
+	 * 
+	 * @param origin
+	 *            The origin location.
+	 * 
+	 * @return A map of destination name to its summary (this can be empty).
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format.
+	 */
+	public Map<String, ReachableDestination> findReachableDestinations(
+			String departureDate, String origin) {
+		checkNotNull(departureDate);
+		checkNotNull(origin);
+		checkArgument(departureDate.matches("\\d{4}-\\d{2}-\\d{2}"));
+
+		LocalDate startDate = Constants.parseDate(departureDate);
+		return getConnectionScanner().reachableDestinations(origin,
+				startDate);
+	}
+
+	/**
+	 * Searches for itineraries leaving on any day within some number of days
+	 * either side of the departure date. Every day is searched in the same
+	 * traversal, so the graph is only expanded once for the whole range.
+	 * 
+	 * @param departureDate
+	 *            The desired departure day.
+	 * 
+	 * @param flexibleDays
+	 *            How many days before and after the departure day to also
+	 *            search.
+	 * 
+	 * @param origin
+	 *            The origin location.
+	 * 
+	 * @param destination
+	 *            The desired destination.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @return A map of every day in the range, in order, to the itineraries
+	 *         that leave on it (these lists can be empty).
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, if the
+	 *             flexible days are negative, if the origin and destination
+	 *             are the same, or if the options have a time or expansion
+	 *             budget.
+	 */
+	public Map<LocalDate, List<Itinerary>> searchForItinerariesAround(
+			String departureDate, int flexibleDays, String origin,
+			String destination, SearchOptions options) {
+		checkNotNull(departureDate);
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(options);
+		checkArgument(departureDate.matches("\\d{4}-\\d{2}-\\d{2}"));
+		checkArgument(flexibleDays >= 0);
+		checkArgument(!origin.equals(destination));
+		checkArgument(!options.hasBudget());
+
+		LocalDate date = Constants.parseDate(departureDate);
+		LocalDate firstDay = date.minusDays(flexibleDays);
+		LocalDate lastDay = date.plusDays(flexibleDays);
+
+		Map<LocalDate, List<Itinerary>> byDay = new TreeMap<>();
+		for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day
+				.plusDays(1)) {
+			byDay.put(day, new LinkedList<Itinerary>());
+		}
+
+		if (nameToNode.containsKey(origin)
+				&& nameToNode.containsKey(destination)) {
+			ReachabilityIndex reachability = getReachabilityIndex(
+					destination, options.getMaxConnectionMinutes());
+			List<List<FlightInformation>> listOfFlights = new LinkedList<>();
+			Map<String, List<List<FlightInformation>>> solved;
+			solved = new HashMap<>();
+			solved.put(destination, listOfFlights);
+			populateListOfFlights(origin, firstDay, lastDay, options,
+					new SearchBudget(options), reachability, solved);
+
+			// Every itinerary belongs to the day its first flight leaves.
+			for (Itinerary it : Itinerary
+					.convertListToItineraryList(listOfFlights)) {
+				LocalDate day = it.getListOfFlights().getFirst()
+						.getDepartureDateTime().toLocalDate();
+				byDay.get(day).add(it);
+			}
+		}
+
+		return byDay;
+	}
+
+	/**
+	 * Finds the cheapest itinerary for each day within some number of days
+	 * either side of the departure date, like a fare calendar.
+	 * 
+	 * @param departureDate
+	 *            The desired departure day.
+	 * 
+	 * @param flexibleDays
+	 *            How many days before and after the departure day to also
+	 *            search.
+	 * 
+	 * @param origin
+	 *            The origin location.
+	 * 
+	 * @param destination
+	 *            The desired destination.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @return A map of the days, in order, to the cheapest itinerary leaving
+	 *         on that day. Days with no itineraries are left out.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, if the
+	 *             flexible days are negative, if the origin and destination
+	 *             are the same, or if the options have a time or expansion
+	 *             budget.
+	 */
+	public Map<LocalDate, Itinerary> findCheapestPerDay(String departureDate,
+			int flexibleDays, String origin, String destination,
+			SearchOptions options) {
+		Map<LocalDate, List<Itinerary>> byDay = searchForItinerariesAround(
+				departureDate, flexibleDays, origin, destination, options);
+
+		Map<LocalDate, Itinerary> cheapest = new TreeMap<>();
+		for (Map.Entry<LocalDate, List<Itinerary>> entry : byDay.entrySet()) {
+			Itinerary best = null;
+			for (Itinerary it : entry.getValue()) {
+				if (best == null
+						|| it.getTotalCostCents() < best.getTotalCostCents()) {
+					best = it;
+				}
+			}
+			if (best != null) {
+				cheapest.put(entry.getKey(), best);
+			}
+		}
+		return cheapest;
+	}
+
+	/**
+	 * Runs many itinerary searches at once. Searches that share an origin and
+	 * departure date are run as a single traversal towards all of their
+	 * destinations, so the flights out of the origin and any shared
+	 * connections are only expanded once.
+	 * 
+	 * @param queries
+	 *            The searches to run.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @return A list of the found itineraries for each query, in the same
+	 *         order as the queries.
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the options have a time or expansion budget.
+	 */
+	public List<List<Itinerary>> searchForItineraries(
+			List<SearchQuery> queries, SearchOptions options) {
+		checkNotNull(queries);
+		checkNotNull(options);
+		checkArgument(!options.hasBudget());
+
+		// Group the queries by where and when they leave.
+		Map<String, List<SearchQuery>> groups = new LinkedHashMap<>();
+		for (SearchQuery query : queries) {
+			checkNotNull(query);
+			String key = query.getOrigin() + Constants.DELIMITER
+					+ query.getDepartureDate();
+			if (!groups.containsKey(key)) {
+				groups.put(key, new LinkedList<SearchQuery>());
+			}
+			groups.get(key).add(query);
+		}
+
+		Map<SearchQuery, List<Itinerary>> answers = new HashMap<>();
+		// Groups going to the same set of places share one index, since each
+		// one is a sweep over every flight.
+		Map<Set<String>, ReachabilityIndex> indexes = new HashMap<>();
+		for (List<SearchQuery> group : groups.values()) {
+			String origin = group.get(0).getOrigin();
+			LocalDate startDate = Constants.parseDate(group.get(0)
+					.getDepartureDate());
+
+			Map<String, List<List<FlightInformation>>> solved;
+			solved = new HashMap<>();
+			for (SearchQuery query : group) {
+				if (nameToNode.containsKey(query.getDestination())) {
+					solved.put(query.getDestination(),
+							new LinkedList<List<FlightInformation>>());
+				}
+			}
+
+			if (nameToNode.containsKey(origin) && !solved.isEmpty()) {
+				ReachabilityIndex reachability;
+				if (solved.size() == 1) {
+					reachability = getReachabilityIndex(solved.keySet()
+							.iterator().next(),
+							options.getMaxConnectionMinutes());
+				} else {
+					reachability = indexes.get(solved.keySet());
+					if (reachability == null) {
+						Set<String> destinations = new HashSet<>(solved
+								.keySet());
+						reachability = new ReachabilityIndex(
+								nameToNode.values(), destinations,
+								options.getMaxConnectionMinutes());
+						indexes.put(destinations, reachability);
+					}
+				}
+				populateListOfFlights(origin, startDate, startDate, options,
+						new SearchBudget(options), reachability, solved);
+			}
+
+			for (SearchQuery query : group) {
+				List<List<FlightInformation>> flights = solved.get(query
+						.getDestination());
+				if (flights == null) {
+					flights = new LinkedList<>();
+				}
+				answers.put(query,
+						Itinerary.convertListToItineraryList(flights));
+			}
+		}
+
+		// Copy the answers so repeated queries do not share a list.
+		List<List<Itinerary>> results = new LinkedList<>();
+		for (SearchQuery query : queries) {
+			results.add(new LinkedList<>(answers.get(query)));
+		}
+		return results;
+	}
+
+	/**
+	 * Searches for trips made of several one-way segments, such as an open
+	 * jaw or multi-city trip. The segments are searched together as a batch,
+	 * and then combined so each segment leaves after the one before it
+	 * arrives. Trips are made in order of the trip criterion so the whole
+	 * cross product of segments is never built.
+	 * 
+	 * @param segments
+	 *            The searches for each segment, in the order they are flown.
+	 * 
+	 * @param options
+	 *            The constraints the itinerary of every segment has to
+	 *            satisfy.
+	 * 
+	 * @param tripOptions
+	 *            How the trips are ranked and bounded.
+	 * 
+	 * @return The trips, best first (this can be empty).
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If there are no segments, or if the options have a time or
+	 *             expansion budget.
+	 */
+	public List<TripItinerary> searchForTrips(List<SearchQuery> segments,
+			SearchOptions options, TripOptions tripOptions) {
+		checkNotNull(segments);
+		checkNotNull(options);
+		checkNotNull(tripOptions);
+		checkArgument(!segments.isEmpty());
+
+		List<List<Itinerary>> found = searchForItineraries(segments, options);
+		return new TripSearch(found, tripOptions).search();
+	}
+
+	/**
+	 * Searches for round trips that go to the destination on the departure
+	 * date and come back on the return date.
+	 * 
+	 * @param departureDate
+	 *            The desired day to leave.
+	 * 
+	 * @param returnDate
+	 *            The desired day to come back.
+	 * 
+	 * @param origin
+	 *            The origin location, which is also where the trip ends.
+	 * 
+	 * @param destination
+	 *            The desired destination.
+	 * 
+	 * @param options
+	 *            The constraints the itinerary each way has to satisfy.
+	 * 
+	 * @param tripOptions
+	 *            How the trips are ranked and bounded.
+	 * 
+	 * @return The round trips, best first (this can be empty).
+	 * 
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If either date is not in YYYY-MM-DD format, if the origin
+	 *             and destination are the same, or if the options have a time
+	 *             or expansion budget.
+	 */
+	public List<TripItinerary> searchForRoundTrips(String departureDate,
+			String returnDate, String origin, String destination,
+			SearchOptions options, TripOptions tripOptions) {
+		List<SearchQuery> segments = new LinkedList<>();
+		segments.add(new SearchQuery(origin, destination, departureDate));
+		segments.add(new SearchQuery(destination, origin, returnDate));
+		return searchForTrips(segments, options, tripOptions);
+	}
+
 	/**
 	 * Searches the graph of flights for a list of itineraries to the desired
 	 * destination.
@@ -109,6 +821,12 @@ public class FlightGraph {
 	 * @param departureDate
 	 *            The desired departure day.
 	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @param budget
+	 *            The time and expansions the search can use.
+	 * 
 	 * @return A list of itineraries (a which is a list of flight info).
 	 * 
 	 * @throws NullPointerException
@@ -118,7 +836,8 @@ public class FlightGraph {
 	 *             If the origin or destination are the same.
 	 */
 	private List<List<FlightInformation>> searchItinerariesBy(String origin,
-			String destination, LocalDate departureDate) {
+			String destination, LocalDate departureDate,
+			SearchOptions options, SearchBudget budget) {
 		checkNotNull(origin);
 		checkNotNull(destination);
 		checkNotNull(departureDate);
@@ -131,66 +850,91 @@ public class FlightGraph {
 		boolean hasOrigin = nameToNode.containsKey(origin);
 		boolean hasDestination = nameToNode.containsKey(destination);
 		if (hasOrigin && hasDestination) {
-			populateListOfFlights(origin, destination, departureDate,
-					listOfFlights);
+			// Any flight that can never end up at the destination is not
+			// worth following, so look up which ones can before expanding.
+			ReachabilityIndex reachability = getReachabilityIndex(
+					destination, options.getMaxConnectionMinutes());
+			Map<String, List<List<FlightInformation>>> solved;
+			solved = new HashMap<>();
+			solved.put(destination, listOfFlights);
+			populateListOfFlights(origin, departureDate, departureDate,
+					options, budget, reachability, solved);
 		}
 
 		return listOfFlights;
 	}
 
 	/**
-	 * Takes the required information and populates the list of flights so all
-	 * the valid itinerary from the origin to destination are avaiable. This
-	 * searches the entire graph based on the travel times and available data.
+	 * Takes the required information and populates the lists of flights so
+	 * all the valid itinerary from the origin to each destination are
+	 * avaiable. This searches the entire graph based on the travel times and
+	 * available data. With a single destination a path stops as soon as it
+	 * gets there, with more than one it keeps going towards the others.
 	 * 
 	 * @param origin
 	 *            The starting city name.
 	 * 
-	 * @param destination
-	 *            The final city destination name.
+	 * @param firstDay
+	 *            The first day the client could depart.
 	 * 
-	 * @param departureDate
-	 *            The date the client wants to depart.
+	 * @param lastDay
+	 *            The last day the client could depart.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @param budget
+	 *            The time and expansions the search can use. Once they run
+	 *            out the search stops with whatever it has solved so far.
 	 * 
-	 * @param listOfFlights
-	 *            A mutable list of list of flight informations, or better put:
-	 *            A list of 'flight itineraries' that will be added to from this
-	 *            method.
+	 * @param reachability
+	 *            The index of flights that can reach any of the destinations.
+	 * 
+	 * @param solvedByDestination
+	 *            A map of every final city destination name to a mutable list
+	 *            of list of flight informations, or better put: A list of
+	 *            'flight itineraries' that will be added to from this method.
 	 */
-	private void populateListOfFlights(String origin, String destination,
-			LocalDate departureDate,
-			List<List<FlightInformation>> listOfFlights) {
+	private void populateListOfFlights(String origin, LocalDate firstDay,
+			LocalDate lastDay, SearchOptions options, SearchBudget budget,
+			ReachabilityIndex reachability,
+			Map<String, List<List<FlightInformation>>> solvedByDestination) {
 		// This will be our list of rotating itinerary that is considered 'not
 		// solved' for a final path yet. We will continue adding and removing
 		// elements of this list until it is empty (which means we exhausted
 		// all possible paths). Any paths that resolve from the origin to
-		// destination from this list will be added to the listOfFlights since
+		// a destination from this list will be added to its solved list since
 		// they are completely solved paths we can return.
 		LinkedList<ItineraryBuilder> listUnsolvedPaths = new LinkedList<>();
 
+		// A path at one destination may still be on its way to another.
+		boolean searchPastDestinations = solvedByDestination.size() > 1;
+
 		// Find all flights from the search time within the constant time and
 		// populate a list of 1-flight itinerary lists. We need to do this
 		// outside of the loop since the list requires a starting element and
 		// we don't have that yet.
 		assert nameToNode.containsKey(origin);
-		getValidItineraryListFromNodeAt(nameToNode.get(origin), departureDate,
-				listUnsolvedPaths);
+		getValidItineraryListFromNodeAt(nameToNode.get(origin), firstDay,
+				lastDay, options, reachability, listUnsolvedPaths);
 
 		// Since the above may have possibly yielded a valid path immediately,
 		// we have to check for any valid ones and add them to the completed
 		// list (meaning a single flight is a valid itinerary).
-		migrateCompleteItineraries(listUnsolvedPaths, listOfFlights,
-				destination);
+		migrateCompleteItineraries(listUnsolvedPaths, solvedByDestination,
+				searchPastDestinations);
 
 		// While the list contains elements, keep searching and putting valid
+		// ones in their solved list, unless the budget runs out first.
 		ItineraryBuilder unsolvedItinerary;
 		LinkedList<FlightInformation> foundValidFlights;
-		while (listUnsolvedPaths.size() > 0) {
+		while (listUnsolvedPaths.size() > 0 && budget.spend()) {
 			// Pop the last element of the list and we'll operate on that.
 			unsolvedItinerary = listUnsolvedPaths.pop();
 
 			// Search for all viable paths from the last destination above.
-			foundValidFlights = findFlightPermutations(unsolvedItinerary);
+			foundValidFlights = findFlightPermutations(unsolvedItinerary,
+					options, reachability);
 
 			// If there was one or more results from searching above, then
 			// create new lists for each permutation, append, and add back to
@@ -201,15 +945,18 @@ public class FlightGraph {
 
 				// Append to the popped list by generating new permutations.
 				ItineraryBuilder newItList = new ItineraryBuilder(
-						unsolvedItinerary);
-				newItList.add(validFlight);
+						unsolvedItinerary, validFlight);
 
-				// If the last location is the desired final place, then it's
-				// done and it can be added into the final list.
-				if (newItList.getLastDestination().equals(destination)) {
-					listOfFlights.add(newItList.getList());
-				} else {
-					// Else if not, then put it back in the list.
+				// If the last location is a desired final place, then it's
+				// done and it can be added into its final list.
+				List<List<FlightInformation>> solved = solvedByDestination
+						.get(newItList.getLastDestination());
+				if (solved != null) {
+					solved.add(newItList.getList());
+				}
+
+				// Else if not, then put it back in the list.
+				if (solved == null || searchPastDestinations) {
 					listUnsolvedPaths.add(newItList);
 				}
 			}
@@ -224,33 +971,48 @@ public class FlightGraph {
 	 * @param originNode
 	 *            The starting node.
 	 * 
-	 * @param departureDate
-	 *            The starting date to search.
+	 * @param firstDay
+	 *            The first day a flight can depart on.
+	 * 
+	 * @param lastDay
+	 *            The last day a flight can depart on.
+	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 * 
+	 * @param reachability
+	 *            The index of flights that can reach the destination.
 	 * 
 	 * @param listUnsolvedPaths
 	 *            The list to mutate by adding in the new paths.
 	 */
 	private void getValidItineraryListFromNodeAt(FlightNode originNode,
-			LocalDate departureDate,
+			LocalDate firstDay, LocalDate lastDay, SearchOptions options,
+			ReachabilityIndex reachability,
 			LinkedList<ItineraryBuilder> listUnsolvedPaths) {
 		assert originNode != null;
-		assert departureDate != null;
+		assert firstDay != null;
+		assert lastDay != null;
+		assert options != null;
+		assert reachability != null;
 		assert listUnsolvedPaths != null;
 		assert listUnsolvedPaths.size() == 0;
 
-		// For each connected node...
-		for (List<FlightInformation> listInfo : originNode.getFlightData()
-				.values()) {
-			// For every flight from that node...
-			for (FlightInformation fi : listInfo) {
-				// If the node is in a reasonable departure time, we'll use
-				// that. This is safe to use since we know we don't have
-				// self edges (as the constructor disallows such objects).
-				// Note that this has to be on the same day according to the
-				// specification of this project.
-				if (fi.isOnSameDepartureDayAs(departureDate)) {
-					listUnsolvedPaths.add(new ItineraryBuilder(fi));
-				}
+		// Only the flights leaving on one of the days are looked at, which
+		// are found by departure time without checking every flight. This is
+		// safe to use since we know we don't have self edges (as the
+		// constructor disallows such objects).
+		FrozenFlightGraph frozen = getFrozenGraph();
+		int origin = frozen.idOf(originNode.getName());
+		int first = frozen.firstDepartingAtOrAfter(origin,
+				Constants.toEpochDay(firstDay) * Constants.MINUTES_PER_DAY);
+		int last = frozen.firstDepartingAtOrAfter(origin,
+				(Constants.toEpochDay(lastDay) + 1) * Constants.MINUTES_PER_DAY);
+		for (int i = first; i < last; i++) {
+			FlightInformation fi = frozen.getFlight(i);
+			if (options.permitsFirstLeg(fi)
+					&& reachability.canReachDestination(fi)) {
+				listUnsolvedPaths.add(new ItineraryBuilder(fi));
 			}
 		}
 	}
@@ -263,97 +1025,178 @@ public class FlightGraph {
 	 * @param listUnsolvedPaths
 	 *            The list of unsolved paths.
 	 * 
-	 * @param listOfFlights
-	 *            The complete list of flights that are to be returned from the
-	 *            search.
+	 * @param solvedByDestination
+	 *            The complete lists of flights that are to be returned from
+	 *            the search for each destination name.
 	 * 
-	 * @param destination
-	 *            The name of the final destination.
+	 * @param searchPastDestinations
+	 *            If solved paths should also stay in the unsolved list.
 	 */
 	private void migrateCompleteItineraries(
 			LinkedList<ItineraryBuilder> listUnsolvedPaths,
-			List<List<FlightInformation>> listOfFlights, String destination) {
-		assert listOfFlights != null;
+			Map<String, List<List<FlightInformation>>> solvedByDestination,
+			boolean searchPastDestinations) {
+		assert solvedByDestination != null;
 		assert listUnsolvedPaths != null;
-		assert destination != null;
 
 		// This will contain the solved paths, if any.
 		LinkedList<ItineraryBuilder> solvedPaths = new LinkedList<>();
 
 		// Collect the solved paths into a new list.
 		for (ItineraryBuilder li : listUnsolvedPaths) {
-			if (li.getLastDestination().equals(destination)) {
+			if (solvedByDestination.containsKey(li.getLastDestination())) {
 				solvedPaths.add(li);
 			}
 		}
 
 		// Remove them from the unsolved lists path. This gets around the
 		// annoying concurrent modification error that would happen otherwise.
-		listUnsolvedPaths.removeAll(solvedPaths);
+		if (!searchPastDestinations) {
+			listUnsolvedPaths.removeAll(solvedPaths);
+		}
 
 		// Add the solved paths to their proper place.
 		for (ItineraryBuilder solvedItList : solvedPaths) {
-			listOfFlights.add(solvedItList.getList());
+			solvedByDestination.get(solvedItList.getLastDestination()).add(
+					solvedItList.getList());
 		}
 	}
 
 	/**
 	 * Takes a single unsolved itinerary list, looks at the end node, and will
 	 * check (from the arrival time at the final destination of this list) all
-	 * the other possible valid times. It does this by traversing the graph and
-	 * marking the nodes we cannot visit, then only visiting the valid nodes and
-	 * taking all the different flight information travel times that are valid.
+	 * the other possible valid times. It does this by marking the places we
+	 * cannot visit, then only looking at the flights out of the last place
+	 * that leave within the connection window and go somewhere unmarked.
 	 * 
 	 * @param unsolvedItinerary
 	 *            A valid permutation of flight information to expand outwards
 	 *            from.
 	 * 
+	 * @param options
+	 *            The constraints every itinerary has to satisfy, any flight
+	 *            that would break one is skipped.
+	 * 
+	 * @param reachability
+	 *            The index of flights that can reach the destination, any
+	 *            flight not in here is a dead end and is skipped.
+	 * 
 	 * @return A list of all the valid flight informations that permutate from
 	 *         the last destination which should be further pursued as valid
 	 *         paths. This can return empty.
 	 */
 	private LinkedList<FlightInformation> findFlightPermutations(
-			ItineraryBuilder unsolvedItinerary) {
+			ItineraryBuilder unsolvedItinerary, SearchOptions options,
+			ReachabilityIndex reachability) {
 		LinkedList<FlightInformation> flightPerms = new LinkedList<>();
 
-		// Reset the graph to being unmarked, and then mark it based on the
-		// positions we have already been to in the given list.
-		for (FlightNode node : nameToNode.values()) {
-			node.unmarkVisited();
+		// If the path already has as many legs as allowed, nothing can be
+		// added to it, so there is no point in looking at the graph.
+		if (!options.permitsMoreLegs(unsolvedItinerary)) {
+			return flightPerms;
 		}
-		for (FlightInformation fi : unsolvedItinerary.getList()) {
-			assert nameToNode.containsKey(fi.getOrigin());
-			nameToNode.get(fi.getOrigin()).markVisited();
+
+		// Mark the places we have already been to in the given list. Since
+		// there is overlap (as in, destination matches the origin of the
+		// next arrival), we chose to mark all the origins and then the
+		// destination of the final flight since there is no origin to mark
+		// it with.
+		// A path only has a few places, so they are kept in a small set
+		// rather than an array with room for every place in the graph.
+		FrozenFlightGraph frozen = getFrozenGraph();
+		List<FlightInformation> path = unsolvedItinerary.getList();
+		IntHashedLinkedList visited = new IntHashedLinkedList(path.size() + 1);
+		for (FlightInformation fi : path) {
+			visited.add(frozen.idOf(fi.getOrigin()));
 		}
+		int lastPlace = frozen.idOf(unsolvedItinerary.getLastDestination());
+		assert lastPlace >= 0;
+		visited.add(lastPlace);
 
-		// Since there is overlap (as in, destination matches the origin of
-		// the next arrival), we chose to mark all the origins. This means
-		// the very last spot to be marked is the destination of the final
-		// node since there is no origin to mark it with.
-		String lastDestName = unsolvedItinerary.getLastDestination();
-		assert nameToNode.containsKey(lastDestName);
-		nameToNode.get(lastDestName).markVisited();
-
-		// Now that we have our node, iterate over all the flights out of the
-		// destination node and see which ones are worth pursuing.
-		FlightNode lastNode = nameToNode.get(lastDestName);
-		LocalDateTime lastArrival = unsolvedItinerary.getLastArrivalTime();
-		for (String connectedName : lastNode.getFlightData().keySet()) {
-			List<FlightInformation> flights = lastNode.getFlightData()
-					.get(connectedName);
-			// Get the node and see if it's marked (to ignore cycles).
-			if (nameToNode.get(connectedName).isNotVisited()) {
-				for (FlightInformation flightInfo : flights) {
-					if (flightInfo.withinDepartureTime(lastArrival)) {
-						flightPerms.add(flightInfo);
-					}
-				}
+		// The flights out of the last place are sorted by departure, so only
+		// the ones leaving within the connection window are looked at. The
+		// window is worked out as a long so a huge maximum connection cannot
+		// wrap around to before the arrival.
+		long arrival = unsolvedItinerary.getLastArrivalMinute();
+		int first = frozen.firstDepartingAtOrAfter(lastPlace, arrival
+				+ options.getMinConnectionMinutes());
+		int last = frozen.firstDepartingAtOrAfter(lastPlace, arrival
+				+ options.getMaxConnectionMinutes() + 1);
+		for (int i = first; i < last; i++) {
+			// Ignore any flight back to a marked place (to ignore cycles).
+			if (visited.contains(frozen.getDestination(i))) {
+				continue;
+			}
+			FlightInformation flightInfo = frozen.getFlight(i);
+			if (options.permitsConnection(unsolvedItinerary, flightInfo)
+					&& reachability.canReachDestination(flightInfo)) {
+				flightPerms.add(flightInfo);
 			}
 		}
 
 		return flightPerms;
 	}
 
+	/**
+	 * Gets the reachability index for the destination, computing it first if
+	 * it has not been asked for since the graph last changed.
+	 * 
+	 * @param destination
+	 *            The destination name.
+	 * 
+	 * @param maxGapMinutes
+	 *            The longest connection the search allows.
+	 * 
+	 * @return The index of flights that can reach the destination.
+	 */
+	private synchronized ReachabilityIndex getReachabilityIndex(
+			String destination, int maxGapMinutes) {
+		// Only one gap is cached per destination, which is the default one
+		// for almost every search.
+		ReachabilityIndex index = reachabilityIndexes.get(destination);
+		if (index == null || index.getMaxGapMinutes() != maxGapMinutes) {
+			index = new ReachabilityIndex(nameToNode.values(),
+					Collections.singleton(destination), maxGapMinutes);
+			reachabilityIndexes.put(destination, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the frozen copy of the graph, building it first if the graph
+	 * changed since it was last built.
+	 * 
+	 * @return The frozen copy of all the flights.
+	 */
+	private FrozenFlightGraph getFrozenGraph() {
+		// This is called for every path, so only lock when building it.
+		FrozenFlightGraph frozen = frozenGraph;
+		if (frozen == null) {
+			synchronized (this) {
+				frozen = frozenGraph;
+				if (frozen == null) {
+					frozen = new FrozenFlightGraph(nameToNode.values());
+					frozenGraph = frozen;
+				}
+			}
+		}
+		return frozen;
+	}
+
+	/**
+	 * Gets the connection scanner, building it first if the graph changed
+	 * since it was last built.
+	 * 
+	 * @return The connection scanner over all the flights.
+	 */
+	private synchronized ConnectionScanner getConnectionScanner() {
+		if (connectionScanner == null) {
+			connectionScanner = new ConnectionScanner(nameToNode.values(),
+					Constants.MAX_MINUTES_PER_FLIGHT_GAP);
+		}
+		return connectionScanner;
+	}
+
 	/**
 	 * Gets a list of flights on a date that directly go to/from a place.
 	 * 
@@ -383,13 +1226,16 @@ public class FlightGraph {
 			return listFlights;
 		}
 
-		// Go through all the flights and find the ones on the date.
-		if (nameToNode.containsKey(origin)) {
-			List<FlightInformation> flightInfo = nameToNode.get(origin)
-					.getFlightData().get(destination);
+		// Go through all the flights and find the ones on the date. A place
+		// with no flights to the destination has no list for it at all.
+		FlightNode node = nameToNode.get(origin);
+		List<FlightInformation> flightInfo = node == null ? null : node
+				.getFlightData().get(destination);
+		if (flightInfo != null) {
+			int day = Constants.toEpochDay(departureDate);
 			for (FlightInformation fi : flightInfo) {
 				// If it's on the same departure day, then remember this one.
-				if (fi.isOnSameDepartureDayAs(departureDate)) {
+				if (fi.departsOnDay(day)) {
 					listFlights.add(fi);
 				}
 			}
@@ -398,6 +1244,41 @@ public class FlightGraph {
 		return listFlights;
 	}
 
+	/**
+	 * Finds the flight with a number that leaves an origin at a time.
+	 * 
+	 * @param origin
+	 *            The origin of the flight.
+	 * 
+	 * @param departure
+	 *            When the flight departs.
+	 * 
+	 * @param flightNumber
+	 *            The flight number.
+	 * 
+	 * @return The flight, or null if there is none.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	public FlightInformation findFlight(String origin, LocalDateTime departure,
+			String flightNumber) {
+		checkNotNull(origin);
+		checkNotNull(departure);
+		checkNotNull(flightNumber);
+		FlightNode node = nameToNode.get(origin);
+		if (node == null) {
+			return null;
+		}
+		for (FlightInformation fi : node.getDeparturesBetween(departure,
+				departure.plusMinutes(1))) {
+			if (fi.getFlightNumber().equals(flightNumber)) {
+				return fi;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Gets the number of loaded nodes in this graph.
 	 * 
@@ -1,12 +1,15 @@
 package airline.flight;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 import org.joda.time.LocalDate;
 import org.joda.time.LocalDateTime;
-import org.joda.time.Minutes;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
+import parser.CsvParser;
 import util.Constants;
+import util.Money;
 
 import static util.Assertions.*;
 
@@ -63,15 +66,54 @@ public class FlightInformation {
 	private String destination;
 
 	/**
-	 * The cost in dollars (decimals are cents).
+	 * The cost in cents, so costs add up and compare exactly.
 	 */
-	private double cost;
+	private long costCents;
 
 	/**
 	 * How many minutes it will take.
 	 */
 	private int travelTimeMinutes;
 
+	/**
+	 * When the flight departs, in minutes since the epoch.
+	 */
+	private int departureMinute;
+
+	/**
+	 * When the flight arrives, in minutes since the epoch.
+	 */
+	private int arrivalMinute;
+
+	/**
+	 * The day the flight departs, in days since the epoch.
+	 */
+	private int departureDay;
+
+	/**
+	 * The number of seats of a flight that has no limit on them.
+	 */
+	public static final int UNLIMITED_SEATS = Integer.MAX_VALUE;
+
+	/**
+	 * Changes the seats left atomically. An updater is used instead of an
+	 * AtomicInteger per flight so large schedules do not pay for an extra
+	 * object on every flight.
+	 */
+	private static final AtomicIntegerFieldUpdater<FlightInformation>
+			SEATS_LEFT = AtomicIntegerFieldUpdater.newUpdater(
+					FlightInformation.class, "seatsLeft");
+
+	/**
+	 * How many seats the flight has.
+	 */
+	private int numberOfSeats;
+
+	/**
+	 * How many seats are not reserved yet.
+	 */
+	private volatile int seatsLeft;
+
 	/**
 	 * Creates a new travel from raw text data by parsing the date times and
 	 * passing it to the other constructor.
@@ -107,9 +149,52 @@ public class FlightInformation {
 	public FlightInformation(String flightNumber, String departureDateTime,
 			String arrivalDateTime, String airline, String origin,
 			String destination, double cost) {
+		this(flightNumber, departureDateTime, arrivalDateTime, airline, origin,
+				destination, cost, UNLIMITED_SEATS);
+	}
+
+	/**
+	 * Creates a new travel with a number of seats from raw text data by
+	 * parsing the date times and passing it to the other constructor.
+	 * 
+	 * @param flightNumber
+	 *            The flight number.
+	 * 
+	 * @param departureDateTime
+	 *            The departure date time.
+	 * 
+	 * @param arrivalDateTime
+	 *            The arrival date time.
+	 * 
+	 * @param airline
+	 *            The airline name.
+	 * 
+	 * @param origin
+	 *            The origin location name.
+	 * 
+	 * @param destination
+	 *            The destination name.
+	 * 
+	 * @param cost
+	 *            How much the cost is (dollars).
+	 * 
+	 * @param numberOfSeats
+	 *            How many seats the flight has, or UNLIMITED_SEATS.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the cost or seats are negative, if the travel time is
+	 *             negative, or if the departure date is after the arrival
+	 *             date.
+	 */
+	public FlightInformation(String flightNumber, String departureDateTime,
+			String arrivalDateTime, String airline, String origin,
+			String destination, double cost, int numberOfSeats) {
 		this(flightNumber, LocalDateTime.parse(departureDateTime, dtFormatter),
 				LocalDateTime.parse(arrivalDateTime, dtFormatter), airline,
-				origin, destination, cost);
+				origin, destination, cost, numberOfSeats);
 	}
 
 	/**
@@ -147,12 +232,91 @@ public class FlightInformation {
 	public FlightInformation(String flightNumber,
 			LocalDateTime departureDateTime, LocalDateTime arrivalDateTime,
 			String airline, String origin, String destination, double cost) {
+		this(flightNumber, departureDateTime, arrivalDateTime, airline, origin,
+				destination, cost, UNLIMITED_SEATS);
+	}
+
+	/**
+	 * Creates a new flight information with a number of seats from the data.
+	 * 
+	 * @param flightNumber
+	 *            The flight number.
+	 * 
+	 * @param departureDateTime
+	 *            The departure date time.
+	 * 
+	 * @param arrivalDateTime
+	 *            The arrival date time.
+	 * 
+	 * @param airline
+	 *            The airline name.
+	 * 
+	 * @param origin
+	 *            The origin location name.
+	 * 
+	 * @param destination
+	 *            The destination name.
+	 * 
+	 * @param cost
+	 *            How much the cost is (dollars).
+	 * 
+	 * @param numberOfSeats
+	 *            How many seats the flight has, or UNLIMITED_SEATS.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the cost or seats are negative, if the travel time is
+	 *             negative, or if the departure date is after the arrival
+	 *             date, or if the destination equals the origin.
+	 */
+	public FlightInformation(String flightNumber,
+			LocalDateTime departureDateTime, LocalDateTime arrivalDateTime,
+			String airline, String origin, String destination, double cost,
+			int numberOfSeats) {
+		this(flightNumber, departureDateTime, arrivalDateTime, airline, origin,
+				destination, toCostCents(cost), numberOfSeats);
+	}
+
+	/**
+	 * Creates a new flight information with a cost in cents.
+	 * 
+	 * @param flightNumber
+	 *            The flight number.
+	 * 
+	 * @param departureDateTime
+	 *            The departure date time.
+	 * 
+	 * @param arrivalDateTime
+	 *            The arrival date time.
+	 * 
+	 * @param airline
+	 *            The airline name.
+	 * 
+	 * @param origin
+	 *            The origin location name.
+	 * 
+	 * @param destination
+	 *            The destination name.
+	 * 
+	 * @param costCents
+	 *            How much the cost is (cents).
+	 * 
+	 * @param numberOfSeats
+	 *            How many seats the flight has, or UNLIMITED_SEATS.
+	 */
+	private FlightInformation(String flightNumber,
+			LocalDateTime departureDateTime, LocalDateTime arrivalDateTime,
+			String airline, String origin, String destination, long costCents,
+			int numberOfSeats) {
 		checkNotNull(departureDateTime);
 		checkNotNull(arrivalDateTime);
 		checkNotNull(airline);
 		checkNotNull(origin);
 		checkNotNull(destination);
-		checkArgument(cost >= 0);
+		checkArgument(costCents >= 0);
+		checkArgument(numberOfSeats >= 0);
 		checkArgument(departureDateTime.isBefore(arrivalDateTime));
 		checkArgument(!origin.equals(destination));
 
@@ -162,9 +326,126 @@ public class FlightInformation {
 		this.airline = airline;
 		this.origin = origin;
 		this.destination = destination;
-		this.cost = cost;
-		this.travelTimeMinutes = Minutes.minutesBetween(departureDateTime,
-                arrivalDateTime).getMinutes();
+		this.costCents = costCents;
+		this.departureMinute = Constants.toEpochMinutes(departureDateTime);
+		this.arrivalMinute = Constants.toEpochMinutes(arrivalDateTime);
+		this.departureDay = Constants.toEpochDay(departureDateTime
+				.toLocalDate());
+		this.travelTimeMinutes = arrivalMinute - departureMinute;
+		this.numberOfSeats = numberOfSeats;
+		this.seatsLeft = numberOfSeats;
+	}
+
+	/**
+	 * Creates a new flight information with a number of seats from raw text
+	 * data and a cost that is already in cents, such as one parsed straight
+	 * from a file.
+	 * 
+	 * @param flightNumber
+	 *            The flight number.
+	 * 
+	 * @param departureDateTime
+	 *            The departure date time.
+	 * 
+	 * @param arrivalDateTime
+	 *            The arrival date time.
+	 * 
+	 * @param airline
+	 *            The airline name.
+	 * 
+	 * @param origin
+	 *            The origin location name.
+	 * 
+	 * @param destination
+	 *            The destination name.
+	 * 
+	 * @param costCents
+	 *            How much the cost is (cents).
+	 * 
+	 * @param numberOfSeats
+	 *            How many seats the flight has, or UNLIMITED_SEATS.
+	 * 
+	 * @return The flight information.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the cost or seats are negative, if the travel time is
+	 *             negative, or if the departure date is after the arrival
+	 *             date, or if the destination equals the origin.
+	 */
+	public static FlightInformation withCostCents(String flightNumber,
+			String departureDateTime, String arrivalDateTime, String airline,
+			String origin, String destination, long costCents,
+			int numberOfSeats) {
+		return new FlightInformation(flightNumber, LocalDateTime.parse(
+				departureDateTime, dtFormatter), LocalDateTime.parse(
+				arrivalDateTime, dtFormatter), airline, origin, destination,
+				costCents, numberOfSeats);
+	}
+
+	/**
+	 * Creates a new flight information with a number of seats from the data
+	 * and a cost that is already in cents.
+	 * 
+	 * @param flightNumber
+	 *            The flight number.
+	 * 
+	 * @param departureDateTime
+	 *            The departure date time.
+	 * 
+	 * @param arrivalDateTime
+	 *            The arrival date time.
+	 * 
+	 * @param airline
+	 *            The airline name.
+	 * 
+	 * @param origin
+	 *            The origin location name.
+	 * 
+	 * @param destination
+	 *            The destination name.
+	 * 
+	 * @param costCents
+	 *            How much the cost is (cents).
+	 * 
+	 * @param numberOfSeats
+	 *            How many seats the flight has, or UNLIMITED_SEATS.
+	 * 
+	 * @return The flight information.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the cost or seats are negative, if the travel time is
+	 *             negative, or if the departure date is after the arrival
+	 *             date, or if the destination equals the origin.
+	 */
+	public static FlightInformation withCostCents(String flightNumber,
+			LocalDateTime departureDateTime, LocalDateTime arrivalDateTime,
+			String airline, String origin, String destination, long costCents,
+			int numberOfSeats) {
+		return new FlightInformation(flightNumber, departureDateTime,
+				arrivalDateTime, airline, origin, destination, costCents,
+				numberOfSeats);
+	}
+
+	/**
+	 * Converts a cost in dollars to cents for the constructors.
+	 * 
+	 * @param cost
+	 *            The cost (dollars).
+	 * 
+	 * @return The cost rounded to the nearest cent.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the cost is negative or not a number.
+	 */
+	private static long toCostCents(double cost) {
+		checkArgument(cost >= 0);
+		return Money.toCents(cost);
 	}
 
 	/**
@@ -181,9 +462,57 @@ public class FlightInformation {
 	 *             If the argument is null.
 	 */
 	public boolean withinDepartureTime(LocalDateTime prevArrivalTime) {
+		return withinDepartureTime(prevArrivalTime, 0,
+				Constants.MAX_MINUTES_PER_FLIGHT_GAP);
+	}
+
+	/**
+	 * Checks if this flight departs within a gap of minutes after the
+	 * previous arrival time.
+	 * 
+	 * @param prevArrivalTime
+	 *            The time of the previous arrival.
+	 * 
+	 * @param minGap
+	 *            The least minutes there must be between the two.
+	 * 
+	 * @param maxGap
+	 *            The most minutes there can be between the two.
+	 * 
+	 * @return True if it's within the gap for the previous arrival time, or
+	 *         false otherwise.
+	 * 
+	 * @throws NullPointerException
+	 *             If the time is null.
+	 */
+	public boolean withinDepartureTime(LocalDateTime prevArrivalTime,
+			int minGap, int maxGap) {
 		checkNotNull(prevArrivalTime);
-        long diff = Minutes.minutesBetween(prevArrivalTime, departureDateTime).getMinutes();
-		return diff >= 0 && diff <= Constants.MAX_MINUTES_PER_FLIGHT_GAP;
+		return departsWithin(Constants.toEpochMinutes(prevArrivalTime),
+				minGap, maxGap);
+	}
+
+	/**
+	 * Checks if this flight departs within a gap of minutes after the
+	 * previous arrival, given in minutes since the epoch. This is what the
+	 * search loops use, since it only compares ints.
+	 * 
+	 * @param prevArrivalMinute
+	 *            The minute of the previous arrival.
+	 * 
+	 * @param minGap
+	 *            The least minutes there must be between the two.
+	 * 
+	 * @param maxGap
+	 *            The most minutes there can be between the two.
+	 * 
+	 * @return True if it's within the gap for the previous arrival time, or
+	 *         false otherwise.
+	 */
+	public boolean departsWithin(int prevArrivalMinute, int minGap,
+			int maxGap) {
+		int diff = departureMinute - prevArrivalMinute;
+		return diff >= minGap && diff <= maxGap;
 	}
 
 	/**
@@ -201,11 +530,19 @@ public class FlightInformation {
 	 */
 	public boolean isOnSameDepartureDayAs(LocalDate date) {
 		checkNotNull(date);
-		int year = departureDateTime.getYear();
-		int month = departureDateTime.getMonthOfYear();
-		int day = departureDateTime.getDayOfMonth();
-		return (year == date.getYear() && month == date.getMonthOfYear()
-				&& day == date.getDayOfMonth());
+		return departureDay == Constants.toEpochDay(date);
+	}
+
+	/**
+	 * Checks if the flight departs on a day, given in days since the epoch.
+	 * 
+	 * @param epochDay
+	 *            The day to check.
+	 * 
+	 * @return True if the flight departs on that day.
+	 */
+	public boolean departsOnDay(int epochDay) {
+		return departureDay == epochDay;
 	}
 
 	/**
@@ -235,6 +572,35 @@ public class FlightInformation {
 		return arrivalDateTime;
 	}
 
+	/**
+	 * Gets when the flight departs as a number, for comparing times without
+	 * going through LocalDateTime.
+	 * 
+	 * @return The departure in minutes since the epoch.
+	 */
+	public int getDepartureMinute() {
+		return departureMinute;
+	}
+
+	/**
+	 * Gets when the flight arrives as a number, for comparing times without
+	 * going through LocalDateTime.
+	 * 
+	 * @return The arrival in minutes since the epoch.
+	 */
+	public int getArrivalMinute() {
+		return arrivalMinute;
+	}
+
+	/**
+	 * Gets the day the flight departs as a number.
+	 * 
+	 * @return The departure day in days since the epoch.
+	 */
+	public int getDepartureDay() {
+		return departureDay;
+	}
+
 	/**
 	 * Gets the airline name.
 	 * 
@@ -265,10 +631,20 @@ public class FlightInformation {
 	/**
 	 * Gets the cost of the flight.
 	 * 
-	 * @return The cost of the flight.
+	 * @return The cost of the flight (dollars).
 	 */
 	public double getCost() {
-		return cost;
+		return Money.toDollars(costCents);
+	}
+
+	/**
+	 * Gets the cost of the flight in cents, which adds up and compares
+	 * exactly.
+	 * 
+	 * @return The cost of the flight (cents).
+	 */
+	public long getCostCents() {
+		return costCents;
 	}
 
 	/**
@@ -281,15 +657,120 @@ public class FlightInformation {
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Gets how many seats the flight has.
+	 * 
+	 * @return The number of seats, or UNLIMITED_SEATS.
+	 */
+	public int getNumberOfSeats() {
+		return numberOfSeats;
+	}
+
+	/**
+	 * Checks if the flight has a limited number of seats.
+	 * 
+	 * @return True if seats can run out.
+	 */
+	public boolean hasSeatLimit() {
+		return numberOfSeats != UNLIMITED_SEATS;
+	}
+
+	/**
+	 * Gets how many seats are not reserved yet.
+	 * 
+	 * @return The seats left, or UNLIMITED_SEATS.
+	 */
+	public int getSeatsLeft() {
+		return seatsLeft;
+	}
+
+	/**
+	 * Reserves seats if there are enough left. This never blocks: it retries
+	 * a compare and set on the seats left until it either takes them or sees
+	 * there are not enough.
+	 * 
+	 * @param seats
+	 *            How many seats to reserve.
+	 * 
+	 * @return True if they were reserved, or false if there are not enough.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the seats are not positive.
+	 */
+	public boolean reserveSeats(int seats) {
+		checkArgument(seats > 0);
+		if (!hasSeatLimit()) {
+			return true;
+		}
+		while (true) {
+			int left = seatsLeft;
+			if (left < seats) {
+				return false;
+			}
+			if (SEATS_LEFT.compareAndSet(this, left, left - seats)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Reserves as many of the seats as are left, without failing when there
+	 * are not enough. This is for seats that are already booked, such as
+	 * bookings recovered for a flight that was loaded again with fewer seats.
+	 * 
+	 * @param seats
+	 *            How many seats to reserve.
+	 * 
+	 * @return How many seats were reserved, which is less than asked for if
+	 *         the flight did not have enough left.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the seats are not positive.
+	 */
+	public int reserveSeatsLeft(int seats) {
+		checkArgument(seats > 0);
+		if (!hasSeatLimit()) {
+			return seats;
+		}
+		while (true) {
+			int left = seatsLeft;
+			int taken = Math.min(left, seats);
+			if (SEATS_LEFT.compareAndSet(this, left, left - taken)) {
+				return taken;
+			}
+		}
+	}
+
+	/**
+	 * Gives back seats that were reserved.
+	 * 
+	 * @param seats
+	 *            How many seats to give back.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the seats are not positive.
+	 */
+	public void releaseSeats(int seats) {
+		checkArgument(seats > 0);
+		if (hasSeatLimit()) {
+			SEATS_LEFT.addAndGet(this, seats);
+		}
+	}
+
+	/**
+	 * Gets the flight as a row of the flight file. Fields with commas or
+	 * quotes in them are quoted, so the row reads back the same.
+	 * 
+	 * @return The flight as a csv row.
 	 */
 	@Override
 	public String toString() {
 		String deptStr = departureDateTime.toString(formatPattern);
 		String arrivalStr = arrivalDateTime.toString(formatPattern);
-		String outputCost = String.format("%.2f", cost);
-		return flightNumber + "," + deptStr + "," + arrivalStr + "," + airline
-				+ "," + origin + "," + destination + "," + outputCost;
+		String outputCost = Money.format(costCents);
+		return CsvParser.quote(flightNumber) + "," + deptStr + ","
+				+ arrivalStr + "," + CsvParser.quote(airline) + ","
+				+ CsvParser.quote(origin) + ","
+				+ CsvParser.quote(destination) + "," + outputCost;
 	}
 
 	/**
@@ -308,7 +789,7 @@ public class FlightInformation {
 				arrivalDateTime.getYear(), arrivalDateTime.getMonthOfYear(),
 				arrivalDateTime.getDayOfMonth());
 
-		String outputCost = String.format("%.2f", cost);
+		String outputCost = Money.format(costCents);
 
 		return flightNumber + "," + deptStr + "," + arrivalStr + "," + airline
 				+ "," + origin + "," + destination + "," + outputCost;
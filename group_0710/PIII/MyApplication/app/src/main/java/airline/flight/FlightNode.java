@@ -1,9 +1,15 @@
 package airline.flight;
 
+import org.joda.time.LocalDateTime;
+
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 
+import util.Constants;
+
 import static util.Assertions.*;
 
 /**
@@ -26,9 +32,23 @@ public class FlightNode {
 	private HashMap<String, List<FlightInformation>> flightData;
 
 	/**
-	 * If this node has been visited when traversing the graph.
+	 * Every flight out of this node sorted by departure time, so the flights
+	 * leaving in some window of time can be found without looking at all of
+	 * them. This is only sorted when it is needed.
+	 */
+	private ArrayList<FlightInformation> departures;
+
+	/**
+	 * If the departures have been added to since they were last sorted.
+	 */
+	private boolean departuresUnsorted;
+
+	/**
+	 * If a flight was replaced or removed while the departures were not
+	 * sorted, so they have to be made again from the flights to each
+	 * destination before they are used.
 	 */
-	private boolean visited;
+	private boolean departuresStale;
 
 	/**
 	 * Creates a new flight node from the provided name.
@@ -43,6 +63,7 @@ public class FlightNode {
 		checkNotNull(name);
 		this.name = name;
 		flightData = new HashMap<>();
+		departures = new ArrayList<>();
 	}
 
 	/**
@@ -55,6 +76,23 @@ public class FlightNode {
 	 *             If either argument is null.
 	 */
 	public void addConnection(FlightInformation flightInfo) {
+		connect(flightInfo);
+	}
+
+	/**
+	 * Adds a connection like addConnection, and says where the flight was
+	 * put so it can be replaced or removed later without searching for it.
+	 * 
+	 * @param flightInfo
+	 *            The flight information to add.
+	 * 
+	 * @return The position of the flight in the list of flights to its
+	 *         destination.
+	 * 
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 */
+	int connect(FlightInformation flightInfo) {
 		checkNotNull(flightInfo);
 		checkArgument(flightInfo.getOrigin().equals(this.name));
 
@@ -64,30 +102,188 @@ public class FlightNode {
 			flightData.put(destName, new ArrayList<FlightInformation>());
 		}
 
-		flightData.get(destName).add(flightInfo);
+		List<FlightInformation> flights = flightData.get(destName);
+		flights.add(flightInfo);
+		departures.add(flightInfo);
+		departuresUnsorted = true;
+		return flights.size() - 1;
 	}
 
 	/**
-	 * Sets this node to have been visited.
+	 * Replaces a flight with another one to the same place that leaves at the
+	 * same time, in the same position. This takes O(1), plus a binary search
+	 * of the departures if they are sorted.
+	 * 
+	 * @param index
+	 *            The position of the old flight in the list of flights to its
+	 *            destination.
+	 * 
+	 * @param replacement
+	 *            The flight to put in its place.
+	 * 
+	 * @throws NullPointerException
+	 *             If the replacement is null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the new flight does not leave from here at the same time
+	 *             as the old one, or does not go to the same place.
+	 * 
+	 * @throws IndexOutOfBoundsException
+	 *             If there is no flight to that place at the position.
 	 */
-	public void markVisited() {
-		visited = true;
+	void replaceConnection(int index, FlightInformation replacement) {
+		checkNotNull(replacement);
+		checkArgument(replacement.getOrigin().equals(name));
+		List<FlightInformation> flights = flightData.get(replacement
+				.getDestination());
+		checkArgument(flights != null);
+		FlightInformation existing = flights.get(index);
+		checkArgument(existing.getDepartureMinute() == replacement
+				.getDepartureMinute());
+
+		flights.set(index, replacement);
+		int at = findDeparture(existing);
+		if (at >= 0) {
+			// The departure time is the same, so the order still holds.
+			departures.set(at, replacement);
+		} else {
+			departuresStale = true;
+		}
 	}
 
 	/**
-	 * Sets this node to not have been visited.
+	 * Removes a flight by moving the last flight to the same place into its
+	 * position, so nothing else has to move.
+	 * 
+	 * @param destination
+	 *            Where the flight goes.
+	 * 
+	 * @param index
+	 *            The position of the flight in the list of flights to its
+	 *            destination.
+	 * 
+	 * @return The flight that was moved into the position, or null if the
+	 *         removed flight was the last one.
+	 * 
+	 * @throws NullPointerException
+	 *             If the destination is null.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If there are no flights to the destination.
+	 * 
+	 * @throws IndexOutOfBoundsException
+	 *             If there is no flight at the position.
+	 */
+	FlightInformation disconnect(String destination, int index) {
+		checkNotNull(destination);
+		List<FlightInformation> flights = flightData.get(destination);
+		checkArgument(flights != null);
+		FlightInformation removed = flights.get(index);
+		FlightInformation last = flights.remove(flights.size() - 1);
+		FlightInformation moved = null;
+		if (last != removed) {
+			flights.set(index, last);
+			moved = last;
+		}
+
+		int at = findDeparture(removed);
+		if (at >= 0) {
+			// Removing keeps the departures in order.
+			departures.remove(at);
+		} else {
+			departuresStale = true;
+		}
+		return moved;
+	}
+
+	/**
+	 * Finds a flight in the departures while they are sorted.
+	 * 
+	 * @param flightInfo
+	 *            The flight.
+	 * 
+	 * @return Its position, or -1 if the departures are not sorted or it is
+	 *         not there.
+	 */
+	private int findDeparture(FlightInformation flightInfo) {
+		if (departuresUnsorted || departuresStale) {
+			return -1;
+		}
+		int minute = flightInfo.getDepartureMinute();
+		for (int i = firstDepartingAtOrAfter(minute); i < departures.size()
+				&& departures.get(i).getDepartureMinute() == minute; i++) {
+			if (departures.get(i) == flightInfo) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets all the flights out of this node that depart at or after one time
+	 * and before another.
+	 * 
+	 * @param from
+	 *            The earliest departure time (inclusive).
+	 * 
+	 * @param to
+	 *            The latest departure time (exclusive).
+	 * 
+	 * @return A list of the flights by departure time (this can be empty).
+	 * 
+	 * @throws NullPointerException
+	 *             If either argument is null.
 	 */
-	public void unmarkVisited() {
-		visited = false;
+	public synchronized List<FlightInformation> getDeparturesBetween(
+			LocalDateTime from, LocalDateTime to) {
+		checkNotNull(from);
+		checkNotNull(to);
+		if (departuresStale) {
+			departures.clear();
+			for (List<FlightInformation> flights : flightData.values()) {
+				departures.addAll(flights);
+			}
+			departuresStale = false;
+			departuresUnsorted = true;
+		}
+		if (departuresUnsorted) {
+			Collections.sort(departures, new Comparator<FlightInformation>() {
+				public int compare(FlightInformation one,
+						FlightInformation other) {
+					// Epoch minutes are far from overflowing when
+					// subtracted.
+					return one.getDepartureMinute()
+							- other.getDepartureMinute();
+				}
+			});
+			departuresUnsorted = false;
+		}
+
+		int first = firstDepartingAtOrAfter(Constants.toEpochMinutes(from));
+		int last = firstDepartingAtOrAfter(Constants.toEpochMinutes(to));
+		return departures.subList(first, Math.max(first, last));
 	}
 
 	/**
-	 * Checks If this node was visited already or not.
+	 * Finds the first of the sorted departures at or after the time.
+	 * 
+	 * @param minutes
+	 *            The time to look for, in minutes since the epoch.
 	 * 
-	 * @return True if not visited, false if visited.
+	 * @return The index of the first departure at or after the time.
 	 */
-	public boolean isNotVisited() {
-		return !visited;
+	private int firstDepartingAtOrAfter(int minutes) {
+		int low = 0;
+		int high = departures.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (departures.get(middle).getDepartureMinute() < minutes) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
 	}
 
 	/**
@@ -0,0 +1,182 @@
+package airline.flight;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import static util.Assertions.*;
+
+/**
+ * A read only copy of the flights in a graph laid out for fast searching.
+ * Every place gets an int id, and the flights are kept in one array sorted by
+ * origin and then departure time, so the flights out of a place are one
+ * contiguous run found from an offsets array (a compressed sparse row
+ * layout). The flights leaving a place in some window of time are found by
+ * binary search over a parallel array of departure minutes.
+ *
+ * This does not change when the graph does, so it has to be built again
+ * after any flight is added.
+ *
+ * @author Chris
+ */
+class FrozenFlightGraph {
+
+	/**
+	 * The id of every place by name.
+	 */
+	private HashMap<String, Integer> ids;
+
+	/**
+	 * Where the flights out of each place start, where the flights out of
+	 * place i are from offsets[i] to offsets[i + 1].
+	 */
+	private int[] offsets;
+
+	/**
+	 * Every flight, sorted by origin and then departure time.
+	 */
+	private FlightInformation[] flights;
+
+	/**
+	 * The departure time of every flight in minutes since the epoch.
+	 */
+	private int[] departures;
+
+	/**
+	 * The destination id of every flight.
+	 */
+	private int[] destinations;
+
+	/**
+	 * Lays out all the flights in the nodes.
+	 *
+	 * @param nodes
+	 *            All the nodes in the graph.
+	 *
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 */
+	FrozenFlightGraph(Iterable<FlightNode> nodes) {
+		checkNotNull(nodes);
+
+		ids = new HashMap<>();
+		List<FlightInformation> all = new ArrayList<>();
+		for (FlightNode node : nodes) {
+			ids.put(node.getName(), ids.size());
+			for (List<FlightInformation> list : node.getFlightData().values()) {
+				all.addAll(list);
+			}
+		}
+
+		Collections.sort(all, new Comparator<FlightInformation>() {
+			public int compare(FlightInformation one, FlightInformation other) {
+				int byOrigin = ids.get(one.getOrigin()).compareTo(
+						ids.get(other.getOrigin()));
+				if (byOrigin != 0) {
+					return byOrigin;
+				}
+				// Epoch minutes are far from overflowing when subtracted.
+				return one.getDepartureMinute() - other.getDepartureMinute();
+			}
+		});
+
+		flights = all.toArray(new FlightInformation[all.size()]);
+		departures = new int[flights.length];
+		destinations = new int[flights.length];
+		offsets = new int[ids.size() + 1];
+		for (int i = 0; i < flights.length; i++) {
+			departures[i] = flights[i].getDepartureMinute();
+			destinations[i] = ids.get(flights[i].getDestination());
+			offsets[ids.get(flights[i].getOrigin()) + 1]++;
+		}
+		for (int i = 0; i < ids.size(); i++) {
+			offsets[i + 1] += offsets[i];
+		}
+	}
+
+	/**
+	 * Gets the number of places.
+	 *
+	 * @return The number of places.
+	 */
+	int getNumberOfPlaces() {
+		return ids.size();
+	}
+
+	/**
+	 * Gets the id of a place.
+	 *
+	 * @param name
+	 *            The place name.
+	 *
+	 * @return The id of the place, or -1 if there is no such place.
+	 */
+	int idOf(String name) {
+		Integer id = ids.get(name);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Finds the first flight out of a place that departs at or after a time.
+	 *
+	 * @param place
+	 *            The place id.
+	 *
+	 * @param minutes
+	 *            The time to look for, in minutes since the epoch.
+	 *
+	 * @return The index of the first such flight, or endOf(place) if there is
+	 *         none.
+	 */
+	int firstDepartingAtOrAfter(int place, long minutes) {
+		int low = offsets[place];
+		int high = offsets[place + 1];
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (departures[middle] < minutes) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Gets the index just after the last flight out of a place.
+	 *
+	 * @param place
+	 *            The place id.
+	 *
+	 * @return The end of the place's flights.
+	 */
+	int endOf(int place) {
+		return offsets[place + 1];
+	}
+
+	/**
+	 * Gets a flight.
+	 *
+	 * @param index
+	 *            The index of the flight.
+	 *
+	 * @return The flight.
+	 */
+	FlightInformation getFlight(int index) {
+		return flights[index];
+	}
+
+	/**
+	 * Gets the destination id of a flight.
+	 *
+	 * @param index
+	 *            The index of the flight.
+	 *
+	 * @return The destination id.
+	 */
+	int getDestination(int index) {
+		return destinations[index];
+	}
+}
@@ -6,6 +6,8 @@ import org.joda.time.Minutes;
 import java.util.LinkedList;
 import java.util.List;
 
+import util.Money;
+
 import static util.Assertions.*;
 
 /**
@@ -26,9 +28,9 @@ public class Itinerary {
 	private int travelTimeMinutes;
 
 	/**
-	 * The total cost for the entire itinerary.
+	 * The total cost for the entire itinerary (cents).
 	 */
-	private double totalCost;
+	private long totalCostCents;
 
 	/**
 	 * Creates an itinerary from a completed list.
@@ -45,13 +47,13 @@ public class Itinerary {
 
 		listOfFlights = new LinkedList<>();
 		travelTimeMinutes = 0;
-		totalCost = 0;
+		totalCostCents = 0;
 
 		// Add the flights and track the cost/duration.
 		for (FlightInformation fi : flightList) {
 			listOfFlights.add(fi);
 			travelTimeMinutes += fi.getTravelTimeMinutes();
-			totalCost += fi.getCost();
+			totalCostCents += fi.getCostCents();
 		}
 	}
 
@@ -105,13 +107,50 @@ public class Itinerary {
 		return travelTimeMinutes;
 	}
 
+	/**
+	 * Gets when the first flight of this itinerary departs.
+	 * 
+	 * @return The departure time of the first flight.
+	 */
+	public LocalDateTime getDepartureDateTime() {
+		return listOfFlights.getFirst().getDepartureDateTime();
+	}
+
+	/**
+	 * Gets when the last flight of this itinerary arrives.
+	 * 
+	 * @return The arrival time of the last flight.
+	 */
+	public LocalDateTime getArrivalDateTime() {
+		return listOfFlights.getLast().getArrivalDateTime();
+	}
+
+	/**
+	 * Gets how many flights are in this itinerary.
+	 * 
+	 * @return The number of flights in this itinerary.
+	 */
+	public int getNumberOfFlights() {
+		return listOfFlights.size();
+	}
+
 	/**
 	 * Gets the total cost for this itinerary.
 	 * 
-	 * @return The total cost for this itinerary.
+	 * @return The total cost for this itinerary (dollars).
 	 */
 	public double getTotalCost() {
-		return totalCost;
+		return Money.toDollars(totalCostCents);
+	}
+
+	/**
+	 * Gets the total cost for this itinerary in cents, which compares
+	 * exactly.
+	 * 
+	 * @return The total cost for this itinerary (cents).
+	 */
+	public long getTotalCostCents() {
+		return totalCostCents;
 	}
 
 	/**
@@ -149,7 +188,7 @@ public class Itinerary {
 		for (FlightInformation fi : listOfFlights) {
 			out += fi.toStringNoCost() + "\n";
 		}
-		out += String.format("%.2f\n", getTotalCost());
+		out += Money.format(totalCostCents) + "\n";
 		int totalTravelMinutes = totalTravelTimeMinutes();
 		int hours = totalTravelMinutes / 60;
 		int minutes = totalTravelMinutes % 60;
@@ -6,6 +6,8 @@ import org.joda.time.LocalDateTime;
 import java.util.LinkedList;
 import java.util.List;
 
+import util.Money;
+
 /**
  * Maintains an itinerary list that is a single permutation of a path that may
  * possibly go to a desired destination. The goal is to be able to constantly
@@ -20,6 +22,11 @@ public class ItineraryBuilder {
 	 */
 	private LinkedList<FlightInformation> listFlightInfo;
 
+	/**
+	 * The sum of the cost of every flight in the list (cents).
+	 */
+	private long totalCostCents;
+
 	/**
 	 * Creates a new itinerary list from a single flight info.
 	 * 
@@ -33,6 +40,7 @@ public class ItineraryBuilder {
 		checkNotNull(flightInfo);
 		listFlightInfo = new LinkedList<>();
 		listFlightInfo.add(flightInfo);
+		totalCostCents = flightInfo.getCostCents();
 	}
 
 	/**
@@ -50,6 +58,26 @@ public class ItineraryBuilder {
 	public ItineraryBuilder(ItineraryBuilder itineraryList) {
 		checkNotNull(itineraryList);
 		listFlightInfo = new LinkedList<>(itineraryList.listFlightInfo);
+		totalCostCents = itineraryList.totalCostCents;
+	}
+
+	/**
+	 * Copies a path and adds a flight to the end of the copy. This is for
+	 * the search loops, which only extend paths with flights from the graph,
+	 * so nothing is checked.
+	 * 
+	 * @param path
+	 *            The path to copy, which is not null.
+	 * 
+	 * @param next
+	 *            The flight to add to the copy, which is not null.
+	 */
+	ItineraryBuilder(ItineraryBuilder path, FlightInformation next) {
+		assert path != null;
+		assert next != null;
+		listFlightInfo = new LinkedList<>(path.listFlightInfo);
+		listFlightInfo.add(next);
+		totalCostCents = path.totalCostCents + next.getCostCents();
 	}
 
 	/**
@@ -64,6 +92,7 @@ public class ItineraryBuilder {
 	public void add(FlightInformation flightInfo) {
 		checkNotNull(flightInfo);
 		listFlightInfo.add(flightInfo);
+		totalCostCents += flightInfo.getCostCents();
 	}
 
 	/**
@@ -84,6 +113,99 @@ public class ItineraryBuilder {
 		return listFlightInfo.getLast().getArrivalDateTime();
 	}
 
+	/**
+	 * Gets the time this plane will land at the end of its journey as a
+	 * number.
+	 * 
+	 * @return The last arrival in minutes since the epoch.
+	 */
+	public int getLastArrivalMinute() {
+		return listFlightInfo.getLast().getArrivalMinute();
+	}
+
+	/**
+	 * Gets the time the first plane leaves at the start of the journey as a
+	 * number.
+	 * 
+	 * @return The first departure in minutes since the epoch.
+	 */
+	public int getFirstDepartureMinute() {
+		return listFlightInfo.getFirst().getDepartureMinute();
+	}
+
+	/**
+	 * Gets the time the first plane leaves at the start of the journey.
+	 * 
+	 * @return This date time of when the first plane departs.
+	 */
+	public LocalDateTime getFirstDepartureTime() {
+		return listFlightInfo.getFirst().getDepartureDateTime();
+	}
+
+	/**
+	 * Gets the cost of all the flights so far.
+	 * 
+	 * @return This total cost (dollars).
+	 */
+	public double getTotalCost() {
+		return Money.toDollars(totalCostCents);
+	}
+
+	/**
+	 * Gets the cost of all the flights so far in cents, which adds up and
+	 * compares exactly.
+	 * 
+	 * @return This total cost (cents).
+	 */
+	public long getTotalCostCents() {
+		return totalCostCents;
+	}
+
+	/**
+	 * Gets how many flights are in the list.
+	 * 
+	 * @return The number of flights in this list.
+	 */
+	public int size() {
+		return listFlightInfo.size();
+	}
+
+	/**
+	 * Checks if the path has already been at a place, either by leaving from
+	 * it or by arriving at it.
+	 * 
+	 * @param location
+	 *            The place name.
+	 * 
+	 * @return True if any flight in this list leaves from or lands at it.
+	 */
+	public boolean hasVisited(String location) {
+		for (FlightInformation fi : listFlightInfo) {
+			if (fi.getOrigin().equals(location)) {
+				return true;
+			}
+		}
+		return getLastDestination().equals(location);
+	}
+
+	/**
+	 * Checks if every place this path has been at was also visited by another
+	 * path, so this one has no fewer places left that it can fly to.
+	 * 
+	 * @param other
+	 *            The other path.
+	 * 
+	 * @return True if the other path has visited all the places this one has.
+	 */
+	boolean hasOnlyVisitedPlacesOf(ItineraryBuilder other) {
+		for (FlightInformation fi : listFlightInfo) {
+			if (!other.hasVisited(fi.getOrigin())) {
+				return false;
+			}
+		}
+		return other.hasVisited(getLastDestination());
+	}
+
 	/**
 	 * Gets the last node in the list.
 	 * 
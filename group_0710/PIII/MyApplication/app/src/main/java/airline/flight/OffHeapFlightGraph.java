@@ -0,0 +1,745 @@
+package airline.flight;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import util.Constants;
+
+import static util.Assertions.*;
+
+/**
+ * A flight graph for very large schedules that keeps its flights outside of
+ * the Java heap. Every flight is a fixed width record in one of a list of
+ * direct buffers, so the records are never copied once a buffer is full and
+ * can take up more than the 2 GiB a single buffer can hold. The names in the
+ * records are stored once and referred to by number. The flights out
+ * of each place are found through int arrays sorted by departure time, so a
+ * search walks the records directly and only creates objects for the
+ * itineraries it returns.
+ *
+ * The search follows the same rules as FlightGraph: the first flight leaves
+ * on the departure date, no place is visited twice and a path stops once it
+ * gets to the destination. This is not a thread safe object.
+ *
+ * @author Chris
+ */
+public class OffHeapFlightGraph {
+
+	/**
+	 * The number of bytes in one flight record.
+	 */
+	private static final int RECORD_BYTES = 32;
+
+	/**
+	 * The default log base 2 of the number of records in a full chunk, which
+	 * makes a chunk 32 MiB.
+	 */
+	private static final int CHUNK_SHIFT = 20;
+
+	/**
+	 * Where the flight number id is in a record.
+	 */
+	private static final int FLIGHT_NUMBER = 0;
+
+	/**
+	 * Where the departure time (minutes since the epoch) is in a record.
+	 */
+	private static final int DEPARTURE = 4;
+
+	/**
+	 * Where the arrival time (minutes since the epoch) is in a record.
+	 */
+	private static final int ARRIVAL = 8;
+
+	/**
+	 * Where the airline id is in a record.
+	 */
+	private static final int AIRLINE = 12;
+
+	/**
+	 * Where the origin id is in a record.
+	 */
+	private static final int ORIGIN = 16;
+
+	/**
+	 * Where the destination id is in a record.
+	 */
+	private static final int DESTINATION = 20;
+
+	/**
+	 * Where the cost (cents) is in a record.
+	 */
+	private static final int COST = 24;
+
+	/**
+	 * The chunks of flight records, where record i is in chunk i >>>
+	 * chunkShift. Every chunk but the first starts out full size, and the
+	 * first one grows until it is full size too.
+	 */
+	private ByteBuffer[] chunks;
+
+	/**
+	 * The number of chunks in use.
+	 */
+	private int chunkCount;
+
+	/**
+	 * The log base 2 of the number of records in a full chunk.
+	 */
+	private final int chunkShift;
+
+	/**
+	 * The mask of a record index that gives its place in its chunk.
+	 */
+	private final int chunkMask;
+
+	/**
+	 * The number of flights in the records.
+	 */
+	private int size;
+
+	/**
+	 * The names of every place, where a place id is its index.
+	 */
+	private StringTable airports;
+
+	/**
+	 * The names of every airline, where an airline id is its index.
+	 */
+	private StringTable airlines;
+
+	/**
+	 * The flight numbers, where a flight number id is its index.
+	 */
+	private StringTable flightNumbers;
+
+	/**
+	 * Where the flights out of each place start in the sorted order, where
+	 * the flights out of place i are from offsets[i] to offsets[i + 1]. This
+	 * and the arrays below are built when first searched and cleared when a
+	 * flight is added.
+	 */
+	private int[] offsets;
+
+	/**
+	 * The record index of every flight, sorted by origin then departure.
+	 */
+	private int[] sortedFlights;
+
+	/**
+	 * The departure time of every flight in the sorted order.
+	 */
+	private int[] sortedDepartures;
+
+	/**
+	 * A two way lookup between names and the ids used in the records.
+	 */
+	private static class StringTable {
+
+		/**
+		 * The id of every name.
+		 */
+		private HashMap<String, Integer> ids = new HashMap<>();
+
+		/**
+		 * The name of every id.
+		 */
+		private ArrayList<String> names = new ArrayList<>();
+
+		/**
+		 * Gets the id of a name, giving it a new one if it has none.
+		 *
+		 * @param name
+		 *            The name.
+		 *
+		 * @return The id of the name.
+		 */
+		int intern(String name) {
+			Integer id = ids.get(name);
+			if (id == null) {
+				id = names.size();
+				ids.put(name, id);
+				names.add(name);
+			}
+			return id;
+		}
+
+		/**
+		 * Gets the id of a name.
+		 *
+		 * @param name
+		 *            The name.
+		 *
+		 * @return The id of the name, or -1 if it has none.
+		 */
+		int find(String name) {
+			Integer id = ids.get(name);
+			return id == null ? -1 : id;
+		}
+
+		/**
+		 * Gets the name of an id.
+		 *
+		 * @param id
+		 *            The id.
+		 *
+		 * @return The name.
+		 */
+		String get(int id) {
+			return names.get(id);
+		}
+
+		/**
+		 * Gets the number of names.
+		 *
+		 * @return The number of names.
+		 */
+		int size() {
+			return names.size();
+		}
+	}
+
+	/**
+	 * Creates an empty graph.
+	 */
+	public OffHeapFlightGraph() {
+		this(1024);
+	}
+
+	/**
+	 * Creates an empty graph with room for some flights before it has to
+	 * grow.
+	 *
+	 * @param initialCapacity
+	 *            The number of flights to make room for.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the capacity is not positive.
+	 */
+	public OffHeapFlightGraph(int initialCapacity) {
+		this(initialCapacity, CHUNK_SHIFT);
+	}
+
+	/**
+	 * Creates an empty graph with room for some flights before it has to
+	 * grow, and with chunks of a chosen size.
+	 *
+	 * @param initialCapacity
+	 *            The number of flights to make room for.
+	 *
+	 * @param chunkShift
+	 *            The log base 2 of the number of records in a full chunk.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the capacity is not positive, or a full chunk would not
+	 *             fit in a buffer.
+	 */
+	OffHeapFlightGraph(int initialCapacity, int chunkShift) {
+		checkArgument(initialCapacity > 0);
+		checkArgument(chunkShift >= 0 && chunkShift < 31
+				&& ((long) RECORD_BYTES << chunkShift) <= Integer.MAX_VALUE);
+		this.chunkShift = chunkShift;
+		chunkMask = (1 << chunkShift) - 1;
+
+		// Sizes are worked out as longs so a big capacity cannot overflow.
+		long records = initialCapacity;
+		long fullChunks = (records + chunkMask) >>> chunkShift;
+		if (fullChunks > 1) {
+			chunks = new ByteBuffer[(int) fullChunks];
+			for (chunkCount = 0; chunkCount < fullChunks; chunkCount++) {
+				chunks[chunkCount] = ByteBuffer
+						.allocateDirect(RECORD_BYTES << chunkShift);
+			}
+		} else {
+			chunks = new ByteBuffer[4];
+			chunks[0] = ByteBuffer.allocateDirect((int) (records
+					* RECORD_BYTES));
+			chunkCount = 1;
+		}
+		airports = new StringTable();
+		airlines = new StringTable();
+		flightNumbers = new StringTable();
+	}
+
+	/**
+	 * Adds a flight to the graph. The flight object is not kept.
+	 *
+	 * @param flightInfo
+	 *            The flight information to add.
+	 *
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 *
+	 * @throws IllegalStateException
+	 *             If the graph already has Integer.MAX_VALUE flights.
+	 */
+	public void addFlight(FlightInformation flightInfo) {
+		checkNotNull(flightInfo);
+		checkState(size < Integer.MAX_VALUE);
+		makeRoom();
+
+		ByteBuffer chunk = chunks[size >>> chunkShift];
+		int base = (size & chunkMask) * RECORD_BYTES;
+		chunk.putInt(base + FLIGHT_NUMBER,
+				flightNumbers.intern(flightInfo.getFlightNumber()));
+		chunk.putInt(base + DEPARTURE, flightInfo.getDepartureMinute());
+		chunk.putInt(base + ARRIVAL, flightInfo.getArrivalMinute());
+		chunk.putInt(base + AIRLINE, airlines.intern(flightInfo.getAirline()));
+		chunk.putInt(base + ORIGIN, airports.intern(flightInfo.getOrigin()));
+		chunk.putInt(base + DESTINATION,
+				airports.intern(flightInfo.getDestination()));
+		chunk.putLong(base + COST, flightInfo.getCostCents());
+		size++;
+
+		offsets = null;
+		sortedFlights = null;
+		sortedDepartures = null;
+	}
+
+	/**
+	 * Makes sure there is room for one more record. The first chunk doubles
+	 * until it is full size, and after that a new full chunk is added, so no
+	 * record is copied again once its chunk is full.
+	 */
+	private void makeRoom() {
+		int index = size >>> chunkShift;
+		if (index < chunkCount) {
+			ByteBuffer chunk = chunks[index];
+			long used = (long) (size & chunkMask) * RECORD_BYTES;
+			if (used + RECORD_BYTES <= chunk.capacity()) {
+				return;
+			}
+			long bytes = Math.min(used * 2, (long) RECORD_BYTES << chunkShift);
+			ByteBuffer bigger = ByteBuffer.allocateDirect((int) bytes);
+			ByteBuffer old = chunk.duplicate();
+			old.position(0);
+			old.limit((int) used);
+			bigger.put(old);
+			chunks[index] = bigger;
+			return;
+		}
+
+		if (chunkCount == chunks.length) {
+			chunks = Arrays.copyOf(chunks, chunkCount * 2);
+		}
+		chunks[chunkCount++] = ByteBuffer
+				.allocateDirect(RECORD_BYTES << chunkShift);
+	}
+
+	/**
+	 * Reads an int field of a record.
+	 *
+	 * @param flight
+	 *            The record index of the flight.
+	 *
+	 * @param field
+	 *            Where the field is in a record.
+	 *
+	 * @return The value of the field.
+	 */
+	private int getInt(int flight, int field) {
+		return chunks[flight >>> chunkShift].getInt((flight & chunkMask)
+				* RECORD_BYTES + field);
+	}
+
+	/**
+	 * Reads a long field of a record.
+	 *
+	 * @param flight
+	 *            The record index of the flight.
+	 *
+	 * @param field
+	 *            Where the field is in a record.
+	 *
+	 * @return The value of the field.
+	 */
+	private long getLong(int flight, int field) {
+		return chunks[flight >>> chunkShift].getLong((flight & chunkMask)
+				* RECORD_BYTES + field);
+	}
+
+	/**
+	 * Adds every flight in a graph to this one.
+	 *
+	 * @param graph
+	 *            The graph to copy the flights of.
+	 *
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 */
+	public void addFlights(FlightGraph graph) {
+		checkNotNull(graph);
+		for (FlightNode node : graph.getFlightNodes()) {
+			for (List<FlightInformation> flights : node.getFlightData()
+					.values()) {
+				for (FlightInformation fi : flights) {
+					addFlight(fi);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of flights in the graph.
+	 *
+	 * @return The number of flights.
+	 */
+	public int getNumberOfFlights() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of places in the graph.
+	 *
+	 * @return The number of places.
+	 */
+	public int getNumberOfNodes() {
+		return airports.size();
+	}
+
+	/**
+	 * Searches for itineraries based on the data provided and gets all the
+	 * valid ones.
+	 *
+	 * @param departureDate
+	 *            The desired departure day.
+	 *
+	 * @param origin
+	 *            The origin location.
+	 *
+	 * @param destination
+	 *            The desired destination.
+	 *
+	 * @return A list of the found itinerary (this can be empty).
+	 *
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, or if the
+	 *             origin and destination are the same.
+	 */
+	public List<Itinerary> searchForItineraries(String departureDate,
+			String origin, String destination) {
+		return searchForItineraries(departureDate, origin, destination,
+				new SearchOptions());
+	}
+
+	/**
+	 * Searches for itineraries based on the data provided and gets all the
+	 * valid ones that also satisfy the search options.
+	 *
+	 * @param departureDate
+	 *            The desired departure day.
+	 *
+	 * @param origin
+	 *            The origin location.
+	 *
+	 * @param destination
+	 *            The desired destination.
+	 *
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 *
+	 * @return A list of the found itinerary (this can be empty).
+	 *
+	 * @throws NullPointerException
+	 *             If any arguments are null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, if the
+	 *             origin and destination are the same, or if the options have
+	 *             a time or expansion budget, which this search does not use.
+	 */
+	public List<Itinerary> searchForItineraries(String departureDate,
+			String origin, String destination, SearchOptions options) {
+		checkNotNull(departureDate);
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(options);
+		checkArgument(departureDate.matches("\\d{4}-\\d{2}-\\d{2}"));
+		checkArgument(!origin.equals(destination));
+		checkArgument(!options.hasBudget());
+
+		List<Itinerary> found = new LinkedList<>();
+		int originId = airports.find(origin);
+		int destinationId = airports.find(destination);
+		if (originId < 0 || destinationId < 0) {
+			return found;
+		}
+		buildIndex();
+
+		// Which airlines can be flown is worked out once for the search.
+		boolean[] airlineAllowed = new boolean[airlines.size()];
+		for (int i = 0; i < airlineAllowed.length; i++) {
+			airlineAllowed[i] = options.permitsAirline(airlines.get(i));
+		}
+
+		LocalDate date = Constants.parseDate(departureDate);
+		int dayStart = Constants.toEpochDay(date) * Constants.MINUTES_PER_DAY;
+		int first = firstDepartingAtOrAfter(originId, dayStart);
+		int last = firstDepartingAtOrAfter(originId, dayStart
+				+ Constants.MINUTES_PER_DAY);
+
+		Search search = new Search(destinationId, options, airlineAllowed,
+				found);
+		search.onPath[originId] = true;
+		for (int i = first; i < last; i++) {
+			int flight = sortedFlights[i];
+			long cost = getLong(flight, COST);
+			if (airlineAllowed[getInt(flight, AIRLINE)]
+					&& cost <= options.getMaxPriceCents()
+					&& travelMinutes(flight) <= options
+							.getMaxElapsedMinutes()) {
+				search.visit(flight, 0, getInt(flight, DEPARTURE), cost);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * The state of one search as it walks the records depth first.
+	 */
+	private class Search {
+
+		/**
+		 * The destination id.
+		 */
+		private int destination;
+
+		/**
+		 * The constraints every itinerary has to satisfy.
+		 */
+		private SearchOptions options;
+
+		/**
+		 * If each airline id can be flown.
+		 */
+		private boolean[] airlineAllowed;
+
+		/**
+		 * The record index of each flight on the current path.
+		 */
+		private int[] path;
+
+		/**
+		 * If each place id is on the current path.
+		 */
+		private boolean[] onPath;
+
+		/**
+		 * The list the finished itineraries are added to.
+		 */
+		private List<Itinerary> found;
+
+		/**
+		 * Creates the state for a search.
+		 *
+		 * @param destination
+		 *            The destination id.
+		 *
+		 * @param options
+		 *            The constraints every itinerary has to satisfy.
+		 *
+		 * @param airlineAllowed
+		 *            If each airline id can be flown.
+		 *
+		 * @param found
+		 *            The list the finished itineraries are added to.
+		 */
+		Search(int destination, SearchOptions options,
+				boolean[] airlineAllowed, List<Itinerary> found) {
+			this.destination = destination;
+			this.options = options;
+			this.airlineAllowed = airlineAllowed;
+			this.found = found;
+			path = new int[airports.size()];
+			onPath = new boolean[airports.size()];
+		}
+
+		/**
+		 * Puts a flight on the path and follows every flight that can come
+		 * after it.
+		 *
+		 * @param flight
+		 *            The record index of the flight.
+		 *
+		 * @param depth
+		 *            How many flights are before it on the path.
+		 *
+		 * @param firstDeparture
+		 *            When the path first left (minutes since the epoch).
+		 *
+		 * @param cost
+		 *            The cost of the path including this flight (cents).
+		 */
+		void visit(int flight, int depth, int firstDeparture, long cost) {
+			path[depth] = flight;
+			int place = getInt(flight, DESTINATION);
+			if (place == destination) {
+				found.add(materialize(path, depth + 1));
+				return;
+			}
+			if (depth + 1 >= options.getMaxLegs()) {
+				return;
+			}
+
+			onPath[place] = true;
+			// The window is worked out as a long so a huge maximum connection
+			// cannot wrap around to before the arrival.
+			long arrival = getInt(flight, ARRIVAL);
+			int first = firstDepartingAtOrAfter(place, arrival
+					+ options.getMinConnectionMinutes());
+			int last = firstDepartingAtOrAfter(place, arrival
+					+ options.getMaxConnectionMinutes() + 1);
+			for (int i = first; i < last; i++) {
+				int next = sortedFlights[i];
+				long nextCost = cost + getLong(next, COST);
+				int elapsed = getInt(next, ARRIVAL) - firstDeparture;
+				if (!onPath[getInt(next, DESTINATION)]
+						&& airlineAllowed[getInt(next, AIRLINE)]
+						&& nextCost <= options.getMaxPriceCents()
+						&& elapsed <= options.getMaxElapsedMinutes()) {
+					visit(next, depth + 1, firstDeparture, nextCost);
+				}
+			}
+			onPath[place] = false;
+		}
+	}
+
+	/**
+	 * Sorts the flights by origin and departure time if the graph has changed
+	 * since they were last sorted.
+	 */
+	private void buildIndex() {
+		if (offsets != null) {
+			return;
+		}
+
+		// Count the flights out of each place to know where each starts.
+		offsets = new int[airports.size() + 1];
+		for (int i = 0; i < size; i++) {
+			offsets[getInt(i, ORIGIN) + 1]++;
+		}
+		for (int i = 0; i < airports.size(); i++) {
+			offsets[i + 1] += offsets[i];
+		}
+
+		// Each place's flights are put in its slot with the departure in the
+		// high half so sorting the slot sorts by departure.
+		long[] keys = new long[size];
+		int[] filled = Arrays.copyOf(offsets, airports.size());
+		for (int i = 0; i < size; i++) {
+			int place = getInt(i, ORIGIN);
+			long departure = getInt(i, DEPARTURE);
+			keys[filled[place]++] = (departure << 32) | i;
+		}
+
+		sortedFlights = new int[size];
+		sortedDepartures = new int[size];
+		for (int place = 0; place < airports.size(); place++) {
+			Arrays.sort(keys, offsets[place], offsets[place + 1]);
+		}
+		for (int i = 0; i < size; i++) {
+			sortedFlights[i] = (int) keys[i];
+			sortedDepartures[i] = (int) (keys[i] >>> 32);
+		}
+	}
+
+	/**
+	 * Finds the first flight out of a place that departs at or after a time.
+	 *
+	 * @param place
+	 *            The place id.
+	 *
+	 * @param minutes
+	 *            The time (minutes since the epoch).
+	 *
+	 * @return The sorted index of the first such flight, or the end of the
+	 *         place's flights if there is none.
+	 */
+	private int firstDepartingAtOrAfter(int place, long minutes) {
+		int low = offsets[place];
+		int high = offsets[place + 1];
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sortedDepartures[middle] < minutes) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Gets the minutes a flight is in the air.
+	 *
+	 * @param flight
+	 *            The record index of the flight.
+	 *
+	 * @return The travel time in minutes.
+	 */
+	private int travelMinutes(int flight) {
+		return getInt(flight, ARRIVAL) - getInt(flight, DEPARTURE);
+	}
+
+	/**
+	 * Creates the objects for an itinerary found by a search.
+	 *
+	 * @param path
+	 *            The record index of each flight.
+	 *
+	 * @param length
+	 *            The number of flights.
+	 *
+	 * @return The itinerary.
+	 */
+	private Itinerary materialize(int[] path, int length) {
+		List<FlightInformation> flights = new ArrayList<>(length);
+		for (int i = 0; i < length; i++) {
+			flights.add(getFlight(path[i]));
+		}
+		return new Itinerary(flights);
+	}
+
+	/**
+	 * Creates the flight information for a record.
+	 *
+	 * @param flight
+	 *            The record index of the flight.
+	 *
+	 * @return The flight information.
+	 */
+	FlightInformation getFlight(int flight) {
+		return FlightInformation.withCostCents(
+				flightNumbers.get(getInt(flight, FLIGHT_NUMBER)),
+				fromMinutes(getInt(flight, DEPARTURE)),
+				fromMinutes(getInt(flight, ARRIVAL)),
+				airlines.get(getInt(flight, AIRLINE)),
+				airports.get(getInt(flight, ORIGIN)),
+				airports.get(getInt(flight, DESTINATION)),
+				getLong(flight, COST),
+				FlightInformation.UNLIMITED_SEATS);
+	}
+
+	/**
+	 * Converts minutes since the epoch back into a date time.
+	 *
+	 * @param minutes
+	 *            The minutes since the epoch.
+	 *
+	 * @return The date time.
+	 */
+	private static LocalDateTime fromMinutes(int minutes) {
+		return new LocalDateTime(minutes * 60000L, DateTimeZone.UTC);
+	}
+}
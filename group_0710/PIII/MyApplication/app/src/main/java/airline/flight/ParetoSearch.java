@@ -0,0 +1,324 @@
+package airline.flight;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import util.Money;
+
+import static util.Assertions.*;
+
+/**
+ * A multi-criteria search that only finds the itineraries which are not
+ * dominated by another one on total cost, total elapsed time and number of
+ * legs. An itinerary dominates another if it is no worse on all three and
+ * strictly better on at least one.
+ *
+ * Partial paths are pruned as they are expanded: two paths that land at the
+ * same place at the same time have the same flights left, except for the ones
+ * to places a path has already been at. So a path is only thrown away when
+ * another one cost less, left later and took fewer flights without having
+ * been anywhere the thrown away path has not, since otherwise the thrown away
+ * path could still go somewhere the other one cannot.
+ *
+ * @author Chris
+ */
+class ParetoSearch {
+
+	/**
+	 * The nodes of the graph being searched.
+	 */
+	private Map<String, FlightNode> nameToNode;
+
+	/**
+	 * The constraints every itinerary has to satisfy.
+	 */
+	private SearchOptions options;
+
+	/**
+	 * The index of flights that can reach the destination.
+	 */
+	private ReachabilityIndex reachability;
+
+	/**
+	 * For every place, the partial paths that arrive there at each time which
+	 * are not yet dominated by another.
+	 */
+	private Map<String, Map<LocalDateTime, List<ItineraryBuilder>>> labels;
+
+	/**
+	 * Creates a search over the nodes.
+	 *
+	 * @param nameToNode
+	 *            The nodes of the graph by name.
+	 *
+	 * @param options
+	 *            The constraints every itinerary has to satisfy.
+	 *
+	 * @param reachability
+	 *            The index of flights that can reach the destination.
+	 *
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	ParetoSearch(Map<String, FlightNode> nameToNode, SearchOptions options,
+			ReachabilityIndex reachability) {
+		checkNotNull(nameToNode);
+		checkNotNull(options);
+		checkNotNull(reachability);
+		this.nameToNode = nameToNode;
+		this.options = options;
+		this.reachability = reachability;
+		this.labels = new HashMap<>();
+	}
+
+	/**
+	 * Searches for the non-dominated itineraries.
+	 *
+	 * @param origin
+	 *            The origin name, which must be in the graph.
+	 *
+	 * @param destination
+	 *            The destination name, which the reachability index has to
+	 *            have been built for.
+	 *
+	 * @param departureDate
+	 *            The day the first flight has to leave on.
+	 *
+	 * @return The non-dominated itineraries, cheapest first.
+	 */
+	List<Itinerary> search(String origin, String destination,
+			LocalDate departureDate) {
+		assert nameToNode.containsKey(origin);
+		assert reachability.getDestinations().contains(destination);
+		labels.clear();
+
+		LinkedList<ItineraryBuilder> unsolvedPaths = new LinkedList<>();
+		List<ItineraryBuilder> solvedPaths = new ArrayList<>();
+
+		// Seed the search with every first flight out of the origin.
+		FlightNode originNode = nameToNode.get(origin);
+		for (List<FlightInformation> listInfo : originNode.getFlightData()
+				.values()) {
+			for (FlightInformation fi : listInfo) {
+				if (fi.isOnSameDepartureDayAs(departureDate)
+						&& options.permitsFirstLeg(fi)
+						&& reachability.canReachDestination(fi)) {
+					ItineraryBuilder path = new ItineraryBuilder(fi);
+					if (fi.getDestination().equals(destination)) {
+						solvedPaths.add(path);
+					} else if (addLabel(path)) {
+						unsolvedPaths.add(path);
+					}
+				}
+			}
+		}
+
+		while (unsolvedPaths.size() > 0) {
+			ItineraryBuilder path = unsolvedPaths.pop();
+
+			// If something better showed up at the same place and time since
+			// this was queued, there is no reason to continue it.
+			if (!isLabelAlive(path) || !options.permitsMoreLegs(path)) {
+				continue;
+			}
+
+			FlightNode lastNode = nameToNode.get(path.getLastDestination());
+			for (List<FlightInformation> listInfo : lastNode.getFlightData()
+					.values()) {
+				for (FlightInformation fi : listInfo) {
+					if (path.hasVisited(fi.getDestination())
+							|| !options.permitsConnection(path, fi)
+							|| !reachability.canReachDestination(fi)) {
+						continue;
+					}
+
+					ItineraryBuilder newPath = new ItineraryBuilder(path, fi);
+					if (fi.getDestination().equals(destination)) {
+						solvedPaths.add(newPath);
+					} else if (addLabel(newPath)) {
+						unsolvedPaths.add(newPath);
+					}
+				}
+			}
+		}
+
+		return toParetoFrontier(solvedPaths);
+	}
+
+	/**
+	 * Adds the path to the labels at its last place and arrival time unless
+	 * it is dominated, removing any labels there that it dominates.
+	 *
+	 * @param path
+	 *            The path to add.
+	 *
+	 * @return True if it was added, false if it is dominated.
+	 */
+	private boolean addLabel(ItineraryBuilder path) {
+		Map<LocalDateTime, List<ItineraryBuilder>> byTime = labels.get(path
+				.getLastDestination());
+		if (byTime == null) {
+			byTime = new HashMap<>();
+			labels.put(path.getLastDestination(), byTime);
+		}
+		List<ItineraryBuilder> bag = byTime.get(path.getLastArrivalTime());
+		if (bag == null) {
+			bag = new ArrayList<>();
+			byTime.put(path.getLastArrivalTime(), bag);
+		}
+
+		for (ItineraryBuilder other : bag) {
+			if (partialDominates(other, path)) {
+				return false;
+			}
+		}
+		Iterator<ItineraryBuilder> it = bag.iterator();
+		while (it.hasNext()) {
+			if (partialDominates(path, it.next())) {
+				it.remove();
+			}
+		}
+		bag.add(path);
+		return true;
+	}
+
+	/**
+	 * Checks if the path is still one of the labels at its place and time.
+	 *
+	 * @param path
+	 *            The path to check.
+	 *
+	 * @return True if it has not been dominated since it was added.
+	 */
+	private boolean isLabelAlive(ItineraryBuilder path) {
+		List<ItineraryBuilder> bag = labels.get(path.getLastDestination())
+				.get(path.getLastArrivalTime());
+		for (ItineraryBuilder other : bag) {
+			if (other == path) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if one partial path dominates another that arrives at the same
+	 * place at the same time. A later first departure means less elapsed time
+	 * whatever flights come next, and the first path must not have been at any
+	 * place the second has not, or it could not take every flight the second
+	 * still can.
+	 *
+	 * @param one
+	 *            The possibly dominating path.
+	 *
+	 * @param other
+	 *            The possibly dominated path.
+	 *
+	 * @return True if the first dominates the second.
+	 */
+	private static boolean partialDominates(ItineraryBuilder one,
+			ItineraryBuilder other) {
+		int startOrder = one.getFirstDepartureTime().compareTo(
+				other.getFirstDepartureTime());
+		return dominates(one.getTotalCostCents(), -startOrder, one.size(),
+				other.getTotalCostCents(), 0, other.size())
+				&& one.hasOnlyVisitedPlacesOf(other);
+	}
+
+	/**
+	 * Checks if the first set of criteria dominates the second, where smaller
+	 * is better for every one.
+	 *
+	 * @param costA
+	 *            The cost of the first (cents).
+	 *
+	 * @param timeA
+	 *            The time of the first.
+	 *
+	 * @param legsA
+	 *            The legs of the first.
+	 *
+	 * @param costB
+	 *            The cost of the second (cents).
+	 *
+	 * @param timeB
+	 *            The time of the second.
+	 *
+	 * @param legsB
+	 *            The legs of the second.
+	 *
+	 * @return True if the first is no worse on all and better on one.
+	 */
+	private static boolean dominates(long costA, int timeA, int legsA,
+			long costB, int timeB, int legsB) {
+		if (costA > costB || timeA > timeB || legsA > legsB) {
+			return false;
+		}
+		return costA < costB || timeA < timeB || legsA < legsB;
+	}
+
+	/**
+	 * Reduces the solved paths to those no other solved path dominates.
+	 *
+	 * @param solvedPaths
+	 *            All the solved paths.
+	 *
+	 * @return The non-dominated itineraries, cheapest first.
+	 */
+	private static List<Itinerary> toParetoFrontier(
+			List<ItineraryBuilder> solvedPaths) {
+		List<Itinerary> itineraries = new ArrayList<>();
+		for (ItineraryBuilder path : solvedPaths) {
+			itineraries.add(new Itinerary(path.getList()));
+		}
+
+		List<Itinerary> frontier = new ArrayList<>();
+		for (Itinerary candidate : itineraries) {
+			boolean dominated = false;
+			for (Itinerary other : itineraries) {
+				if (other != candidate && dominates(other, candidate)) {
+					dominated = true;
+					break;
+				}
+			}
+			if (!dominated) {
+				frontier.add(candidate);
+			}
+		}
+
+		Collections.sort(frontier, new Comparator<Itinerary>() {
+			public int compare(Itinerary one, Itinerary other) {
+				return Money.compare(one.getTotalCostCents(),
+						other.getTotalCostCents());
+			}
+		});
+		return frontier;
+	}
+
+	/**
+	 * Checks if one itinerary dominates another.
+	 *
+	 * @param one
+	 *            The possibly dominating itinerary.
+	 *
+	 * @param other
+	 *            The possibly dominated itinerary.
+	 *
+	 * @return True if the first dominates the second.
+	 */
+	private static boolean dominates(Itinerary one, Itinerary other) {
+		return dominates(one.getTotalCostCents(),
+				one.totalTravelTimeMinutes(), one.getNumberOfFlights(),
+				other.getTotalCostCents(),
+				other.totalTravelTimeMinutes(), other.getNumberOfFlights());
+	}
+}
@@ -0,0 +1,180 @@
+package airline.flight;
+
+import org.joda.time.LocalDateTime;
+import org.joda.time.Minutes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static util.Assertions.*;
+
+/**
+ * A precomputed index of every flight in a graph that can still reach some
+ * destination by a chain of valid connections. A search towards that
+ * destination can consult this to throw away any branch that would never
+ * arrive, instead of expanding it until it dies out on its own. An index can
+ * also be built for several destinations at once, in which case a flight is
+ * kept if it can reach any of them.
+ *
+ * Whether a flight can reach a destination does not depend on the day the
+ * search started on, so one index serves every departure date for the same
+ * destination. The index ignores cycles (it is an over-approximation), which
+ * means it will never throw away a path that could have been a valid
+ * itinerary.
+ *
+ * @author Chris
+ */
+class ReachabilityIndex {
+
+	/**
+	 * The destinations this index was computed for.
+	 */
+	private Set<String> destinations;
+
+	/**
+	 * All the flights that can end up at the destination.
+	 */
+	private Set<FlightInformation> reachingFlights;
+
+	/**
+	 * The longest connection allowed between flights.
+	 */
+	private int maxGapMinutes;
+
+	/**
+	 * Computes the index for the destinations from all the nodes in a graph.
+	 *
+	 * @param nodes
+	 *            All the nodes in the graph.
+	 *
+	 * @param destinations
+	 *            The destinations to compute the index for.
+	 *
+	 * @param maxGapMinutes
+	 *            The longest connection allowed between flights.
+	 *
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	ReachabilityIndex(Iterable<FlightNode> nodes,
+			Collection<String> destinations, int maxGapMinutes) {
+		checkNotNull(nodes);
+		checkNotNull(destinations);
+		this.destinations = new HashSet<>(destinations);
+		this.maxGapMinutes = maxGapMinutes;
+		this.reachingFlights = new HashSet<>();
+		compute(nodes);
+	}
+
+	/**
+	 * Checks if the flight can end up at a destination of this index.
+	 *
+	 * @param flightInfo
+	 *            The flight to check.
+	 *
+	 * @return True if taking this flight may still lead to the destination,
+	 *         false if it never can.
+	 */
+	boolean canReachDestination(FlightInformation flightInfo) {
+		return reachingFlights.contains(flightInfo);
+	}
+
+	/**
+	 * Gets the destinations this index was built for.
+	 *
+	 * @return The destination names.
+	 */
+	Set<String> getDestinations() {
+		return destinations;
+	}
+
+	/**
+	 * Gets the longest connection this index allows between flights.
+	 *
+	 * @return The longest connection in minutes.
+	 */
+	int getMaxGapMinutes() {
+		return maxGapMinutes;
+	}
+
+	/**
+	 * Sweeps all the flights from the latest departure to the earliest. Since
+	 * a connecting flight always departs after the flight before it, every
+	 * possible next leg has already been decided by the time a flight is
+	 * looked at.
+	 *
+	 * @param nodes
+	 *            All the nodes in the graph.
+	 */
+	private void compute(Iterable<FlightNode> nodes) {
+		List<FlightInformation> allFlights = new ArrayList<>();
+		for (FlightNode node : nodes) {
+			for (List<FlightInformation> flights : node.getFlightData()
+					.values()) {
+				allFlights.addAll(flights);
+			}
+		}
+		Collections.sort(allFlights, new Comparator<FlightInformation>() {
+			public int compare(FlightInformation one, FlightInformation other) {
+				return other.getDepartureDateTime().compareTo(
+						one.getDepartureDateTime());
+			}
+		});
+
+		// The departure times of the reaching flights out of each location.
+		Map<String, TreeSet<LocalDateTime>> reachingDepartures;
+		reachingDepartures = new HashMap<>();
+		for (FlightInformation fi : allFlights) {
+			boolean reaches = destinations.contains(fi.getDestination());
+			if (!reaches) {
+				TreeSet<LocalDateTime> nextDepartures = reachingDepartures
+						.get(fi.getDestination());
+				reaches = hasConnection(nextDepartures,
+						fi.getArrivalDateTime());
+			}
+
+			if (reaches) {
+				reachingFlights.add(fi);
+				TreeSet<LocalDateTime> departures = reachingDepartures.get(fi
+						.getOrigin());
+				if (departures == null) {
+					departures = new TreeSet<>();
+					reachingDepartures.put(fi.getOrigin(), departures);
+				}
+				departures.add(fi.getDepartureDateTime());
+			}
+		}
+	}
+
+	/**
+	 * Checks if any of the departures can be connected to from the arrival.
+	 *
+	 * @param departures
+	 *            The departure times of reaching flights (can be null).
+	 *
+	 * @param arrival
+	 *            The arrival time of the previous flight.
+	 *
+	 * @return True if a departure is inside the connection gap.
+	 */
+	private boolean hasConnection(TreeSet<LocalDateTime> departures,
+			LocalDateTime arrival) {
+		if (departures == null) {
+			return false;
+		}
+		LocalDateTime next = departures.ceiling(arrival);
+		if (next == null) {
+			return false;
+		}
+		int gap = Minutes.minutesBetween(arrival, next).getMinutes();
+		return gap <= maxGapMinutes;
+	}
+}
@@ -0,0 +1,120 @@
+package airline.flight;
+
+import org.joda.time.LocalDateTime;
+
+import util.Money;
+
+import static util.Assertions.*;
+
+/**
+ * A summary of the best way to get to one destination from an origin. Each
+ * value is the best over every itinerary to the destination, so the cheapest
+ * price and the earliest arrival may come from different itineraries.
+ *
+ * @author Chris
+ */
+public class ReachableDestination {
+
+	/**
+	 * The destination name.
+	 */
+	private String destination;
+
+	/**
+	 * The cheapest price to get there (cents).
+	 */
+	private long cheapestCostCents;
+
+	/**
+	 * The earliest time it can be arrived at.
+	 */
+	private LocalDateTime earliestArrival;
+
+	/**
+	 * The fewest flights needed to get there.
+	 */
+	private int fewestLegs;
+
+	/**
+	 * Creates a summary for a destination.
+	 *
+	 * @param destination
+	 *            The destination name.
+	 *
+	 * @param cheapestCostCents
+	 *            The cheapest price to get there (cents).
+	 *
+	 * @param earliestArrival
+	 *            The earliest time it can be arrived at.
+	 *
+	 * @param fewestLegs
+	 *            The fewest flights needed to get there.
+	 *
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	public ReachableDestination(String destination, long cheapestCostCents,
+			LocalDateTime earliestArrival, int fewestLegs) {
+		checkNotNull(destination);
+		checkNotNull(earliestArrival);
+		this.destination = destination;
+		this.cheapestCostCents = cheapestCostCents;
+		this.earliestArrival = earliestArrival;
+		this.fewestLegs = fewestLegs;
+	}
+
+	/**
+	 * Gets the destination name.
+	 *
+	 * @return The destination name.
+	 */
+	public String getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Gets the cheapest price to get to the destination.
+	 *
+	 * @return The cheapest price (dollars).
+	 */
+	public double getCheapestCost() {
+		return Money.toDollars(cheapestCostCents);
+	}
+
+	/**
+	 * Gets the cheapest price to get to the destination in cents.
+	 *
+	 * @return The cheapest price (cents).
+	 */
+	public long getCheapestCostCents() {
+		return cheapestCostCents;
+	}
+
+	/**
+	 * Gets the earliest time the destination can be arrived at.
+	 *
+	 * @return The earliest arrival.
+	 */
+	public LocalDateTime getEarliestArrival() {
+		return earliestArrival;
+	}
+
+	/**
+	 * Gets the fewest flights needed to get to the destination.
+	 *
+	 * @return The fewest flights.
+	 */
+	public int getFewestLegs() {
+		return fewestLegs;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return destination + "," + Money.format(cheapestCostCents) + ","
+				+ earliestArrival.toString("yyyy-MM-dd HH:mm") + ","
+				+ fewestLegs;
+	}
+}
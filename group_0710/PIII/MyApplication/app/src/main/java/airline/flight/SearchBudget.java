@@ -0,0 +1,99 @@
+package airline.flight;
+
+/**
+ * Keeps track of how much of its time and expansions one search has used.
+ * The clock is only read every so often, since a search can expand a great
+ * many paths and reading it each time would add up.
+ *
+ * @author Chris
+ */
+class SearchBudget {
+
+	/**
+	 * How many expansions there are between reads of the clock.
+	 */
+	private static final int EXPANSIONS_PER_CLOCK_CHECK = 64;
+
+	/**
+	 * When the search has to stop (System.nanoTime), if it has a deadline.
+	 */
+	private long deadline;
+
+	/**
+	 * If the search has a deadline.
+	 */
+	private boolean hasDeadline;
+
+	/**
+	 * How many more paths can be expanded.
+	 */
+	private int expansionsLeft;
+
+	/**
+	 * How many paths have been expanded.
+	 */
+	private int expansions;
+
+	/**
+	 * If the budget ran out.
+	 */
+	private boolean exhausted;
+
+	/**
+	 * Starts the budget for a search now.
+	 *
+	 * @param options
+	 *            The options with the time and expansion limits.
+	 */
+	SearchBudget(SearchOptions options) {
+		assert options != null;
+		hasDeadline = options.getTimeBudgetMillis() > 0;
+		if (hasDeadline) {
+			deadline = System.nanoTime() + options.getTimeBudgetMillis()
+					* 1000000L;
+		}
+		expansionsLeft = options.getMaxExpansions();
+	}
+
+	/**
+	 * Uses up one expansion, if there is any budget left for it.
+	 *
+	 * @return True if the path can be expanded, false if the search has to
+	 *         stop.
+	 */
+	boolean spend() {
+		if (exhausted) {
+			return false;
+		}
+		if (expansionsLeft <= 0) {
+			exhausted = true;
+			return false;
+		}
+		if (hasDeadline && expansions % EXPANSIONS_PER_CLOCK_CHECK == 0
+				&& System.nanoTime() - deadline >= 0) {
+			exhausted = true;
+			return false;
+		}
+		expansionsLeft--;
+		expansions++;
+		return true;
+	}
+
+	/**
+	 * Checks if the budget ran out before the search finished.
+	 *
+	 * @return True if the search was cut short.
+	 */
+	boolean isExhausted() {
+		return exhausted;
+	}
+
+	/**
+	 * Gets how many paths were expanded.
+	 *
+	 * @return The number of expansions.
+	 */
+	int getExpansions() {
+		return expansions;
+	}
+}
@@ -0,0 +1,388 @@
+package airline.flight;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import util.Constants;
+import util.Money;
+
+import static util.Assertions.*;
+
+/**
+ * The constraints an itinerary search has to obey. These are checked while
+ * the search is expanding paths rather than after, so any path that breaks a
+ * constraint is never expanded further. A newly created object has the same
+ * rules as the project specification (no leg limit, and connections of at
+ * most Constants.MAX_MINUTES_PER_FLIGHT_GAP minutes).
+ *
+ * @author Chris
+ */
+public class SearchOptions {
+
+	/**
+	 * The most flights an itinerary can have.
+	 */
+	private int maxLegs;
+
+	/**
+	 * The least minutes allowed between arriving and the next departure.
+	 */
+	private int minConnectionMinutes;
+
+	/**
+	 * The most minutes allowed between arriving and the next departure.
+	 */
+	private int maxConnectionMinutes;
+
+	/**
+	 * The most minutes from the first departure to the last arrival.
+	 */
+	private int maxElapsedMinutes;
+
+	/**
+	 * The most the whole itinerary can cost (cents).
+	 */
+	private long maxPriceCents;
+
+	/**
+	 * The most milliseconds a search can run for, or 0 if there is no limit.
+	 */
+	private long timeBudgetMillis;
+
+	/**
+	 * The most paths a search can expand.
+	 */
+	private int maxExpansions;
+
+	/**
+	 * The only airlines that may be flown, or empty if any can be.
+	 */
+	private Set<String> allowedAirlines;
+
+	/**
+	 * The airlines that may never be flown.
+	 */
+	private Set<String> deniedAirlines;
+
+	/**
+	 * The fewest seats every flight must have left.
+	 */
+	private int minSeats;
+
+	/**
+	 * Creates search options with no constraints beyond the default
+	 * connection gap.
+	 */
+	public SearchOptions() {
+		maxLegs = Integer.MAX_VALUE;
+		minConnectionMinutes = 0;
+		maxConnectionMinutes = Constants.MAX_MINUTES_PER_FLIGHT_GAP;
+		maxElapsedMinutes = Integer.MAX_VALUE;
+		maxPriceCents = Long.MAX_VALUE;
+		timeBudgetMillis = 0;
+		maxExpansions = Integer.MAX_VALUE;
+		allowedAirlines = new HashSet<>();
+		deniedAirlines = new HashSet<>();
+		minSeats = 0;
+	}
+
+	/**
+	 * Sets the most flights an itinerary can have.
+	 *
+	 * @param maxLegs
+	 *            The most flights allowed.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is less than one.
+	 */
+	public void setMaxLegs(int maxLegs) {
+		checkArgument(maxLegs >= 1);
+		this.maxLegs = maxLegs;
+	}
+
+	/**
+	 * Sets the least and most minutes allowed between arriving at a place and
+	 * departing from it on the next flight.
+	 *
+	 * @param minMinutes
+	 *            The shortest connection allowed.
+	 *
+	 * @param maxMinutes
+	 *            The longest connection allowed.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the minimum is negative or greater than the maximum.
+	 */
+	public void setConnectionMinutes(int minMinutes, int maxMinutes) {
+		checkArgument(minMinutes >= 0);
+		checkArgument(minMinutes <= maxMinutes);
+		this.minConnectionMinutes = minMinutes;
+		this.maxConnectionMinutes = maxMinutes;
+	}
+
+	/**
+	 * Sets the most minutes allowed from the first departure to the last
+	 * arrival.
+	 *
+	 * @param maxElapsedMinutes
+	 *            The longest total travel time allowed.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is not positive.
+	 */
+	public void setMaxElapsedMinutes(int maxElapsedMinutes) {
+		checkArgument(maxElapsedMinutes > 0);
+		this.maxElapsedMinutes = maxElapsedMinutes;
+	}
+
+	/**
+	 * Sets the most the whole itinerary is allowed to cost.
+	 *
+	 * @param maxPrice
+	 *            The highest total price (dollars), which is rounded to the
+	 *            nearest cent.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the price is negative.
+	 */
+	public void setMaxPrice(double maxPrice) {
+		checkArgument(maxPrice >= 0);
+		this.maxPriceCents = Money.toCents(maxPrice);
+	}
+
+	/**
+	 * Sets the most time a search can run for. Once it runs out, the search
+	 * stops and returns what it has found so far. Only the searches that
+	 * return a SearchResult, which says if they were cut short, take options
+	 * with a budget.
+	 *
+	 * @param timeBudgetMillis
+	 *            The most milliseconds the search can take.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is not positive.
+	 */
+	public void setTimeBudgetMillis(long timeBudgetMillis) {
+		checkArgument(timeBudgetMillis > 0);
+		this.timeBudgetMillis = timeBudgetMillis;
+	}
+
+	/**
+	 * Sets the most paths a search can expand. Once it runs out, the search
+	 * stops and returns what it has found so far. Like the time budget, this
+	 * is only taken by the searches that return a SearchResult.
+	 *
+	 * @param maxExpansions
+	 *            The most paths to expand.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is less than one.
+	 */
+	public void setMaxExpansions(int maxExpansions) {
+		checkArgument(maxExpansions >= 1);
+		this.maxExpansions = maxExpansions;
+	}
+
+	/**
+	 * Adds an airline to the allowed list. Once any airline is allowed, only
+	 * the allowed airlines can be flown.
+	 *
+	 * @param airline
+	 *            The airline name.
+	 *
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 */
+	public void allowAirline(String airline) {
+		checkNotNull(airline);
+		allowedAirlines.add(airline);
+	}
+
+	/**
+	 * Adds an airline to the denied list, so it will never be flown.
+	 *
+	 * @param airline
+	 *            The airline name.
+	 *
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 */
+	public void denyAirline(String airline) {
+		checkNotNull(airline);
+		deniedAirlines.add(airline);
+	}
+
+	/**
+	 * Sets the fewest seats every flight must have left, so only itineraries
+	 * that can still be booked are found. Seats are only known to searches
+	 * over the flight objects, so an off heap copy of the graph ignores this.
+	 *
+	 * @param minSeats
+	 *            The fewest seats left, or 0 to allow full flights.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is negative.
+	 */
+	public void setMinSeats(int minSeats) {
+		checkArgument(minSeats >= 0);
+		this.minSeats = minSeats;
+	}
+
+	/**
+	 * Gets the most flights an itinerary can have.
+	 *
+	 * @return The most flights allowed.
+	 */
+	public int getMaxLegs() {
+		return maxLegs;
+	}
+
+	/**
+	 * Gets the least minutes allowed between flights.
+	 *
+	 * @return The shortest connection allowed.
+	 */
+	public int getMinConnectionMinutes() {
+		return minConnectionMinutes;
+	}
+
+	/**
+	 * Gets the most minutes allowed between flights.
+	 *
+	 * @return The longest connection allowed.
+	 */
+	public int getMaxConnectionMinutes() {
+		return maxConnectionMinutes;
+	}
+
+	/**
+	 * Gets the most minutes from the first departure to the last arrival.
+	 *
+	 * @return The longest total travel time allowed.
+	 */
+	public int getMaxElapsedMinutes() {
+		return maxElapsedMinutes;
+	}
+
+	/**
+	 * Gets the most the whole itinerary can cost.
+	 *
+	 * @return The highest total price (dollars).
+	 */
+	public double getMaxPrice() {
+		return Money.toDollars(maxPriceCents);
+	}
+
+	/**
+	 * Gets the most the whole itinerary can cost in cents.
+	 *
+	 * @return The highest total price (cents).
+	 */
+	public long getMaxPriceCents() {
+		return maxPriceCents;
+	}
+
+	/**
+	 * Gets the most time a search can run for.
+	 *
+	 * @return The most milliseconds, or 0 if there is no limit.
+	 */
+	public long getTimeBudgetMillis() {
+		return timeBudgetMillis;
+	}
+
+	/**
+	 * Gets the most paths a search can expand.
+	 *
+	 * @return The most expansions.
+	 */
+	public int getMaxExpansions() {
+		return maxExpansions;
+	}
+
+	/**
+	 * Checks if a time or expansion budget was set, so a search with these
+	 * options could be cut short.
+	 *
+	 * @return True if either budget was set.
+	 */
+	public boolean hasBudget() {
+		return timeBudgetMillis > 0 || maxExpansions != Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Gets the fewest seats every flight must have left.
+	 *
+	 * @return The fewest seats left.
+	 */
+	public int getMinSeats() {
+		return minSeats;
+	}
+
+	/**
+	 * Checks if the flight could be the first leg of an itinerary.
+	 *
+	 * @param flightInfo
+	 *            The first flight.
+	 *
+	 * @return True if the flight does not break any constraint on its own.
+	 */
+	boolean permitsFirstLeg(FlightInformation flightInfo) {
+		return permitsAirline(flightInfo.getAirline())
+				&& flightInfo.getSeatsLeft() >= minSeats
+				&& flightInfo.getCostCents() <= maxPriceCents
+				&& flightInfo.getTravelTimeMinutes() <= maxElapsedMinutes;
+	}
+
+	/**
+	 * Checks if the path is allowed to be extended by any more flights.
+	 *
+	 * @param path
+	 *            The path so far.
+	 *
+	 * @return True if another leg would not go over the leg limit.
+	 */
+	boolean permitsMoreLegs(ItineraryBuilder path) {
+		return path.size() < maxLegs;
+	}
+
+	/**
+	 * Checks if the flight can be added to the end of the path without
+	 * breaking any constraint. This does not check for cycles.
+	 *
+	 * @param path
+	 *            The path so far.
+	 *
+	 * @param next
+	 *            The flight to take next.
+	 *
+	 * @return True if the path extended with the flight is still allowed.
+	 */
+	boolean permitsConnection(ItineraryBuilder path, FlightInformation next) {
+		if (!permitsAirline(next.getAirline())
+				|| next.getSeatsLeft() < minSeats
+				|| !next.departsWithin(path.getLastArrivalMinute(),
+						minConnectionMinutes, maxConnectionMinutes)
+				|| path.getTotalCostCents() + next.getCostCents()
+						> maxPriceCents) {
+			return false;
+		}
+		int elapsed = next.getArrivalMinute() - path.getFirstDepartureMinute();
+		return elapsed <= maxElapsedMinutes;
+	}
+
+	/**
+	 * Checks if the airline may be flown.
+	 *
+	 * @param airline
+	 *            The airline name.
+	 *
+	 * @return True if it is allowed and not denied.
+	 */
+	boolean permitsAirline(String airline) {
+		if (deniedAirlines.contains(airline)) {
+			return false;
+		}
+		return allowedAirlines.isEmpty() || allowedAirlines.contains(airline);
+	}
+}
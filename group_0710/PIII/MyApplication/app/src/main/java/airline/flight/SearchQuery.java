@@ -0,0 +1,116 @@
+package airline.flight;
+
+import static util.Assertions.*;
+
+/**
+ * A single itinerary search request, used when many searches are run
+ * together as a batch.
+ *
+ * @author Chris
+ */
+public class SearchQuery {
+
+	/**
+	 * The origin location.
+	 */
+	private String origin;
+
+	/**
+	 * The desired destination.
+	 */
+	private String destination;
+
+	/**
+	 * The desired departure day in YYYY-MM-DD format.
+	 */
+	private String departureDate;
+
+	/**
+	 * Creates a search query.
+	 *
+	 * @param origin
+	 *            The origin location.
+	 *
+	 * @param destination
+	 *            The desired destination.
+	 *
+	 * @param departureDate
+	 *            The desired departure day (YYYY-MM-DD).
+	 *
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the departure date is not in YYYY-MM-DD format, or if the
+	 *             origin and destination are the same.
+	 */
+	public SearchQuery(String origin, String destination,
+			String departureDate) {
+		checkNotNull(origin);
+		checkNotNull(destination);
+		checkNotNull(departureDate);
+		checkArgument(departureDate.matches("\\d{4}-\\d{2}-\\d{2}"));
+		checkArgument(!origin.equals(destination));
+		this.origin = origin;
+		this.destination = destination;
+		this.departureDate = departureDate;
+	}
+
+	/**
+	 * Gets the origin location.
+	 *
+	 * @return The origin name.
+	 */
+	public String getOrigin() {
+		return origin;
+	}
+
+	/**
+	 * Gets the desired destination.
+	 *
+	 * @return The destination name.
+	 */
+	public String getDestination() {
+		return destination;
+	}
+
+	/**
+	 * Gets the desired departure day.
+	 *
+	 * @return The departure day (YYYY-MM-DD).
+	 */
+	public String getDepartureDate() {
+		return departureDate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof SearchQuery)) {
+			return false;
+		}
+		SearchQuery other = (SearchQuery) o;
+		return origin.equals(other.origin)
+				&& destination.equals(other.destination)
+				&& departureDate.equals(other.departureDate);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		return (origin.hashCode() * 31 + destination.hashCode()) * 31
+				+ departureDate.hashCode();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return origin + "," + destination + "," + departureDate;
+	}
+}
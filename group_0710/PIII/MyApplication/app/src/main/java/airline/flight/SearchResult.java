@@ -0,0 +1,85 @@
+package airline.flight;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static util.Assertions.*;
+
+/**
+ * The itineraries a search found, and whether the search finished or was
+ * cut short by its time or expansion budget. A cut short search still has
+ * every itinerary it completed before stopping, which favours the ones with
+ * fewer flights since those are found first.
+ *
+ * @author Chris
+ */
+public class SearchResult {
+
+	/**
+	 * The itineraries found.
+	 */
+	private List<Itinerary> itineraries;
+
+	/**
+	 * If the search stopped before looking at everything.
+	 */
+	private boolean truncated;
+
+	/**
+	 * If the search was allowed to run at all.
+	 */
+	private boolean admitted;
+
+	/**
+	 * Creates a result.
+	 *
+	 * @param itineraries
+	 *            The itineraries found.
+	 *
+	 * @param truncated
+	 *            If the search stopped before looking at everything.
+	 *
+	 * @param admitted
+	 *            If the search was allowed to run at all.
+	 *
+	 * @throws NullPointerException
+	 *             If the itineraries are null.
+	 */
+	public SearchResult(List<Itinerary> itineraries, boolean truncated,
+			boolean admitted) {
+		checkNotNull(itineraries);
+		this.itineraries = new ArrayList<>(itineraries);
+		this.truncated = truncated;
+		this.admitted = admitted;
+	}
+
+	/**
+	 * Gets the itineraries found.
+	 *
+	 * @return A copied list of the itineraries.
+	 */
+	public List<Itinerary> getItineraries() {
+		return new ArrayList<>(itineraries);
+	}
+
+	/**
+	 * Checks if the search stopped before looking at everything, so there
+	 * may be more itineraries than the ones found.
+	 *
+	 * @return True if the result is partial.
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Checks if the search was allowed to run. A search that was turned away
+	 * because too many others were running has no itineraries and is
+	 * truncated.
+	 *
+	 * @return True if the search ran.
+	 */
+	public boolean isAdmitted() {
+		return admitted;
+	}
+}
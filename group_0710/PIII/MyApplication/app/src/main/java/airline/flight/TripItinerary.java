@@ -0,0 +1,123 @@
+package airline.flight;
+
+import org.joda.time.LocalDateTime;
+import org.joda.time.Minutes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import util.Money;
+
+import static util.Assertions.*;
+
+/**
+ * A trip made of one itinerary per segment, such as the way out and the way
+ * back of a round trip, or every stop of a multi-city trip.
+ *
+ * @author Chris
+ */
+public class TripItinerary {
+
+	/**
+	 * The itinerary for each segment, in the order they are flown.
+	 */
+	private List<Itinerary> segments;
+
+	/**
+	 * The total cost of every segment (cents).
+	 */
+	private long totalCostCents;
+
+	/**
+	 * The minutes spent travelling on every segment, which does not include
+	 * the time spent between segments.
+	 */
+	private int travelTimeMinutes;
+
+	/**
+	 * Creates a trip from its segments.
+	 *
+	 * @param segments
+	 *            The itinerary for each segment, in the order they are flown.
+	 *
+	 * @throws NullPointerException
+	 *             If the argument or any segment is null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there are no segments.
+	 */
+	public TripItinerary(List<Itinerary> segments) {
+		checkNotNull(segments);
+		checkArgument(!segments.isEmpty());
+
+		this.segments = new ArrayList<>(segments.size());
+		for (Itinerary it : segments) {
+			checkNotNull(it);
+			this.segments.add(it);
+			totalCostCents += it.getTotalCostCents();
+			travelTimeMinutes += it.totalTravelTimeMinutes();
+		}
+	}
+
+	/**
+	 * Gets a copied list of the itinerary for each segment.
+	 *
+	 * @return The segments in the order they are flown.
+	 */
+	public List<Itinerary> getSegments() {
+		return new ArrayList<>(segments);
+	}
+
+	/**
+	 * Gets the total cost of every segment.
+	 *
+	 * @return The total cost (dollars).
+	 */
+	public double getTotalCost() {
+		return Money.toDollars(totalCostCents);
+	}
+
+	/**
+	 * Gets the total cost of every segment in cents.
+	 *
+	 * @return The total cost (cents).
+	 */
+	public long getTotalCostCents() {
+		return totalCostCents;
+	}
+
+	/**
+	 * Gets the minutes spent travelling on every segment, including the
+	 * connections within a segment but not the stay between segments.
+	 *
+	 * @return The total travel time in minutes.
+	 */
+	public int getTravelTimeMinutes() {
+		return travelTimeMinutes;
+	}
+
+	/**
+	 * Gets the minutes from the first departure of the trip to the last
+	 * arrival, including the stay between segments.
+	 *
+	 * @return The total time away in minutes.
+	 */
+	public int totalTripMinutes() {
+		LocalDateTime start = segments.get(0).getDepartureDateTime();
+		LocalDateTime end = segments.get(segments.size() - 1)
+				.getArrivalDateTime();
+		return Minutes.minutesBetween(start, end).getMinutes();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		String out = "";
+		for (Itinerary it : segments) {
+			out += it.toString();
+		}
+		return out + Money.format(totalCostCents);
+	}
+}
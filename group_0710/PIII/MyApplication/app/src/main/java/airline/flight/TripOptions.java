@@ -0,0 +1,196 @@
+package airline.flight;
+
+import util.Money;
+
+import static util.Assertions.*;
+
+/**
+ * How a round trip or multi-city search combines the itineraries found for
+ * each segment. The options for the itineraries themselves are given by a
+ * SearchOptions object. A newly created object ranks trips by cost, has no
+ * bounds and returns every trip.
+ *
+ * @author Chris
+ */
+public class TripOptions {
+
+	/**
+	 * What the trips are ranked by, best first.
+	 */
+	public enum Criterion {
+
+		/**
+		 * The total cost of every segment.
+		 */
+		COST,
+
+		/**
+		 * The minutes spent travelling on every segment.
+		 */
+		TRAVEL_TIME
+	}
+
+	/**
+	 * What the trips are ranked by.
+	 */
+	private Criterion criterion;
+
+	/**
+	 * The most the whole trip can cost (cents).
+	 */
+	private long maxTotalPriceCents;
+
+	/**
+	 * The most minutes that can be spent travelling on the whole trip.
+	 */
+	private int maxTravelMinutes;
+
+	/**
+	 * The most trips to return.
+	 */
+	private int maxResults;
+
+	/**
+	 * Creates trip options that rank by cost with no bounds.
+	 */
+	public TripOptions() {
+		criterion = Criterion.COST;
+		maxTotalPriceCents = Long.MAX_VALUE;
+		maxTravelMinutes = Integer.MAX_VALUE;
+		maxResults = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Sets what the trips are ranked by.
+	 *
+	 * @param criterion
+	 *            The criterion to rank by.
+	 *
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 */
+	public void setCriterion(Criterion criterion) {
+		checkNotNull(criterion);
+		this.criterion = criterion;
+	}
+
+	/**
+	 * Sets the most the whole trip is allowed to cost.
+	 *
+	 * @param maxTotalPrice
+	 *            The highest total price (dollars), which is rounded to the
+	 *            nearest cent.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the price is negative.
+	 */
+	public void setMaxTotalPrice(double maxTotalPrice) {
+		checkArgument(maxTotalPrice >= 0);
+		this.maxTotalPriceCents = Money.toCents(maxTotalPrice);
+	}
+
+	/**
+	 * Sets the most minutes that can be spent travelling on the whole trip.
+	 *
+	 * @param maxTravelMinutes
+	 *            The longest total travel time allowed.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is not positive.
+	 */
+	public void setMaxTravelMinutes(int maxTravelMinutes) {
+		checkArgument(maxTravelMinutes > 0);
+		this.maxTravelMinutes = maxTravelMinutes;
+	}
+
+	/**
+	 * Sets the most trips a search returns.
+	 *
+	 * @param maxResults
+	 *            The most trips to return.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the value is less than one.
+	 */
+	public void setMaxResults(int maxResults) {
+		checkArgument(maxResults >= 1);
+		this.maxResults = maxResults;
+	}
+
+	/**
+	 * Gets what the trips are ranked by.
+	 *
+	 * @return The criterion.
+	 */
+	public Criterion getCriterion() {
+		return criterion;
+	}
+
+	/**
+	 * Gets the most the whole trip can cost.
+	 *
+	 * @return The highest total price (dollars).
+	 */
+	public double getMaxTotalPrice() {
+		return Money.toDollars(maxTotalPriceCents);
+	}
+
+	/**
+	 * Gets the most the whole trip can cost in cents.
+	 *
+	 * @return The highest total price (cents).
+	 */
+	public long getMaxTotalPriceCents() {
+		return maxTotalPriceCents;
+	}
+
+	/**
+	 * Gets the most minutes that can be spent travelling on the whole trip.
+	 *
+	 * @return The longest total travel time.
+	 */
+	public int getMaxTravelMinutes() {
+		return maxTravelMinutes;
+	}
+
+	/**
+	 * Gets the most trips a search returns.
+	 *
+	 * @return The most trips.
+	 */
+	public int getMaxResults() {
+		return maxResults;
+	}
+
+	/**
+	 * Scores an itinerary by the criterion, where lower is better. The score
+	 * of a trip is the sum of the scores of its segments.
+	 *
+	 * @param it
+	 *            The itinerary to score.
+	 *
+	 * @return The score, which is the cost in cents or the travel minutes.
+	 */
+	long score(Itinerary it) {
+		if (criterion == Criterion.COST) {
+			return it.getTotalCostCents();
+		}
+		return it.totalTravelTimeMinutes();
+	}
+
+	/**
+	 * Checks if a trip is within the price and travel time bounds.
+	 *
+	 * @param totalCostCents
+	 *            The total cost of the trip (cents).
+	 *
+	 * @param travelMinutes
+	 *            The minutes spent travelling on the trip.
+	 *
+	 * @return True if the trip is within both bounds.
+	 */
+	boolean permits(long totalCostCents, int travelMinutes) {
+		return totalCostCents <= maxTotalPriceCents
+				&& travelMinutes <= maxTravelMinutes;
+	}
+}
@@ -0,0 +1,267 @@
+package airline.flight;
+
+import org.joda.time.LocalDateTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import util.Money;
+
+/**
+ * Combines the itineraries found for each segment of a trip into whole trips
+ * in order of the trip criterion, best first. The combinations are made one
+ * at a time as they are needed, so only the trips that are looked at are
+ * ever built instead of every possible combination.
+ *
+ * Since a trip is scored by the sum of its segments, sorting each segment by
+ * score means the best trip not yet returned always differs from one already
+ * looked at in only one segment. Each combination has exactly one parent (the
+ * one with its last moved segment moved back), so it is only queued once.
+ *
+ * @author Chris
+ */
+class TripSearch {
+
+	/**
+	 * The itineraries for each segment that can be in some trip, best first.
+	 */
+	private List<List<Itinerary>> segments;
+
+	/**
+	 * How the trips are ranked and bounded.
+	 */
+	private TripOptions options;
+
+	/**
+	 * A combination of one itinerary per segment waiting to be looked at.
+	 */
+	private static class Candidate {
+
+		/**
+		 * The itinerary index for each segment.
+		 */
+		int[] indexes;
+
+		/**
+		 * The last segment that was moved to make this combination.
+		 */
+		int moved;
+
+		/**
+		 * The score of the combination.
+		 */
+		long score;
+	}
+
+	/**
+	 * Creates a search over the itineraries for each segment.
+	 *
+	 * @param found
+	 *            The itineraries for each segment, in the order the segments
+	 *            are flown.
+	 *
+	 * @param options
+	 *            How the trips are ranked and bounded.
+	 */
+	TripSearch(List<List<Itinerary>> found, TripOptions options) {
+		assert found != null;
+		assert options != null;
+		this.options = options;
+
+		segments = new ArrayList<>(found.size());
+		for (List<Itinerary> its : found) {
+			segments.add(new ArrayList<>(its));
+		}
+		removeImpossible();
+
+		final TripOptions scoring = options;
+		for (List<Itinerary> its : segments) {
+			Collections.sort(its, new Comparator<Itinerary>() {
+				public int compare(Itinerary one, Itinerary other) {
+					return Money.compare(scoring.score(one),
+							scoring.score(other));
+				}
+			});
+		}
+	}
+
+	/**
+	 * Removes the itineraries that cannot be in any trip, either because the
+	 * segments before or after them cannot connect in time, or because even
+	 * the best of the other segments would go over a bound.
+	 */
+	private void removeImpossible() {
+		// Going forward, a segment has to leave after the earliest the
+		// segment before it can arrive.
+		LocalDateTime earliest = null;
+		for (List<Itinerary> its : segments) {
+			LocalDateTime nextEarliest = null;
+			for (int i = its.size() - 1; i >= 0; i--) {
+				Itinerary it = its.get(i);
+				LocalDateTime arrival = it.getArrivalDateTime();
+				if (earliest != null
+						&& it.getDepartureDateTime().isBefore(earliest)) {
+					its.remove(i);
+				} else if (nextEarliest == null
+						|| arrival.isBefore(nextEarliest)) {
+					nextEarliest = arrival;
+				}
+			}
+			earliest = nextEarliest;
+		}
+
+		// Going back, a segment has to arrive before the latest the segment
+		// after it can leave.
+		LocalDateTime latest = null;
+		for (int s = segments.size() - 1; s >= 0; s--) {
+			List<Itinerary> its = segments.get(s);
+			LocalDateTime nextLatest = null;
+			for (int i = its.size() - 1; i >= 0; i--) {
+				Itinerary it = its.get(i);
+				LocalDateTime departure = it.getDepartureDateTime();
+				if (latest != null && it.getArrivalDateTime().isAfter(latest)) {
+					its.remove(i);
+				} else if (nextLatest == null
+						|| departure.isAfter(nextLatest)) {
+					nextLatest = departure;
+				}
+			}
+			latest = nextLatest;
+		}
+
+		// Every other segment adds at least its cheapest and quickest.
+		long cheapestTotal = 0;
+		int quickestTotal = 0;
+		long[] cheapest = new long[segments.size()];
+		int[] quickest = new int[segments.size()];
+		for (int s = 0; s < segments.size(); s++) {
+			if (segments.get(s).isEmpty()) {
+				return;
+			}
+			cheapest[s] = Long.MAX_VALUE;
+			quickest[s] = Integer.MAX_VALUE;
+			for (Itinerary it : segments.get(s)) {
+				cheapest[s] = Math.min(cheapest[s], it.getTotalCostCents());
+				quickest[s] = Math.min(quickest[s],
+						it.totalTravelTimeMinutes());
+			}
+			cheapestTotal += cheapest[s];
+			quickestTotal += quickest[s];
+		}
+		for (int s = 0; s < segments.size(); s++) {
+			long othersCost = cheapestTotal - cheapest[s];
+			int othersMinutes = quickestTotal - quickest[s];
+			List<Itinerary> its = segments.get(s);
+			for (int i = its.size() - 1; i >= 0; i--) {
+				Itinerary it = its.get(i);
+				if (!options.permits(othersCost + it.getTotalCostCents(),
+						othersMinutes + it.totalTravelTimeMinutes())) {
+					its.remove(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the best trips in order.
+	 *
+	 * @return The trips that fit in the bounds, best first, up to the most
+	 *         results in the options (this can be empty).
+	 */
+	List<TripItinerary> search() {
+		List<TripItinerary> trips = new LinkedList<>();
+		for (List<Itinerary> its : segments) {
+			if (its.isEmpty()) {
+				return trips;
+			}
+		}
+
+		PriorityQueue<Candidate> queue = new PriorityQueue<>(11,
+				new Comparator<Candidate>() {
+					public int compare(Candidate one, Candidate other) {
+						return Money.compare(one.score, other.score);
+					}
+				});
+		Candidate first = new Candidate();
+		first.indexes = new int[segments.size()];
+		first.score = score(first.indexes);
+		queue.add(first);
+
+		boolean rankedByCost = options.getCriterion()
+				== TripOptions.Criterion.COST;
+		long bound = rankedByCost ? options.getMaxTotalPriceCents() : options
+				.getMaxTravelMinutes();
+
+		while (!queue.isEmpty() && trips.size() < options.getMaxResults()) {
+			Candidate candidate = queue.poll();
+
+			// Everything left scores at least this much, so once it is over
+			// the bound on the criterion nothing else can fit.
+			if (candidate.score > bound) {
+				break;
+			}
+
+			TripItinerary trip = toTrip(candidate.indexes);
+			if (trip != null
+					&& options.permits(trip.getTotalCostCents(),
+							trip.getTravelTimeMinutes())) {
+				trips.add(trip);
+			}
+
+			for (int s = candidate.moved; s < segments.size(); s++) {
+				if (candidate.indexes[s] + 1 < segments.get(s).size()) {
+					Candidate next = new Candidate();
+					next.indexes = candidate.indexes.clone();
+					next.indexes[s]++;
+					next.moved = s;
+					next.score = score(next.indexes);
+					queue.add(next);
+				}
+			}
+		}
+
+		return trips;
+	}
+
+	/**
+	 * Scores a combination by summing its segments.
+	 *
+	 * @param indexes
+	 *            The itinerary index for each segment.
+	 *
+	 * @return The score of the combination.
+	 */
+	private long score(int[] indexes) {
+		long score = 0;
+		for (int s = 0; s < indexes.length; s++) {
+			score += options.score(segments.get(s).get(indexes[s]));
+		}
+		return score;
+	}
+
+	/**
+	 * Makes a trip from a combination if each segment leaves after the one
+	 * before it arrives.
+	 *
+	 * @param indexes
+	 *            The itinerary index for each segment.
+	 *
+	 * @return The trip, or null if the segments do not connect.
+	 */
+	private TripItinerary toTrip(int[] indexes) {
+		List<Itinerary> chosen = new ArrayList<>(indexes.length);
+		for (int s = 0; s < indexes.length; s++) {
+			Itinerary it = segments.get(s).get(indexes[s]);
+			if (s > 0 && it.getDepartureDateTime().isBefore(
+					chosen.get(s - 1).getArrivalDateTime())) {
+				return null;
+			}
+			chosen.add(it);
+		}
+		return new TripItinerary(chosen);
+	}
+}
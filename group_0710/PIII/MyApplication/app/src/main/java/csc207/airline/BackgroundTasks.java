@@ -0,0 +1,209 @@
+package csc207.airline;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs slow work such as loading files and searching on a background thread,
+ * and hands the progress and results back to the UI thread, so an activity
+ * never blocks its main thread on IO. The tasks run one at a time in the
+ * order they were submitted, so a task can use an object such as a Database
+ * that the tasks before it loaded without any locking.
+ *
+ * An activity makes one of these in onCreate and calls cancelAll() in
+ * onDestroy, after which nothing more is delivered to it.
+ *
+ * @author Chris
+ */
+public class BackgroundTasks {
+
+    /**
+     * Work to run on the background thread.
+     *
+     * @param <T>
+     *            What the work results in.
+     */
+    public interface Task<T> {
+
+        /**
+         * Does the work. It should stop soon after the thread is
+         * interrupted.
+         *
+         * @param progress
+         *            Where to report how far the work has got.
+         *
+         * @return The result.
+         *
+         * @throws Exception
+         *             If the work failed.
+         */
+        T run(Progress progress) throws Exception;
+    }
+
+    /**
+     * Where a task reports how far it has got.
+     */
+    public interface Progress {
+
+        /**
+         * Reports how far the task has got. This can be called from the
+         * background thread as often as needed.
+         *
+         * @param status
+         *            A description of the progress to show.
+         */
+        void publish(String status);
+    }
+
+    /**
+     * Told about a task on the UI thread.
+     *
+     * @param <T>
+     *            What the task results in.
+     */
+    public interface Callback<T> {
+
+        /**
+         * Called when the task reports progress.
+         *
+         * @param status
+         *            The description of the progress.
+         */
+        void onProgress(String status);
+
+        /**
+         * Called when the task is done.
+         *
+         * @param result
+         *            The result of the task.
+         */
+        void onSuccess(T result);
+
+        /**
+         * Called when the task failed.
+         *
+         * @param e
+         *            Why it failed.
+         */
+        void onFailure(Exception e);
+    }
+
+    /**
+     * Runs the tasks one at a time.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Posts to the UI thread.
+     */
+    private final Handler handler;
+
+    /**
+     * Whether the tasks were cancelled, after which nothing is delivered.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Creates the background thread, which must be done on the UI thread.
+     */
+    public BackgroundTasks() {
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "BackgroundTasks");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        handler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Runs a task after the ones already submitted.
+     *
+     * @param task
+     *            The work to run on the background thread.
+     *
+     * @param callback
+     *            Told about the progress and result on the UI thread.
+     *
+     * @param <T>
+     *            What the task results in.
+     *
+     * @return The future of the task, which can cancel just this task.
+     */
+    public <T> Future<?> submit(final Task<T> task,
+            final Callback<T> callback) {
+        return executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                // Keep the UI thread ahead of this one for the CPU.
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                try {
+                    final T result = task.run(new Progress() {
+                        @Override
+                        public void publish(final String status) {
+                            deliver(new Runnable() {
+                                @Override
+                                public void run() {
+                                    callback.onProgress(status);
+                                }
+                            });
+                        }
+                    });
+                    deliver(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onSuccess(result);
+                        }
+                    });
+                } catch (final Exception e) {
+                    deliver(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onFailure(e);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Interrupts the running task, drops the ones waiting, and stops
+     * delivering anything that was not delivered yet. This has to be called
+     * on the UI thread, and nothing can be submitted after it.
+     */
+    public void cancelAll() {
+        cancelled = true;
+        executor.shutdownNow();
+        handler.removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * Runs something on the UI thread unless the tasks were cancelled by
+     * the time it gets there.
+     *
+     * @param runnable
+     *            What to run.
+     */
+    private void deliver(final Runnable runnable) {
+        if (cancelled) {
+            return;
+        }
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!cancelled) {
+                    runnable.run();
+                }
+            }
+        });
+    }
+}
@@ -24,10 +24,16 @@ import java.util.HashMap;
 
 public class MainActivity extends AppCompatActivity implements View.OnClickListener {
 
+    /**
+     * Reads the users off the UI thread.
+     */
+    private BackgroundTasks tasks;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        tasks = new BackgroundTasks();
         Toolbar toolbar = (Toolbar) findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
 
@@ -45,6 +51,12 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         button.setOnClickListener(this);
     }
 
+    @Override
+    protected void onDestroy() {
+        tasks.cancelAll();
+        super.onDestroy();
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         // Inflate the menu; this adds items to the action bar if it is present.
@@ -71,40 +83,103 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
     public void onClick(View v) {
         // Since there's only this single button, we can handle this easily
         // and assume this will always be the login button.
-        TextView textView = (TextView) findViewById(R.id.headerLoginLabel);
+        final TextView textView = (TextView) findViewById(R.id.headerLoginLabel);
         EditText userEditText = (EditText) findViewById(R.id.usernameTextfield);
         EditText passEditText = (EditText) findViewById(R.id.passwordField);
+        final Button button = (Button) v;
+        final String user = userEditText.getText().toString();
+        final String pass = passEditText.getText().toString();
 
         // Load the data and confirm. This could always be done better, but
         // for now lets just do it this way and be clearer later.
         // Learning source: http://stackoverflow.com/questions/2902689/how-
         // can-i-read-a-text-file-from-the-sd-card-in-android
         File sdcard = Environment.getExternalStorageDirectory();
-        File usersFile = new File(sdcard, "users.txt");
+        final File usersFile = new File(sdcard, "users.txt");
+
+        // The file is read on the background thread, and the login is
+        // checked once it has been read.
+        button.setEnabled(false);
+        tasks.submit(new BackgroundTasks.Task<HashMap<String, String>>() {
+            @Override
+            public HashMap<String, String> run(BackgroundTasks.Progress progress) {
+                return readUsers(usersFile);
+            }
+        }, new BackgroundTasks.Callback<HashMap<String, String>>() {
+            @Override
+            public void onProgress(String status) {
+                textView.setText(status);
+            }
 
+            @Override
+            public void onSuccess(HashMap<String, String> userToPass) {
+                button.setEnabled(true);
+                checkLogin(textView, userToPass, user, pass);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                button.setEnabled(true);
+                Log.e("MainActivity", "Error loading users.txt: " + e.getMessage());
+                checkLogin(textView, new HashMap<String, String>(), user, pass);
+            }
+        });
+    }
+
+    /**
+     * Reads the user names and passwords, which is done on the background
+     * thread.
+     *
+     * @param usersFile
+     *            The file of user,password lines.
+     *
+     * @return The password of each user.
+     */
+    private static HashMap<String, String> readUsers(File usersFile) {
         HashMap<String, String> userToPass = new HashMap<String, String>();
         try {
             BufferedReader br = new BufferedReader(new FileReader(usersFile));
-            String line;
-            while ((line = br.readLine()) != null) {
-                Log.i("MainActivity", "Reading " + line);
-                String[] tokens = line.split(",");
-                if (tokens.length == 2) {
-                    Log.i("MainActivity", "Adding " + tokens[0] + " " + tokens[1]);
-                    userToPass.put(tokens[0], tokens[1]);
-                } else {
-                    Log.e("MainActivity", "Line in users corrupt: " + line);
+            try {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    Log.i("MainActivity", "Reading " + line);
+                    String[] tokens = line.split(",");
+                    if (tokens.length == 2) {
+                        Log.i("MainActivity", "Adding " + tokens[0] + " " + tokens[1]);
+                        userToPass.put(tokens[0], tokens[1]);
+                    } else {
+                        Log.e("MainActivity", "Line in users corrupt: " + line);
+                    }
                 }
+            } finally {
+                br.close();
             }
         } catch (IOException e) {
             Log.e("MainActivity", "Error loading users.txt: " + e.getMessage());
         }
+        return userToPass;
+    }
 
+    /**
+     * Shows if the login worked, and goes to the admin screen if it did.
+     *
+     * @param textView
+     *            The label to show the outcome in.
+     *
+     * @param userToPass
+     *            The password of each user.
+     *
+     * @param user
+     *            The user name that was typed in.
+     *
+     * @param pass
+     *            The password that was typed in.
+     */
+    private void checkLogin(TextView textView, HashMap<String, String> userToPass,
+            String user, String pass) {
         // Text color learning source:
         // http://stackoverflow.com/questions/4602902/how-to-set-the-text-
         // color-of-textview-in-code
-        String user = userEditText.getText().toString();
-        String pass = passEditText.getText().toString();
         if (userToPass.containsKey(user) && userToPass.get(user).equals(pass)) {
             textView.setTextColor(Color.GREEN);
             textView.setText("Welcome " + user + "!");
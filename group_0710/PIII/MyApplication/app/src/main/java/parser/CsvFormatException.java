@@ -0,0 +1,27 @@
+package parser;
+
+import java.io.IOException;
+
+/**
+ * Thrown when csv text is not in a form that can be split into fields, as
+ * opposed to when it could not be read at all.
+ *
+ * @author Chris
+ */
+public class CsvFormatException extends IOException {
+
+	/**
+	 * The version of this class for serialization.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates the exception.
+	 *
+	 * @param message
+	 *            What is wrong with the text.
+	 */
+	public CsvFormatException(String message) {
+		super(message);
+	}
+}
@@ -1,12 +1,18 @@
 package parser;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
-
-import util.Constants;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static util.Assertions.*;
 
@@ -17,6 +23,16 @@ import static util.Assertions.*;
  */
 public class CsvParser {
 
+	/**
+	 * The file extension of gzip compressed files.
+	 */
+	public static final String GZIP_EXTENSION = ".gz";
+
+	/**
+	 * The size of the buffers used when compressing or decompressing.
+	 */
+	private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
 	// instance variable
 	// List of csv info in String[] format
 	private List<String[]> info;
@@ -58,23 +74,147 @@ public class CsvParser {
 	 *             If any IO exception or missing file (from a bad path) occurs.
 	 */
 	private void parser(String path) throws IOException {
-		// initialize variables to be used
-		String line = "";
-		String splitBy = Constants.DELIMITER;
+		final List<String[]> result = new ArrayList<String[]>();
+		parse(path, new RowHandler() {
+			@Override
+			public void handleRow(String[] row) {
+				result.add(row);
+			}
+		});
+		info = result;
+	}
 
-		List<String[]> result;
-		result = new ArrayList<String[]>();
+	/**
+	 * Parses a csv file one row at a time, handing each row to the handler
+	 * as soon as it is read. Quoted fields are unquoted. Nothing is kept once the handler returns, so
+	 * this uses the same memory however big the file is.
+	 * 
+	 * @param path
+	 *            The path to an input csv file.
+	 * 
+	 * @param handler
+	 *            Takes each row, in the order they are in the file.
+	 * 
+	 * @throws IOException
+	 *             If any IO exception or missing file (from a bad path)
+	 *             occurs, or if the handler throws one.
+	 * 
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	public static void parse(String path, RowHandler handler)
+			throws IOException {
+		checkNotNull(path);
+		checkNotNull(handler);
 
+		CsvTokenizer tokenizer = open(path);
 		try {
-			BufferedReader reader = new BufferedReader(new FileReader(path));
-			while ((line = reader.readLine()) != null) {
-				String[] current = line.split(splitBy); // array of current info
-				result.add(current);
+			while (tokenizer.next()) {
+				handler.handleRow(tokenizer.toArray());
 			}
-		} catch (IOException e) {
-			throw e;
+		} finally {
+			tokenizer.close();
 		}
-		
-		info = result;
+	}
+
+	/**
+	 * Opens a csv file to read its fields one row at a time. If the path ends
+	 * in .gz the file is decompressed as it is read, on a separate thread
+	 * that keeps a little ahead of the rows being parsed, so the file never
+	 * has to be decompressed to disk first.
+	 * 
+	 * @param path
+	 *            The path to an input csv file.
+	 * 
+	 * @return A tokenizer over the file, which has to be closed.
+	 * 
+	 * @throws IOException
+	 *             If the file cannot be opened, or is not gzip compressed
+	 *             when its path says it is.
+	 * 
+	 * @throws NullPointerException
+	 *             If the path is null.
+	 */
+	public static CsvTokenizer open(String path) throws IOException {
+		checkNotNull(path);
+		InputStream in = new FileInputStream(path);
+		if (isCompressed(path)) {
+			try {
+				in = new PipelinedInputStream(new GZIPInputStream(in,
+						GZIP_BUFFER_SIZE), "gunzip " + path);
+			} catch (IOException e) {
+				in.close();
+				throw e;
+			}
+		}
+		return new CsvTokenizer(new InputStreamReader(in));
+	}
+
+	/**
+	 * Creates a csv file to write to, replacing it if it exists. If the path
+	 * ends in .gz what is written is gzip compressed.
+	 * 
+	 * @param path
+	 *            The path to an output csv file.
+	 * 
+	 * @return A buffered writer to the file, which has to be closed.
+	 * 
+	 * @throws IOException
+	 *             If the file cannot be created.
+	 * 
+	 * @throws NullPointerException
+	 *             If the path is null.
+	 */
+	public static Writer create(String path) throws IOException {
+		checkNotNull(path);
+		OutputStream out = new FileOutputStream(path);
+		if (isCompressed(path)) {
+			try {
+				out = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+			} catch (IOException e) {
+				out.close();
+				throw e;
+			}
+		}
+		return new BufferedWriter(new OutputStreamWriter(out));
+	}
+
+	/**
+	 * Checks if a file is gzip compressed, going by its path.
+	 * 
+	 * @param path
+	 *            The path of the file.
+	 * 
+	 * @return True if the path ends in .gz.
+	 * 
+	 * @throws NullPointerException
+	 *             If the path is null.
+	 */
+	public static boolean isCompressed(String path) {
+		checkNotNull(path);
+		return path.endsWith(GZIP_EXTENSION);
+	}
+
+	/**
+	 * Quotes a field for writing to a csv file if it has a comma, a quote or
+	 * a line break in it, doubling any quotes.
+	 * 
+	 * @param field
+	 *            The field.
+	 * 
+	 * @return The field as it should be written.
+	 * 
+	 * @throws NullPointerException
+	 *             If the field is null.
+	 */
+	public static String quote(String field) {
+		checkNotNull(field);
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+				return '"' + field.replace("\"", "\"\"") + '"';
+			}
+		}
+		return field;
 	}
 }
@@ -0,0 +1,503 @@
+package parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static util.Assertions.*;
+
+/**
+ * Splits csv text into rows and fields in one pass over the characters, as
+ * described by RFC 4180:
+ * <ul>
+ * <li>Fields are separated by commas and rows by line breaks (LF or CRLF).
+ * <li>A field in double quotes can hold commas, line breaks and quotes,
+ * where a quote is written as two quotes.
+ * </ul>
+ * Blank lines are skipped instead of being read as a row with one empty
+ * field.
+ *
+ * The characters of a row are unescaped into one buffer that is reused for
+ * every row, and fields are handed out as slices of it, so reading a row
+ * allocates nothing unless a field is turned into a String. A slice is only
+ * valid until the next row is read.
+ *
+ * @author Chris
+ */
+public class CsvTokenizer {
+
+	/**
+	 * How many characters are read from the reader at a time.
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * A field of the current row, as a view into the row buffer.
+	 */
+	private class Slice implements CharSequence {
+
+		/**
+		 * Where the field starts in the row buffer.
+		 */
+		private int start;
+
+		/**
+		 * Where the field ends in the row buffer (exclusive).
+		 */
+		private int end;
+
+		@Override
+		public int length() {
+			return end - start;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= end - start) {
+				throw new IndexOutOfBoundsException();
+			}
+			return row[start + index];
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			if (from < 0 || to > end - start || from > to) {
+				throw new IndexOutOfBoundsException();
+			}
+			return new String(row, start + from, to - from);
+		}
+
+		@Override
+		public String toString() {
+			return new String(row, start, end - start);
+		}
+	}
+
+	/**
+	 * The text being read.
+	 */
+	private Reader reader;
+
+	/**
+	 * The characters read from the reader.
+	 */
+	private char[] buffer;
+
+	/**
+	 * The next character to use in the buffer.
+	 */
+	private int position;
+
+	/**
+	 * How many characters in the buffer are read.
+	 */
+	private int limit;
+
+	/**
+	 * The unescaped characters of the current row.
+	 */
+	private char[] row;
+
+	/**
+	 * How many characters of the row buffer are used.
+	 */
+	private int rowLength;
+
+	/**
+	 * Where each field of the current row starts in the row buffer.
+	 */
+	private int[] starts;
+
+	/**
+	 * Where each field of the current row ends in the row buffer.
+	 */
+	private int[] ends;
+
+	/**
+	 * How many fields the current row has.
+	 */
+	private int fieldCount;
+
+	/**
+	 * The reusable slices of the fields, made as they are first needed.
+	 */
+	private Slice[] slices;
+
+	/**
+	 * How many line breaks have been read.
+	 */
+	private long lines;
+
+	/**
+	 * The line the current row starts on, starting at 1.
+	 */
+	private long rowLine;
+
+	/**
+	 * Creates a tokenizer reading from some text.
+	 *
+	 * @param reader
+	 *            The csv text.
+	 *
+	 * @throws NullPointerException
+	 *             If the reader is null.
+	 */
+	public CsvTokenizer(Reader reader) {
+		checkNotNull(reader);
+		this.reader = reader;
+		buffer = new char[BUFFER_SIZE];
+		row = new char[256];
+		starts = new int[16];
+		ends = new int[16];
+		slices = new Slice[16];
+	}
+
+	/**
+	 * Splits one line of csv text into its fields.
+	 *
+	 * @param line
+	 *            The line.
+	 *
+	 * @return The fields, or no fields if the line is blank.
+	 *
+	 * @throws NullPointerException
+	 *             If the line is null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If a quoted field is not closed.
+	 */
+	public static String[] split(String line) {
+		checkNotNull(line);
+		CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(line));
+		try {
+			return tokenizer.next() ? tokenizer.toArray() : new String[0];
+		} catch (IOException e) {
+			// A string cannot fail to be read, so this is a format error.
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Reads the next row.
+	 *
+	 * @return True if there was a row, or false at the end of the text.
+	 *
+	 * @throws CsvFormatException
+	 *             If a quoted field is not closed by the end of the text.
+	 *
+	 * @throws IOException
+	 *             If the text could not be read.
+	 */
+	public boolean next() throws IOException {
+		fieldCount = 0;
+		rowLength = 0;
+
+		int c = read();
+		while (c == '\n' || c == '\r') {
+			if (c == '\n') {
+				lines++;
+			}
+			c = read();
+		}
+		if (c < 0) {
+			return false;
+		}
+		rowLine = lines + 1;
+
+		while (true) {
+			int start = rowLength;
+			if (c == '"') {
+				while (true) {
+					c = read();
+					if (c < 0) {
+						throw new CsvFormatException("Quoted field on line "
+								+ rowLine + " is not closed");
+					}
+					if (c == '"') {
+						c = read();
+						if (c != '"') {
+							break;
+						}
+					} else if (c == '\n') {
+						lines++;
+					}
+					append((char) c);
+				}
+			}
+			// Anything after a closing quote is kept as part of the field.
+			if (c >= 0 && c != ',' && c != '\n' && c != '\r') {
+				append((char) c);
+				c = readUnquoted();
+			}
+			addField(start, rowLength);
+
+			if (c == ',') {
+				c = read();
+				continue;
+			}
+			if (c == '\r') {
+				c = read();
+				if (c != '\n' && c >= 0) {
+					position--;
+				}
+			}
+			if (c == '\n') {
+				lines++;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Gets how many fields the current row has.
+	 *
+	 * @return The number of fields.
+	 */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * Gets a field of the current row without copying it. The same object is
+	 * reused for the field at this index on every row.
+	 *
+	 * @param index
+	 *            The index of the field, starting at 0.
+	 *
+	 * @return A view of the field that is valid until the next row is read.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If the row has no field at the index.
+	 */
+	public CharSequence getField(int index) {
+		checkIndex(index);
+		Slice slice = slices[index];
+		if (slice == null) {
+			slice = new Slice();
+			slices[index] = slice;
+		}
+		slice.start = starts[index];
+		slice.end = ends[index];
+		return slice;
+	}
+
+	/**
+	 * Gets a field of the current row as a String.
+	 *
+	 * @param index
+	 *            The index of the field, starting at 0.
+	 *
+	 * @return The field.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If the row has no field at the index.
+	 */
+	public String getString(int index) {
+		checkIndex(index);
+		return new String(row, starts[index], ends[index] - starts[index]);
+	}
+
+	/**
+	 * Gets a field of the current row as an int, without making a String of
+	 * it first. Spaces around the number are ignored.
+	 *
+	 * @param index
+	 *            The index of the field, starting at 0.
+	 *
+	 * @return The number.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If the row has no field at the index.
+	 *
+	 * @throws NumberFormatException
+	 *             If the field is not a whole number that fits in an int.
+	 */
+	public int getInt(int index) {
+		checkIndex(index);
+		int i = starts[index];
+		int end = ends[index];
+		while (i < end && row[i] == ' ') {
+			i++;
+		}
+		while (end > i && row[end - 1] == ' ') {
+			end--;
+		}
+		boolean negative = i < end && row[i] == '-';
+		if (negative || (i < end && row[i] == '+')) {
+			i++;
+		}
+		if (i == end) {
+			throw new NumberFormatException("Not a number: " + getString(index));
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			int digit = row[i] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("Not a number: "
+						+ getString(index));
+			}
+			value = value * 10 + digit;
+			if (value > Integer.MAX_VALUE + 1L) {
+				throw new NumberFormatException("Too big: " + getString(index));
+			}
+		}
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE) {
+			throw new NumberFormatException("Too big: " + getString(index));
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Copies the fields of the current row into Strings.
+	 *
+	 * @return The fields.
+	 */
+	public String[] toArray() {
+		String[] fields = new String[fieldCount];
+		for (int i = 0; i < fieldCount; i++) {
+			fields[i] = new String(row, starts[i], ends[i] - starts[i]);
+		}
+		return fields;
+	}
+
+	/**
+	 * Gets the line the current row starts on.
+	 *
+	 * @return The line number, starting at 1.
+	 */
+	public long getLineNumber() {
+		return rowLine;
+	}
+
+	/**
+	 * Closes the reader.
+	 *
+	 * @throws IOException
+	 *             If the reader could not be closed.
+	 */
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	/**
+	 * Reads the next character.
+	 *
+	 * @return The character, or -1 at the end of the text.
+	 *
+	 * @throws IOException
+	 *             If the text could not be read.
+	 */
+	private int read() throws IOException {
+		if (position == limit) {
+			int read = reader.read(buffer, 0, buffer.length);
+			while (read == 0) {
+				read = reader.read(buffer, 0, buffer.length);
+			}
+			if (read < 0) {
+				return -1;
+			}
+			position = 0;
+			limit = read;
+		}
+		return buffer[position++];
+	}
+
+	/**
+	 * Copies characters into the row buffer up to the next comma or line
+	 * break, a whole run of the read buffer at a time.
+	 *
+	 * @return The comma or line break that ended the run, or -1 at the end
+	 *         of the text.
+	 *
+	 * @throws IOException
+	 *             If the text could not be read.
+	 */
+	private int readUnquoted() throws IOException {
+		while (true) {
+			int from = position;
+			while (position < limit) {
+				char c = buffer[position];
+				if (c == ',' || c == '\n' || c == '\r') {
+					break;
+				}
+				position++;
+			}
+			int length = position - from;
+			if (rowLength + length > row.length) {
+				char[] bigger = new char[Math.max(row.length * 2, rowLength
+						+ length)];
+				System.arraycopy(row, 0, bigger, 0, rowLength);
+				row = bigger;
+			}
+			System.arraycopy(buffer, from, row, rowLength, length);
+			rowLength += length;
+			if (position < limit) {
+				return buffer[position++];
+			}
+			if (read() < 0) {
+				return -1;
+			}
+			// The read took the first character of the new buffer.
+			position--;
+		}
+	}
+
+	/**
+	 * Adds a character to the row buffer, growing it if needed.
+	 *
+	 * @param c
+	 *            The character.
+	 */
+	private void append(char c) {
+		if (rowLength == row.length) {
+			char[] bigger = new char[row.length * 2];
+			System.arraycopy(row, 0, bigger, 0, rowLength);
+			row = bigger;
+		}
+		row[rowLength++] = c;
+	}
+
+	/**
+	 * Adds a field to the current row, growing the field arrays if needed.
+	 *
+	 * @param start
+	 *            Where the field starts in the row buffer.
+	 *
+	 * @param end
+	 *            Where the field ends in the row buffer.
+	 */
+	private void addField(int start, int end) {
+		if (fieldCount == starts.length) {
+			int size = starts.length * 2;
+			int[] biggerStarts = new int[size];
+			int[] biggerEnds = new int[size];
+			Slice[] biggerSlices = new Slice[size];
+			System.arraycopy(starts, 0, biggerStarts, 0, fieldCount);
+			System.arraycopy(ends, 0, biggerEnds, 0, fieldCount);
+			System.arraycopy(slices, 0, biggerSlices, 0, fieldCount);
+			starts = biggerStarts;
+			ends = biggerEnds;
+			slices = biggerSlices;
+		}
+		starts[fieldCount] = start;
+		ends[fieldCount] = end;
+		fieldCount++;
+	}
+
+	/**
+	 * Checks the current row has a field at an index.
+	 *
+	 * @param index
+	 *            The index of the field.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If there is no field at the index.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= fieldCount) {
+			throw new IndexOutOfBoundsException("Row on line " + rowLine
+					+ " has no field " + index);
+		}
+	}
+}
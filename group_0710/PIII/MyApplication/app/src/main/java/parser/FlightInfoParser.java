@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import airline.flight.FlightInformation;
+import util.Money;
 
 /**
  * A parser for parsing flight information
@@ -50,25 +51,70 @@ public class FlightInfoParser extends CsvParser {
 	private void infoToFlightInfo(List<String[]> info,
 			List<FlightInformation> flightInfo) {
 		for (String[] entry : info) {
-			// new FlightInformation class per entry
-			FlightInformation current;
+			// add to list
+			flightInfo.add(parseFlight(entry));
+		}
+	}
 
-			// Assign corresponding variables
-			// Change String to the right class
-			String flightNumber = entry[0];
-			String departureTime = entry[1];
-			String arrivalTime = entry[2];
-			String airline = entry[3];
-			String origin = entry[4];
-			String destination = entry[5];
-			double cost = Double.parseDouble(entry[6]);
+	/**
+	 * Creates the FlightInformation of one row of a flight csv file.
+	 * 
+	 * @param entry
+	 *            The columns of the row.
+	 * 
+	 * @return The flight of the row.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If a column is not in the right format.
+	 * 
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             If the row has too few columns.
+	 */
+	public static FlightInformation parseFlight(String[] entry) {
+		// Assign corresponding variables
+		// Change String to the right class
+		String flightNumber = entry[0];
+		String departureTime = entry[1];
+		String arrivalTime = entry[2];
+		String airline = entry[3];
+		String origin = entry[4];
+		String destination = entry[5];
+		long costCents = Money.parseCents(entry[6]);
+		// The number of seats is optional.
+		int seats = FlightInformation.UNLIMITED_SEATS;
+		if (entry.length > 7) {
+			seats = Integer.parseInt(entry[7].trim());
+		}
 
-			// Construct
-			current = new FlightInformation(flightNumber, departureTime,
-					arrivalTime, airline, origin, destination, cost);
-			// add to list
-			flightInfo.add(current);
+		// Construct
+		return FlightInformation.withCostCents(flightNumber, departureTime,
+				arrivalTime, airline, origin, destination, costCents, seats);
+	}
+
+	/**
+	 * Creates the FlightInformation of the current row of a tokenizer,
+	 * without copying the row into an array first.
+	 * 
+	 * @param row
+	 *            The tokenizer at the row.
+	 * 
+	 * @return The flight of the row.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If a column is not in the right format.
+	 * 
+	 * @throws IndexOutOfBoundsException
+	 *             If the row has too few columns.
+	 */
+	public static FlightInformation parseFlight(CsvTokenizer row) {
+		int seats = FlightInformation.UNLIMITED_SEATS;
+		if (row.getFieldCount() > 7) {
+			seats = row.getInt(7);
 		}
+		return FlightInformation.withCostCents(row.getString(0),
+				row.getString(1), row.getString(2), row.getString(3),
+				row.getString(4), row.getString(5),
+				Money.parseCents(row.getField(6)), seats);
 	}
 
 }
@@ -0,0 +1,196 @@
+package parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static util.Assertions.*;
+
+/**
+ * Reads another stream on its own thread, a chunk ahead of whoever reads
+ * this one. Wrapping a decompressing stream in this lets the file be
+ * decompressed while the rows already decompressed are being parsed, instead
+ * of one waiting for the other.
+ *
+ * @author Chris
+ */
+class PipelinedInputStream extends InputStream {
+
+	/**
+	 * How many bytes are read from the source at a time.
+	 */
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * How many chunks can be read ahead before the reading thread waits.
+	 */
+	private static final int CHUNKS_AHEAD = 4;
+
+	/**
+	 * Put in the queue after the last chunk.
+	 */
+	private static final byte[] END = new byte[0];
+
+	/**
+	 * The chunks read from the source and not yet taken.
+	 */
+	private final BlockingQueue<byte[]> chunks;
+
+	/**
+	 * The thread reading the source.
+	 */
+	private final Thread reader;
+
+	/**
+	 * What went wrong reading the source, if anything.
+	 */
+	private volatile IOException failure;
+
+	/**
+	 * The chunk being read from.
+	 */
+	private byte[] chunk;
+
+	/**
+	 * The next byte to read in the chunk.
+	 */
+	private int position;
+
+	/**
+	 * Whether the last chunk has been taken.
+	 */
+	private boolean finished;
+
+	/**
+	 * Starts reading a stream on a new thread.
+	 *
+	 * @param source
+	 *            The stream to read, which is closed when it is finished with.
+	 *
+	 * @param name
+	 *            The name of the reading thread.
+	 *
+	 * @throws NullPointerException
+	 *             If any argument is null.
+	 */
+	PipelinedInputStream(final InputStream source, String name) {
+		checkNotNull(source);
+		checkNotNull(name);
+		chunks = new ArrayBlockingQueue<byte[]>(CHUNKS_AHEAD);
+		chunk = END;
+		reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					try {
+						byte[] buffer = new byte[CHUNK_SIZE];
+						int filled = 0;
+						int read;
+						while ((read = source.read(buffer, filled,
+								buffer.length - filled)) >= 0) {
+							filled += read;
+							if (filled == buffer.length) {
+								chunks.put(buffer);
+								buffer = new byte[CHUNK_SIZE];
+								filled = 0;
+							}
+						}
+						if (filled > 0) {
+							chunks.put(Arrays.copyOf(buffer, filled));
+						}
+					} catch (IOException e) {
+						failure = e;
+					} finally {
+						source.close();
+					}
+					chunks.put(END);
+				} catch (IOException e) {
+					// The source could not be closed, which does not matter
+					// once everything has been read.
+					chunks.offer(END);
+				} catch (InterruptedException e) {
+					// The stream was closed before the source was finished.
+				}
+			}
+		}, name);
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!fill()) {
+			return -1;
+		}
+		return chunk[position++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (!fill()) {
+			return -1;
+		}
+		int n = Math.min(len, chunk.length - position);
+		System.arraycopy(chunk, position, b, off, n);
+		position += n;
+		return n;
+	}
+
+	@Override
+	public int available() {
+		return chunk.length - position;
+	}
+
+	/**
+	 * Stops reading the source and closes it.
+	 */
+	@Override
+	public void close() {
+		finished = true;
+		chunk = END;
+		position = 0;
+		reader.interrupt();
+		chunks.clear();
+	}
+
+	/**
+	 * Makes sure there is a byte left in the current chunk, waiting for the
+	 * next chunk if needed.
+	 *
+	 * @return True if there is a byte to read, or false at the end.
+	 *
+	 * @throws IOException
+	 *             If the source could not be read, or the wait was
+	 *             interrupted.
+	 */
+	private boolean fill() throws IOException {
+		while (position == chunk.length) {
+			if (finished) {
+				return false;
+			}
+			try {
+				chunk = chunks.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+			position = 0;
+			if (chunk == END) {
+				finished = true;
+				if (failure != null) {
+					throw failure;
+				}
+			}
+		}
+		return true;
+	}
+}
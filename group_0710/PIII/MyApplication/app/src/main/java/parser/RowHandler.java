@@ -0,0 +1,23 @@
+package parser;
+
+import java.io.IOException;
+
+/**
+ * Takes the rows of a csv file one at a time as they are parsed, so a file
+ * can be loaded without holding all of its rows in memory.
+ *
+ * @author Chris
+ */
+public interface RowHandler {
+
+	/**
+	 * Handles one row. The row is not kept by the parser after this returns.
+	 *
+	 * @param row
+	 *            The columns of the row.
+	 *
+	 * @throws IOException
+	 *             If the row cannot be handled and parsing has to stop.
+	 */
+	void handleRow(String[] row) throws IOException;
+}
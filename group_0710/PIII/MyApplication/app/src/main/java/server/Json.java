@@ -0,0 +1,188 @@
+package server;
+
+import java.util.List;
+
+import airline.flight.FlightInformation;
+import airline.flight.Itinerary;
+import user.Client;
+import util.Money;
+
+/**
+ * Writes the objects the query server returns as JSON text. Only what the
+ * server needs is supported, so this is not a general JSON library.
+ *
+ * @author Chris
+ */
+class Json {
+
+	/**
+	 * The format dates and times are written in.
+	 */
+	private static final String DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm";
+
+	/**
+	 * Writes a string as a quoted JSON string.
+	 *
+	 * @param out
+	 *            The text to write to.
+	 *
+	 * @param value
+	 *            The string to write, or null.
+	 */
+	static void string(StringBuilder out, String value) {
+		if (value == null) {
+			out.append("null");
+			return;
+		}
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				out.append("\\\"");
+				break;
+			case '\\':
+				out.append("\\\\");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					out.append(String.format("\\u%04x", (int) c));
+				} else {
+					out.append(c);
+				}
+			}
+		}
+		out.append('"');
+	}
+
+	/**
+	 * Writes a flight as a JSON object.
+	 *
+	 * @param out
+	 *            The text to write to.
+	 *
+	 * @param fi
+	 *            The flight to write.
+	 */
+	static void flight(StringBuilder out, FlightInformation fi) {
+		out.append("{\"number\":");
+		string(out, fi.getFlightNumber());
+		out.append(",\"departure\":");
+		string(out, fi.getDepartureDateTime().toString(DATE_TIME_FORMAT));
+		out.append(",\"arrival\":");
+		string(out, fi.getArrivalDateTime().toString(DATE_TIME_FORMAT));
+		out.append(",\"airline\":");
+		string(out, fi.getAirline());
+		out.append(",\"origin\":");
+		string(out, fi.getOrigin());
+		out.append(",\"destination\":");
+		string(out, fi.getDestination());
+		out.append(",\"price\":");
+		Money.append(out, fi.getCostCents());
+		out.append('}');
+	}
+
+	/**
+	 * Writes a list of flights as a JSON array.
+	 *
+	 * @param out
+	 *            The text to write to.
+	 *
+	 * @param flights
+	 *            The flights to write.
+	 */
+	static void flights(StringBuilder out, List<FlightInformation> flights) {
+		out.append('[');
+		boolean first = true;
+		for (FlightInformation fi : flights) {
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			flight(out, fi);
+		}
+		out.append(']');
+	}
+
+	/**
+	 * Writes a list of itineraries as a JSON array.
+	 *
+	 * @param out
+	 *            The text to write to.
+	 *
+	 * @param itineraries
+	 *            The itineraries to write.
+	 */
+	static void itineraries(StringBuilder out, List<Itinerary> itineraries) {
+		out.append('[');
+		boolean first = true;
+		for (Itinerary it : itineraries) {
+			if (!first) {
+				out.append(',');
+			}
+			first = false;
+			out.append("{\"flights\":");
+			flights(out, it.getListOfFlights());
+			out.append(",\"price\":");
+			Money.append(out, it.getTotalCostCents());
+			out.append(",\"minutes\":");
+			out.append(it.totalTravelTimeMinutes());
+			out.append('}');
+		}
+		out.append(']');
+	}
+
+	/**
+	 * Writes a client as a JSON object. Only the last four digits of the
+	 * credit card number are written.
+	 *
+	 * @param out
+	 *            The text to write to.
+	 *
+	 * @param client
+	 *            The client to write.
+	 */
+	static void client(StringBuilder out, Client client) {
+		String card = client.getCreditCardNumber();
+		if (card.length() > 4) {
+			card = card.substring(card.length() - 4);
+		}
+		out.append("{\"lastName\":");
+		string(out, client.getLastName());
+		out.append(",\"firstName\":");
+		string(out, client.getFirstName());
+		out.append(",\"email\":");
+		string(out, client.getEmail());
+		out.append(",\"address\":");
+		string(out, client.getAddress());
+		out.append(",\"cardEnding\":");
+		string(out, card);
+		out.append(",\"expiryDate\":");
+		string(out, client.getExpiryDate());
+		out.append('}');
+	}
+
+	/**
+	 * Writes an error message as a JSON object.
+	 *
+	 * @param out
+	 *            The text to write to.
+	 *
+	 * @param message
+	 *            The error message.
+	 */
+	static void error(StringBuilder out, String message) {
+		out.append("{\"error\":");
+		string(out, message);
+		out.append('}');
+	}
+}
@@ -0,0 +1,602 @@
+package server;
+
+import org.joda.time.LocalDate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import airline.Database;
+import airline.SearchRejectedException;
+import airline.flight.FlightInformation;
+import airline.flight.Itinerary;
+import user.Client;
+import util.Constants;
+
+import static util.Assertions.*;
+
+/**
+ * A small HTTP server that answers JSON queries against a loaded database.
+ * Every request is handled on a fixed pool of worker threads that share the
+ * database, which is only read from. When every worker is busy and the wait
+ * queue is full, new requests are turned away with a 503 straight away
+ * instead of piling up. Searches also go through the database's limit on
+ * how many run at once, and get a 503 if they cannot start in time.
+ *
+ * The endpoints are all GET requests:
+ * <ul>
+ * <li>/search?origin=&amp;destination=&amp;date= for itineraries</li>
+ * <li>/flights?origin=&amp;destination=&amp;date= for direct flights</li>
+ * <li>/client?email= for a client</li>
+ * </ul>
+ *
+ * The database must be fully loaded before the server is started. Unless
+ * told otherwise, the server only listens on the loopback address, so it
+ * cannot be reached from other machines.
+ *
+ * @author Chris
+ */
+public class QueryServer {
+
+	/**
+	 * How long a worker waits for a request to be sent before giving up.
+	 */
+	private static final int READ_TIMEOUT_MILLIS = 5000;
+
+	/**
+	 * The database the queries are answered from.
+	 */
+	private Database database;
+
+	/**
+	 * The address to listen on, or null for every address.
+	 */
+	private InetAddress bindAddress;
+
+	/**
+	 * The port asked for, or 0 for any free port.
+	 */
+	private int requestedPort;
+
+	/**
+	 * The most requests handled at the same time.
+	 */
+	private int threads;
+
+	/**
+	 * The most requests waiting for a worker.
+	 */
+	private int queueSize;
+
+	/**
+	 * The socket connections are accepted on, or null when stopped.
+	 */
+	private ServerSocket serverSocket;
+
+	/**
+	 * The workers that handle the requests.
+	 */
+	private ThreadPoolExecutor workers;
+
+	/**
+	 * The thread accepting connections.
+	 */
+	private Thread acceptor;
+
+	/**
+	 * A reply to a request.
+	 */
+	private static class Response {
+
+		/**
+		 * The HTTP status code.
+		 */
+		int status;
+
+		/**
+		 * The JSON body.
+		 */
+		String body;
+
+		/**
+		 * Creates a reply.
+		 *
+		 * @param status
+		 *            The HTTP status code.
+		 *
+		 * @param body
+		 *            The JSON body.
+		 */
+		Response(int status, String body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+
+	/**
+	 * Creates a server that is not started yet and will only listen on the
+	 * loopback address.
+	 *
+	 * @param database
+	 *            The loaded database to answer queries from.
+	 *
+	 * @param port
+	 *            The port to listen on, or 0 for any free port.
+	 *
+	 * @param threads
+	 *            The most requests handled at the same time.
+	 *
+	 * @param queueSize
+	 *            The most requests that can wait for a worker, where 0 means
+	 *            a request is turned away unless a worker is free.
+	 *
+	 * @throws NullPointerException
+	 *             If the database is null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the port is out of range, the threads are not positive,
+	 *             or the queue size is negative.
+	 */
+	public QueryServer(Database database, int port, int threads,
+			int queueSize) {
+		this(database, loopbackAddress(), port, threads,
+				queueSize);
+	}
+
+	/**
+	 * Creates a server that is not started yet.
+	 *
+	 * @param database
+	 *            The loaded database to answer queries from.
+	 *
+	 * @param bindAddress
+	 *            The address to listen on, or null to listen on every
+	 *            address of the machine.
+	 *
+	 * @param port
+	 *            The port to listen on, or 0 for any free port.
+	 *
+	 * @param threads
+	 *            The most requests handled at the same time.
+	 *
+	 * @param queueSize
+	 *            The most requests that can wait for a worker, where 0 means
+	 *            a request is turned away unless a worker is free.
+	 *
+	 * @throws NullPointerException
+	 *             If the database is null.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the port is out of range, the threads are not positive,
+	 *             or the queue size is negative.
+	 */
+	public QueryServer(Database database, InetAddress bindAddress, int port,
+			int threads, int queueSize) {
+		checkNotNull(database);
+		checkArgument(port >= 0 && port <= 65535);
+		checkArgument(threads > 0);
+		checkArgument(queueSize >= 0);
+		this.database = database;
+		this.bindAddress = bindAddress;
+		this.requestedPort = port;
+		this.threads = threads;
+		this.queueSize = queueSize;
+	}
+
+	/**
+	 * Starts listening for requests.
+	 *
+	 * @throws IOException
+	 *             If the port cannot be listened on.
+	 *
+	 * @throws IllegalStateException
+	 *             If the server is already started.
+	 */
+	public synchronized void start() throws IOException {
+		checkState(serverSocket == null);
+
+		BlockingQueue<Runnable> queue;
+		if (queueSize == 0) {
+			queue = new SynchronousQueue<>();
+		} else {
+			queue = new ArrayBlockingQueue<>(queueSize);
+		}
+		workers = new ThreadPoolExecutor(threads, threads, 0,
+				TimeUnit.MILLISECONDS, queue);
+		serverSocket = new ServerSocket(requestedPort, 0, bindAddress);
+
+		final ServerSocket listening = serverSocket;
+		acceptor = new Thread(new Runnable() {
+			public void run() {
+				acceptConnections(listening);
+			}
+		}, "QueryServer-acceptor");
+		acceptor.start();
+	}
+
+	/**
+	 * Stops listening and waits for the requests being handled to finish.
+	 */
+	public synchronized void stop() {
+		if (serverSocket == null) {
+			return;
+		}
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// It is being thrown away either way.
+		}
+		serverSocket = null;
+		workers.shutdown();
+		try {
+			acceptor.join();
+			workers.awaitTermination(READ_TIMEOUT_MILLIS,
+					TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Gets the port the server is listening on.
+	 *
+	 * @return The port.
+	 *
+	 * @throws IllegalStateException
+	 *             If the server is not started.
+	 */
+	public synchronized int getPort() {
+		checkState(serverSocket != null);
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Gets the address the server is listening on.
+	 *
+	 * @return The address, which is the wildcard address when listening on
+	 *         every address.
+	 *
+	 * @throws IllegalStateException
+	 *             If the server is not started.
+	 */
+	public synchronized InetAddress getAddress() {
+		checkState(serverSocket != null);
+		return serverSocket.getInetAddress();
+	}
+
+	/**
+	 * Accepts connections until the socket is closed, giving each one to a
+	 * worker or turning it away if they are all busy.
+	 *
+	 * @param listening
+	 *            The socket to accept on.
+	 */
+	private void acceptConnections(ServerSocket listening) {
+		while (!listening.isClosed()) {
+			final Socket socket;
+			try {
+				socket = listening.accept();
+			} catch (IOException e) {
+				// Closing the socket is how the server is stopped.
+				return;
+			}
+
+			try {
+				workers.execute(new Runnable() {
+					public void run() {
+						handle(socket);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				respond(socket, new Response(503, error("Server is busy")));
+			}
+		}
+	}
+
+	/**
+	 * Reads a request from a connection and writes the reply.
+	 *
+	 * @param socket
+	 *            The connection.
+	 */
+	private void handle(Socket socket) {
+		Response response;
+		try {
+			socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					socket.getInputStream(), "UTF-8"));
+			String requestLine = reader.readLine();
+			if (requestLine == null) {
+				socket.close();
+				return;
+			}
+			// The headers are not needed, but are read so the client is not
+			// cut off while it is still sending them.
+			String header = reader.readLine();
+			while (header != null && header.length() > 0) {
+				header = reader.readLine();
+			}
+			response = answer(requestLine);
+		} catch (IOException e) {
+			response = new Response(400, error("Could not read request"));
+		}
+		respond(socket, response);
+	}
+
+	/**
+	 * Works out the reply to a request.
+	 *
+	 * @param requestLine
+	 *            The first line of the request, such as
+	 *            "GET /search?origin=A HTTP/1.1".
+	 *
+	 * @return The reply.
+	 */
+	private Response answer(String requestLine) {
+		String[] parts = requestLine.split(" ");
+		if (parts.length < 2) {
+			return new Response(400, error("Bad request line"));
+		}
+		if (!parts[0].equals("GET")) {
+			return new Response(405, error("Only GET is supported"));
+		}
+
+		String target = parts[1];
+		String path = target;
+		Map<String, String> params = new HashMap<>();
+		int question = target.indexOf('?');
+		if (question >= 0) {
+			path = target.substring(0, question);
+			try {
+				params = parseQuery(target.substring(question + 1));
+			} catch (IllegalArgumentException e) {
+				return new Response(400, error("Bad query string"));
+			}
+		}
+
+		try {
+			return route(path, params);
+		} catch (SearchRejectedException e) {
+			return new Response(503, error("Too many searches running"));
+		} catch (IllegalArgumentException e) {
+			return new Response(400, error("Bad parameters"));
+		} catch (RuntimeException e) {
+			return new Response(500, error("Internal error"));
+		}
+	}
+
+	/**
+	 * Answers a request for one of the endpoints.
+	 *
+	 * @param path
+	 *            The endpoint path.
+	 *
+	 * @param params
+	 *            The query parameters.
+	 *
+	 * @return The reply.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If any parameter is not valid.
+	 */
+	private Response route(String path, Map<String, String> params) {
+		StringBuilder out = new StringBuilder();
+		if (path.equals("/search") || path.equals("/flights")) {
+			String origin = params.get("origin");
+			String destination = params.get("destination");
+			String date = params.get("date");
+			if (origin == null || destination == null || date == null) {
+				return new Response(400,
+						error("origin, destination and date are required"));
+			}
+			checkArgument(date.matches("\\d{4}-\\d{2}-\\d{2}"));
+
+			if (path.equals("/search")) {
+				List<Itinerary> found = database.searchItineraries(origin,
+						destination, date);
+				Json.itineraries(out, found);
+			} else {
+				LocalDate day = Constants.parseDate(date);
+				List<FlightInformation> found = database.getFlightsFromDate(
+						day, origin, destination);
+				Json.flights(out, found);
+			}
+			return new Response(200, out.toString());
+		}
+
+		if (path.equals("/client")) {
+			String email = params.get("email");
+			if (email == null) {
+				return new Response(400, error("email is required"));
+			}
+			Client client = database.lookUpClient(email);
+			if (client == null) {
+				return new Response(404, error("No such client"));
+			}
+			Json.client(out, client);
+			return new Response(200, out.toString());
+		}
+
+		return new Response(404, error("No such endpoint"));
+	}
+
+	/**
+	 * Splits a query string into its decoded parameters.
+	 *
+	 * @param query
+	 *            The query string, without the question mark.
+	 *
+	 * @return The parameters by name.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the query string is not encoded properly.
+	 */
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> params = new HashMap<>();
+		for (String pair : query.split("&")) {
+			if (pair.length() == 0) {
+				continue;
+			}
+			int equals = pair.indexOf('=');
+			String name = equals < 0 ? pair : pair.substring(0, equals);
+			String value = equals < 0 ? "" : pair.substring(equals + 1);
+			try {
+				params.put(URLDecoder.decode(name, "UTF-8"),
+						URLDecoder.decode(value, "UTF-8"));
+			} catch (UnsupportedEncodingException e) {
+				throw new AssertionError(e);
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * Writes a reply to a connection and closes it.
+	 *
+	 * @param socket
+	 *            The connection.
+	 *
+	 * @param response
+	 *            The reply.
+	 */
+	private static void respond(Socket socket, Response response) {
+		try {
+			byte[] body = response.body.getBytes("UTF-8");
+			String head = "HTTP/1.1 " + response.status + " "
+					+ reason(response.status) + "\r\n"
+					+ "Content-Type: application/json; charset=utf-8\r\n"
+					+ "Content-Length: " + body.length + "\r\n"
+					+ "Connection: close\r\n\r\n";
+			OutputStream out = socket.getOutputStream();
+			out.write(head.getBytes("US-ASCII"));
+			out.write(body);
+			out.flush();
+
+			// Closing with unread input resets the connection, which can
+			// lose the reply, so skip whatever has arrived without waiting.
+			InputStream in = socket.getInputStream();
+			while (in.available() > 0) {
+				in.skip(in.available());
+			}
+		} catch (SocketException e) {
+			// The client went away, so there is no one to tell.
+		} catch (IOException e) {
+			// Same as above.
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Nothing more can be done with it.
+			}
+		}
+	}
+
+	/**
+	 * Gets the reason phrase for a status code.
+	 *
+	 * @param status
+	 *            The status code.
+	 *
+	 * @return The reason phrase.
+	 */
+	private static String reason(int status) {
+		switch (status) {
+		case 200:
+			return "OK";
+		case 400:
+			return "Bad Request";
+		case 404:
+			return "Not Found";
+		case 405:
+			return "Method Not Allowed";
+		case 503:
+			return "Service Unavailable";
+		default:
+			return "Internal Server Error";
+		}
+	}
+
+	/**
+	 * Gets the loopback address, 127.0.0.1. InetAddress.getLoopbackAddress
+	 * is not used since Android only has it from API 19.
+	 *
+	 * @return The loopback address.
+	 */
+	private static InetAddress loopbackAddress() {
+		try {
+			return InetAddress.getByAddress(new byte[] { 127, 0, 0, 1 });
+		} catch (UnknownHostException e) {
+			// Only thrown for an address of the wrong length.
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Makes the JSON body for an error.
+	 *
+	 * @param message
+	 *            The error message.
+	 *
+	 * @return The JSON body.
+	 */
+	private static String error(String message) {
+		StringBuilder out = new StringBuilder();
+		Json.error(out, message);
+		return out.toString();
+	}
+
+	/**
+	 * Runs a server from the command line until it is killed. The arguments
+	 * are the flight file, the client file, the port, and optionally the
+	 * number of threads, the queue size and the address to listen on, where
+	 * an asterisk listens on every address.
+	 *
+	 * @param args
+	 *            The command line arguments.
+	 *
+	 * @throws IOException
+	 *             If a file cannot be read or the port cannot be used.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.err.println("usage: QueryServer <flights.csv> "
+					+ "<clients.csv> <port> [threads] [queue size] "
+					+ "[bind address]");
+			return;
+		}
+		Database database = new Database();
+		database.loadFlightData(args[0]);
+		database.loadClientData(args[1]);
+
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime
+				.getRuntime().availableProcessors();
+		int queueSize = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+		InetAddress bindAddress = loopbackAddress();
+		if (args.length > 5) {
+			bindAddress = args[5].equals("*") ? null : InetAddress
+					.getByName(args[5]);
+		}
+		QueryServer server = new QueryServer(database, bindAddress,
+				Integer.parseInt(args[2]), threads, queueSize);
+		server.start();
+		System.out.println("Listening on port " + server.getPort());
+	}
+}
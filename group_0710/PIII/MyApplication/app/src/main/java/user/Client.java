@@ -6,8 +6,7 @@ import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
+import parser.CsvParser;
 import util.*;
 
 /**
@@ -49,9 +48,10 @@ public class Client extends User {
 	private String expiryDate;
 
 	/**
-	 * A list representation of all the information of one client.
+	 * The csv row of this client, with any field holding a comma quoted,
+	 * kept once it is made until the client changes.
 	 */
-	private List<String> clientInfo;
+	private String row;
 
 	/**
 	 * Constructor of object client add client information into a given csv
@@ -88,13 +88,6 @@ public class Client extends User {
 		this.address = address;
 		this.creditCardNumber = creditCardNumber;
 		this.expiryDate = expiryDate;
-		clientInfo = new ArrayList<String>();
-		clientInfo.add(lastName);
-		clientInfo.add(firstName);
-		clientInfo.add(email);
-		clientInfo.add(address);
-		clientInfo.add(creditCardNumber);
-		clientInfo.add(expiryDate);
 	}
 
 	/**
@@ -114,6 +107,7 @@ public class Client extends User {
 	 */
 	public void setLastName(String lastName) {
 		this.lastName = lastName;
+		row = null;
 	}
 
 	/**
@@ -133,6 +127,7 @@ public class Client extends User {
 	 */
 	public void setFirstName(String firstName) {
 		this.firstName = firstName;
+		row = null;
 	}
 
 	/**
@@ -153,6 +148,7 @@ public class Client extends User {
 	 */
 	public void setEmail(String email) {
 		this.email = email;
+		row = null;
 	}
 
 	/**
@@ -172,6 +168,7 @@ public class Client extends User {
 	 */
 	public void setAddress(String address) {
 		this.address = address;
+		row = null;
 	}
 
 	/**
@@ -191,6 +188,7 @@ public class Client extends User {
 	 */
 	public void setCreditCardNumber(String creditCardNumber) {
 		this.creditCardNumber = creditCardNumber;
+		row = null;
 	}
 
 	/**
@@ -210,23 +208,26 @@ public class Client extends User {
 	 */
 	public void setExpiryDate(String expiryDate) {
 		this.expiryDate = expiryDate;
+		row = null;
 	}
 
 	/**
-	 * Cleans the old csv file first Adds the client's information as a string
-	 * into a desired CSV file
+	 * Adds the client's information as a row at the end of a desired CSV
+	 * file, keeping the rows already in it
 	 * 
 	 * @param path
 	 *            the path of the csv file
 	 */
 	public void addToCsv(String path) {
 		try {
-			BufferedWriter fileWriter = new BufferedWriter(
-					new FileWriter(path));
-			for (String item : this.clientInfo)
-				fileWriter.append(item);
-			fileWriter.append(Constants.DELIMITER);
-			fileWriter.append("\n");
+			BufferedWriter fileWriter = new BufferedWriter(new FileWriter(
+					path, true));
+			try {
+				fileWriter.append(toString());
+				fileWriter.append("\n");
+			} finally {
+				fileWriter.close();
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -250,7 +251,15 @@ public class Client extends User {
 
 	@Override
 	public String toString() {
-		return lastName + "," + firstName + "," + email + "," + address + ","
-				+ creditCardNumber + "," + expiryDate;
+		String cached = row;
+		if (cached == null) {
+			cached = CsvParser.quote(lastName) + ","
+					+ CsvParser.quote(firstName) + "," + CsvParser.quote(email)
+					+ "," + CsvParser.quote(address) + ","
+					+ CsvParser.quote(creditCardNumber) + ","
+					+ CsvParser.quote(expiryDate);
+			row = cached;
+		}
+		return cached;
 	}
 }
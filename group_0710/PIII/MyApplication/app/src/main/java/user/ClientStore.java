@@ -0,0 +1,372 @@
+package user;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static util.Assertions.*;
+
+/**
+ * Holds the clients by email, with sorted indexes to find them by the start
+ * of their last name or by the month their card expires. Looking up a client
+ * by email never waits, so it can be done from many threads while clients
+ * are being added.
+ *
+ * The indexes are kept by the last name and expiry date a client had when
+ * it was put, so a client that is changed has to be put again.
+ *
+ * @author Chris
+ */
+public class ClientStore {
+
+	/**
+	 * A stored client along with the values it is indexed by. The values are
+	 * the client's own strings rather than copies, and an entry without a
+	 * client is used to look up a range of an index.
+	 */
+	private static class Entry {
+
+		/**
+		 * The client, or null if this is only used to look up a range.
+		 */
+		private final Client client;
+
+		/**
+		 * The last name the client had when it was put.
+		 */
+		private final String lastName;
+
+		/**
+		 * The expiry date the client had when it was put.
+		 */
+		private final String expiryDate;
+
+		/**
+		 * The email of the client, which breaks ties in both indexes.
+		 */
+		private final String email;
+
+		/**
+		 * Creates an entry for a client.
+		 *
+		 * @param client
+		 *            The client.
+		 */
+		Entry(Client client) {
+			this(client, client.getLastName(), client.getExpiryDate(), client
+					.getEmail());
+		}
+
+		/**
+		 * Creates an entry.
+		 *
+		 * @param client
+		 *            The client, or null if this is only used to look up a
+		 *            range.
+		 *
+		 * @param lastName
+		 *            The last name.
+		 *
+		 * @param expiryDate
+		 *            The expiry date.
+		 *
+		 * @param email
+		 *            The email.
+		 */
+		Entry(Client client, String lastName, String expiryDate,
+				String email) {
+			this.client = client;
+			this.lastName = lastName;
+			this.expiryDate = expiryDate;
+			this.email = email;
+		}
+	}
+
+	/**
+	 * Orders entries by last name ignoring case, and then email, so "Doe"
+	 * comes before "Doering".
+	 */
+	private static final Comparator<Entry> BY_LAST_NAME =
+			new Comparator<Entry>() {
+		@Override
+		public int compare(Entry one, Entry other) {
+			int order = String.CASE_INSENSITIVE_ORDER.compare(one.lastName,
+					other.lastName);
+			return order != 0 ? order : one.email.compareTo(other.email);
+		}
+	};
+
+	/**
+	 * Orders entries by the month of their expiry date, and then email.
+	 */
+	private static final Comparator<Entry> BY_EXPIRY_MONTH =
+			new Comparator<Entry>() {
+		@Override
+		public int compare(Entry one, Entry other) {
+			int order = compareMonths(one.expiryDate, other.expiryDate);
+			return order != 0 ? order : one.email.compareTo(other.email);
+		}
+	};
+
+	/**
+	 * The clients by email.
+	 */
+	private ConcurrentHashMap<String, Entry> byEmail;
+
+	/**
+	 * The clients by last name and then email.
+	 */
+	private TreeSet<Entry> byLastName;
+
+	/**
+	 * The clients by card expiry month and then email.
+	 */
+	private TreeSet<Entry> byExpiryMonth;
+
+	/**
+	 * A view of the clients that reads through to the map by email.
+	 */
+	private Collection<Client> clients;
+
+	/**
+	 * Creates an empty store.
+	 */
+	public ClientStore() {
+		byEmail = new ConcurrentHashMap<>();
+		byLastName = new TreeSet<>(BY_LAST_NAME);
+		byExpiryMonth = new TreeSet<>(BY_EXPIRY_MONTH);
+		clients = new AbstractCollection<Client>() {
+			@Override
+			public Iterator<Client> iterator() {
+				final Iterator<Entry> entries = byEmail.values().iterator();
+				return new Iterator<Client>() {
+					@Override
+					public boolean hasNext() {
+						return entries.hasNext();
+					}
+
+					@Override
+					public Client next() {
+						return entries.next().client;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return byEmail.size();
+			}
+		};
+	}
+
+	/**
+	 * Adds a client, or replaces the client with the same email.
+	 *
+	 * @param client
+	 *            The client to add.
+	 *
+	 * @return The client it replaced, or null if there was none.
+	 *
+	 * @throws NullPointerException
+	 *             If the client is null.
+	 */
+	public synchronized Client put(Client client) {
+		checkNotNull(client);
+		Entry entry = new Entry(client);
+		Entry old = byEmail.put(client.getEmail(), entry);
+		if (old != null) {
+			byLastName.remove(old);
+			byExpiryMonth.remove(old);
+		}
+		byLastName.add(entry);
+		byExpiryMonth.add(entry);
+		return old == null ? null : old.client;
+	}
+
+	/**
+	 * Removes the client with an email.
+	 *
+	 * @param email
+	 *            The email of the client.
+	 *
+	 * @return The client removed, or null if there was none.
+	 *
+	 * @throws NullPointerException
+	 *             If the email is null.
+	 */
+	public synchronized Client remove(String email) {
+		checkNotNull(email);
+		Entry old = byEmail.remove(email);
+		if (old == null) {
+			return null;
+		}
+		byLastName.remove(old);
+		byExpiryMonth.remove(old);
+		return old.client;
+	}
+
+	/**
+	 * Gets the client with an email.
+	 *
+	 * @param email
+	 *            The email of the client.
+	 *
+	 * @return The client, or null if there is none.
+	 *
+	 * @throws NullPointerException
+	 *             If the email is null.
+	 */
+	public Client get(String email) {
+		checkNotNull(email);
+		Entry entry = byEmail.get(email);
+		return entry == null ? null : entry.client;
+	}
+
+	/**
+	 * Checks if there is a client with an email.
+	 *
+	 * @param email
+	 *            The email of the client.
+	 *
+	 * @return True if there is one.
+	 *
+	 * @throws NullPointerException
+	 *             If the email is null.
+	 */
+	public boolean contains(String email) {
+		checkNotNull(email);
+		return byEmail.containsKey(email);
+	}
+
+	/**
+	 * Gets how many clients there are.
+	 *
+	 * @return The number of clients.
+	 */
+	public int size() {
+		return byEmail.size();
+	}
+
+	/**
+	 * Gets every client, in no particular order. The collection is a view of
+	 * the store rather than a copy, so it is cheap to get however many
+	 * clients there are, and it shows clients added while iterating over it
+	 * or not without ever failing.
+	 *
+	 * @return A read-only view of the clients.
+	 */
+	public Collection<Client> getClients() {
+		return clients;
+	}
+
+	/**
+	 * Finds the clients whose last name starts with a prefix, ignoring case.
+	 *
+	 * @param prefix
+	 *            The start of the last name.
+	 *
+	 * @return The clients by last name and then email.
+	 *
+	 * @throws NullPointerException
+	 *             If the prefix is null.
+	 */
+	public synchronized List<Client> findByLastNamePrefix(String prefix) {
+		checkNotNull(prefix);
+		return clientsOf(byLastName.subSet(new Entry(null, prefix, null, ""),
+				new Entry(null, prefix + Character.MAX_VALUE, null, "")));
+	}
+
+	/**
+	 * Finds the clients whose card expires in a month.
+	 *
+	 * @param year
+	 *            The year.
+	 *
+	 * @param month
+	 *            The month, from 1 to 12.
+	 *
+	 * @return The clients by email.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the month is not from 1 to 12.
+	 */
+	public synchronized List<Client> findByExpiryMonth(int year, int month) {
+		checkArgument(month >= 1 && month <= 12);
+		String from = String.format(Locale.US, "%04d-%02d", year, month);
+		String to = month == 12 ? String.format(Locale.US, "%04d-01",
+				year + 1) : String.format(Locale.US, "%04d-%02d", year,
+				month + 1);
+		return clientsOf(byExpiryMonth.subSet(new Entry(null, null, from, ""),
+				new Entry(null, null, to, "")));
+	}
+
+	/**
+	 * Gets the clients of some entries.
+	 *
+	 * @param entries
+	 *            The entries.
+	 *
+	 * @return The clients in the same order.
+	 */
+	private static List<Client> clientsOf(Collection<Entry> entries) {
+		List<Client> found = new ArrayList<>(entries.size());
+		for (Entry entry : entries) {
+			found.add(entry.client);
+		}
+		return found;
+	}
+
+	/**
+	 * Compares the month part of two expiry dates without copying it out.
+	 * The month part of a date in YYYY-MM-DD format is YYYY-MM, and of a date
+	 * in another format it is the whole date.
+	 *
+	 * @param one
+	 *            The first date.
+	 *
+	 * @param other
+	 *            The second date.
+	 *
+	 * @return A negative number, zero or a positive number as the first month
+	 *         comes before, is the same as or comes after the second.
+	 */
+	private static int compareMonths(String one, String other) {
+		int oneLength = monthLength(one);
+		int otherLength = monthLength(other);
+		int shorter = Math.min(oneLength, otherLength);
+		for (int i = 0; i < shorter; i++) {
+			int order = one.charAt(i) - other.charAt(i);
+			if (order != 0) {
+				return order;
+			}
+		}
+		return oneLength - otherLength;
+	}
+
+	/**
+	 * Gets the length of the month part of an expiry date.
+	 *
+	 * @param expiryDate
+	 *            The date.
+	 *
+	 * @return 7 for a date in YYYY-MM-DD format, or the whole length of a
+	 *         date in another format.
+	 */
+	private static int monthLength(String expiryDate) {
+		if (expiryDate.length() >= 7 && expiryDate.charAt(4) == '-') {
+			return 7;
+		}
+		return expiryDate.length();
+	}
+}
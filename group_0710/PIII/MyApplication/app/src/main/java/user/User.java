@@ -58,15 +58,6 @@ public abstract class User{
 		checkNotNull(destination);
 	}
 	
-	/**
-	 * books the itinerary by entering the itinerary's ID
-	 * @param itineraryID
-	 * 				the ID of the itinerary
-	 */
-	public static void bookItineraries (int itineraryID) {
-		
-	}
-	
 	public static void uploadClientInfo(String path) {
 		//TODO
 	}
@@ -0,0 +1,312 @@
+package util;
+
+import java.util.Arrays;
+
+import static util.Assertions.*;
+
+/**
+ * The table shared by the open addressing hashed linked lists. Every element
+ * lives in a slot, and the slots are linked in the order they were added by
+ * two int arrays. The hash table is an int array of slot numbers probed
+ * linearly, and removing an element shifts the entries after it back instead
+ * of leaving a marker, so lookups never have to step over removed elements.
+ * The slots of removed elements are reused by later additions.
+ *
+ * Subclasses keep the elements themselves in an array indexed by slot, and
+ * do their own probing so an element is never boxed to compare it.
+ *
+ * @author Chris
+ */
+abstract class AbstractOpenHashedLinkedList {
+
+	/**
+	 * The value of a link or slot that points nowhere.
+	 */
+	static final int NONE = -1;
+
+	/**
+	 * The fewest slots a list has.
+	 */
+	private static final int MIN_CAPACITY = 4;
+
+	/**
+	 * The slot of each bucket plus one, or 0 if the bucket is empty. There
+	 * are always at least twice as many buckets as slots.
+	 */
+	int[] buckets;
+
+	/**
+	 * One less than the number of buckets, for finding a bucket from a hash.
+	 */
+	int mask;
+
+	/**
+	 * The hash of the element in each slot.
+	 */
+	int[] hashes;
+
+	/**
+	 * The slot after each slot in the order added, or the next free slot for
+	 * a free slot.
+	 */
+	private int[] next;
+
+	/**
+	 * The slot before each slot in the order added.
+	 */
+	private int[] previous;
+
+	/**
+	 * The first slot in the order added.
+	 */
+	private int head;
+
+	/**
+	 * The last slot in the order added.
+	 */
+	private int tail;
+
+	/**
+	 * The first of the slots that were freed by removals.
+	 */
+	private int free;
+
+	/**
+	 * How many slots have ever been used, so the slots after this are free.
+	 */
+	private int used;
+
+	/**
+	 * How many elements there are.
+	 */
+	private int size;
+
+	/**
+	 * Creates an empty table.
+	 *
+	 * @param expectedSize
+	 *            How many elements it should hold without growing.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the expected size is negative.
+	 */
+	AbstractOpenHashedLinkedList(int expectedSize) {
+		checkArgument(expectedSize >= 0);
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+		head = NONE;
+		tail = NONE;
+		free = NONE;
+	}
+
+	/**
+	 * Spreads the bits of a hash code so that codes which only differ in
+	 * their high bits still land in different buckets.
+	 *
+	 * @param h
+	 *            The hash code.
+	 *
+	 * @return The mixed hash.
+	 */
+	static int mix(int h) {
+		h *= 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Gets how many elements there are.
+	 *
+	 * @return The number of elements.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes every element, keeping the space they took.
+	 */
+	public void clear() {
+		Arrays.fill(buckets, 0);
+		clearElements(used);
+		head = NONE;
+		tail = NONE;
+		free = NONE;
+		used = 0;
+		size = 0;
+	}
+
+	/**
+	 * Gets the first slot in the order added.
+	 *
+	 * @return The slot, or NONE if there are no elements.
+	 */
+	int firstSlot() {
+		return head;
+	}
+
+	/**
+	 * Gets the slot after a slot in the order added.
+	 *
+	 * @param slot
+	 *            The slot of an element.
+	 *
+	 * @return The next slot, or NONE if it is the last.
+	 */
+	int nextSlot(int slot) {
+		return next[slot];
+	}
+
+	/**
+	 * Makes sure there is a free slot for one more element. This has to be
+	 * called before looking for the bucket to add an element to, since
+	 * growing moves every element to a new bucket.
+	 */
+	void reserveSlot() {
+		if (free == NONE && used == hashes.length) {
+			grow();
+		}
+	}
+
+	/**
+	 * Puts a new element in a free slot at the end of the order, and in an
+	 * empty bucket. reserveSlot() has to have been called first.
+	 *
+	 * @param hash
+	 *            The mixed hash of the element.
+	 *
+	 * @param bucket
+	 *            The empty bucket the element was not found by.
+	 *
+	 * @return The slot the subclass has to put the element in.
+	 */
+	int insert(int hash, int bucket) {
+		assert buckets[bucket] == 0;
+		int slot;
+		if (free != NONE) {
+			slot = free;
+			free = next[slot];
+		} else {
+			slot = used++;
+		}
+		hashes[slot] = hash;
+		next[slot] = NONE;
+		previous[slot] = tail;
+		if (tail == NONE) {
+			head = slot;
+		} else {
+			next[tail] = slot;
+		}
+		tail = slot;
+		buckets[bucket] = slot + 1;
+		size++;
+		return slot;
+	}
+
+	/**
+	 * Removes the element in a bucket, unlinking its slot and shifting back
+	 * any elements that were probed past it.
+	 *
+	 * @param bucket
+	 *            The bucket the element was found in.
+	 *
+	 * @return The slot the subclass has to clear.
+	 */
+	int delete(int bucket) {
+		int slot = buckets[bucket] - 1;
+		assert slot >= 0;
+
+		int before = previous[slot];
+		int after = next[slot];
+		if (before == NONE) {
+			head = after;
+		} else {
+			next[before] = after;
+		}
+		if (after == NONE) {
+			tail = before;
+		} else {
+			previous[after] = before;
+		}
+		next[slot] = free;
+		free = slot;
+		size--;
+
+		// Move back every entry whose home bucket is at or before the hole,
+		// so that no probe stops early at the empty bucket.
+		int hole = bucket;
+		int i = bucket;
+		while (true) {
+			i = (i + 1) & mask;
+			int other = buckets[i] - 1;
+			if (other < 0) {
+				break;
+			}
+			int home = hashes[other] & mask;
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				buckets[hole] = buckets[i];
+				hole = i;
+			}
+		}
+		buckets[hole] = 0;
+		return slot;
+	}
+
+	/**
+	 * Grows the element array of the subclass to hold more slots.
+	 *
+	 * @param capacity
+	 *            The new number of slots.
+	 */
+	abstract void growElements(int capacity);
+
+	/**
+	 * Clears the elements in the slots before a slot, so nothing is kept
+	 * alive by them.
+	 *
+	 * @param end
+	 *            The slot to stop at (exclusive).
+	 */
+	abstract void clearElements(int end);
+
+	/**
+	 * Doubles the slots and buckets, putting every element back in the
+	 * bucket its hash now points to.
+	 */
+	private void grow() {
+		int capacity = hashes.length * 2;
+		checkState(capacity > 0);
+		int[] oldHashes = hashes;
+		int[] oldNext = next;
+		int[] oldPrevious = previous;
+		allocate(capacity);
+		System.arraycopy(oldHashes, 0, hashes, 0, used);
+		System.arraycopy(oldNext, 0, next, 0, used);
+		System.arraycopy(oldPrevious, 0, previous, 0, used);
+		growElements(capacity);
+
+		for (int slot = head; slot != NONE; slot = next[slot]) {
+			int b = hashes[slot] & mask;
+			while (buckets[b] != 0) {
+				b = (b + 1) & mask;
+			}
+			buckets[b] = slot + 1;
+		}
+	}
+
+	/**
+	 * Makes the arrays for a number of slots.
+	 *
+	 * @param capacity
+	 *            The number of slots, which is a power of two.
+	 */
+	private void allocate(int capacity) {
+		buckets = new int[capacity * 2];
+		mask = buckets.length - 1;
+		hashes = new int[capacity];
+		next = new int[capacity];
+		previous = new int[capacity];
+	}
+}
@@ -5,6 +5,13 @@ package util;
  * out when certain preconditions are not met. This is inspired from Google's
  * Guava library.
  * 
+ * These are for checking what comes in through public methods. Each check is
+ * small enough to be inlined, and builds no message unless it fails, so the
+ * only cost left when it passes is the comparison. Code that is only called
+ * from inside a package with values that were already checked (such as the
+ * search loops) should use assert instead, which costs nothing unless
+ * assertions are enabled.
+ * 
  * @author Chris
  */
 public class Assertions {
@@ -19,7 +26,9 @@ public class Assertions {
 	 * 		If the object is null.
 	 */
 	public static void checkNotNull(Object o) {
-		checkNotNull(o, null);
+		if (o == null) {
+			throw new NullPointerException();
+		}
 	}
 	
 	/**
@@ -50,7 +59,9 @@ public class Assertions {
 	 * 		If the argument is false.
 	 */
 	public static void checkArgument(boolean condition) {
-		checkArgument(condition, null);
+		if (!condition) {
+			throw new IllegalArgumentException();
+		}
 	}
 	
 	/**
@@ -71,4 +82,44 @@ public class Assertions {
 			throw new IllegalArgumentException(message);
 		}
 	}
+	
+	/**
+	 * Checks that the condition of the argument holds, and has a reason for
+	 * any exceptions that ends with a value. The message is only put together
+	 * if the check fails, so this can be used in a loop without building a
+	 * string every time.
+	 * 
+	 * @param condition
+	 * 		The condition to check (errors out if false).
+	 * 
+	 * @param message
+	 * 		The start of the error message if an exception is thrown.
+	 * 
+	 * @param value
+	 * 		The value to put at the end of the error message.
+	 * 
+	 * @throws IllegalArgumentException
+	 * 		If the argument is false.
+	 */
+	public static void checkArgument(boolean condition, String message,
+			long value) {
+		if (!condition) {
+			throw new IllegalArgumentException(message + value);
+		}
+	}
+	
+	/**
+	 * Checks that the object is in the right state for the call.
+	 * 
+	 * @param condition
+	 * 		The condition to check (errors out if false).
+	 * 
+	 * @throws IllegalStateException
+	 * 		If the condition is false.
+	 */
+	public static void checkState(boolean condition) {
+		if (!condition) {
+			throw new IllegalStateException();
+		}
+	}
 }
@@ -1,6 +1,7 @@
 package util;
 
 import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
 
 import static util.Assertions.*;
 
@@ -27,6 +28,11 @@ public class Constants {
 	 */
 	public static final String DELIMITER = ",";
 
+	/**
+	 * The amount of minutes in a day.
+	 */
+	public static final int MINUTES_PER_DAY = 24 * 60;
+
 	/**
 	 * Parses a date from YYYY-MM-DD to a LocalDate.
 	 * 
@@ -49,4 +55,70 @@ public class Constants {
 		int day = Integer.parseInt(tokens[2]);
 		return new LocalDate(year, month, day);
 	}
+
+	/**
+	 * Converts a date into the number of days since 1970-01-01. This works
+	 * from the fields of the date, so nothing is allocated.
+	 * 
+	 * @param date
+	 *            The date to convert.
+	 * 
+	 * @return The days since the epoch, negative before it.
+	 * 
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 */
+	public static int toEpochDay(LocalDate date) {
+		checkNotNull(date);
+		return toEpochDay(date.getYear(), date.getMonthOfYear(),
+				date.getDayOfMonth());
+	}
+
+	/**
+	 * Converts a date and time into the number of minutes since 1970-01-01
+	 * 00:00, ignoring seconds. Every date time from 1970 until the year 6000
+	 * fits in an int.
+	 * 
+	 * @param dateTime
+	 *            The date time to convert.
+	 * 
+	 * @return The minutes since the epoch, negative before it.
+	 * 
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 */
+	public static int toEpochMinutes(LocalDateTime dateTime) {
+		checkNotNull(dateTime);
+		int day = toEpochDay(dateTime.getYear(), dateTime.getMonthOfYear(),
+				dateTime.getDayOfMonth());
+		return day * MINUTES_PER_DAY + dateTime.getHourOfDay() * 60
+				+ dateTime.getMinuteOfHour();
+	}
+
+	/**
+	 * Counts the days from 1970-01-01 to a date in the Gregorian calendar,
+	 * by counting whole 400 year cycles and then the days into the cycle,
+	 * with years starting in March so leap days come last.
+	 * 
+	 * @param year
+	 *            The year.
+	 * 
+	 * @param month
+	 *            The month, from 1 to 12.
+	 * 
+	 * @param day
+	 *            The day of the month.
+	 * 
+	 * @return The days since the epoch.
+	 */
+	private static int toEpochDay(int year, int month, int day) {
+		int y = month <= 2 ? year - 1 : year;
+		int era = (y >= 0 ? y : y - 399) / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5
+				+ day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+				+ dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
 }
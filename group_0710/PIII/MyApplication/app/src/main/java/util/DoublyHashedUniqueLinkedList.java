@@ -51,6 +51,18 @@ public class DoublyHashedUniqueLinkedList<T> implements HashedLinkedList<T> {
 		return set.contains(t);
 	}
 	
+	/**
+	 * {@inheritDoc} This takes O(n) time, since the list has to be searched
+	 * for the object.
+	 */
+	public boolean remove(T t) {
+		if (!set.remove(t)) {
+			return false;
+		}
+		list.remove(t);
+		return true;
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
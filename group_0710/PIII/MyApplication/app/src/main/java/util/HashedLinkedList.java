@@ -41,6 +41,17 @@ public interface HashedLinkedList<T> {
 	 */
 	boolean contains(T t);
 
+	/**
+	 * Removes an object from the list, keeping the order of the rest.
+	 * 
+	 * @param t
+	 *            The object to remove.
+	 * 
+	 * @return True if it was removed, false if it is null or was not in the
+	 *         list.
+	 */
+	boolean remove(T t);
+
 	/**
 	 * Gets how many nodes are in the linked list.
 	 * 
@@ -0,0 +1,161 @@
+package util;
+
+import java.util.Arrays;
+
+import static util.Assertions.*;
+
+/**
+ * A hashed linked list of ints, which keeps them unboxed in one open
+ * addressing table linked in the order they were added. It has the same
+ * addTail/contains/remove contract as HashedLinkedList, with O(1) removal,
+ * and is meant for small sets of ids such as the places a search path has
+ * visited. This is not a thread safe object.
+ *
+ * @author Chris
+ */
+public class IntHashedLinkedList extends AbstractOpenHashedLinkedList {
+
+	/**
+	 * The int in each slot.
+	 */
+	private int[] elements;
+
+	/**
+	 * Creates an empty list.
+	 */
+	public IntHashedLinkedList() {
+		this(0);
+	}
+
+	/**
+	 * Creates an empty list with room for some ints.
+	 *
+	 * @param expectedSize
+	 *            How many ints it should hold without growing.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the expected size is negative.
+	 */
+	public IntHashedLinkedList(int expectedSize) {
+		super(expectedSize);
+		elements = new int[hashes.length];
+	}
+
+	/**
+	 * Adds an int to the tail of the list.
+	 *
+	 * @param value
+	 *            The int to add.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the int is already in the list.
+	 */
+	public void addTail(int value) {
+		checkArgument(add(value));
+	}
+
+	/**
+	 * Adds an int to the tail of the list if it is not in it yet.
+	 *
+	 * @param value
+	 *            The int to add.
+	 *
+	 * @return True if it was added, false if it was already in the list.
+	 */
+	public boolean add(int value) {
+		reserveSlot();
+		int hash = mix(value);
+		int bucket = find(value, hash);
+		if (bucket >= 0) {
+			return false;
+		}
+		elements[insert(hash, -bucket - 1)] = value;
+		return true;
+	}
+
+	/**
+	 * Checks if an int is in the list in O(1) time.
+	 *
+	 * @param value
+	 *            The int to check.
+	 *
+	 * @return True if it is in the list.
+	 */
+	public boolean contains(int value) {
+		return find(value, mix(value)) >= 0;
+	}
+
+	/**
+	 * Removes an int from the list in O(1) time, keeping the order of the
+	 * rest.
+	 *
+	 * @param value
+	 *            The int to remove.
+	 *
+	 * @return True if it was removed, false if it was not in the list.
+	 */
+	public boolean remove(int value) {
+		int bucket = find(value, mix(value));
+		if (bucket < 0) {
+			return false;
+		}
+		delete(bucket);
+		return true;
+	}
+
+	/**
+	 * Copies the ints into an array.
+	 *
+	 * @return The ints in the order they were added.
+	 */
+	public int[] toArray() {
+		int[] values = new int[size()];
+		int i = 0;
+		for (int slot = firstSlot(); slot != NONE; slot = nextSlot(slot)) {
+			values[i++] = elements[slot];
+		}
+		return values;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	@Override
+	void growElements(int capacity) {
+		elements = Arrays.copyOf(elements, capacity);
+	}
+
+	@Override
+	void clearElements(int end) {
+		// Ints keep nothing alive.
+	}
+
+	/**
+	 * Finds the bucket of an int.
+	 *
+	 * @param value
+	 *            The int.
+	 *
+	 * @param hash
+	 *            The mixed hash of the int.
+	 *
+	 * @return The bucket it is in, or if it is not in the table, -1 minus the
+	 *         empty bucket it would go in.
+	 */
+	private int find(int value, int hash) {
+		for (int b = hash & mask;; b = (b + 1) & mask) {
+			int slot = buckets[b] - 1;
+			if (slot < 0) {
+				return -b - 1;
+			}
+			if (elements[slot] == value) {
+				return b;
+			}
+		}
+	}
+}
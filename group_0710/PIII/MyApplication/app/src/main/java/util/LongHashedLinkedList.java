@@ -0,0 +1,173 @@
+package util;
+
+import java.util.Arrays;
+
+import static util.Assertions.*;
+
+/**
+ * A hashed linked list of longs, which keeps them unboxed in one open
+ * addressing table linked in the order they were added. It has the same
+ * addTail/contains/remove contract as HashedLinkedList, with O(1) removal,
+ * and is meant for keys that pack a few ids into one long. This is not a
+ * thread safe object.
+ *
+ * @author Chris
+ */
+public class LongHashedLinkedList extends AbstractOpenHashedLinkedList {
+
+	/**
+	 * The long in each slot.
+	 */
+	private long[] elements;
+
+	/**
+	 * Creates an empty list.
+	 */
+	public LongHashedLinkedList() {
+		this(0);
+	}
+
+	/**
+	 * Creates an empty list with room for some longs.
+	 *
+	 * @param expectedSize
+	 *            How many longs it should hold without growing.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the expected size is negative.
+	 */
+	public LongHashedLinkedList(int expectedSize) {
+		super(expectedSize);
+		elements = new long[hashes.length];
+	}
+
+	/**
+	 * Adds a long to the tail of the list.
+	 *
+	 * @param value
+	 *            The long to add.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the long is already in the list.
+	 */
+	public void addTail(long value) {
+		checkArgument(add(value));
+	}
+
+	/**
+	 * Adds a long to the tail of the list if it is not in it yet.
+	 *
+	 * @param value
+	 *            The long to add.
+	 *
+	 * @return True if it was added, false if it was already in the list.
+	 */
+	public boolean add(long value) {
+		reserveSlot();
+		int hash = hash(value);
+		int bucket = find(value, hash);
+		if (bucket >= 0) {
+			return false;
+		}
+		elements[insert(hash, -bucket - 1)] = value;
+		return true;
+	}
+
+	/**
+	 * Checks if a long is in the list in O(1) time.
+	 *
+	 * @param value
+	 *            The long to check.
+	 *
+	 * @return True if it is in the list.
+	 */
+	public boolean contains(long value) {
+		return find(value, hash(value)) >= 0;
+	}
+
+	/**
+	 * Removes a long from the list in O(1) time, keeping the order of the
+	 * rest.
+	 *
+	 * @param value
+	 *            The long to remove.
+	 *
+	 * @return True if it was removed, false if it was not in the list.
+	 */
+	public boolean remove(long value) {
+		int bucket = find(value, hash(value));
+		if (bucket < 0) {
+			return false;
+		}
+		delete(bucket);
+		return true;
+	}
+
+	/**
+	 * Copies the longs into an array.
+	 *
+	 * @return The longs in the order they were added.
+	 */
+	public long[] toArray() {
+		long[] values = new long[size()];
+		int i = 0;
+		for (int slot = firstSlot(); slot != NONE; slot = nextSlot(slot)) {
+			values[i++] = elements[slot];
+		}
+		return values;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	@Override
+	void growElements(int capacity) {
+		elements = Arrays.copyOf(elements, capacity);
+	}
+
+	@Override
+	void clearElements(int end) {
+		// Longs keep nothing alive.
+	}
+
+	/**
+	 * Gets the mixed hash of a long.
+	 *
+	 * @param value
+	 *            The long.
+	 *
+	 * @return The hash.
+	 */
+	private static int hash(long value) {
+		return mix((int) (value ^ (value >>> 32)));
+	}
+
+	/**
+	 * Finds the bucket of a long.
+	 *
+	 * @param value
+	 *            The long.
+	 *
+	 * @param hash
+	 *            The mixed hash of the int.
+	 *
+	 * @return The bucket it is in, or if it is not in the table, -1 minus the
+	 *         empty bucket it would go in.
+	 */
+	private int find(long value, int hash) {
+		for (int b = hash & mask;; b = (b + 1) & mask) {
+			int slot = buckets[b] - 1;
+			if (slot < 0) {
+				return -b - 1;
+			}
+			if (elements[slot] == value) {
+				return b;
+			}
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package util;
+
+import static util.Assertions.*;
+
+/**
+ * Converts amounts of money between dollars and whole cents. Costs are kept
+ * as a long number of cents so they add up and compare exactly, and are only
+ * turned into dollars to be shown.
+ *
+ * @author Chris
+ */
+public class Money {
+
+	/**
+	 * The amount of cents in a dollar.
+	 */
+	public static final int CENTS_PER_DOLLAR = 100;
+
+	/**
+	 * The most whole dollars that can be parsed, so that adding the cents
+	 * still fits in a long.
+	 */
+	private static final long MAX_DOLLARS = (Long.MAX_VALUE
+			- (CENTS_PER_DOLLAR - 1)) / CENTS_PER_DOLLAR;
+
+	/**
+	 * Parses dollars with at most two decimal places into cents, without
+	 * making a String or a double first. Spaces around the amount are
+	 * ignored.
+	 *
+	 * @param text
+	 *            The amount, such as 399.99, 400.5 or 400.
+	 *
+	 * @return The amount in cents.
+	 *
+	 * @throws NullPointerException
+	 *             If the argument is null.
+	 *
+	 * @throws NumberFormatException
+	 *             If the amount is not a number with at most two decimal
+	 *             places, or does not fit in a long.
+	 */
+	public static long parseCents(CharSequence text) {
+		checkNotNull(text);
+		int i = 0;
+		int end = text.length();
+		while (i < end && text.charAt(i) == ' ') {
+			i++;
+		}
+		while (end > i && text.charAt(end - 1) == ' ') {
+			end--;
+		}
+		boolean negative = i < end && text.charAt(i) == '-';
+		if (negative || (i < end && text.charAt(i) == '+')) {
+			i++;
+		}
+
+		long dollars = 0;
+		int digits = 0;
+		for (; i < end && text.charAt(i) != '.'; i++, digits++) {
+			int digit = text.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("Not an amount: " + text);
+			}
+			if (dollars > (MAX_DOLLARS - digit) / 10) {
+				throw new NumberFormatException("Too big: " + text);
+			}
+			dollars = dollars * 10 + digit;
+		}
+
+		long cents = 0;
+		if (i < end) {
+			// Skip the point, then read up to two digits of cents.
+			i++;
+			int places = end - i;
+			if (places > 2) {
+				throw new NumberFormatException("Not an amount: " + text);
+			}
+			for (int place = 0; place < 2; place++, i++) {
+				int digit = i < end ? text.charAt(i) - '0' : 0;
+				if (digit < 0 || digit > 9) {
+					throw new NumberFormatException("Not an amount: " + text);
+				}
+				cents = cents * 10 + digit;
+			}
+			digits += places;
+		}
+		if (digits == 0) {
+			throw new NumberFormatException("Not an amount: " + text);
+		}
+
+		long amount = dollars * CENTS_PER_DOLLAR + cents;
+		return negative ? -amount : amount;
+	}
+
+	/**
+	 * Converts dollars into the nearest number of cents.
+	 *
+	 * @param dollars
+	 *            The amount in dollars.
+	 *
+	 * @return The amount in cents, or Long.MAX_VALUE or Long.MIN_VALUE if it
+	 *         does not fit in a long.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the amount is not a number.
+	 */
+	public static long toCents(double dollars) {
+		checkArgument(!Double.isNaN(dollars));
+		return Math.round(dollars * CENTS_PER_DOLLAR);
+	}
+
+	/**
+	 * Converts cents into dollars.
+	 *
+	 * @param cents
+	 *            The amount in cents.
+	 *
+	 * @return The amount in dollars.
+	 */
+	public static double toDollars(long cents) {
+		return cents / (double) CENTS_PER_DOLLAR;
+	}
+
+	/**
+	 * Compares two amounts in cents, the same as Long.compare, which Android
+	 * only has from API 19.
+	 *
+	 * @param one
+	 *            The first amount (cents).
+	 *
+	 * @param other
+	 *            The second amount (cents).
+	 *
+	 * @return A negative number, zero or a positive number as the first is
+	 *         less than, equal to or more than the second.
+	 */
+	public static int compare(long one, long other) {
+		return one < other ? -1 : (one == other ? 0 : 1);
+	}
+
+	/**
+	 * Formats cents as dollars with exactly two decimal places, the same as
+	 * String.format("%.2f") would for the amount in dollars, but without
+	 * parsing a format or rounding a double.
+	 *
+	 * @param cents
+	 *            The amount in cents.
+	 *
+	 * @return The amount, such as 399.99 or 0.05.
+	 */
+	public static String format(long cents) {
+		return append(new StringBuilder(24), cents).toString();
+	}
+
+	/**
+	 * Appends cents as dollars with exactly two decimal places.
+	 *
+	 * @param out
+	 *            Where to append the amount.
+	 *
+	 * @param cents
+	 *            The amount in cents.
+	 *
+	 * @return The same builder.
+	 *
+	 * @throws NullPointerException
+	 *             If the builder is null.
+	 */
+	public static StringBuilder append(StringBuilder out, long cents) {
+		checkNotNull(out);
+		// The remainder is negative for negative amounts, which also works
+		// for Long.MIN_VALUE where negating would overflow.
+		long dollars = cents / CENTS_PER_DOLLAR;
+		int rest = (int) (cents % CENTS_PER_DOLLAR);
+		if (rest < 0) {
+			rest = -rest;
+			if (dollars == 0) {
+				out.append('-');
+			}
+		}
+		out.append(dollars).append('.');
+		if (rest < 10) {
+			out.append('0');
+		}
+		return out.append(rest);
+	}
+}
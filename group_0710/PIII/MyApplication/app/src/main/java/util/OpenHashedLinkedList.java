@@ -0,0 +1,265 @@
+package util;
+
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static util.Assertions.*;
+
+/**
+ * A hashed linked list that keeps each element once, in a single open
+ * addressing table linked in the order the elements were added. Compared to
+ * DoublyHashedUniqueLinkedList, there is no node or hash entry object per
+ * element (an element costs its reference and five ints), and removing an
+ * element takes O(1) time instead of searching the list.
+ *
+ * The set and list of this are read-only views of the table rather than
+ * copies, and getting an element of the list by index walks the list like
+ * LinkedList does. This is not a thread safe object.
+ *
+ * @author Chris
+ *
+ * @param <T>
+ *            The data to hold inside the list.
+ */
+public class OpenHashedLinkedList<T> extends AbstractOpenHashedLinkedList
+		implements HashedLinkedList<T> {
+
+	/**
+	 * The element in each slot.
+	 */
+	private Object[] elements;
+
+	/**
+	 * How many times elements have been added or removed, so the views can
+	 * tell when they were changed under an iterator.
+	 */
+	private int modifications;
+
+	/**
+	 * Creates an empty list.
+	 */
+	public OpenHashedLinkedList() {
+		this(0);
+	}
+
+	/**
+	 * Creates an empty list with room for some elements.
+	 *
+	 * @param expectedSize
+	 *            How many elements it should hold without growing.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the expected size is negative.
+	 */
+	public OpenHashedLinkedList(int expectedSize) {
+		super(expectedSize);
+		elements = new Object[hashes.length];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void addTail(T t) {
+		checkNotNull(t);
+		reserveSlot();
+		int hash = mix(t.hashCode());
+		int bucket = find(t, hash);
+		checkArgument(bucket < 0);
+		elements[insert(hash, -bucket - 1)] = t;
+		modifications++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean contains(T t) {
+		return t != null && find(t, mix(t.hashCode())) >= 0;
+	}
+
+	/**
+	 * Gets the element in the list that is equal to an object, such as the
+	 * one a key object stands for.
+	 *
+	 * @param t
+	 *            The object to look for.
+	 *
+	 * @return The element, or null if there is none or the object is null.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(T t) {
+		if (t == null) {
+			return null;
+		}
+		int bucket = find(t, mix(t.hashCode()));
+		return bucket < 0 ? null : (T) elements[buckets[bucket] - 1];
+	}
+
+	/**
+	 * {@inheritDoc} This takes O(1) time.
+	 */
+	public boolean remove(T t) {
+		if (t == null) {
+			return false;
+		}
+		int bucket = find(t, mix(t.hashCode()));
+		if (bucket < 0) {
+			return false;
+		}
+		elements[delete(bucket)] = null;
+		modifications++;
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void clear() {
+		super.clear();
+		modifications++;
+	}
+
+	/**
+	 * {@inheritDoc} The set is a read-only view of this list that iterates
+	 * in the order the elements were added.
+	 */
+	public Set<T> getSet() {
+		return new AbstractSet<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new Walker();
+			}
+
+			@Override
+			public int size() {
+				return OpenHashedLinkedList.this.size();
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public boolean contains(Object o) {
+				return OpenHashedLinkedList.this.contains((T) o);
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc} The list is a read-only view of this one, which walks
+	 * the links to get an element by index.
+	 */
+	public List<T> getList() {
+		return new AbstractList<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new Walker();
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public T get(int index) {
+				if (index < 0 || index >= size()) {
+					throw new IndexOutOfBoundsException("Index: " + index);
+				}
+				int slot = firstSlot();
+				for (int i = 0; i < index; i++) {
+					slot = nextSlot(slot);
+				}
+				return (T) elements[slot];
+			}
+
+			@Override
+			public int size() {
+				return OpenHashedLinkedList.this.size();
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public boolean contains(Object o) {
+				return OpenHashedLinkedList.this.contains((T) o);
+			}
+		};
+	}
+
+	@Override
+	void growElements(int capacity) {
+		Object[] bigger = new Object[capacity];
+		System.arraycopy(elements, 0, bigger, 0, elements.length);
+		elements = bigger;
+	}
+
+	@Override
+	void clearElements(int end) {
+		for (int i = 0; i < end; i++) {
+			elements[i] = null;
+		}
+	}
+
+	/**
+	 * Finds the bucket of an element.
+	 *
+	 * @param t
+	 *            The element.
+	 *
+	 * @param hash
+	 *            The mixed hash of the element.
+	 *
+	 * @return The bucket it is in, or if it is not in the table, -1 minus the
+	 *         empty bucket it would go in.
+	 */
+	private int find(Object t, int hash) {
+		for (int b = hash & mask;; b = (b + 1) & mask) {
+			int slot = buckets[b] - 1;
+			if (slot < 0) {
+				return -b - 1;
+			}
+			if (hashes[slot] == hash && t.equals(elements[slot])) {
+				return b;
+			}
+		}
+	}
+
+	/**
+	 * Iterates over the elements in the order they were added.
+	 */
+	private class Walker implements Iterator<T> {
+
+		/**
+		 * The slot of the next element.
+		 */
+		private int slot = firstSlot();
+
+		/**
+		 * The modifications of the list when this was made.
+		 */
+		private final int expected = modifications;
+
+		@Override
+		public boolean hasNext() {
+			return slot != NONE;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (modifications != expected) {
+				throw new ConcurrentModificationException();
+			}
+			if (slot == NONE) {
+				throw new NoSuchElementException();
+			}
+			T t = (T) elements[slot];
+			slot = nextSlot(slot);
+			return t;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package airline;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import airline.flight.SearchOptions;
+import airline.flight.SearchResult;
+
+/**
+ * Tests limiting how many searches run at the same time.
+ *
+ * @author Chris
+ */
+public class TestAdmissionController {
+
+	/**
+	 * Tests a search has to wait for a permit to be released.
+	 */
+	@Test
+	public void testPermits() {
+		AdmissionController controller = new AdmissionController(1);
+		assertTrue(controller.admit(0));
+		assertEquals(0, controller.getAvailable());
+		assertFalse(controller.admit(0));
+		assertFalse(controller.admit(10));
+		controller.release();
+		assertTrue(controller.admit(10));
+		controller.release();
+		assertEquals(1, controller.getAvailable());
+	}
+
+	/**
+	 * Tests a search through the database is run and gives its permit back.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testDatabaseSearch() throws IOException {
+		Database database = new Database();
+		database.loadFlightData("test.txt");
+		database.setMaxConcurrentSearches(1);
+
+		SearchOptions options = new SearchOptions();
+		options.setTimeBudgetMillis(1000);
+		for (int i = 0; i < 3; i++) {
+			SearchResult result = database.searchItinerariesWithinBudget(
+					"Toronto", "Venice", "2015-05-10", options);
+			assertTrue(result.isAdmitted());
+			assertFalse(result.isTruncated());
+			assertEquals(3, result.getItineraries().size());
+		}
+	}
+
+	/**
+	 * Tests every kind of search goes through the controller and gives its
+	 * permit back, so searches one after another never wait.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testEverySearchAdmitted() throws IOException {
+		Database database = new Database();
+		database.loadFlightData("test.txt");
+		database.setMaxConcurrentSearches(1);
+		database.setAdmissionTimeoutMillis(0);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(3, database.searchItineraries("Toronto", "Venice",
+					"2015-05-10").size());
+			assertEquals(1, database.searchParetoItineraries("Toronto",
+					"Venice", "2015-05-10", new SearchOptions()).size());
+			assertNotNull(database.searchEarliestArrival("Toronto", "Venice",
+					"2015-05-10"));
+			assertEquals(3, database.searchItinerariesByCost("Toronto",
+					"Venice", "2015-05-10").size());
+		}
+	}
+
+	/**
+	 * Tests a search that cannot be let in is turned away instead of run.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testSearchRejected() throws IOException {
+		Database database = new Database();
+		database.loadFlightData("test.txt");
+
+		// An interrupted thread is not let in, however much room there is.
+		Thread.currentThread().interrupt();
+		try {
+			database.searchReachableDestinations("Toronto", "2015-05-10");
+			fail();
+		} catch (SearchRejectedException e) {
+			assertTrue(Thread.interrupted());
+		}
+		assertEquals(3, database.searchItineraries("Toronto", "Venice",
+				"2015-05-10").size());
+	}
+
+	/**
+	 * Tests a negative timeout is refused.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeTimeout() {
+		new AdmissionController(1).admit(-1);
+	}
+}
@@ -0,0 +1,254 @@
+package airline;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import airline.flight.FlightInformation;
+import airline.flight.Itinerary;
+import airline.flight.SearchOptions;
+import user.Client;
+
+/**
+ * Tests reserving seats when booking itineraries.
+ *
+ * @author Chris
+ */
+public class TestBookingEngine {
+
+	/**
+	 * A directory for the files of each test.
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * The flight file with seats.
+	 */
+	private String flights;
+
+	/**
+	 * Writes the flight file before each test. Toronto to Venice has 2 seats
+	 * and London to Venice has 1, and the flights through Berlin have no
+	 * limit.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Before
+	public void setup() throws IOException {
+		File file = folder.newFile("flights.txt");
+		FileWriter writer = new FileWriter(file);
+		writer.write("1,2015-05-10 10:30,2015-05-10 15:25,Airline,Toronto,"
+				+ "Venice,12,2\n");
+		writer.write("2,2015-05-10 23:00,2015-05-11 04:21,Airline,Toronto,"
+				+ "London,14,5\n");
+		writer.write("3,2015-05-11 04:30,2015-05-11 08:23,Airline,London,"
+				+ "Venice,15,1\n");
+		writer.write("4,2015-05-10 10:50,2015-05-11 16:00,Airline,Toronto,"
+				+ "Berlin,11\n");
+		writer.write("5,2015-05-11 16:30,2015-05-11 17:50,Airline,Berlin,"
+				+ "Venice,16\n");
+		writer.close();
+		flights = file.getPath();
+	}
+
+	/**
+	 * Creates a database with the flights and one client.
+	 *
+	 * @return The database.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	private Database createDatabase() throws IOException {
+		Database database = new Database();
+		database.loadFlightData(flights);
+		database.addClient(new Client("Doe", "Jane", "jane@email.com",
+				"123 Main Street", "1111222233334444", "2018-08-24"));
+		return database;
+	}
+
+	/**
+	 * Finds the itinerary whose first flight has a number.
+	 *
+	 * @param database
+	 *            The database to search.
+	 *
+	 * @param number
+	 *            The number of the first flight.
+	 *
+	 * @return The itinerary.
+	 */
+	private Itinerary find(Database database, String number) {
+		for (Itinerary it : database.searchItineraries("Toronto", "Venice",
+				"2015-05-10")) {
+			if (it.getListOfFlights().getFirst().getFlightNumber()
+					.equals(number)) {
+				return it;
+			}
+		}
+		throw new AssertionError("No itinerary starting with " + number);
+	}
+
+	/**
+	 * Tests a booking takes a seat on every flight or on none, and searches
+	 * can skip full flights.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testAllOrNothing() throws IOException {
+		Database database = createDatabase();
+		Itinerary viaLondon = find(database, "2");
+		FlightInformation toLondon = viaLondon.getListOfFlights().getFirst();
+		assertEquals(5, toLondon.getNumberOfSeats());
+
+		assertNotNull(database.addBooking("jane@email.com", viaLondon));
+		assertEquals(4, toLondon.getSeatsLeft());
+		assertEquals(0, viaLondon.getListOfFlights().getLast()
+				.getSeatsLeft());
+
+		// London to Venice is full, so the seat to London is given back.
+		assertNull(database.addBooking("jane@email.com", viaLondon));
+		assertEquals(4, toLondon.getSeatsLeft());
+
+		SearchOptions options = new SearchOptions();
+		assertEquals(3, database.searchItineraries("Toronto", "Venice",
+				"2015-05-10", options).size());
+		options.setMinSeats(1);
+		assertEquals(2, database.searchItineraries("Toronto", "Venice",
+				"2015-05-10", options).size());
+
+		Itinerary viaBerlin = find(database, "4");
+		assertFalse(viaBerlin.getListOfFlights().getFirst().hasSeatLimit());
+		assertNotNull(database.addBooking("jane@email.com", viaBerlin));
+		assertEquals(2, database.getBookings("jane@email.com").size());
+	}
+
+	/**
+	 * Tests many threads booking the same flights never sell more seats than
+	 * there are.
+	 *
+	 * @throws InterruptedException
+	 *             If the test is interrupted.
+	 */
+	@Test
+	public void testConcurrentReservations() throws InterruptedException {
+		final BookingEngine engine = new BookingEngine();
+		final List<FlightInformation> legs = new ArrayList<>();
+		legs.add(new FlightInformation("1", "2015-05-10 10:00",
+				"2015-05-10 11:00", "Airline", "A", "B", 10, 100));
+		legs.add(new FlightInformation("2", "2015-05-10 12:00",
+				"2015-05-10 13:00", "Airline", "B", "C", 10, 60));
+		final AtomicInteger booked = new AtomicInteger();
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 50; i++) {
+						if (engine.reserve(legs, 1)) {
+							booked.incrementAndGet();
+						}
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(60, booked.get());
+		assertEquals(40, legs.get(0).getSeatsLeft());
+		assertEquals(0, legs.get(1).getSeatsLeft());
+		assertEquals(60, engine.getReserved());
+		assertEquals(8 * 50 - 60, engine.getRejected());
+	}
+
+	/**
+	 * Tests bookings recovered from the journal take their seats again, even
+	 * when the flights are loaded after them.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testRecoveredBookingsTakeSeats() throws IOException {
+		String directory = folder.newFolder("journal").getPath();
+		Database database = createDatabase();
+		database.openJournal(directory);
+		database.addClient(database.lookUpClient("jane@email.com"));
+		assertNotNull(database.addBooking("jane@email.com",
+				find(database, "1")));
+		database.closeJournal();
+
+		Database recovered = new Database();
+		recovered.openJournal(directory);
+		recovered.loadFlightData(flights);
+		assertEquals(1, find(recovered, "1").getListOfFlights().getFirst()
+				.getSeatsLeft());
+		recovered.closeJournal();
+
+		Database loadedFirst = new Database();
+		loadedFirst.loadFlightData(flights);
+		loadedFirst.openJournal(directory);
+		assertEquals(1, find(loadedFirst, "1").getListOfFlights().getFirst()
+				.getSeatsLeft());
+		loadedFirst.closeJournal();
+	}
+
+	/**
+	 * Tests a flight loaded again with fewer seats than were booked on it
+	 * takes every seat it has, rather than none.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testOversoldFlightFull() throws IOException {
+		String directory = folder.newFolder("journal").getPath();
+		Database database = createDatabase();
+		database.openJournal(directory);
+		database.addClient(database.lookUpClient("jane@email.com"));
+		assertNotNull(database.addBooking("jane@email.com",
+				find(database, "1")));
+		assertNotNull(database.addBooking("jane@email.com",
+				find(database, "1")));
+		database.closeJournal();
+
+		File smaller = folder.newFile("smaller.txt");
+		FileWriter writer = new FileWriter(smaller);
+		writer.write("1,2015-05-10 10:30,2015-05-10 15:25,Airline,Toronto,"
+				+ "Venice,12,1\n");
+		writer.close();
+
+		Database recovered = new Database();
+		recovered.openJournal(directory);
+		recovered.loadFlightData(smaller.getPath());
+		assertEquals(0, find(recovered, "1").getListOfFlights().getFirst()
+				.getSeatsLeft());
+		recovered.closeJournal();
+
+		Database loadedFirst = new Database();
+		loadedFirst.loadFlightData(smaller.getPath());
+		loadedFirst.openJournal(directory);
+		assertEquals(0, find(loadedFirst, "1").getListOfFlights().getFirst()
+				.getSeatsLeft());
+		loadedFirst.closeJournal();
+	}
+}
@@ -0,0 +1,211 @@
+package airline;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import parser.CsvParser;
+import parser.CsvTokenizer;
+
+/**
+ * Tests loading files that have rows which are not valid.
+ *
+ * @author Chris
+ */
+public class TestLoadReport {
+
+	/**
+	 * A directory for the files of each test.
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Writes some text to a new file.
+	 *
+	 * @param name
+	 *            The name of the file.
+	 *
+	 * @param text
+	 *            The text.
+	 *
+	 * @return The path of the file.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	private String write(String name, String text) throws IOException {
+		File file = new File(folder.getRoot(), name);
+		Writer writer = new FileWriter(file);
+		writer.write(text);
+		writer.close();
+		return file.getPath();
+	}
+
+	/**
+	 * Tests bad flight rows are written to the reject file with their line
+	 * and reason, and the good rows are still loaded.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testBadFlightRowsAreRejected() throws IOException {
+		String flights = write("flights.txt",
+				"1,2015-05-10 10:30,2015-05-10 15:25,Airline,Toronto,Venice,12\n"
+						+ "2,yesterday,2015-05-11 04:21,Airline,Toronto,London,14\n"
+						+ "3,2015-05-11 04:30,2015-05-11 08:23,Airline,London\n"
+						+ "\n"
+						+ "4,2015-05-10 10:50,2015-05-11 16:00,Airline,Toronto,"
+						+ "Berlin,11,150\n"
+						+ "5,2015-05-11 16:30,2015-05-11 17:50,Airline,Berlin,"
+						+ "Venice,cheap\n");
+		String rejects = new File(folder.getRoot(), "rejects.txt").getPath();
+
+		Database database = new Database();
+		LoadReport report = database.loadFlightData(flights, rejects);
+		assertEquals(5, report.getRowsRead());
+		assertEquals(2, report.getRowsLoaded());
+		assertEquals(3, report.getRowsRejected());
+		assertTrue(report.getElapsedMillis() >= report.getParseMillis());
+		assertEquals(1, database.searchItineraries("Toronto", "Venice",
+				"2015-05-10").size());
+
+		CsvTokenizer tokenizer = CsvParser.open(rejects);
+		assertTrue(tokenizer.next());
+		assertEquals(2, tokenizer.getInt(0));
+		assertEquals("yesterday", tokenizer.getString(3));
+		assertTrue(tokenizer.next());
+		assertEquals(3, tokenizer.getInt(0));
+		assertEquals("expected 7 or 8 columns but found 5",
+				tokenizer.getString(1));
+		assertEquals(7, tokenizer.getFieldCount());
+		assertTrue(tokenizer.next());
+		assertEquals(6, tokenizer.getInt(0));
+		assertEquals("cheap", tokenizer.getString(8));
+		assertFalse(tokenizer.next());
+		tokenizer.close();
+	}
+
+	/**
+	 * Tests a quote that is never closed rejects the rest of the file
+	 * instead of failing the load.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testUnclosedQuoteIsRejected() throws IOException {
+		String clients = write("clients.txt",
+				"Doe,Jane,jane@email.com,123 Main Street,1111222233334444,"
+						+ "2018-08-24\n"
+						+ "Roe,Richard,richard@email.com\n"
+						+ "Poe,Edgar,edgar@email.com,\"1 Raven Rd,1,2019-01-01\n");
+		String rejects = new File(folder.getRoot(), "rejects.txt").getPath();
+
+		Database database = new Database();
+		LoadReport report = database.loadClientData(clients, rejects);
+		assertEquals(1, report.getRowsLoaded());
+		assertEquals(2, report.getRowsRejected());
+		assertNotNull(database.lookUpClient("jane@email.com"));
+		assertNull(database.lookUpClient("edgar@email.com"));
+
+		CsvTokenizer tokenizer = CsvParser.open(rejects);
+		assertTrue(tokenizer.next());
+		assertEquals(2, tokenizer.getInt(0));
+		assertTrue(tokenizer.next());
+		assertEquals(3, tokenizer.getInt(0));
+		assertTrue(tokenizer.getString(1).contains("not closed"));
+		assertFalse(tokenizer.next());
+		tokenizer.close();
+	}
+
+	/**
+	 * Writes a flight file with many valid rows.
+	 *
+	 * @param rows
+	 *            How many rows to write.
+	 *
+	 * @return The path of the file.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	private String writeFlights(int rows) throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < rows; i++) {
+			text.append(i).append(",2015-05-10 10:30,2015-05-10 15:25,")
+					.append("Airline,Toronto,Venice,12.50\n");
+		}
+		return write("many.txt", text.toString());
+	}
+
+	/**
+	 * Tests a listener is told the progress during a load and at the end.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testProgressIsReported() throws IOException {
+		String flights = writeFlights(3000);
+		String rejects = new File(folder.getRoot(), "rejects.txt").getPath();
+		final List<Long> progress = new ArrayList<>();
+
+		Database database = new Database();
+		LoadReport report = database.loadFlightData(flights, rejects,
+				new LoadListener() {
+					@Override
+					public void onProgress(long rowsLoaded, long rowsRejected) {
+						assertEquals(0, rowsRejected);
+						progress.add(rowsLoaded);
+					}
+				});
+		assertEquals(3000, report.getRowsLoaded());
+		assertEquals(Arrays.asList(1024L, 2048L, 3000L), progress);
+	}
+
+	/**
+	 * Tests interrupting the loading thread cancels the load.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testInterruptCancelsLoad() throws IOException {
+		String flights = writeFlights(3000);
+		String rejects = new File(folder.getRoot(), "rejects.txt").getPath();
+		final List<Long> progress = new ArrayList<>();
+
+		Database database = new Database();
+		Thread.currentThread().interrupt();
+		try {
+			database.loadFlightData(flights, rejects, new LoadListener() {
+				@Override
+				public void onProgress(long rowsLoaded, long rowsRejected) {
+					progress.add(rowsLoaded);
+				}
+			});
+			fail();
+		} catch (InterruptedIOException e) {
+			assertTrue(e.getMessage().contains("1024"));
+		} finally {
+			assertTrue(Thread.interrupted());
+		}
+		assertTrue(progress.isEmpty());
+		assertEquals(1024, database.getFlightsFromDate(
+				new LocalDate(2015, 5, 10), "Toronto", "Venice").size());
+	}
+}
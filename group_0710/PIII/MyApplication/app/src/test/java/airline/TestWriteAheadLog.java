@@ -0,0 +1,342 @@
+package airline;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import airline.flight.FlightInformation;
+import airline.flight.Itinerary;
+import user.Client;
+
+/**
+ * Tests the journal of client and booking changes and recovering from it.
+ *
+ * @author Chris
+ */
+public class TestWriteAheadLog {
+
+	/**
+	 * A directory for the files of each test.
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Collects the records replayed from a log.
+	 */
+	private static class Collector implements WriteAheadLog.RecordHandler {
+
+		/**
+		 * The records as the type followed by the payload.
+		 */
+		private List<String> records = new ArrayList<>();
+
+		@Override
+		public void handle(char type, String payload) {
+			records.add(type + payload);
+		}
+	}
+
+	/**
+	 * Tests records come back in order, and a record cut off at the end is
+	 * dropped and removed from the file.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testReplayDropsTornRecord() throws IOException {
+		File file = new File(folder.getRoot(), "journal.log");
+		WriteAheadLog log = new WriteAheadLog(file);
+		log.replay(new Collector());
+		log.write('C', "first");
+		log.commit(log.append('B', "second, with a comma"));
+		log.close();
+		long good = file.length();
+
+		RandomAccessFile raw = new RandomAccessFile(file, "rw");
+		raw.seek(good);
+		raw.write("0badc0de,C,cut of".getBytes("UTF-8"));
+		raw.close();
+
+		log = new WriteAheadLog(file);
+		Collector collector = new Collector();
+		log.replay(collector);
+		assertEquals(2, collector.records.size());
+		assertEquals("Cfirst", collector.records.get(0));
+		assertEquals("Bsecond, with a comma", collector.records.get(1));
+		assertEquals(good, file.length());
+		assertEquals(2, log.getRecordCount());
+
+		log.write('C', "third");
+		log.close();
+		log = new WriteAheadLog(file);
+		collector = new Collector();
+		log.replay(collector);
+		assertEquals(3, collector.records.size());
+		log.close();
+	}
+
+	/**
+	 * Tests a record with a bad checksum ends the replay.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testReplayStopsAtBadChecksum() throws IOException {
+		File file = new File(folder.getRoot(), "journal.log");
+		WriteAheadLog log = new WriteAheadLog(file);
+		log.replay(new Collector());
+		log.write('C', "aaaa");
+		log.write('C', "bbbb");
+		log.close();
+
+		RandomAccessFile raw = new RandomAccessFile(file, "rw");
+		raw.seek(file.length() - 2);
+		raw.write('x');
+		raw.close();
+
+		log = new WriteAheadLog(file);
+		Collector collector = new Collector();
+		log.replay(collector);
+		assertEquals(1, collector.records.size());
+		log.close();
+	}
+
+	/**
+	 * Tests records appended before one commit share its sync.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testGroupCommit() throws IOException {
+		WriteAheadLog log = new WriteAheadLog(new File(folder.getRoot(),
+				"journal.log"));
+		log.replay(new Collector());
+		long first = log.append('C', "one");
+		long second = log.append('C', "two");
+		long third = log.append('C', "three");
+		log.commit(third);
+		log.commit(first);
+		log.commit(second);
+		assertEquals(1, log.getSyncCount());
+		log.close();
+	}
+
+	/**
+	 * Tests resetting to a mark keeps the records appended after it, whether
+	 * they were committed or not.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testResetToMark() throws IOException {
+		File file = new File(folder.getRoot(), "journal.log");
+		WriteAheadLog log = new WriteAheadLog(file);
+		log.replay(new Collector());
+		log.write('C', "saved");
+		log.mark();
+		log.write('C', "committed");
+		long pending = log.append('C', "pending");
+		log.resetToMark();
+		assertEquals(2, log.getRecordCount());
+		log.commit(pending);
+		log.write('C', "after");
+		log.close();
+
+		log = new WriteAheadLog(file);
+		Collector collector = new Collector();
+		log.replay(collector);
+		assertEquals(3, collector.records.size());
+		assertEquals("Ccommitted", collector.records.get(0));
+		assertEquals("Cpending", collector.records.get(1));
+		assertEquals("Cafter", collector.records.get(2));
+		log.close();
+	}
+
+	/**
+	 * Tests records that failed to commit are dropped when the log is reset
+	 * to its mark, so they do not come back after a restart, and committing
+	 * them still fails.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testFailedRecordsDropped() throws IOException {
+		File file = new File(folder.getRoot(), "journal.log");
+		WriteAheadLog log = new WriteAheadLog(file);
+		log.replay(new Collector());
+		log.mark();
+		log.write('C', "committed");
+		// Closing the file makes the next write fail.
+		log.close();
+		long failed = log.append('C', "failed");
+		try {
+			log.commit(failed);
+			fail();
+		} catch (IOException e) {
+			// Expected.
+		}
+		long late = log.append('C', "late");
+
+		log.resetToMark();
+		assertEquals(1, log.getRecordCount());
+		for (long sequence : new long[] { failed, late }) {
+			try {
+				log.commit(sequence);
+				fail();
+			} catch (IOException e) {
+				// Expected.
+			}
+		}
+		log.write('C', "after");
+		log.close();
+
+		log = new WriteAheadLog(file);
+		Collector collector = new Collector();
+		log.replay(collector);
+		assertEquals(2, collector.records.size());
+		assertEquals("Ccommitted", collector.records.get(0));
+		assertEquals("Cafter", collector.records.get(1));
+		log.close();
+	}
+
+	/**
+	 * Tests a change the journal refuses is not made in memory either.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testRefusedChangeNotMade() throws IOException {
+		Database database = new Database();
+		database.loadFlightData("test.txt");
+		database.openJournal(folder.getRoot().getPath());
+		Client jane = new Client("Doe", "Jane", "jane@email.com",
+				"123 Main Street", "1111222233334444", "2018-08-24");
+		database.addClient(jane);
+		try {
+			database.addClient(new Client("Doe", "Jane", "jane@email.com",
+					"1 New Road\nSecond Floor", "1111222233334444",
+					"2018-08-24"));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// Expected.
+		}
+		assertSame(jane, database.lookUpClient("jane@email.com"));
+		database.closeJournal();
+	}
+
+	/**
+	 * Tests a flight with commas in its fields is written to the flight file,
+	 * the journal and the booking snapshot, and reads back the same.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testCommaRoundTrip() throws IOException {
+		File input = folder.newFile("commas.txt");
+		Writer writer = new FileWriter(input);
+		writer.write("\"AC,1\",2015-05-10 08:00,2015-05-10 10:00,"
+				+ "\"Air \"\"Maple\"\", Inc.\",\"Washington, DC\",Toronto,"
+				+ "250.00\n");
+		writer.close();
+		Database database = new Database();
+		database.loadFlightData(input.getPath());
+		String output = new File(folder.getRoot(), "written.txt").getPath();
+		database.writeFlightsToFile(output);
+
+		Database loaded = new Database();
+		loaded.loadFlightData(output);
+		List<Itinerary> itineraries = loaded.searchItineraries(
+				"Washington, DC", "Toronto", "2015-05-10");
+		assertEquals(1, itineraries.size());
+		FlightInformation flight = itineraries.get(0).getListOfFlights()
+				.get(0);
+		assertEquals("AC,1", flight.getFlightNumber());
+		assertEquals("Air \"Maple\", Inc.", flight.getAirline());
+
+		String directory = folder.newFolder("journal").getPath();
+		loaded.openJournal(directory);
+		loaded.addClient(new Client("Doe", "Jane", "jane@email.com",
+				"123 Main Street", "1111222233334444", "2018-08-24"));
+		Booking booking = loaded.addBooking("jane@email.com",
+				itineraries.get(0));
+		loaded.closeJournal();
+
+		// Once from the journal, then again from the snapshot.
+		for (int pass = 0; pass < 2; pass++) {
+			Database recovered = new Database();
+			recovered.openJournal(directory);
+			List<Booking> bookings = recovered.getBookings("jane@email.com");
+			assertEquals(1, bookings.size());
+			assertEquals(booking.toString(), bookings.get(0).toString());
+			assertEquals("AC,1", bookings.get(0).getFlightNumber(0));
+			assertEquals("Washington, DC", bookings.get(0).getOrigin(0));
+			recovered.compactJournal();
+			recovered.closeJournal();
+		}
+	}
+
+	/**
+	 * Tests clients and bookings are recovered from the journal and the
+	 * snapshots when the database starts again.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testDatabaseRecovery() throws IOException {
+		String directory = folder.getRoot().getPath();
+		Database database = new Database();
+		database.loadFlightData("test.txt");
+		database.openJournal(directory);
+		database.setJournalCompactionThreshold(3);
+		database.addClient(new Client("Doe", "Jane", "jane@email.com",
+				"123 Main Street", "1111222233334444", "2018-08-24"));
+		database.addClient(new Client("Roe", "Richard", "richard@email.com",
+				"21 First Lane Way", "9999888877776666", "2017-10-01"));
+		// The third record fills the journal and it is compacted.
+		database.addBooking("jane@email.com", database.searchItineraries(
+				"Toronto", "Venice", "2015-05-10").get(0));
+		assertTrue(new File(directory, "clients.csv").exists());
+		assertEquals(0, new File(directory, "journal.log").length());
+
+		database.addClient(new Client("Doe", "Jane", "jane@email.com",
+				"1 New Road", "1111222233334444", "2018-08-24"));
+		Booking second = database.addBooking("richard@email.com", database
+				.searchItineraries("Toronto", "Venice", "2015-05-10").get(1));
+		database.closeJournal();
+
+		Database recovered = new Database();
+		recovered.openJournal(directory);
+		assertEquals(2, recovered.getAllClients().size());
+		assertEquals("1 New Road", recovered.lookUpClient("jane@email.com")
+				.getAddress());
+		assertEquals(1, recovered.getBookings("jane@email.com").size());
+		List<Booking> richard = recovered.getBookings("richard@email.com");
+		assertEquals(1, richard.size());
+		assertEquals(second.toString(), richard.get(0).toString());
+
+		recovered.loadFlightData("test.txt");
+		Booking third = recovered.addBooking("jane@email.com", recovered
+				.searchItineraries("Toronto", "Venice", "2015-05-10").get(0));
+		assertEquals(second.getId() + 1, third.getId());
+		recovered.closeJournal();
+	}
+}
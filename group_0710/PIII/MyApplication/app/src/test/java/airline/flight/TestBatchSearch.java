@@ -0,0 +1,77 @@
+package airline.flight;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import parser.FlightInfoParser;
+
+/**
+ * Tests that running searches as a batch gives the same itineraries as
+ * running them one at a time.
+ *
+ * @author Chris
+ */
+public class TestBatchSearch {
+
+	/**
+	 * Converts itineraries into a set of strings to compare them without
+	 * caring about the order.
+	 *
+	 * @param itineraries
+	 *            The itineraries.
+	 *
+	 * @return The set of strings.
+	 */
+	private static Set<String> asStrings(List<Itinerary> itineraries) {
+		Set<String> strings = new HashSet<>();
+		for (Itinerary it : itineraries) {
+			strings.add(it.toString());
+		}
+		return strings;
+	}
+
+	/**
+	 * Tests every destination from one origin, including a repeated query
+	 * and one that cannot be found.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testMatchesSingleSearches() throws IOException {
+		FlightGraph graph = new FlightGraph();
+		for (FlightInformation fi : new FlightInfoParser("biggerTest.txt")
+				.getFlightInfo()) {
+			graph.addFlight(fi);
+		}
+
+		List<SearchQuery> queries = new ArrayList<>();
+		for (FlightNode node : graph.getFlightNodes()) {
+			if (!node.getName().equals("Toronto")) {
+				queries.add(new SearchQuery("Toronto", node.getName(),
+						"2015-06-15"));
+			}
+		}
+		queries.add(new SearchQuery("Toronto", "Venice", "2015-06-15"));
+		queries.add(new SearchQuery("Toronto", "Nowhere", "2015-06-15"));
+		queries.add(new SearchQuery("London", "Venice", "2015-06-15"));
+
+		List<List<Itinerary>> batch = graph.searchForItineraries(queries,
+				new SearchOptions());
+		assertEquals(queries.size(), batch.size());
+		for (int i = 0; i < queries.size(); i++) {
+			SearchQuery query = queries.get(i);
+			List<Itinerary> single = graph.searchForItineraries(
+					query.getDepartureDate(), query.getOrigin(),
+					query.getDestination());
+			assertEquals(asStrings(single), asStrings(batch.get(i)));
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package airline.flight;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.LocalDateTime;
+import org.junit.Test;
+
+import parser.FlightInfoParser;
+
+/**
+ * Tests the earliest arrival queries done by connection scan.
+ *
+ * @author Chris
+ */
+public class TestConnectionScanner {
+
+	/**
+	 * Loads a graph from a file.
+	 *
+	 * @param path
+	 *            The file to load.
+	 *
+	 * @return The loaded graph.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	private static FlightGraph load(String path) throws IOException {
+		FlightGraph graph = new FlightGraph();
+		for (FlightInformation fi : new FlightInfoParser(path)
+				.getFlightInfo()) {
+			graph.addFlight(fi);
+		}
+		return graph;
+	}
+
+	/**
+	 * Tests the earliest arrival is the direct flight.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testEarliestArrival() throws IOException {
+		FlightGraph graph = load("test.txt");
+		Itinerary earliest = graph.findEarliestArrival("2015-05-10",
+				"Toronto", "Venice");
+		assertEquals(1, earliest.getNumberOfFlights());
+		assertEquals(new LocalDateTime(2015, 5, 10, 15, 25), earliest
+				.getListOfFlights().getLast().getArrivalDateTime());
+
+		assertNull(graph.findEarliestArrival("2015-05-11", "Toronto",
+				"Venice"));
+		assertNull(graph.findEarliestArrival("2015-05-10", "Toronto",
+				"Nowhere"));
+	}
+
+	/**
+	 * Tests the profile keeps the useful departures only.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testArrivalProfile() throws IOException {
+		FlightGraph graph = load("test.txt");
+		List<Itinerary> profile = graph.findArrivalProfile("2015-05-10",
+				"Toronto", "Venice");
+		assertEquals(2, profile.size());
+		assertEquals("1", profile.get(0).getListOfFlights().getFirst()
+				.getFlightNumber());
+		assertEquals("2", profile.get(1).getListOfFlights().getFirst()
+				.getFlightNumber());
+		assertEquals(2, profile.get(1).getNumberOfFlights());
+	}
+
+	/**
+	 * Tests the profile still follows connections into the next day, and
+	 * leaves out flights on later days that cannot be connected to.
+	 */
+	@Test
+	public void testArrivalProfileOvernight() {
+		FlightGraph graph = new FlightGraph();
+		graph.addFlight(new FlightInformation("1", "2015-05-10 22:00",
+				"2015-05-10 23:00", "Airline", "A", "B", 1));
+		graph.addFlight(new FlightInformation("2", "2015-05-11 02:00",
+				"2015-05-11 03:00", "Airline", "B", "C", 1));
+		graph.addFlight(new FlightInformation("3", "2015-05-11 04:00",
+				"2015-05-11 05:00", "Airline", "C", "D", 1));
+		graph.addFlight(new FlightInformation("4", "2015-05-12 01:00",
+				"2015-05-12 02:00", "Airline", "B", "D", 1));
+		graph.addFlight(new FlightInformation("5", "2015-05-20 10:00",
+				"2015-05-20 11:00", "Airline", "A", "D", 1));
+
+		List<Itinerary> profile = graph.findArrivalProfile("2015-05-10",
+				"A", "D");
+		assertEquals(1, profile.size());
+		assertEquals(3, profile.get(0).getNumberOfFlights());
+		assertEquals("3", profile.get(0).getListOfFlights().getLast()
+				.getFlightNumber());
+		assertTrue(graph.findArrivalProfile("2015-05-11", "A", "D")
+				.isEmpty());
+	}
+
+	/**
+	 * Tests the scan agrees with taking the earliest of every itinerary.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testAgreesWithFullSearch() throws IOException {
+		FlightGraph graph = load("biggerTest.txt");
+		for (FlightNode node : graph.getFlightNodes()) {
+			String destination = node.getName();
+			if (destination.equals("Toronto")) {
+				continue;
+			}
+
+			LocalDateTime expected = null;
+			for (Itinerary it : graph.searchForItineraries("2015-06-15",
+					"Toronto", destination)) {
+				LocalDateTime arrival = it.getListOfFlights().getLast()
+						.getArrivalDateTime();
+				if (expected == null || arrival.isBefore(expected)) {
+					expected = arrival;
+				}
+			}
+
+			Itinerary earliest = graph.findEarliestArrival("2015-06-15",
+					"Toronto", destination);
+			if (expected == null) {
+				assertNull(earliest);
+			} else {
+				assertEquals(expected, earliest.getListOfFlights().getLast()
+						.getArrivalDateTime());
+			}
+		}
+	}
+
+	/**
+	 * Tests every destination is found with its best values.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testReachableDestinations() throws IOException {
+		FlightGraph graph = load("test.txt");
+		Map<String, ReachableDestination> reachable = graph
+				.findReachableDestinations("2015-05-10", "Toronto");
+		assertEquals(3, reachable.size());
+		assertFalse(reachable.containsKey("Toronto"));
+
+		ReachableDestination venice = reachable.get("Venice");
+		assertEquals(12, venice.getCheapestCost(), 0.001);
+		assertEquals(new LocalDateTime(2015, 5, 10, 15, 25),
+				venice.getEarliestArrival());
+		assertEquals(1, venice.getFewestLegs());
+		assertEquals(14, reachable.get("London").getCheapestCost(), 0.001);
+		assertEquals(11, reachable.get("Berlin").getCheapestCost(), 0.001);
+	}
+
+	/**
+	 * Tests the destinations agree with searching each one fully.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testReachableAgreesWithFullSearch() throws IOException {
+		FlightGraph graph = load("biggerTest.txt");
+		Map<String, ReachableDestination> reachable = graph
+				.findReachableDestinations("2015-06-15", "Toronto");
+		for (FlightNode node : graph.getFlightNodes()) {
+			String destination = node.getName();
+			if (destination.equals("Toronto")) {
+				continue;
+			}
+
+			List<Itinerary> all = graph.searchForItineraries("2015-06-15",
+					"Toronto", destination);
+			if (all.isEmpty()) {
+				assertFalse(reachable.containsKey(destination));
+				continue;
+			}
+			double cheapest = Double.MAX_VALUE;
+			int fewest = Integer.MAX_VALUE;
+			for (Itinerary it : all) {
+				cheapest = Math.min(cheapest, it.getTotalCost());
+				fewest = Math.min(fewest, it.getNumberOfFlights());
+			}
+			ReachableDestination summary = reachable.get(destination);
+			assertEquals(cheapest, summary.getCheapestCost(), 0.001);
+			assertEquals(fewest, summary.getFewestLegs());
+		}
+	}
+}
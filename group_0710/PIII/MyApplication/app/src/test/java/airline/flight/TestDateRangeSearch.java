@@ -0,0 +1,116 @@
+package airline.flight;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import parser.FlightInfoParser;
+
+/**
+ * Tests searching for itineraries over a range of days at once.
+ *
+ * @author Chris
+ */
+public class TestDateRangeSearch {
+
+	/**
+	 * The graph loaded with the test data.
+	 */
+	private FlightGraph graph;
+
+	/**
+	 * Loads the graph with flights the day before and after the test data.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Before
+	public void setup() throws IOException {
+		graph = new FlightGraph();
+		for (FlightInformation fi : new FlightInfoParser("test.txt")
+				.getFlightInfo()) {
+			graph.addFlight(fi);
+		}
+		graph.addFlight(new FlightInformation("6", "2015-05-11 09:00",
+				"2015-05-11 14:00", "Airline", "Toronto", "Venice", 20));
+		graph.addFlight(new FlightInformation("7", "2015-05-09 22:00",
+				"2015-05-10 03:00", "Airline", "Toronto", "Venice", 30));
+	}
+
+	/**
+	 * Tests the departures are found by time.
+	 */
+	@Test
+	public void testDeparturesBetween() {
+		FlightNode toronto = null;
+		for (FlightNode node : graph.getFlightNodes()) {
+			if (node.getName().equals("Toronto")) {
+				toronto = node;
+			}
+		}
+		List<FlightInformation> departures = toronto.getDeparturesBetween(
+				new LocalDateTime(2015, 5, 10, 10, 30), new LocalDateTime(
+						2015, 5, 11, 9, 0));
+		assertEquals(3, departures.size());
+		assertEquals("1", departures.get(0).getFlightNumber());
+		assertEquals("4", departures.get(1).getFlightNumber());
+		assertEquals("2", departures.get(2).getFlightNumber());
+
+		assertTrue(toronto.getDeparturesBetween(
+				new LocalDateTime(2015, 5, 12, 0, 0),
+				new LocalDateTime(2015, 5, 11, 0, 0)).isEmpty());
+	}
+
+	/**
+	 * Tests each day gets the itineraries leaving on it, the same as
+	 * searching the day by itself.
+	 */
+	@Test
+	public void testGroupedByDay() {
+		Map<LocalDate, List<Itinerary>> byDay = graph
+				.searchForItinerariesAround("2015-05-10", 2, "Toronto",
+						"Venice", new SearchOptions());
+		assertEquals(5, byDay.size());
+		assertEquals(new LocalDate(2015, 5, 8), byDay.keySet().iterator()
+				.next());
+
+		for (Map.Entry<LocalDate, List<Itinerary>> entry : byDay.entrySet()) {
+			List<Itinerary> single = graph.searchForItineraries(entry
+					.getKey().toString("yyyy-MM-dd"), "Toronto", "Venice");
+			assertEquals(single.size(), entry.getValue().size());
+			for (Itinerary it : single) {
+				assertTrue(entry.getValue().toString()
+						.contains(it.toString()));
+			}
+		}
+		assertEquals(1, byDay.get(new LocalDate(2015, 5, 9)).size());
+		assertEquals(3, byDay.get(new LocalDate(2015, 5, 10)).size());
+		assertEquals(1, byDay.get(new LocalDate(2015, 5, 11)).size());
+	}
+
+	/**
+	 * Tests the calendar has the cheapest itinerary for each day.
+	 */
+	@Test
+	public void testCheapestPerDay() {
+		Map<LocalDate, Itinerary> cheapest = graph.findCheapestPerDay(
+				"2015-05-10", 1, "Toronto", "Venice", new SearchOptions());
+		assertEquals(3, cheapest.size());
+		assertEquals(30, cheapest.get(new LocalDate(2015, 5, 9))
+				.getTotalCost(), 0.001);
+		assertEquals(12, cheapest.get(new LocalDate(2015, 5, 10))
+				.getTotalCost(), 0.001);
+		assertEquals(20, cheapest.get(new LocalDate(2015, 5, 11))
+				.getTotalCost(), 0.001);
+
+		assertTrue(graph.findCheapestPerDay("2015-05-20", 3, "Toronto",
+				"Venice", new SearchOptions()).isEmpty());
+	}
+}
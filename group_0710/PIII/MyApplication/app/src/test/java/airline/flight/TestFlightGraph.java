@@ -5,6 +5,7 @@ import java.util.List;
 
 import static org.junit.Assert.*;
 
+import org.joda.time.LocalDateTime;
 import org.junit.Test;
 
 import parser.FlightInfoParser;
@@ -47,4 +48,157 @@ public class TestFlightGraph {
 				"Toronto", "Venice");
 		assertEquals(3, searched.size());
 	}
+
+	/**
+	 * Tests loading the same flights twice adds nothing, and a flight added
+	 * again with a new price replaces the old one and keeps its seats.
+	 * 
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testDuplicateFlights() throws IOException {
+		FlightGraph graph = new FlightGraph();
+		for (int i = 0; i < 2; i++) {
+			for (FlightInformation fi : new FlightInfoParser("test.txt")
+					.getFlightInfo()) {
+				assertEquals(i == 0, graph.addFlight(fi));
+			}
+		}
+		assertEquals(5, graph.getNumberOfFlights());
+		assertEquals(3, graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice").size());
+
+		FlightInformation limited = new FlightInformation("9",
+				"2015-05-10 08:00", "2015-05-10 09:00", "A", "Toronto",
+				"Venice", 100, 10);
+		graph.addFlight(limited);
+		assertTrue(limited.reserveSeats(4));
+		FlightInformation cheaper = new FlightInformation("9",
+				"2015-05-10 08:00", "2015-05-10 09:00", "A", "Toronto",
+				"Venice", 80, 10);
+		assertFalse(graph.addFlight(cheaper));
+		assertEquals(6, cheaper.getSeatsLeft());
+		assertEquals(6, graph.getNumberOfFlights());
+
+		List<Itinerary> searched = graph.searchForItineraries("2015-05-10",
+				"Toronto", "Venice");
+		assertEquals(4, searched.size());
+		for (Itinerary it : searched) {
+			assertNotSame(limited, it.getListOfFlights().getFirst());
+		}
+		assertSame(cheaper, graph.findFlight("Toronto", limited
+				.getDepartureDateTime(), "9"));
+	}
+
+	/**
+	 * Tests a changed flight takes the old one's place in its node, a flight
+	 * that changes destination moves, and the positions the node keeps stay
+	 * right through sorting and removing.
+	 */
+	@Test
+	public void testReplaceInPlace() {
+		FlightGraph graph = new FlightGraph();
+		int[] hours = { 10, 8, 12, 9, 11 };
+		for (int hour : hours) {
+			graph.addFlight(flight(hour, "B", 100));
+		}
+		graph.addFlight(flight(7, "C", 100));
+		FlightNode node = null;
+		for (FlightNode n : graph.getFlightNodes()) {
+			if (n.getName().equals("A")) {
+				node = n;
+			}
+		}
+		LocalDateTime from = new LocalDateTime(2015, 5, 10, 0, 0);
+		LocalDateTime to = from.plusDays(1);
+		assertEquals(6, node.getDeparturesBetween(from, to).size());
+
+		FlightInformation cheaper = flight(9, "B", 50);
+		assertFalse(graph.addFlight(cheaper));
+		assertSame(cheaper, node.getFlightData().get("B").get(3));
+		assertSame(cheaper, node.getDeparturesBetween(from, to).get(2));
+
+		FlightInformation moved = flight(11, "C", 100);
+		assertFalse(graph.addFlight(moved));
+		assertEquals(4, node.getFlightData().get("B").size());
+		assertSame(moved, node.getFlightData().get("C").get(1));
+
+		FlightInformation later = flight(12, "B", 70);
+		assertFalse(graph.addFlight(later));
+		assertSame(later, node.getFlightData().get("B").get(2));
+		List<FlightInformation> departures = node.getDeparturesBetween(from,
+				to);
+		assertEquals(6, departures.size());
+		for (int i = 0; i < departures.size(); i++) {
+			assertEquals(i + 7, departures.get(i).getDepartureDateTime()
+					.getHourOfDay());
+		}
+		assertSame(later, departures.get(5));
+		assertEquals(6, graph.getNumberOfFlights());
+
+		// Moving the first flight to B away puts the last one, 9, in its
+		// place, and replacing 9 again finds it there.
+		assertFalse(graph.addFlight(flight(10, "C", 100)));
+		assertSame(cheaper, node.getFlightData().get("B").get(0));
+		FlightInformation cheapest = flight(9, "B", 40);
+		assertFalse(graph.addFlight(cheapest));
+		assertEquals(3, node.getFlightData().get("B").size());
+		assertSame(cheapest, node.getFlightData().get("B").get(0));
+		assertEquals(3, node.getFlightData().get("C").size());
+		departures = node.getDeparturesBetween(from, to);
+		assertEquals(6, departures.size());
+		assertSame(cheapest, departures.get(2));
+		assertEquals(6, graph.getNumberOfFlights());
+	}
+
+	/**
+	 * Tests a flight with reserved seats replaced by one with no seats keeps
+	 * the graph whole, and adding it again replaces it rather than adding a
+	 * second copy.
+	 */
+	@Test
+	public void testReplaceWithNoSeats() {
+		FlightGraph graph = new FlightGraph();
+		LocalDateTime departure = new LocalDateTime(2015, 5, 10, 8, 0);
+		FlightInformation booked = new FlightInformation("1", departure,
+				departure.plusHours(1), "Airline", "A", "B", 100, 10);
+		graph.addFlight(booked);
+		assertTrue(booked.reserveSeats(3));
+
+		FlightInformation none = new FlightInformation("1", departure,
+				departure.plusHours(1), "Airline", "A", "B", 100, 0);
+		assertFalse(graph.addFlight(none));
+		assertEquals(0, none.getSeatsLeft());
+		assertEquals(1, graph.getNumberOfFlights());
+		assertFalse(graph.addFlight(new FlightInformation("1", departure,
+				departure.plusHours(1), "Airline", "A", "B", 80)));
+		assertEquals(1, graph.getNumberOfFlights());
+		for (FlightNode node : graph.getFlightNodes()) {
+			if (node.getName().equals("A")) {
+				assertEquals(1, node.getFlightData().get("B").size());
+			}
+		}
+	}
+
+	/**
+	 * Makes a flight out of A that takes an hour.
+	 * 
+	 * @param hour
+	 *            The hour it leaves, which is also its number.
+	 * 
+	 * @param destination
+	 *            Where it goes.
+	 * 
+	 * @param cost
+	 *            What it costs.
+	 * 
+	 * @return The flight.
+	 */
+	private static FlightInformation flight(int hour, String destination,
+			double cost) {
+		LocalDateTime departure = new LocalDateTime(2015, 5, 10, hour, 0);
+		return new FlightInformation(String.valueOf(hour), departure,
+				departure.plusHours(1), "Airline", "A", destination, cost);
+	}
 }
@@ -45,6 +45,28 @@ public class TestFlightInformation {
 		assertTrue(fi.getArrivalDateTime().compareTo(later) == 0);
 	}
 
+	/**
+	 * Tests the cost is kept in exact cents whichever way it is given.
+	 */
+	@Test
+	public void testCostCents() {
+		FlightInformation dollars = new FlightInformation("5", early, later,
+				"airline", "origin", "destination", 399.99);
+		FlightInformation cents = FlightInformation.withCostCents("5",
+				"2015-01-05 01:06", "2015-01-05 02:07", "airline", "origin",
+				"destination", 39999, FlightInformation.UNLIMITED_SEATS);
+		assertEquals(39999, dollars.getCostCents());
+		assertEquals(39999, cents.getCostCents());
+		assertEquals(399.99, cents.getCost(), 0);
+		assertEquals(dollars.toString(), cents.toString());
+		assertTrue(cents.toString().endsWith(",399.99"));
+
+		FlightInformation small = new FlightInformation("6", early, later,
+				"airline", "origin", "destination", 0.1);
+		assertEquals(10, small.getCostCents());
+		assertTrue(small.toString().endsWith(",0.10"));
+	}
+
 	/**
 	 * Tests the departure time boundaries.
 	 */
@@ -61,6 +83,25 @@ public class TestFlightInformation {
 		assertFalse(fi.withinDepartureTime(tooEarly));
 	}
 
+	/**
+	 * Tests the epoch minute and day versions agree with the date time ones.
+	 */
+	@Test
+	public void testEpochTimes() {
+		LocalDateTime departure = new LocalDateTime(2015, 1, 5, 23, 30);
+		LocalDateTime arrival = new LocalDateTime(2015, 1, 6, 1, 15);
+		FlightInformation fi = new FlightInformation("5", departure, arrival,
+				"airline", "origin", "destination", 399.99);
+		assertEquals(105, fi.getTravelTimeMinutes());
+		assertEquals(105, fi.getArrivalMinute() - fi.getDepartureMinute());
+		assertTrue(fi.isOnSameDepartureDayAs(departure.toLocalDate()));
+		assertFalse(fi.isOnSameDepartureDayAs(arrival.toLocalDate()));
+		assertTrue(fi.departsOnDay(fi.getDepartureMinute() / (24 * 60)));
+		assertTrue(fi.departsWithin(fi.getDepartureMinute() - 360, 0, 360));
+		assertFalse(fi.departsWithin(fi.getDepartureMinute() - 361, 0, 360));
+		assertFalse(fi.departsWithin(fi.getDepartureMinute() + 1, 0, 360));
+	}
+
 	/**
 	 * Tests invalid args, like negatives.
 	 */
@@ -0,0 +1,63 @@
+package airline.flight;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.LocalDateTime;
+import org.junit.Test;
+
+import parser.FlightInfoParser;
+import util.Constants;
+
+/**
+ * Tests the frozen layout of the flights used by the search.
+ *
+ * @author Chris
+ */
+public class TestFrozenFlightGraph {
+
+	/**
+	 * Tests the flights out of a place are found in departure order within a
+	 * window, and that unknown places have no id.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testDepartureWindow() throws IOException {
+		FlightGraph graph = new FlightGraph();
+		for (FlightInformation fi : new FlightInfoParser("test.txt")
+				.getFlightInfo()) {
+			graph.addFlight(fi);
+		}
+		FrozenFlightGraph frozen = new FrozenFlightGraph(
+				graph.getFlightNodes());
+		assertEquals(4, frozen.getNumberOfPlaces());
+		assertEquals(-1, frozen.idOf("Nowhere"));
+
+		int toronto = frozen.idOf("Toronto");
+		long from = Constants.toEpochMinutes(new LocalDateTime(2015, 5, 10, 10,
+				31));
+		long to = Constants.toEpochMinutes(new LocalDateTime(2015, 5, 11, 0,
+				0));
+		int first = frozen.firstDepartingAtOrAfter(toronto, from);
+		int last = frozen.firstDepartingAtOrAfter(toronto, to);
+		List<String> numbers = new ArrayList<>();
+		for (int i = first; i < last; i++) {
+			numbers.add(frozen.getFlight(i).getFlightNumber());
+		}
+		assertEquals(2, numbers.size());
+		assertEquals("4", numbers.get(0));
+		assertEquals("2", numbers.get(1));
+		assertEquals(frozen.idOf("London"), frozen.getDestination(last - 1));
+		assertEquals(last, frozen.endOf(toronto));
+
+		int venice = frozen.idOf("Venice");
+		assertEquals(frozen.endOf(venice), frozen.firstDepartingAtOrAfter(
+				venice, Constants.toEpochMinutes(new LocalDateTime(2015, 1, 1,
+						0, 0))));
+	}
+}
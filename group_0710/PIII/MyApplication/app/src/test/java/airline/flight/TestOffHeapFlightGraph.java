@@ -0,0 +1,178 @@
+package airline.flight;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import parser.FlightInfoParser;
+
+/**
+ * Tests the off heap graph finds the same itineraries as the object graph.
+ *
+ * @author Chris
+ */
+public class TestOffHeapFlightGraph {
+
+	/**
+	 * The object graph loaded with the test data.
+	 */
+	private FlightGraph graph;
+
+	/**
+	 * The off heap graph loaded with the same data.
+	 */
+	private OffHeapFlightGraph offHeap;
+
+	/**
+	 * Converts itineraries into a set of strings to compare them without
+	 * caring about the order.
+	 *
+	 * @param itineraries
+	 *            The itineraries.
+	 *
+	 * @return The set of strings.
+	 */
+	private static Set<String> asStrings(List<Itinerary> itineraries) {
+		Set<String> strings = new HashSet<>();
+		for (Itinerary it : itineraries) {
+			strings.add(it.toString());
+		}
+		return strings;
+	}
+
+	/**
+	 * Loads both graphs before each test, starting the off heap one small so
+	 * it has to grow.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Before
+	public void setup() throws IOException {
+		graph = new FlightGraph();
+		offHeap = new OffHeapFlightGraph(1);
+		for (FlightInformation fi : new FlightInfoParser("biggerTest.txt")
+				.getFlightInfo()) {
+			graph.addFlight(fi);
+			offHeap.addFlight(fi);
+		}
+	}
+
+	/**
+	 * Tests every destination gives the same itineraries.
+	 */
+	@Test
+	public void testMatchesObjectGraph() {
+		assertEquals(graph.getNumberOfNodes(), offHeap.getNumberOfNodes());
+		for (FlightNode node : graph.getFlightNodes()) {
+			if (node.getName().equals("Toronto")) {
+				continue;
+			}
+			assertEquals(asStrings(graph.searchForItineraries("2015-06-15",
+					"Toronto", node.getName())), asStrings(offHeap
+					.searchForItineraries("2015-06-15", "Toronto",
+							node.getName())));
+		}
+	}
+
+	/**
+	 * Tests the search options are followed the same way.
+	 */
+	@Test
+	public void testMatchesWithOptions() {
+		SearchOptions options = new SearchOptions();
+		options.setMaxLegs(2);
+		options.setConnectionMinutes(30, 120);
+		options.setMaxPrice(500);
+		options.denyAirline("DifferentAirline");
+		for (FlightNode node : graph.getFlightNodes()) {
+			if (node.getName().equals("Toronto")) {
+				continue;
+			}
+			assertEquals(asStrings(graph.searchForItineraries("2015-06-15",
+					"Toronto", node.getName(), options)), asStrings(offHeap
+					.searchForItineraries("2015-06-15", "Toronto",
+							node.getName(), options)));
+		}
+	}
+
+	/**
+	 * Tests adding a flight after searching is seen by the next search.
+	 */
+	@Test
+	public void testAddAfterSearch() {
+		int flights = offHeap.getNumberOfFlights();
+		assertTrue(offHeap.searchForItineraries("2015-06-16", "Toronto",
+				"Nowhere").isEmpty());
+		offHeap.addFlight(new FlightInformation("99", "2015-06-16 08:00",
+				"2015-06-16 09:00", "Airline", "Toronto", "Nowhere", 10));
+		List<Itinerary> found = offHeap.searchForItineraries("2015-06-16",
+				"Toronto", "Nowhere");
+		assertEquals(1, found.size());
+		assertEquals("99", found.get(0).getListOfFlights().getFirst()
+				.getFlightNumber());
+		assertEquals(flights + 1, offHeap.getNumberOfFlights());
+	}
+
+	/**
+	 * Tests records spread over many small chunks are read back the same,
+	 * both when the first chunk grows and when the chunks are made up front.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testSmallChunks() throws IOException {
+		OffHeapFlightGraph growing = new OffHeapFlightGraph(3, 2);
+		OffHeapFlightGraph upFront = new OffHeapFlightGraph(100, 2);
+		for (FlightInformation fi : new FlightInfoParser("biggerTest.txt")
+				.getFlightInfo()) {
+			growing.addFlight(fi);
+			upFront.addFlight(fi);
+		}
+		for (FlightNode node : graph.getFlightNodes()) {
+			if (node.getName().equals("Toronto")) {
+				continue;
+			}
+			Set<String> expected = asStrings(graph.searchForItineraries(
+					"2015-06-15", "Toronto", node.getName()));
+			assertEquals(expected, asStrings(growing.searchForItineraries(
+					"2015-06-15", "Toronto", node.getName())));
+			assertEquals(expected, asStrings(upFront.searchForItineraries(
+					"2015-06-15", "Toronto", node.getName())));
+		}
+	}
+
+	/**
+	 * Tests a chunk size that does not fit in a buffer is refused.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testChunkTooBig() {
+		new OffHeapFlightGraph(1, 26);
+	}
+
+	/**
+	 * Tests the longest possible connection does not wrap around and lose
+	 * every connecting flight.
+	 */
+	@Test
+	public void testLongestConnection() {
+		SearchOptions options = new SearchOptions();
+		options.setConnectionMinutes(0, Integer.MAX_VALUE);
+		for (FlightNode node : graph.getFlightNodes()) {
+			if (node.getName().equals("Toronto")) {
+				continue;
+			}
+			assertTrue(asStrings(offHeap.searchForItineraries("2015-06-15",
+					"Toronto", node.getName(), options)).containsAll(
+					asStrings(offHeap.searchForItineraries("2015-06-15",
+							"Toronto", node.getName()))));
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package airline.flight;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import parser.FlightInfoParser;
+
+/**
+ * Tests the search for non-dominated itineraries.
+ *
+ * @author Chris
+ */
+public class TestParetoSearch {
+
+	/**
+	 * The graph loaded with the test data.
+	 */
+	private FlightGraph graph;
+
+	/**
+	 * Loads the graph before each test.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Before
+	public void setup() throws IOException {
+		graph = new FlightGraph();
+		for (FlightInformation fi : new FlightInfoParser("test.txt")
+				.getFlightInfo()) {
+			graph.addFlight(fi);
+		}
+	}
+
+	/**
+	 * Tests that the direct flight beats both connections on everything.
+	 */
+	@Test
+	public void testDominatedRemoved() {
+		List<Itinerary> searched = graph.searchForParetoItineraries(
+				"2015-05-10", "Toronto", "Venice", new SearchOptions());
+		assertEquals(1, searched.size());
+		assertEquals(1, searched.get(0).getNumberOfFlights());
+		assertEquals(12, searched.get(0).getTotalCost(), 0.001);
+	}
+
+	/**
+	 * Tests that a cheaper but slower itinerary is kept alongside the fast
+	 * one, and that a more expensive way to the same connection is pruned.
+	 */
+	@Test
+	public void testTradeOffKept() {
+		graph.addFlight(new FlightInformation("6", "2015-05-10 06:00",
+				"2015-05-10 07:00", "Airline", "Toronto", "Paris", 2));
+		graph.addFlight(new FlightInformation("7", "2015-05-10 05:00",
+				"2015-05-10 07:00", "Airline", "Toronto", "Paris", 3));
+		graph.addFlight(new FlightInformation("8", "2015-05-10 12:00",
+				"2015-05-10 18:00", "Airline", "Paris", "Venice", 2));
+
+		List<Itinerary> searched = graph.searchForParetoItineraries(
+				"2015-05-10", "Toronto", "Venice", new SearchOptions());
+		assertEquals(2, searched.size());
+		assertEquals(4, searched.get(0).getTotalCost(), 0.001);
+		assertEquals("6", searched.get(0).getListOfFlights().getFirst()
+				.getFlightNumber());
+		assertEquals(12, searched.get(1).getTotalCost(), 0.001);
+
+		// The full search still finds every itinerary.
+		assertEquals(5, graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice").size());
+	}
+
+	/**
+	 * Tests that a path is not pruned by a better one that has already been
+	 * at a place the pruned path still needs to fly through.
+	 */
+	@Test
+	public void testVisitedPlacesKeepPath() {
+		graph = new FlightGraph();
+		graph.addFlight(new FlightInformation("1", "2015-05-10 08:00",
+				"2015-05-10 09:00", "Airline", "A", "X", 1));
+		graph.addFlight(new FlightInformation("2", "2015-05-10 10:00",
+				"2015-05-10 11:00", "Airline", "X", "B", 1));
+		graph.addFlight(new FlightInformation("3", "2015-05-10 07:00",
+				"2015-05-10 08:00", "Airline", "A", "C", 5));
+		graph.addFlight(new FlightInformation("4", "2015-05-10 09:00",
+				"2015-05-10 11:00", "Airline", "C", "B", 5));
+		graph.addFlight(new FlightInformation("5", "2015-05-10 15:00",
+				"2015-05-10 16:00", "Airline", "B", "X", 1));
+		graph.addFlight(new FlightInformation("6", "2015-05-10 17:00",
+				"2015-05-10 18:00", "Airline", "X", "D", 1));
+
+		// A-X-B reaches B cheaper and later than A-C-B, but cannot go on to
+		// X again, so only A-C-B-X-D gets to D.
+		List<Itinerary> searched = graph.searchForParetoItineraries(
+				"2015-05-10", "A", "D", new SearchOptions());
+		assertEquals(1, searched.size());
+		assertEquals(graph.searchForItineraries("2015-05-10", "A", "D")
+				.get(0).toString(), searched.get(0).toString());
+		assertEquals(4, searched.get(0).getNumberOfFlights());
+		assertEquals("3", searched.get(0).getListOfFlights().getFirst()
+				.getFlightNumber());
+	}
+}
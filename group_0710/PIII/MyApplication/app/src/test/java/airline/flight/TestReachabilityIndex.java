@@ -0,0 +1,81 @@
+package airline.flight;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import parser.FlightInfoParser;
+import util.Constants;
+
+/**
+ * Tests the reachability index used to prune searches.
+ *
+ * @author Chris
+ */
+public class TestReachabilityIndex {
+
+	/**
+	 * Makes sure the flights that connect to the destination are found, and
+	 * the ones that can't are not.
+	 */
+	@Test
+	public void testReachingFlights() {
+		FlightGraph graph = new FlightGraph();
+		FlightInformation direct = new FlightInformation("1",
+				"2015-05-10 10:00", "2015-05-10 12:00", "A", "Toronto",
+				"Venice", 10);
+		FlightInformation connecting = new FlightInformation("2",
+				"2015-05-10 08:00", "2015-05-10 09:00", "A", "London",
+				"Toronto", 10);
+		FlightInformation tooLate = new FlightInformation("3",
+				"2015-05-10 13:00", "2015-05-10 14:00", "A", "London",
+				"Toronto", 10);
+		FlightInformation deadEnd = new FlightInformation("4",
+				"2015-05-10 08:00", "2015-05-10 09:00", "A", "Toronto",
+				"Berlin", 10);
+		graph.addFlight(direct);
+		graph.addFlight(connecting);
+		graph.addFlight(tooLate);
+		graph.addFlight(deadEnd);
+
+		ReachabilityIndex index = new ReachabilityIndex(
+				graph.getFlightNodes(), Collections.singleton("Venice"),
+				Constants.MAX_MINUTES_PER_FLIGHT_GAP);
+		assertTrue(index.getDestinations().contains("Venice"));
+		assertTrue(index.canReachDestination(direct));
+		assertTrue(index.canReachDestination(connecting));
+		assertFalse(index.canReachDestination(tooLate));
+		assertFalse(index.canReachDestination(deadEnd));
+	}
+
+	/**
+	 * Makes sure pruning does not lose any itineraries, and that the cached
+	 * index is thrown away when new flights are added.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testSearchAfterAddingFlights() throws IOException {
+		FlightGraph graph = new FlightGraph();
+		for (FlightInformation fi : new FlightInfoParser("test.txt")
+				.getFlightInfo()) {
+			graph.addFlight(fi);
+		}
+		List<Itinerary> searched = graph.searchForItineraries("2015-05-10",
+				"Toronto", "Venice");
+		assertEquals(3, searched.size());
+
+		graph.addFlight(new FlightInformation("6", "2015-05-11 05:00",
+				"2015-05-11 06:00", "Airline", "London", "Paris", 5));
+		graph.addFlight(new FlightInformation("7", "2015-05-11 07:00",
+				"2015-05-11 08:00", "Airline", "Paris", "Venice", 5));
+		searched = graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice");
+		assertEquals(4, searched.size());
+	}
+}
@@ -0,0 +1,126 @@
+package airline.flight;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import parser.FlightInfoParser;
+
+/**
+ * Tests searches stop once their budget runs out.
+ *
+ * @author Chris
+ */
+public class TestSearchBudget {
+
+	/**
+	 * The graph loaded with the test data.
+	 */
+	private FlightGraph graph;
+
+	/**
+	 * Loads the graph before each test.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Before
+	public void setup() throws IOException {
+		graph = new FlightGraph();
+		for (FlightInformation fi : new FlightInfoParser("test.txt")
+				.getFlightInfo()) {
+			graph.addFlight(fi);
+		}
+	}
+
+	/**
+	 * Tests a search with room to finish is not truncated.
+	 */
+	@Test
+	public void testWithinBudget() {
+		SearchOptions options = new SearchOptions();
+		options.setMaxExpansions(10);
+		options.setTimeBudgetMillis(10000);
+		SearchResult result = graph.searchForItinerariesWithinBudget(
+				"2015-05-10", "Toronto", "Venice", options);
+		assertFalse(result.isTruncated());
+		assertTrue(result.isAdmitted());
+		assertEquals(3, result.getItineraries().size());
+	}
+
+	/**
+	 * Tests running out of expansions keeps what was found so far.
+	 */
+	@Test
+	public void testExpansionsRunOut() {
+		SearchOptions options = new SearchOptions();
+		options.setMaxExpansions(1);
+		SearchResult result = graph.searchForItinerariesWithinBudget(
+				"2015-05-10", "Toronto", "Venice", options);
+		assertTrue(result.isTruncated());
+		assertEquals(2, result.getItineraries().size());
+	}
+
+	/**
+	 * Tests the searches that cannot say they were cut short refuse options
+	 * with a budget, rather than quietly returning part of the answer.
+	 */
+	@Test
+	public void testBudgetRefused() {
+		SearchOptions options = new SearchOptions();
+		assertFalse(options.hasBudget());
+		options.setMaxExpansions(1);
+		assertTrue(options.hasBudget());
+		List<SearchQuery> queries = new ArrayList<>();
+		queries.add(new SearchQuery("Toronto", "Venice", "2015-05-10"));
+
+		for (int i = 0; i < 5; i++) {
+			try {
+				switch (i) {
+				case 0:
+					graph.searchForItineraries("2015-05-10", "Toronto",
+							"Venice", options);
+					break;
+				case 1:
+					graph.searchForParetoItineraries("2015-05-10", "Toronto",
+							"Venice", options);
+					break;
+				case 2:
+					graph.findCheapestPerDay("2015-05-10", 1, "Toronto",
+							"Venice", options);
+					break;
+				case 3:
+					graph.searchForItineraries(queries, options);
+					break;
+				default:
+					graph.searchForTrips(queries, options, new TripOptions());
+					break;
+				}
+				fail("Search " + i + " took a budget");
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Tests the budget counts expansions and stops once they are used up.
+	 */
+	@Test
+	public void testBudgetCounts() {
+		SearchOptions options = new SearchOptions();
+		options.setMaxExpansions(2);
+		SearchBudget budget = new SearchBudget(options);
+		assertTrue(budget.spend());
+		assertTrue(budget.spend());
+		assertFalse(budget.isExhausted());
+		assertFalse(budget.spend());
+		assertTrue(budget.isExhausted());
+		assertEquals(2, budget.getExpansions());
+	}
+}
@@ -0,0 +1,127 @@
+package airline.flight;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import parser.FlightInfoParser;
+
+/**
+ * Tests that the search options constrain the itinerary search.
+ *
+ * @author Chris
+ */
+public class TestSearchOptions {
+
+	/**
+	 * The graph loaded with the test data.
+	 */
+	private FlightGraph graph;
+
+	/**
+	 * Loads the graph before each test.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Before
+	public void setup() throws IOException {
+		graph = new FlightGraph();
+		for (FlightInformation fi : new FlightInfoParser("test.txt")
+				.getFlightInfo()) {
+			graph.addFlight(fi);
+		}
+	}
+
+	/**
+	 * Tests the defaults give the same result as the plain search.
+	 */
+	@Test
+	public void testDefaults() {
+		List<Itinerary> searched = graph.searchForItineraries("2015-05-10",
+				"Toronto", "Venice", new SearchOptions());
+		assertEquals(3, searched.size());
+	}
+
+	/**
+	 * Tests the leg limit.
+	 */
+	@Test
+	public void testMaxLegs() {
+		SearchOptions options = new SearchOptions();
+		options.setMaxLegs(1);
+		List<Itinerary> searched = graph.searchForItineraries("2015-05-10",
+				"Toronto", "Venice", options);
+		assertEquals(1, searched.size());
+		assertEquals(1, searched.get(0).getListOfFlights().size());
+	}
+
+	/**
+	 * Tests the connection time limits.
+	 */
+	@Test
+	public void testConnectionMinutes() {
+		// The London connection is 9 minutes, the Berlin one is 30.
+		SearchOptions options = new SearchOptions();
+		options.setConnectionMinutes(10, 60);
+		assertEquals(2, graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice", options).size());
+
+		options.setConnectionMinutes(0, 20);
+		assertEquals(2, graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice", options).size());
+
+		// The longest window must not wrap around and lose the connections.
+		options.setConnectionMinutes(0, Integer.MAX_VALUE);
+		assertEquals(3, graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice", options).size());
+	}
+
+	/**
+	 * Tests the price and elapsed time limits.
+	 */
+	@Test
+	public void testPriceAndElapsed() {
+		SearchOptions options = new SearchOptions();
+		options.setMaxPrice(26);
+		assertEquals(1, graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice", options).size());
+
+		options = new SearchOptions();
+		options.setMaxElapsedMinutes(10 * 60);
+		assertEquals(2, graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice", options).size());
+	}
+
+	/**
+	 * Tests the airline allow and deny lists.
+	 */
+	@Test
+	public void testAirlines() {
+		SearchOptions options = new SearchOptions();
+		options.denyAirline("Airline");
+		assertEquals(0, graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice", options).size());
+
+		options = new SearchOptions();
+		options.allowAirline("Other");
+		assertEquals(0, graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice", options).size());
+
+		options.allowAirline("Airline");
+		assertEquals(3, graph.searchForItineraries("2015-05-10", "Toronto",
+				"Venice", options).size());
+	}
+
+	/**
+	 * Tests invalid options are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidConnectionMinutes() {
+		new SearchOptions().setConnectionMinutes(30, 10);
+	}
+}
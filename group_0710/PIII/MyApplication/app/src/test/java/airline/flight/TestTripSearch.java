@@ -0,0 +1,162 @@
+package airline.flight;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import parser.FlightInfoParser;
+
+/**
+ * Tests combining itineraries into round trips and multi-city trips.
+ *
+ * @author Chris
+ */
+public class TestTripSearch {
+
+	/**
+	 * Loads a graph from a file.
+	 *
+	 * @param path
+	 *            The file to load.
+	 *
+	 * @return The loaded graph.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	private static FlightGraph load(String path) throws IOException {
+		FlightGraph graph = new FlightGraph();
+		for (FlightInformation fi : new FlightInfoParser(path)
+				.getFlightInfo()) {
+			graph.addFlight(fi);
+		}
+		return graph;
+	}
+
+	/**
+	 * Gets the total cost of each trip.
+	 *
+	 * @param trips
+	 *            The trips.
+	 *
+	 * @return The costs in the same order.
+	 */
+	private static List<Double> costs(List<TripItinerary> trips) {
+		List<Double> costs = new ArrayList<>();
+		for (TripItinerary trip : trips) {
+			costs.add(trip.getTotalCost());
+		}
+		return costs;
+	}
+
+	/**
+	 * Tests round trips come out cheapest first and obey the bounds.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testRoundTripsByCost() throws IOException {
+		FlightGraph graph = load("test.txt");
+		graph.addFlight(new FlightInformation("8", "2015-05-12 08:00",
+				"2015-05-12 12:00", "Airline", "Venice", "Toronto", 50));
+		graph.addFlight(new FlightInformation("9", "2015-05-12 09:00",
+				"2015-05-12 15:00", "Airline", "Venice", "Toronto", 40));
+
+		List<TripItinerary> trips = graph.searchForRoundTrips("2015-05-10",
+				"2015-05-12", "Toronto", "Venice", new SearchOptions(),
+				new TripOptions());
+		assertEquals(6, trips.size());
+		double[] expected = { 52, 62, 67, 69, 77, 79 };
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], trips.get(i).getTotalCost(), 0.001);
+		}
+		assertEquals(2, trips.get(0).getSegments().size());
+
+		TripOptions bounded = new TripOptions();
+		bounded.setMaxTotalPrice(65);
+		assertEquals(2, graph.searchForRoundTrips("2015-05-10", "2015-05-12",
+				"Toronto", "Venice", new SearchOptions(), bounded).size());
+
+		TripOptions limited = new TripOptions();
+		limited.setMaxResults(3);
+		trips = graph.searchForRoundTrips("2015-05-10", "2015-05-12",
+				"Toronto", "Venice", new SearchOptions(), limited);
+		assertEquals(3, trips.size());
+		assertEquals(67, trips.get(2).getTotalCost(), 0.001);
+	}
+
+	/**
+	 * Tests the way back has to leave after the way there arrives, and that
+	 * trips can be ranked by travel time.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testReturnAfterArrival() throws IOException {
+		FlightGraph graph = load("test.txt");
+		graph.addFlight(new FlightInformation("8", "2015-05-11 12:00",
+				"2015-05-11 18:00", "Airline", "Venice", "Toronto", 5));
+
+		List<TripItinerary> trips = graph.searchForRoundTrips("2015-05-10",
+				"2015-05-11", "Toronto", "Venice", new SearchOptions(),
+				new TripOptions());
+		assertEquals(2, trips.size());
+		assertEquals(17, trips.get(0).getTotalCost(), 0.001);
+		assertEquals(34, trips.get(1).getTotalCost(), 0.001);
+
+		TripOptions byTime = new TripOptions();
+		byTime.setCriterion(TripOptions.Criterion.TRAVEL_TIME);
+		byTime.setMaxTravelMinutes(12 * 60);
+		trips = graph.searchForRoundTrips("2015-05-10", "2015-05-11",
+				"Toronto", "Venice", new SearchOptions(), byTime);
+		assertEquals(1, trips.size());
+		assertEquals((4 * 60 + 55) + 6 * 60, trips.get(0)
+				.getTravelTimeMinutes());
+	}
+
+	/**
+	 * Tests a multi-city trip finds the same trips as pairing every
+	 * itinerary of both segments.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testAgreesWithEveryPair() throws IOException {
+		FlightGraph graph = load("biggerTest.txt");
+		List<Itinerary> first = graph.searchForItineraries("2015-06-15",
+				"Toronto", "Miami");
+		List<Itinerary> second = graph.searchForItineraries("2015-06-15",
+				"Miami", "Egypt");
+
+		List<Double> expected = new ArrayList<>();
+		for (Itinerary out : first) {
+			for (Itinerary on : second) {
+				if (!on.getDepartureDateTime().isBefore(
+						out.getArrivalDateTime())) {
+					expected.add(out.getTotalCost() + on.getTotalCost());
+				}
+			}
+		}
+		Collections.sort(expected);
+		assertFalse(expected.isEmpty());
+
+		List<SearchQuery> segments = new ArrayList<>();
+		segments.add(new SearchQuery("Toronto", "Miami", "2015-06-15"));
+		segments.add(new SearchQuery("Miami", "Egypt", "2015-06-15"));
+		List<TripItinerary> trips = graph.searchForTrips(segments,
+				new SearchOptions(), new TripOptions());
+		List<Double> found = costs(trips);
+		assertEquals(expected.size(), found.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i), found.get(i), 0.001);
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package benchmark;
+
+import static org.junit.Assert.*;
+import static util.Assertions.*;
+
+import java.util.List;
+
+import org.joda.time.LocalDateTime;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import airline.flight.FlightInformation;
+
+/**
+ * Rough numbers for what the argument checks cost. Like the other
+ * benchmarks, these print their timings instead of asserting on them.
+ *
+ * @author Chris
+ */
+public class AssertionBenchmark {
+
+	/**
+	 * How many times each measurement is repeated.
+	 */
+	private static final int ROUNDS = 5;
+
+	/**
+	 * How many checks are made in each round of the message benchmark.
+	 */
+	private static final int CHECKS = 2000000;
+
+	/**
+	 * The generated flights, in no particular order.
+	 */
+	private static List<FlightInformation> flights;
+
+	/**
+	 * Generates the flights.
+	 */
+	@BeforeClass
+	public static void setup() {
+		flights = ScheduleGenerator.generate(20, 2000, 5, 207);
+	}
+
+	/**
+	 * Compares a check whose message is built every time it is called with
+	 * one whose message is only built when it fails.
+	 */
+	@Test
+	public void testMessageChecks() {
+		long eagerNanos = 0;
+		long lazyNanos = 0;
+
+		// The first round warms up both ways and is not counted.
+		for (int round = 0; round <= ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < CHECKS; i++) {
+				checkArgument(i >= 0, "expected a row but found " + i);
+			}
+			long eager = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < CHECKS; i++) {
+				checkArgument(i >= 0, "expected a row but found ", i);
+			}
+			long lazy = System.nanoTime() - start;
+			if (round > 0) {
+				eagerNanos += eager;
+				lazyNanos += lazy;
+			}
+		}
+
+		SearchBenchmark.report("eager message checks", (long) CHECKS
+				* ROUNDS, eagerNanos);
+		SearchBenchmark.report("lazy message checks", (long) CHECKS * ROUNDS,
+				lazyNanos);
+	}
+
+	/**
+	 * Compares the checked public connection test, which takes a date and
+	 * time, against departsWithin on the epoch minute the flight already
+	 * has, which is what the search loops call.
+	 */
+	@Test
+	public void testConnectionChecks() {
+		long checkedNanos = 0;
+		long uncheckedNanos = 0;
+		int checked = 0;
+		int unchecked = 0;
+		int size = flights.size();
+
+		for (int round = 0; round <= ROUNDS; round++) {
+			if (round == 1) {
+				checkedNanos = 0;
+				uncheckedNanos = 0;
+				checked = 0;
+				unchecked = 0;
+			}
+			long start = System.nanoTime();
+			for (int i = 0; i < size; i++) {
+				LocalDateTime arrival = flights.get(i).getArrivalDateTime();
+				if (flights.get((i + 1) % size).withinDepartureTime(arrival,
+						30, 360)) {
+					checked++;
+				}
+			}
+			checkedNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < size; i++) {
+				int arrival = flights.get(i).getArrivalMinute();
+				if (flights.get((i + 1) % size).departsWithin(arrival, 30,
+						360)) {
+					unchecked++;
+				}
+			}
+			uncheckedNanos += System.nanoTime() - start;
+		}
+
+		assertEquals(checked, unchecked);
+		SearchBenchmark.report("checked connections", (long) size * ROUNDS,
+				checkedNanos);
+		SearchBenchmark.report("unchecked connections", (long) size * ROUNDS,
+				uncheckedNanos);
+	}
+}
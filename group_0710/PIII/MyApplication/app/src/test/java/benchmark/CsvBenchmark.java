@@ -0,0 +1,101 @@
+package benchmark;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import airline.flight.FlightInformation;
+import parser.CsvTokenizer;
+import util.Constants;
+
+/**
+ * Rough throughput numbers for reading csv rows on a generated schedule.
+ * Like the search benchmarks, these print their timings instead of
+ * asserting on them.
+ *
+ * @author Chris
+ */
+public class CsvBenchmark {
+
+	/**
+	 * How many times each measurement is repeated.
+	 */
+	private static final int ROUNDS = 5;
+
+	/**
+	 * The generated flight file.
+	 */
+	private static String text;
+
+	/**
+	 * How many rows the file has.
+	 */
+	private static int rows;
+
+	/**
+	 * Generates the flight file.
+	 */
+	@BeforeClass
+	public static void setup() {
+		List<FlightInformation> flights = ScheduleGenerator.generate(20, 2000,
+				5, 207);
+		StringBuilder builder = new StringBuilder();
+		for (FlightInformation fi : flights) {
+			builder.append(fi.toString()).append(",150\n");
+		}
+		text = builder.toString();
+		rows = flights.size();
+	}
+
+	/**
+	 * Compares splitting every line with String.split against the
+	 * tokenizer, reading the number of seats of each row.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testTokenizerAgainstSplit() throws IOException {
+		long splitNanos = 0;
+		long tokenizerNanos = 0;
+		long splitSeats = 0;
+		long tokenizerSeats = 0;
+
+		// The first round warms up both ways and is not counted.
+		for (int round = 0; round <= ROUNDS; round++) {
+			if (round == 1) {
+				splitNanos = 0;
+				tokenizerNanos = 0;
+				splitSeats = 0;
+				tokenizerSeats = 0;
+			}
+			long start = System.nanoTime();
+			int from = 0;
+			int end;
+			while ((end = text.indexOf('\n', from)) >= 0) {
+				String[] fields = text.substring(from, end).split(
+						Constants.DELIMITER);
+				splitSeats += Integer.parseInt(fields[7]);
+				from = end + 1;
+			}
+			splitNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(text));
+			while (tokenizer.next()) {
+				tokenizerSeats += tokenizer.getInt(7);
+			}
+			tokenizerNanos += System.nanoTime() - start;
+		}
+
+		assertEquals(splitSeats, tokenizerSeats);
+		SearchBenchmark.report("split rows", (long) rows * ROUNDS, splitNanos);
+		SearchBenchmark.report("tokenized rows", (long) rows * ROUNDS,
+				tokenizerNanos);
+	}
+}
@@ -0,0 +1,117 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.joda.time.LocalDateTime;
+
+import airline.flight.FlightGraph;
+import airline.flight.FlightInformation;
+
+/**
+ * Generates a random but repeatable flight schedule for the benchmarks.
+ * 
+ * @author Chris
+ */
+public class ScheduleGenerator {
+
+	/**
+	 * The first day of every generated schedule.
+	 */
+	public static final LocalDateTime FIRST_DAY = new LocalDateTime(2015, 6,
+			15, 0, 0);
+
+	/**
+	 * Generates the flights of a schedule.
+	 * 
+	 * @param airports
+	 *            How many airports there are.
+	 * 
+	 * @param flightsPerDay
+	 *            How many flights leave each day.
+	 * 
+	 * @param days
+	 *            How many days the schedule runs for.
+	 * 
+	 * @param seed
+	 *            The random seed.
+	 * 
+	 * @return The generated flights, in no particular order.
+	 */
+	public static List<FlightInformation> generate(int airports,
+			int flightsPerDay, int days, long seed) {
+		Random random = new Random(seed);
+		List<FlightInformation> flights = new ArrayList<>();
+		int number = 0;
+		for (int day = 0; day < days; day++) {
+			for (int i = 0; i < flightsPerDay; i++) {
+				int origin = random.nextInt(airports);
+				int destination = random.nextInt(airports - 1);
+				if (destination >= origin) {
+					destination++;
+				}
+				LocalDateTime departure = FIRST_DAY.plusDays(day).plusMinutes(
+						5 * random.nextInt(24 * 12));
+				LocalDateTime arrival = departure.plusMinutes(30 + 5 * random
+						.nextInt(48));
+				double cost = (5000 + random.nextInt(50000)) / 100.0;
+				flights.add(new FlightInformation(String.valueOf(number++),
+						departure, arrival, "Airline" + random.nextInt(4),
+						airportName(origin), airportName(destination), cost));
+			}
+		}
+		return flights;
+	}
+
+	/**
+	 * Generates a schedule straight into a graph.
+	 * 
+	 * @param airports
+	 *            How many airports there are.
+	 * 
+	 * @param flightsPerDay
+	 *            How many flights leave each day.
+	 * 
+	 * @param days
+	 *            How many days the schedule runs for.
+	 * 
+	 * @param seed
+	 *            The random seed.
+	 * 
+	 * @return The graph with the generated flights.
+	 */
+	public static FlightGraph generateGraph(int airports, int flightsPerDay,
+			int days, long seed) {
+		FlightGraph graph = new FlightGraph();
+		for (FlightInformation fi : generate(airports, flightsPerDay, days,
+				seed)) {
+			graph.addFlight(fi);
+		}
+		return graph;
+	}
+
+	/**
+	 * Gets the name of a generated airport.
+	 * 
+	 * @param index
+	 *            The airport number.
+	 * 
+	 * @return The airport name.
+	 */
+	public static String airportName(int index) {
+		return "Airport" + index;
+	}
+
+	/**
+	 * Gets a date of the generated schedule.
+	 * 
+	 * @param day
+	 *            The day number from the first day.
+	 * 
+	 * @return The date in YYYY-MM-DD format.
+	 */
+	public static String date(int day) {
+		return FIRST_DAY.plusDays(day).toString("yyyy-MM-dd");
+	}
+}
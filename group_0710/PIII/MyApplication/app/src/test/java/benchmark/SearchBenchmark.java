@@ -0,0 +1,161 @@
+package benchmark;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import airline.flight.FlightGraph;
+import airline.flight.Itinerary;
+import airline.flight.OffHeapFlightGraph;
+import airline.flight.SearchOptions;
+import airline.flight.SearchQuery;
+
+/**
+ * Rough throughput numbers for the search engine on a generated schedule.
+ * These print their timings instead of asserting on them, since the numbers
+ * depend on the machine, but they do check both ways give the same answer.
+ * 
+ * @author Chris
+ */
+public class SearchBenchmark {
+
+	/**
+	 * How many airports the generated schedule has.
+	 */
+	private static final int AIRPORTS = 20;
+
+	/**
+	 * How many flights leave each day.
+	 */
+	private static final int FLIGHTS_PER_DAY = 200;
+
+	/**
+	 * How many days the schedule runs.
+	 */
+	private static final int DAYS = 4;
+
+	/**
+	 * How many times each measurement is repeated.
+	 */
+	private static final int ROUNDS = 5;
+
+	/**
+	 * The generated graph.
+	 */
+	private static FlightGraph graph;
+
+	/**
+	 * Generates the graph.
+	 */
+	@BeforeClass
+	public static void setup() {
+		graph = ScheduleGenerator.generateGraph(AIRPORTS, FLIGHTS_PER_DAY,
+				DAYS, 207);
+	}
+
+	/**
+	 * Prints a measurement.
+	 * 
+	 * @param name
+	 *            The name of what was measured.
+	 * 
+	 * @param operations
+	 *            How many operations were done.
+	 * 
+	 * @param nanos
+	 *            How long it took in nanoseconds.
+	 */
+	static void report(String name, long operations, long nanos) {
+		double seconds = nanos / 1e9;
+		System.out.println(String.format("%-40s %10d ops %10.3f s %12.1f ops/s",
+				name, operations, seconds, operations / seconds));
+	}
+
+	/**
+	 * Compares running every query on its own against running them as one
+	 * batch, for every destination from one origin over adjacent dates.
+	 */
+	@Test
+	public void testBatchThroughput() {
+		List<SearchQuery> queries = new ArrayList<>();
+		for (int day = 0; day < 2; day++) {
+			for (int i = 1; i < AIRPORTS; i++) {
+				queries.add(new SearchQuery(ScheduleGenerator.airportName(0),
+						ScheduleGenerator.airportName(i), ScheduleGenerator
+								.date(day)));
+			}
+		}
+		SearchOptions options = new SearchOptions();
+		options.setMaxLegs(3);
+
+		List<Integer> singleCounts = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++) {
+			singleCounts.clear();
+			for (SearchQuery query : queries) {
+				List<Itinerary> found = graph.searchForItineraries(
+						query.getDepartureDate(), query.getOrigin(),
+						query.getDestination(), options);
+				singleCounts.add(found.size());
+			}
+		}
+		report("single searches", ROUNDS * queries.size(), System.nanoTime()
+				- start);
+
+		List<List<Itinerary>> batch = null;
+		start = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++) {
+			batch = graph.searchForItineraries(queries, options);
+		}
+		report("batch searches", ROUNDS * queries.size(), System.nanoTime()
+				- start);
+
+		for (int i = 0; i < queries.size(); i++) {
+			assertEquals((int) singleCounts.get(i), batch.get(i).size());
+		}
+	}
+
+	/**
+	 * Compares searching the object graph against searching the same flights
+	 * stored off the heap.
+	 */
+	@Test
+	public void testOffHeapThroughput() {
+		OffHeapFlightGraph offHeap = new OffHeapFlightGraph();
+		offHeap.addFlights(graph);
+		SearchOptions options = new SearchOptions();
+		options.setMaxLegs(3);
+
+		String origin = ScheduleGenerator.airportName(0);
+		String date = ScheduleGenerator.date(0);
+		int onHeapFound = 0;
+		long start = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++) {
+			onHeapFound = 0;
+			for (int i = 1; i < AIRPORTS; i++) {
+				onHeapFound += graph.searchForItineraries(date, origin,
+						ScheduleGenerator.airportName(i), options).size();
+			}
+		}
+		report("object graph searches", ROUNDS * (AIRPORTS - 1),
+				System.nanoTime() - start);
+
+		int offHeapFound = 0;
+		start = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++) {
+			offHeapFound = 0;
+			for (int i = 1; i < AIRPORTS; i++) {
+				offHeapFound += offHeap.searchForItineraries(date, origin,
+						ScheduleGenerator.airportName(i), options).size();
+			}
+		}
+		report("off heap searches", ROUNDS * (AIRPORTS - 1),
+				System.nanoTime() - start);
+
+		assertEquals(onHeapFound, offHeapFound);
+	}
+}
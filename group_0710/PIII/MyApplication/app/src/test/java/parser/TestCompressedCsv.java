@@ -0,0 +1,129 @@
+package parser;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import airline.Database;
+
+/**
+ * Tests reading and writing gzip compressed csv files.
+ *
+ * @author Chris
+ */
+public class TestCompressedCsv {
+
+	/**
+	 * A directory for the files of each test.
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Tests a compressed file bigger than a few chunks is read back row for
+	 * row as it was written.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testRoundTrip() throws IOException {
+		String path = new File(folder.getRoot(), "rows.csv.gz").getPath();
+		Writer writer = CsvParser.create(path);
+		for (int i = 0; i < 50000; i++) {
+			writer.write(i + ",\"row, " + i + "\",Toronto\n");
+		}
+		writer.close();
+
+		InputStream raw = new FileInputStream(path);
+		assertEquals(0x1f, raw.read());
+		assertEquals(0x8b, raw.read());
+		raw.close();
+
+		final List<String[]> rows = new ArrayList<String[]>();
+		CsvParser.parse(path, new RowHandler() {
+			@Override
+			public void handleRow(String[] row) {
+				rows.add(row);
+			}
+		});
+		assertEquals(50000, rows.size());
+		assertArrayEquals(new String[] { "49999", "row, 49999", "Toronto" },
+				rows.get(49999));
+	}
+
+	/**
+	 * Tests flights and clients written compressed load back the same.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testDatabaseFiles() throws IOException {
+		Database database = new Database();
+		database.loadFlightData("test.txt");
+		database.loadClientData("clients.txt");
+		String flights = new File(folder.getRoot(), "flights.txt.gz")
+				.getPath();
+		String clients = new File(folder.getRoot(), "clients.txt.gz")
+				.getPath();
+		database.writeFlightsToFile(flights);
+		database.writeClientsToFile(clients);
+		GZIPInputStream check = new GZIPInputStream(new FileInputStream(
+				flights));
+		assertTrue(check.read() >= 0);
+		check.close();
+
+		Database loaded = new Database();
+		loaded.loadFlightData(flights);
+		loaded.loadClientData(clients);
+		assertEquals(3, loaded.searchItineraries("Toronto", "Venice",
+				"2015-05-10").size());
+		assertEquals(database.getClient("jane@email.com"),
+				loaded.getClient("jane@email.com"));
+		assertEquals(2, loaded.getAllClients().size());
+	}
+
+	/**
+	 * Tests a file named as compressed that is not is an error when opened,
+	 * and closing a file partly read stops the reading thread.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testNotCompressedAndEarlyClose() throws IOException {
+		File plain = new File(folder.getRoot(), "plain.gz");
+		Writer writer = new FileWriter(plain);
+		writer.write("not,compressed\n");
+		writer.close();
+		try {
+			CsvParser.open(plain.getPath());
+			fail();
+		} catch (IOException e) {
+		}
+
+		String path = new File(folder.getRoot(), "big.gz").getPath();
+		writer = CsvParser.create(path);
+		for (int i = 0; i < 100000; i++) {
+			writer.write("a,b,c," + i + "\n");
+		}
+		writer.close();
+		CsvTokenizer tokenizer = CsvParser.open(path);
+		assertTrue(tokenizer.next());
+		assertEquals(0, tokenizer.getInt(3));
+		tokenizer.close();
+	}
+}
@@ -2,6 +2,9 @@ package parser;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 import junit.framework.TestCase;
@@ -65,6 +68,38 @@ public class TestCsvParser extends TestCase {
 		tearDown();
 	}
 
+	/**
+	 * Makes sure streaming hands over every row in order.
+	 * 
+	 * @throws IOException
+	 *             If any exceptions occur.
+	 */
+	@Test
+	public void testParseStreaming() throws IOException {
+		final List<String> numbers = new ArrayList<String>();
+		CsvParser.parse("test.txt", new RowHandler() {
+			@Override
+			public void handleRow(String[] row) {
+				numbers.add(row[0]);
+			}
+		});
+		assertEquals(Arrays.asList("1", "2", "3", "4", "5"), numbers);
+	}
+
+	/**
+	 * Makes sure a flight is made from its row, with or without seats.
+	 */
+	@Test
+	public void testParseFlight() {
+		String[] row = { "3", "2015-05-11 04:30", "2015-05-11 08:23",
+				"Airline", "London", "Venice", "15" };
+		assertFalse(FlightInfoParser.parseFlight(row).hasSeatLimit());
+		String[] withSeats = { "3", "2015-05-11 04:30", "2015-05-11 08:23",
+				"Airline", "London", "Venice", "15", "40" };
+		assertEquals(40, FlightInfoParser.parseFlight(withSeats)
+				.getSeatsLeft());
+	}
+
 	/**
 	 * Tests that any file loading errors are valid.
 	 * 
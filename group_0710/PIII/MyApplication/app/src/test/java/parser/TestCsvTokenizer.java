@@ -0,0 +1,120 @@
+package parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ * Tests splitting csv text into rows and fields.
+ *
+ * @author Chris
+ */
+public class TestCsvTokenizer {
+
+	/**
+	 * Tests quoted fields can hold commas, quotes and line breaks.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testQuotedFields() throws IOException {
+		CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(
+				"Doe,\"12 Main St, Apt 4\",\"say \"\"hi\"\"\"\r\n"
+						+ "\"two\nlines\",,last\n"));
+		assertTrue(tokenizer.next());
+		assertEquals(3, tokenizer.getFieldCount());
+		assertEquals("Doe", tokenizer.getString(0));
+		assertEquals("12 Main St, Apt 4", tokenizer.getString(1));
+		assertEquals("say \"hi\"", tokenizer.getField(2).toString());
+		assertEquals(1, tokenizer.getLineNumber());
+
+		assertTrue(tokenizer.next());
+		assertArrayEquals(new String[] { "two\nlines", "", "last" },
+				tokenizer.toArray());
+		assertEquals(2, tokenizer.getLineNumber());
+		assertFalse(tokenizer.next());
+	}
+
+	/**
+	 * Tests blank lines are skipped, and empty fields at the end are kept.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testBlankLinesAndEmptyFields() throws IOException {
+		CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(
+				"\n\na,b,\r\n\r\n,\n"));
+		assertTrue(tokenizer.next());
+		assertArrayEquals(new String[] { "a", "b", "" }, tokenizer.toArray());
+		assertEquals(3, tokenizer.getLineNumber());
+		assertTrue(tokenizer.next());
+		assertArrayEquals(new String[] { "", "" }, tokenizer.toArray());
+		assertFalse(tokenizer.next());
+		assertEquals(0, CsvTokenizer.split("").length);
+	}
+
+	/**
+	 * Tests fields are read as slices and numbers without copying.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testSlicesAndNumbers() throws IOException {
+		CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(
+				"Toronto, 42 ,-7\nVenice,2147483647,x\n"));
+		assertTrue(tokenizer.next());
+		CharSequence first = tokenizer.getField(0);
+		assertEquals(7, first.length());
+		assertEquals('T', first.charAt(0));
+		assertEquals("ron", first.subSequence(2, 5).toString());
+		assertEquals(42, tokenizer.getInt(1));
+		assertEquals(-7, tokenizer.getInt(2));
+
+		assertTrue(tokenizer.next());
+		assertSame(first, tokenizer.getField(0));
+		assertEquals("Venice", first.toString());
+		assertEquals(Integer.MAX_VALUE, tokenizer.getInt(1));
+		try {
+			tokenizer.getInt(2);
+			fail();
+		} catch (NumberFormatException e) {
+		}
+		try {
+			tokenizer.getField(3);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+	}
+
+	/**
+	 * Tests a quote that is never closed is an error.
+	 */
+	@Test
+	public void testUnclosedQuote() {
+		try {
+			CsvTokenizer.split("a,\"b");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * Tests written fields are quoted only when they have to be, and read
+	 * back the same.
+	 */
+	@Test
+	public void testQuoteRoundTrip() {
+		assertEquals("plain", CsvParser.quote("plain"));
+		String[] fields = { "a, b", "say \"hi\"", "plain" };
+		String line = CsvParser.quote(fields[0]) + ","
+				+ CsvParser.quote(fields[1]) + "," + CsvParser.quote(fields[2]);
+		assertEquals("\"a, b\",\"say \"\"hi\"\"\",plain", line);
+		assertArrayEquals(fields, CsvTokenizer.split(line));
+	}
+}
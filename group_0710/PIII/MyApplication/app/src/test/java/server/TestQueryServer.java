@@ -0,0 +1,146 @@
+package server;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import airline.Database;
+
+/**
+ * Tests the query server answers over HTTP.
+ *
+ * @author Chris
+ */
+public class TestQueryServer {
+
+	/**
+	 * The loaded test database.
+	 */
+	private Database database;
+
+	/**
+	 * The running server.
+	 */
+	private QueryServer server;
+
+	/**
+	 * Loads the database before each test.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Before
+	public void setup() throws IOException {
+		database = new Database();
+		database.loadFlightData("test.txt");
+		database.loadClientData("clients.txt");
+	}
+
+	/**
+	 * Stops the server after each test.
+	 */
+	@After
+	public void teardown() {
+		if (server != null) {
+			server.stop();
+		}
+	}
+
+	/**
+	 * Requests a path from the server.
+	 *
+	 * @param path
+	 *            The path and query string.
+	 *
+	 * @return The status code followed by a space and the body.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	private String get(String path) throws IOException {
+		URL url = new URL("http://localhost:" + server.getPort() + path);
+		HttpURLConnection connection = (HttpURLConnection) url
+				.openConnection();
+		int status = connection.getResponseCode();
+		InputStream in = status < 400 ? connection.getInputStream()
+				: connection.getErrorStream();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			body.write(buffer, 0, read);
+		}
+		in.close();
+		connection.disconnect();
+		return status + " " + body.toString("UTF-8");
+	}
+
+	/**
+	 * Tests every endpoint and the errors for bad requests.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testEndpoints() throws IOException {
+		server = new QueryServer(database, 0, 2, 4);
+		server.start();
+		assertTrue(server.getAddress().isLoopbackAddress());
+
+		String search = get("/search?origin=Toronto&destination=Venice"
+				+ "&date=2015-05-10");
+		assertTrue(search.startsWith("200 ["));
+		assertEquals(3, search.split("\"price\":\\d+\\.\\d\\d,\"minutes\"")
+				.length - 1);
+
+		String flights = get("/flights?origin=Toronto&destination=Venice"
+				+ "&date=2015-05-10");
+		assertEquals("200 [{\"number\":\"1\",\"departure\":\"2015-05-10 10:30\","
+				+ "\"arrival\":\"2015-05-10 15:25\",\"airline\":\"Airline\","
+				+ "\"origin\":\"Toronto\",\"destination\":\"Venice\","
+				+ "\"price\":12.00}]", flights);
+		assertEquals("200 []", get("/flights?origin=Toronto"
+				+ "&destination=Nowhere&date=2015-05-10"));
+
+		String client = get("/client?email=jane%40email.com");
+		assertTrue(client.startsWith("200 {\"lastName\":\"Doe\""));
+		assertTrue(client.contains("\"cardEnding\":\"4444\""));
+		assertFalse(client.contains("1111222233334444"));
+
+		assertTrue(get("/client?email=nobody").startsWith("404 "));
+		assertTrue(get("/nothing").startsWith("404 "));
+		assertTrue(get("/search?origin=Toronto").startsWith("400 "));
+		assertTrue(get("/search?origin=Toronto&destination=Venice&date=10")
+				.startsWith("400 "));
+	}
+
+	/**
+	 * Tests a request is turned away when every worker is busy and there is
+	 * no room to wait.
+	 *
+	 * @throws IOException
+	 *             If any IO error occurs.
+	 */
+	@Test
+	public void testBusyRejected() throws IOException {
+		server = new QueryServer(database, 0, 1, 0);
+		server.start();
+
+		// Holds the only worker by never sending a request.
+		Socket idle = new Socket("localhost", server.getPort());
+		try {
+			assertTrue(get("/nothing").startsWith("503 "));
+		} finally {
+			idle.close();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package user;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests storing clients and finding them through the indexes.
+ *
+ * @author Chris
+ */
+public class TestClientStore {
+
+	/**
+	 * The store under test.
+	 */
+	private ClientStore store;
+
+	/**
+	 * Fills the store before each test.
+	 */
+	@Before
+	public void setup() {
+		store = new ClientStore();
+		store.put(new Client("Doe", "Jane", "jane@email.com", "1 Road",
+				"1111222233334444", "2018-08-24"));
+		store.put(new Client("Doering", "Al", "al@email.com", "2 Road",
+				"5555666677778888", "2018-08-01"));
+		store.put(new Client("Roe", "Richard", "richard@email.com", "3 Road",
+				"9999888877776666", "2017-10-01"));
+	}
+
+	/**
+	 * Tests finding clients by the start of their last name.
+	 */
+	@Test
+	public void testLastNamePrefix() {
+		List<Client> found = store.findByLastNamePrefix("doe");
+		assertEquals(2, found.size());
+		assertEquals("Doe", found.get(0).getLastName());
+		assertEquals("Doering", found.get(1).getLastName());
+		assertEquals(1, store.findByLastNamePrefix("R").size());
+		assertEquals(3, store.findByLastNamePrefix("").size());
+		assertTrue(store.findByLastNamePrefix("Smith").isEmpty());
+	}
+
+	/**
+	 * Tests finding clients by the month their card expires.
+	 */
+	@Test
+	public void testExpiryMonth() {
+		assertEquals(2, store.findByExpiryMonth(2018, 8).size());
+		assertEquals(1, store.findByExpiryMonth(2017, 10).size());
+		assertTrue(store.findByExpiryMonth(2017, 1).isEmpty());
+	}
+
+	/**
+	 * Tests the indexes ignore the case of last names and find the clients
+	 * of the last month of a year.
+	 */
+	@Test
+	public void testIndexBounds() {
+		store.put(new Client("de Vries", "Ann", "ann@email.com", "4 Road",
+				"1234123412341234", "2018-12-31"));
+		store.put(new Client("Doe", "Bob", "bob@email.com", "5 Road",
+				"4321432143214321", "2019-01-01"));
+		List<Client> found = store.findByLastNamePrefix("DOE");
+		assertEquals(3, found.size());
+		assertEquals("bob@email.com", found.get(0).getEmail());
+		assertEquals("jane@email.com", found.get(1).getEmail());
+		assertEquals(4, store.findByLastNamePrefix("d").size());
+
+		found = store.findByExpiryMonth(2018, 12);
+		assertEquals(1, found.size());
+		assertEquals("ann@email.com", found.get(0).getEmail());
+		assertEquals(1, store.findByExpiryMonth(2019, 1).size());
+	}
+
+	/**
+	 * Tests replacing a client moves it in the indexes, and the view of the
+	 * clients follows the store.
+	 */
+	@Test
+	public void testReplaceAndRemove() {
+		Client moved = new Client("Smith", "Jane", "jane@email.com", "1 Road",
+				"1111222233334444", "2019-01-31");
+		assertNotNull(store.put(moved));
+		assertEquals(3, store.getClients().size());
+		assertSame(moved, store.get("jane@email.com"));
+		assertEquals(1, store.findByLastNamePrefix("doe").size());
+		assertEquals(1, store.findByLastNamePrefix("smi").size());
+		assertEquals(1, store.findByExpiryMonth(2018, 8).size());
+		assertEquals(1, store.findByExpiryMonth(2019, 1).size());
+
+		assertSame(moved, store.remove("jane@email.com"));
+		assertNull(store.remove("jane@email.com"));
+		assertFalse(store.contains("jane@email.com"));
+		assertEquals(2, store.getClients().size());
+		assertTrue(store.findByLastNamePrefix("smi").isEmpty());
+	}
+
+	/**
+	 * Tests the cached row of a client changes with it.
+	 */
+	@Test
+	public void testCachedRow() {
+		Client client = store.get("richard@email.com");
+		assertEquals("Roe,Richard,richard@email.com,3 Road,9999888877776666,"
+				+ "2017-10-01", client.toString());
+		client.setAddress("4 Road");
+		assertEquals("Roe,Richard,richard@email.com,4 Road,9999888877776666,"
+				+ "2017-10-01", client.toString());
+	}
+}
@@ -118,4 +118,19 @@ public class TestAssertions {
 			assertTrue(e.getMessage() == null);
 		}
 	}
+	
+	/**
+	 * Tests the message of a failed check ends with its value, and a check
+	 * that passes does not fail.
+	 */
+	@Test
+	public void testArgumentMessageValue() {
+		checkArgument(true, "found ", 3);
+		try {
+			checkArgument(false, "expected 6 columns but found ", 3);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("expected 6 columns but found 3", e.getMessage());
+		}
+	}
 }
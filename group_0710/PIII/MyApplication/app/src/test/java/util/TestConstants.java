@@ -2,7 +2,9 @@ package util;
 
 import static org.junit.Assert.*;
 
+import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
 
 import org.junit.Test;
 
@@ -39,4 +41,23 @@ public class TestConstants {
 	public void testNull() {
 		Constants.parseDate(null);
 	}
+
+	/**
+	 * Tests epoch days and minutes agree with Joda over leap years, century
+	 * years and dates before the epoch.
+	 */
+	@Test
+	public void testEpochConversions() {
+		assertEquals(0, Constants.toEpochDay(new LocalDate(1970, 1, 1)));
+		assertEquals(-1, Constants.toEpochDay(new LocalDate(1969, 12, 31)));
+		LocalDateTime time = new LocalDateTime(1899, 12, 31, 23, 59);
+		while (time.getYear() < 2101) {
+			long millis = time.toDateTime(DateTimeZone.UTC).getMillis();
+			assertEquals(Math.round(Math.floor(millis / 60000.0)),
+					Constants.toEpochMinutes(time));
+			assertEquals(Math.round(Math.floor(millis / 86400000.0)),
+					Constants.toEpochDay(time.toLocalDate()));
+			time = time.plusHours(19).plusMinutes(7);
+		}
+	}
 }
@@ -0,0 +1,86 @@
+package util;
+
+import static org.junit.Assert.*;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+/**
+ * Tests converting money between dollars and cents.
+ *
+ * @author Chris
+ */
+public class TestMoney {
+
+	/**
+	 * Tests amounts with up to two decimal places are parsed exactly.
+	 */
+	@Test
+	public void testParseCents() {
+		assertEquals(39999, Money.parseCents("399.99"));
+		assertEquals(40050, Money.parseCents("400.5"));
+		assertEquals(40000, Money.parseCents("400"));
+		assertEquals(40000, Money.parseCents("400."));
+		assertEquals(5, Money.parseCents("0.05"));
+		assertEquals(50, Money.parseCents(".5"));
+		assertEquals(1999, Money.parseCents(" 19.99 "));
+		assertEquals(-1999, Money.parseCents("-19.99"));
+		assertEquals(Long.MAX_VALUE - 8,
+				Money.parseCents("92233720368547757.99"));
+	}
+
+	/**
+	 * Tests amounts that are not exact cents are refused.
+	 */
+	@Test
+	public void testParseCentsInvalid() {
+		String[] invalid = { "", " ", ".", "-", "1.234", "1,00", "12a",
+				"1.2.3", "1e3", "92233720368547758.00" };
+		for (String text : invalid) {
+			try {
+				Money.parseCents(text);
+				fail(text);
+			} catch (NumberFormatException e) {
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Tests formatting matches String.format with two decimal places.
+	 */
+	@Test
+	public void testFormat() {
+		long[] amounts = { 0, 5, 10, 99, 100, 39999, 123456789, -5, -150 };
+		for (long cents : amounts) {
+			assertEquals(String.format(Locale.US, "%.2f", cents / 100.0),
+					Money.format(cents));
+		}
+		assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+		assertEquals("x1.50", Money.append(new StringBuilder("x"), 150)
+				.toString());
+	}
+
+	/**
+	 * Tests cents add up where doubles would drift.
+	 */
+	@Test
+	public void testConversions() {
+		assertEquals(30, Money.toCents(0.1) + Money.toCents(0.2));
+		assertEquals(39999, Money.toCents(399.99));
+		assertEquals(Long.MAX_VALUE, Money.toCents(Double.MAX_VALUE));
+		assertEquals(399.99, Money.toDollars(39999), 0);
+		assertTrue(Money.compare(1, 2) < 0);
+		assertTrue(Money.compare(2, 1) > 0);
+		assertEquals(0, Money.compare(Long.MAX_VALUE, Long.MAX_VALUE));
+	}
+
+	/**
+	 * Tests an amount that is not a number is refused.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testToCentsNaN() {
+		Money.toCents(Double.NaN);
+	}
+}
@@ -0,0 +1,113 @@
+package util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the open addressing hashed linked lists.
+ *
+ * @author Chris
+ */
+public class TestOpenHashedLinkedList {
+
+	/**
+	 * Tests the same contract as the doubly hashed list: elements are added
+	 * once, found, and kept in the order they were added.
+	 */
+	@Test
+	public void testTailAndContains() {
+		HashedLinkedList<String> dl = new OpenHashedLinkedList<String>();
+		assertEquals(0, dl.size());
+		dl.addTail("Hi");
+		dl.addTail("Hello");
+		assertEquals(2, dl.size());
+		assertTrue(dl.contains("Hi"));
+		assertFalse(dl.contains("Hey"));
+		assertFalse(dl.contains(null));
+		assertEquals(Arrays.asList("Hi", "Hello"), new ArrayList<String>(
+				dl.getList()));
+		assertEquals("Hello", dl.getList().get(1));
+		assertTrue(dl.getSet().contains("Hello"));
+		try {
+			dl.addTail("Hi");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			dl.addTail(null);
+			fail();
+		} catch (NullPointerException e) {
+		}
+	}
+
+	/**
+	 * Tests removing keeps the order of the rest, and the slots of removed
+	 * elements are used again, against a LinkedHashSet doing the same.
+	 */
+	@Test
+	public void testRemoveMatchesLinkedHashSet() {
+		OpenHashedLinkedList<Integer> list = new OpenHashedLinkedList<>();
+		IntHashedLinkedList ints = new IntHashedLinkedList();
+		LongHashedLinkedList longs = new LongHashedLinkedList();
+		LinkedHashSet<Integer> expected = new LinkedHashSet<>();
+		Random random = new Random(207);
+		for (int i = 0; i < 20000; i++) {
+			// Multiples of 1024 all fall in the same few buckets unmixed.
+			int value = random.nextInt(500) * 1024;
+			if (random.nextBoolean()) {
+				boolean added = expected.add(value);
+				assertEquals(added, !list.contains(value));
+				if (added) {
+					list.addTail(value);
+				}
+				assertEquals(added, ints.add(value));
+				assertEquals(added, longs.add((long) value << 32));
+			} else {
+				boolean removed = expected.remove(value);
+				assertEquals(removed, list.remove(value));
+				assertEquals(removed, ints.remove(value));
+				assertEquals(removed, longs.remove((long) value << 32));
+			}
+			assertEquals(expected.size(), list.size());
+		}
+
+		List<Integer> order = new ArrayList<>(expected);
+		assertEquals(order, new ArrayList<Integer>(list.getSet()));
+		int[] intOrder = ints.toArray();
+		long[] longOrder = longs.toArray();
+		for (int i = 0; i < order.size(); i++) {
+			assertEquals((int) order.get(i), intOrder[i]);
+			assertEquals((long) order.get(i) << 32, longOrder[i]);
+			assertTrue(ints.contains(intOrder[i]));
+		}
+
+		ints.clear();
+		assertEquals(0, ints.size());
+		assertFalse(ints.contains(order.get(0)));
+		ints.addTail(7);
+		assertArrayEquals(new int[] { 7 }, ints.toArray());
+	}
+
+	/**
+	 * Tests the doubly hashed list removes in the same way.
+	 */
+	@Test
+	public void testDoublyHashedRemove() {
+		HashedLinkedList<String> dl = new DoublyHashedUniqueLinkedList<>();
+		dl.addTail("a");
+		dl.addTail("b");
+		dl.addTail("c");
+		assertTrue(dl.remove("b"));
+		assertFalse(dl.remove("b"));
+		assertFalse(dl.remove(null));
+		assertEquals(Arrays.asList("a", "c"), dl.getList());
+		assertFalse(dl.getSet().contains("b"));
+	}
+}